@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache} under contention. The keys follow a skewed distribution so that most reads hit a small set
+ * of hot entries, which is the access pattern of the request and fielddata caches under high query load.
+ */
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CacheContentionBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 16;
+    private static final int KEYS_MASK = NUMBER_OF_KEYS - 1;
+
+    @Param({"16384"})
+    private int maximumWeight;
+
+    @Param({"false", "true"})
+    private boolean frequencyBasedAdmission;
+
+    private Cache<Integer, Integer> cache;
+
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = CacheBuilder.<Integer, Integer>builder()
+            .setMaximumWeight(maximumWeight)
+            .setFrequencyBasedAdmission(frequencyBasedAdmission)
+            .build();
+        // approximate a zipfian distribution: each key is drawn from a range that shrinks geometrically
+        Random random = new Random(42);
+        keys = new Integer[NUMBER_OF_KEYS];
+        for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+            int range = NUMBER_OF_KEYS >>> random.nextInt(16);
+            keys[i] = random.nextInt(range);
+        }
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(keys[i], keys[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index = ThreadLocalRandom.current().nextInt(NUMBER_OF_KEYS);
+    }
+
+    private Integer readOrLoad(ThreadState threadState) {
+        final Integer key = keys[threadState.index++ & KEYS_MASK];
+        Integer value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+            value = key;
+        }
+        return value;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer readOrLoad_01(ThreadState threadState) {
+        return readOrLoad(threadState);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer readOrLoad_08(ThreadState threadState) {
+        return readOrLoad(threadState);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Integer readOrLoad_64(ThreadState threadState) {
+        return readOrLoad(threadState);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Integer read_64(ThreadState threadState) {
+        return cache.get(keys[threadState.index++ & KEYS_MASK]);
+    }
+}
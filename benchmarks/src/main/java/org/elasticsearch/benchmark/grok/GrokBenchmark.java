@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.grok;
+
+import org.elasticsearch.grok.Grok;
+import org.elasticsearch.grok.MatcherWatchdog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways the grok processor can match a value against a list of patterns while keeping track of which pattern
+ * matched and how long matching took: a single alternation of all patterns that captures the index of the pattern that matched,
+ * or one expression per pattern tried in order, each attempt timed on its own.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class GrokBenchmark {
+
+    private static final String PATTERN_MATCH_KEY = "_ingest._grok_match_index";
+
+    @Param({ "1", "10", "30" })
+    public int numPatterns;
+
+    @Param({ "first", "last", "none" })
+    public String matchingPattern;
+
+    private String value;
+    private String[] patternMatchKeys;
+    private Grok combined;
+    private List<Grok> sequential;
+    private long timeInNanos;
+
+    @Setup
+    public void setUp() {
+        // like the watchdog of the ingest node, minus the scheduling of the checks for long running matches
+        MatcherWatchdog watchdog = MatcherWatchdog.newInstance(1000, 1000, () -> System.nanoTime() / 1_000_000, (delay, command) -> {});
+        Map<String, String> patternBank = Grok.getBuiltinPatterns();
+        List<String> patterns = new ArrayList<>(numPatterns);
+        StringBuilder combinedPattern = new StringBuilder();
+        patternMatchKeys = new String[numPatterns];
+        sequential = new ArrayList<>(numPatterns);
+        for (int i = 0; i < numPatterns; i++) {
+            String pattern = "%{IP:client} %{WORD:method} /app" + i + "%{URIPATHPARAM:request} %{NUMBER:bytes} %{NUMBER:duration}";
+            patterns.add(pattern);
+            patternMatchKeys[i] = PATTERN_MATCH_KEY + "." + i;
+            sequential.add(new Grok(patternBank, pattern, watchdog));
+            if (i > 0) {
+                combinedPattern.append('|');
+            }
+            combinedPattern.append("(?<").append(patternMatchKeys[i]).append('>').append(pattern).append(')');
+        }
+        combined = new Grok(patternBank, numPatterns == 1 ? patterns.get(0) : combinedPattern.toString(), watchdog);
+        int app;
+        switch (matchingPattern) {
+            case "first":
+                app = 0;
+                break;
+            case "last":
+                app = numPatterns - 1;
+                break;
+            case "none":
+                app = numPatterns;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown matching pattern [" + matchingPattern + "]");
+        }
+        value = "55.3.244.1 GET /app" + app + "/index.html?q=elasticsearch 15824 0.043";
+    }
+
+    @Benchmark
+    public int combined() {
+        long startTimeInNanos = System.nanoTime();
+        Map<String, Object> matches = combined.captures(value);
+        int matchIndex = -1;
+        if (matches != null) {
+            matchIndex = 0;
+            if (numPatterns > 1) {
+                for (int i = 0; i < patternMatchKeys.length; i++) {
+                    if (matches.remove(patternMatchKeys[i]) != null) {
+                        matchIndex = i;
+                        break;
+                    }
+                }
+            }
+        }
+        timeInNanos += System.nanoTime() - startTimeInNanos;
+        return matchIndex;
+    }
+
+    @Benchmark
+    public int sequential() {
+        for (int i = 0; i < sequential.size(); i++) {
+            long startTimeInNanos = System.nanoTime();
+            Map<String, Object> matches = sequential.get(i).captures(value);
+            timeInNanos += System.nanoTime() - startTimeInNanos;
+            if (matches != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
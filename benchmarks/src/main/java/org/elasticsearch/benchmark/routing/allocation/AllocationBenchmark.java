@@ -106,7 +106,12 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // large clusters with tens of thousands of shards
+        "     1000|     10|        1|   100",
+        "     5000|      3|        1|   200",
+        "     2500|     10|        1|   300"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -19,16 +19,27 @@
 
 package org.elasticsearch.ingest.common;
 
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.grok.Grok;
 import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.AbstractProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestStats;
 import org.elasticsearch.ingest.Processor;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static org.elasticsearch.ingest.ConfigurationUtils.newConfigurationException;
 
@@ -36,21 +47,68 @@ public final class GrokProcessor extends AbstractProcessor {
 
     public static final String TYPE = "grok";
     private static final String PATTERN_MATCH_KEY = "_ingest._grok_match_index";
+    private static final String NO_MATCH_KEY = "_no_match";
 
     private final String matchField;
     private final List<String> matchPatterns;
+    // all patterns as a single alternation that captures which pattern matched, null if the patterns can't be combined
     private final Grok grok;
+    // one expression per pattern, tried in order, only if the patterns can't be combined
+    private final List<Grok> groks;
+    // the captures that tell which of the patterns matched, null if there is only one pattern
+    private final String[] patternMatchKeys;
     private final boolean traceMatch;
     private final boolean ignoreMissing;
+    private final CounterMetric[] patternMatchCounts;
+    private final CounterMetric[] patternTimesInNanos;
+    private final CounterMetric noMatchCount = new CounterMetric();
+    private final CounterMetric noMatchTimeInNanos = new CounterMetric();
 
     GrokProcessor(String tag, Map<String, String> patternBank, List<String> matchPatterns, String matchField,
                   boolean traceMatch, boolean ignoreMissing, MatcherWatchdog matcherWatchdog) {
+        this(tag, matchPatterns, matchField, traceMatch, ignoreMissing, pattern -> new Grok(patternBank, pattern, matcherWatchdog));
+    }
+
+    GrokProcessor(String tag, List<String> matchPatterns, String matchField, boolean traceMatch, boolean ignoreMissing,
+                  Function<String, Grok> grokCompiler) {
         super(tag);
         this.matchField = matchField;
         this.matchPatterns = matchPatterns;
-        this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog);
         this.traceMatch = traceMatch;
         this.ignoreMissing = ignoreMissing;
+        if (matchPatterns.size() > 1) {
+            String[] patternMatchKeys = new String[matchPatterns.size()];
+            for (int i = 0; i < patternMatchKeys.length; i++) {
+                patternMatchKeys[i] = PATTERN_MATCH_KEY + "." + i;
+            }
+            Grok grok;
+            List<Grok> groks;
+            try {
+                grok = grokCompiler.apply(combinePatterns(matchPatterns));
+                groks = null;
+            } catch (RuntimeException e) {
+                // patterns with numbered back references can't be combined with named groups, they are tried one by one instead
+                grok = null;
+                groks = new ArrayList<>(matchPatterns.size());
+                for (String matchPattern : matchPatterns) {
+                    groks.add(grokCompiler.apply(matchPattern));
+                }
+                groks = Collections.unmodifiableList(groks);
+            }
+            this.grok = grok;
+            this.groks = groks;
+            this.patternMatchKeys = patternMatchKeys;
+        } else {
+            this.grok = grokCompiler.apply(matchPatterns.get(0));
+            this.groks = null;
+            this.patternMatchKeys = null;
+        }
+        this.patternMatchCounts = new CounterMetric[matchPatterns.size()];
+        this.patternTimesInNanos = new CounterMetric[matchPatterns.size()];
+        for (int i = 0; i < matchPatterns.size(); i++) {
+            patternMatchCounts[i] = new CounterMetric();
+            patternTimesInNanos[i] = new CounterMetric();
+        }
     }
 
     @Override
@@ -63,34 +121,100 @@ public final class GrokProcessor extends AbstractProcessor {
             throw new IllegalArgumentException("field [" + matchField + "] is null, cannot process it.");
         }
 
-        Map<String, Object> matches = grok.captures(fieldValue);
+        long startTimeInNanos = System.nanoTime();
+        Map<String, Object> matches = null;
+        int matchIndex = 0;
+        if (grok != null) {
+            matches = grok.captures(fieldValue);
+            if (matches != null) {
+                matchIndex = matchedPattern(matches);
+            }
+        } else {
+            for (; matchIndex < groks.size(); matchIndex++) {
+                matches = groks.get(matchIndex).captures(fieldValue);
+                if (matches != null) {
+                    break;
+                }
+            }
+        }
+        long timeInNanos = System.nanoTime() - startTimeInNanos;
         if (matches == null) {
+            noMatchCount.inc();
+            noMatchTimeInNanos.inc(timeInNanos);
             throw new IllegalArgumentException("Provided Grok expressions do not match field value: [" + fieldValue + "]");
         }
+        patternMatchCounts[matchIndex].inc();
+        patternTimesInNanos[matchIndex].inc(timeInNanos);
 
         matches.forEach(ingestDocument::setFieldValue);
 
         if (traceMatch) {
-            if (matchPatterns.size() > 1) {
-                @SuppressWarnings("unchecked")
-                HashMap<String, String> matchMap = (HashMap<String, String>) ingestDocument.getFieldValue(PATTERN_MATCH_KEY, Object.class);
-                matchMap.keySet().stream().findFirst().ifPresent((index) -> {
-                    ingestDocument.setFieldValue(PATTERN_MATCH_KEY, index);
-                });
-            } else {
-                ingestDocument.setFieldValue(PATTERN_MATCH_KEY, "0");
-            }
+            ingestDocument.setFieldValue(PATTERN_MATCH_KEY, Integer.toString(matchIndex));
         }
         return ingestDocument;
     }
 
+    /**
+     * Returns the index of the pattern of the combined expression that produced the given matches, and removes the capture
+     * that identifies it.
+     */
+    private int matchedPattern(Map<String, Object> matches) {
+        if (patternMatchKeys == null) {
+            return 0;
+        }
+        for (int i = 0; i < patternMatchKeys.length; i++) {
+            if (matches.remove(patternMatchKeys[i]) != null) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("none of the patterns of the grok expression matched");
+    }
+
+    /**
+     * The number of values each pattern matched and the time spent matching them, keyed by pattern. Since the patterns are
+     * tried in order, the time of a pattern includes the time spent trying the patterns before it on the values it matched.
+     * The values that none of the patterns matched and the time spent trying all patterns on them are reported under
+     * {@value #NO_MATCH_KEY}.
+     */
+    @Override
+    public Map<String, IngestStats.DetailedStat> getDetailedStats() {
+        Map<String, IngestStats.DetailedStat> detailedStats = new LinkedHashMap<>();
+        for (int i = 0; i < matchPatterns.size(); i++) {
+            detailedStats.putIfAbsent(matchPatterns.get(i), new IngestStats.DetailedStat(patternMatchCounts[i].count(),
+                TimeUnit.NANOSECONDS.toMillis(patternTimesInNanos[i].count())));
+        }
+        detailedStats.putIfAbsent(NO_MATCH_KEY, new IngestStats.DetailedStat(noMatchCount.count(),
+            TimeUnit.NANOSECONDS.toMillis(noMatchTimeInNanos.count())));
+        return detailedStats;
+    }
+
+    @Override
+    public void addDetailedStats(Processor previous) {
+        if (previous instanceof GrokProcessor == false) {
+            return;
+        }
+        GrokProcessor previousGrok = (GrokProcessor) previous;
+        for (int i = 0; i < matchPatterns.size(); i++) {
+            int previousIndex = previousGrok.matchPatterns.indexOf(matchPatterns.get(i));
+            if (previousIndex >= 0 && matchPatterns.indexOf(matchPatterns.get(i)) == i) {
+                patternMatchCounts[i].inc(previousGrok.patternMatchCounts[previousIndex].count());
+                patternTimesInNanos[i].inc(previousGrok.patternTimesInNanos[previousIndex].count());
+            }
+        }
+        noMatchCount.inc(previousGrok.noMatchCount.count());
+        noMatchTimeInNanos.inc(previousGrok.noMatchTimeInNanos.count());
+    }
+
     @Override
     public String getType() {
         return TYPE;
     }
 
-    Grok getGrok() {
-        return grok;
+    /**
+     * The expressions the patterns were compiled to: a single one for all patterns, unless they can't be combined.
+     */
+    List<Grok> getGroks() {
+        return grok != null ? Collections.singletonList(grok) : groks;
     }
 
     boolean isIgnoreMissing() {
@@ -105,35 +229,31 @@ public final class GrokProcessor extends AbstractProcessor {
         return matchPatterns;
     }
 
-    static String combinePatterns(List<String> patterns, boolean traceMatch) {
-        String combinedPattern;
-        if (patterns.size() > 1) {
-            combinedPattern = "";
-            for (int i = 0; i < patterns.size(); i++) {
-                String pattern = patterns.get(i);
-                String valueWrap;
-                if (traceMatch) {
-                    valueWrap = "(?<" + PATTERN_MATCH_KEY + "." + i + ">" + pattern + ")";
-                } else {
-                    valueWrap = "(?:" + patterns.get(i) + ")";
-                }
-                if (combinedPattern.equals("")) {
-                    combinedPattern = valueWrap;
-                } else {
-                    combinedPattern = combinedPattern + "|" + valueWrap;
-                }
+    /**
+     * Combines the patterns into a single alternation in which each pattern is a named group, so that a single match of the
+     * value tells which pattern matched.
+     */
+    static String combinePatterns(List<String> patterns) {
+        StringBuilder combinedPattern = new StringBuilder();
+        for (int i = 0; i < patterns.size(); i++) {
+            if (i > 0) {
+                combinedPattern.append('|');
             }
-        }  else {
-            combinedPattern = patterns.get(0);
+            combinedPattern.append("(?<").append(PATTERN_MATCH_KEY).append('.').append(i).append('>').append(patterns.get(i)).append(')');
         }
-
-        return combinedPattern;
+        return combinedPattern.toString();
     }
 
     public static final class Factory implements Processor.Factory {
 
+        // compiled expressions are shared by the grok processors of all pipelines on the node
+        private static final int COMPILED_GROK_CACHE_SIZE = 1000;
+
         private final Map<String, String> builtinPatterns;
         private final MatcherWatchdog matcherWatchdog;
+        private final Cache<CacheKey, Grok> compiledGroks = CacheBuilder.<CacheKey, Grok>builder()
+            .setMaximumWeight(COMPILED_GROK_CACHE_SIZE)
+            .build();
 
         public Factory(Map<String, String> builtinPatterns, MatcherWatchdog matcherWatchdog) {
             this.builtinPatterns = builtinPatterns;
@@ -158,13 +278,53 @@ public final class GrokProcessor extends AbstractProcessor {
             }
 
             try {
-                return new GrokProcessor(processorTag, patternBank, matchPatterns, matchField, traceMatch, ignoreMissing,
-                    matcherWatchdog);
+                return new GrokProcessor(processorTag, matchPatterns, matchField, traceMatch, ignoreMissing,
+                    pattern -> compile(patternBank, customPatternBank, pattern));
             } catch (Exception e) {
                 throw newConfigurationException(TYPE, processorTag, "patterns",
                     "Invalid regex pattern found in: " + matchPatterns + ". " + e.getMessage());
             }
 
         }
+
+        private Grok compile(Map<String, String> patternBank, Map<String, String> customPatternBank, String pattern) {
+            CacheKey key = new CacheKey(customPatternBank == null ? Collections.emptyMap() : customPatternBank, pattern);
+            try {
+                return compiledGroks.computeIfAbsent(key, k -> new Grok(patternBank, pattern, matcherWatchdog));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        // visible for testing
+        int compiledGrokCount() {
+            return compiledGroks.count();
+        }
+
+        private static final class CacheKey {
+            private final Map<String, String> customPatternBank;
+            private final String pattern;
+
+            private CacheKey(Map<String, String> customPatternBank, String pattern) {
+                this.customPatternBank = customPatternBank;
+                this.pattern = pattern;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (o == null || getClass() != o.getClass()) return false;
+                CacheKey cacheKey = (CacheKey) o;
+                return customPatternBank.equals(cacheKey.customPatternBank) && pattern.equals(cacheKey.pattern);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(customPatternBank, pattern);
+            }
+        }
     }
 }
@@ -29,7 +29,6 @@ import java.util.Map;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.notNullValue;
 
 public class GrokProcessorFactoryTests extends ESTestCase {
 
@@ -43,7 +42,7 @@ public class GrokProcessorFactoryTests extends ESTestCase {
         GrokProcessor processor = factory.create(null, processorTag, config);
         assertThat(processor.getTag(), equalTo(processorTag));
         assertThat(processor.getMatchField(), equalTo("_field"));
-        assertThat(processor.getGrok(), notNullValue());
+        assertThat(processor.getGroks().size(), equalTo(1));
         assertThat(processor.isIgnoreMissing(), is(false));
     }
 
@@ -58,7 +57,7 @@ public class GrokProcessorFactoryTests extends ESTestCase {
         GrokProcessor processor = factory.create(null, processorTag, config);
         assertThat(processor.getTag(), equalTo(processorTag));
         assertThat(processor.getMatchField(), equalTo("_field"));
-        assertThat(processor.getGrok(), notNullValue());
+        assertThat(processor.getGroks().size(), equalTo(1));
         assertThat(processor.isIgnoreMissing(), is(true));
     }
 
@@ -96,8 +95,29 @@ public class GrokProcessorFactoryTests extends ESTestCase {
         config.put("pattern_definitions", Collections.singletonMap("MY_PATTERN", "foo"));
         GrokProcessor processor = factory.create(null, null, config);
         assertThat(processor.getMatchField(), equalTo("_field"));
-        assertThat(processor.getGrok(), notNullValue());
-        assertThat(processor.getGrok().match("foo!"), equalTo(true));
+        assertThat(processor.getGroks().size(), equalTo(1));
+        assertThat(processor.getGroks().get(0).match("foo!"), equalTo(true));
+    }
+
+    public void testCompiledPatternsAreShared() throws Exception {
+        GrokProcessor.Factory factory = new GrokProcessor.Factory(Collections.emptyMap(), MatcherWatchdog.noop());
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> config = new HashMap<>();
+            config.put("field", "_field");
+            config.put("patterns", Collections.singletonList("%{MY_PATTERN:name}!"));
+            config.put("pattern_definitions", Collections.singletonMap("MY_PATTERN", "foo"));
+            GrokProcessor processor = factory.create(null, null, config);
+            assertThat(processor.getGroks().get(0).match("foo!"), equalTo(true));
+        }
+        assertThat(factory.compiledGrokCount(), equalTo(1));
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("field", "_field");
+        config.put("patterns", Collections.singletonList("%{MY_PATTERN:name}!"));
+        config.put("pattern_definitions", Collections.singletonMap("MY_PATTERN", "bar"));
+        GrokProcessor processor = factory.create(null, null, config);
+        assertThat(processor.getGroks().get(0).match("bar!"), equalTo(true));
+        assertThat(factory.compiledGrokCount(), equalTo(2));
     }
 
     public void testCreateWithInvalidPattern() throws Exception {
@@ -21,12 +21,14 @@ package org.elasticsearch.ingest.common;
 
 import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.ingest.IngestStats;
 import org.elasticsearch.ingest.RandomDocumentPicks;
 import org.elasticsearch.test.ESTestCase;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
@@ -192,20 +194,76 @@ public class GrokProcessorTests extends ESTestCase {
         assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("0"));
     }
 
-    public void testCombinedPatterns() {
-        String combined;
-        combined = GrokProcessor.combinePatterns(Arrays.asList(""), false);
-        assertThat(combined, equalTo(""));
-        combined = GrokProcessor.combinePatterns(Arrays.asList(""), true);
-        assertThat(combined, equalTo(""));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo"), false);
-        assertThat(combined, equalTo("foo"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo"), true);
-        assertThat(combined, equalTo("foo"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo", "bar"), false);
-        assertThat(combined, equalTo("(?:foo)|(?:bar)"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo", "bar"), true);
-        assertThat(combined, equalTo("(?<_ingest._grok_match_index.0>foo)|(?<_ingest._grok_match_index.1>bar)"));
+    public void testPatternStats() throws Exception {
+        String fieldName = RandomDocumentPicks.randomFieldName(random());
+        Map<String, String> patternBank = new HashMap<>();
+        patternBank.put("ONE", "1");
+        patternBank.put("TWO", "2");
+        patternBank.put("THREE", "3");
+        GrokProcessor processor = new GrokProcessor(randomAlphaOfLength(10), patternBank,
+            Arrays.asList("%{ONE:one}", "%{TWO:two}", "%{THREE:three}"), fieldName, false, false, MatcherWatchdog.noop());
+        // the patterns are matched as a single expression
+        assertThat(processor.getGroks().size(), equalTo(1));
+        for (String value : Arrays.asList("abc23", "2", "x3", "22", "4")) {
+            IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+            doc.setFieldValue(fieldName, value);
+            if (value.equals("4")) {
+                expectThrows(IllegalArgumentException.class, () -> processor.execute(doc));
+            } else {
+                processor.execute(doc);
+            }
+            assertThat(doc.hasField("_ingest._grok_match_index"), equalTo(false));
+        }
+
+        Map<String, IngestStats.DetailedStat> patternStats = processor.getDetailedStats();
+        assertThat(List.copyOf(patternStats.keySet()),
+            equalTo(Arrays.asList("%{ONE:one}", "%{TWO:two}", "%{THREE:three}", "_no_match")));
+        assertThat(patternStats.get("%{ONE:one}").getCount(), equalTo(0L));
+        assertThat(patternStats.get("%{TWO:two}").getCount(), equalTo(3L));
+        assertThat(patternStats.get("%{THREE:three}").getCount(), equalTo(1L));
+        assertThat(patternStats.get("_no_match").getCount(), equalTo(1L));
+    }
+
+    public void testPatternStatsWithNumberedBackReference() throws Exception {
+        String fieldName = RandomDocumentPicks.randomFieldName(random());
+        IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue(fieldName, "aa");
+        GrokProcessor processor = new GrokProcessor(randomAlphaOfLength(10), Collections.emptyMap(),
+            Arrays.asList("b", "(a)\\1"), fieldName, true, false, MatcherWatchdog.noop());
+        // numbered back references can't be combined with the named groups that tell the patterns apart
+        assertThat(processor.getGroks().size(), equalTo(2));
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("1"));
+        assertThat(processor.getDetailedStats().get("b").getCount(), equalTo(0L));
+        assertThat(processor.getDetailedStats().get("(a)\\1").getCount(), equalTo(1L));
+    }
+
+    public void testAddDetailedStats() throws Exception {
+        String fieldName = RandomDocumentPicks.randomFieldName(random());
+        Map<String, String> patternBank = new HashMap<>();
+        patternBank.put("ONE", "1");
+        patternBank.put("TWO", "2");
+        patternBank.put("THREE", "3");
+        GrokProcessor previous = new GrokProcessor(randomAlphaOfLength(10), patternBank,
+            Arrays.asList("%{ONE:one}", "%{TWO:two}"), fieldName, false, false, MatcherWatchdog.noop());
+        for (String value : Arrays.asList("1", "2", "2", "3")) {
+            IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+            doc.setFieldValue(fieldName, value);
+            if (value.equals("3")) {
+                expectThrows(IllegalArgumentException.class, () -> previous.execute(doc));
+            } else {
+                previous.execute(doc);
+            }
+        }
+
+        GrokProcessor processor = new GrokProcessor(randomAlphaOfLength(10), patternBank,
+            Arrays.asList("%{THREE:three}", "%{TWO:two}"), fieldName, false, false, MatcherWatchdog.noop());
+        processor.addDetailedStats(previous);
+        Map<String, IngestStats.DetailedStat> patternStats = processor.getDetailedStats();
+        assertThat(List.copyOf(patternStats.keySet()), equalTo(Arrays.asList("%{THREE:three}", "%{TWO:two}", "_no_match")));
+        assertThat(patternStats.get("%{THREE:three}").getCount(), equalTo(0L));
+        assertThat(patternStats.get("%{TWO:two}").getCount(), equalTo(2L));
+        assertThat(patternStats.get("_no_match").getCount(), equalTo(1L));
     }
 
     public void testCombineSamePatternNameAcrossPatterns() throws Exception {
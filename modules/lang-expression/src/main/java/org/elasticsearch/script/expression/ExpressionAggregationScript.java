@@ -26,6 +26,7 @@ import org.apache.lucene.expressions.SimpleBindings;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DoubleValues;
 import org.apache.lucene.search.DoubleValuesSource;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.script.AggregationScript;
 import org.elasticsearch.script.GeneralScriptException;
 
@@ -54,6 +55,31 @@ class ExpressionAggregationScript implements AggregationScript.LeafFactory {
         return needsScore;
     }
 
+    /**
+     * Expressions always evaluate to exactly one double per document, so aggregations can read them directly from the
+     * {@link DoubleValues} of the expression rather than through boxed script results.
+     */
+    @Override
+    public NumericDoubleValues singleDoubleValues(LeafReaderContext leaf) throws IOException {
+        assert needsScore == false;
+        final DoubleValues values = source.getValues(leaf, null);
+        return new NumericDoubleValues() {
+            @Override
+            public boolean advanceExact(int doc) throws IOException {
+                return values.advanceExact(doc);
+            }
+
+            @Override
+            public double doubleValue() throws IOException {
+                try {
+                    return values.doubleValue();
+                } catch (Exception exception) {
+                    throw new GeneralScriptException("Error evaluating " + exprScript, exception);
+                }
+            }
+        };
+    }
+
     @Override
     public AggregationScript newInstance(final LeafReaderContext leaf) throws IOException {
         return new AggregationScript() {
@@ -239,23 +239,26 @@ public final class DefBootstrap {
     }
 
     /**
-     * CallSite that implements the monomorphic inlining cache (for operators).
+     * CallSite that implements the polymorphic inlining cache for operators. Compiled scripts are shared by every request
+     * on the node, so a single operator commonly sees a handful of operand types (e.g. {@code doc['field'].value * params.factor}
+     * over a {@code long} field in one index and a {@code double} field in another): each combination keeps its own typed,
+     * unboxed handle until {@code MAX_DEPTH} is reached, after which we fall back to the generic implementation.
      */
     static final class MIC extends MutableCallSite {
-        private boolean initialized;
+        /** maximum number of operand type combinations before we go megamorphic */
+        static final int MAX_DEPTH = 5;
 
         private final String name;
         private final int flavor;
         private final int flags;
+        int depth; // pkg-protected for testing
 
         MIC(String name, MethodType type, int initialDepth, int flavor, int flags) {
             super(type);
             this.name = name;
             this.flavor = flavor;
             this.flags = flags;
-            if (initialDepth > 0) {
-                initialized = true;
-            }
+            this.depth = initialDepth;
 
             MethodHandle fallback = FALLBACK.bindTo(this)
               .asCollector(Object[].class, type.parameterCount())
@@ -308,12 +311,12 @@ public final class DefBootstrap {
         }
 
         /**
-         * Called when a new type is encountered or if cached type does not match.
-         * In that case we revert to a generic, but slower operator handling.
+         * Called when a new type is encountered or if cached types do not match. Once more than {@code MAX_DEPTH}
+         * types have been seen we revert to a generic, but slower operator handling.
          */
         @SuppressForbidden(reason = "slow path")
         Object fallback(Object[] args) throws Throwable {
-            if (initialized) {
+            if (depth >= MAX_DEPTH) {
                 // caching defeated
                 MethodHandle generic = lookupGeneric();
                 setTarget(generic.asType(type()));
@@ -371,7 +374,7 @@ public final class DefBootstrap {
                 guard = MethodHandles.catchException(guard, NullPointerException.class, handler);
             }
 
-            initialized = true;
+            depth++;
 
             setTarget(guard);
             return target.invokeWithArguments(args);
@@ -22,6 +22,7 @@ package org.elasticsearch.painless;
 import org.elasticsearch.SpecialPermission;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.painless.Compiler.Loader;
+import org.elasticsearch.painless.antlr.Walker;
 import org.elasticsearch.painless.lookup.PainlessLookup;
 import org.elasticsearch.painless.lookup.PainlessLookupBuilder;
 import org.elasticsearch.painless.spi.Whitelist;
@@ -152,6 +153,16 @@ public final class PainlessScriptEngine implements ScriptEngine {
         }
     }
 
+    /**
+     * Painless sources that only differ in whitespace and comments compile to the same script, so the canonical form
+     * of a source is its tokens separated by single spaces.
+     */
+    @Override
+    public String canonicalize(String code, ScriptContext<?> context) {
+        PainlessLookup painlessLookup = contextsToLookups.get(context);
+        return painlessLookup == null ? code : Walker.canonicalizeSource(code, painlessLookup);
+    }
+
     @Override
     public Set<ScriptContext<?>> getSupportedContexts() {
         return contextsToCompilers.keySet();
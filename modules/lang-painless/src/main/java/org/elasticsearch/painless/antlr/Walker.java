@@ -26,6 +26,7 @@ import org.antlr.v4.runtime.DiagnosticErrorListener;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.elasticsearch.painless.CompilerSettings;
@@ -174,6 +175,32 @@ public final class Walker extends PainlessParserBaseVisitor<ANode> {
         return new Walker(mainMethod, sourceName, sourceText, settings, painlessLookup, debugStream).source;
     }
 
+    /**
+     * Returns the tokens of {@code sourceText} separated by single spaces, so sources that only differ in whitespace
+     * and comments have the same canonical form. The token that follows a dot is not separated from it since the lexer
+     * does not allow whitespace there, which keeps the canonical form lexing to the same tokens as the source. Returns
+     * {@code sourceText} unchanged if it cannot be tokenized, leaving it to the compiler to report the error.
+     */
+    public static String canonicalizeSource(String sourceText, PainlessLookup painlessLookup) {
+        PainlessLexer lexer = new EnhancedPainlessLexer(new ANTLRInputStream(sourceText), "canonicalize", painlessLookup);
+        lexer.removeErrorListeners();
+
+        StringBuilder canonical = new StringBuilder(sourceText.length());
+        try {
+            int previousType = Token.INVALID_TYPE;
+            for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+                if (canonical.length() > 0 && previousType != PainlessLexer.DOT && previousType != PainlessLexer.NSDOT) {
+                    canonical.append(' ');
+                }
+                canonical.append(token.getText());
+                previousType = token.getType();
+            }
+        } catch (RuntimeException e) {
+            return sourceText;
+        }
+        return canonical.toString();
+    }
+
     private final ScriptClassInfo scriptClassInfo;
     private final SClass source;
     private final CompilerSettings settings;
@@ -142,6 +142,64 @@ public class DefBootstrapTests extends ESTestCase {
         }));
     }
 
+    // test the polymorphic inline cache for operators
+
+    public void testOperatorTwoTypes() throws Throwable {
+        DefBootstrap.MIC site = (DefBootstrap.MIC) DefBootstrap.bootstrap(painlessLookup,
+                                                                          new FunctionTable(),
+                                                                          MethodHandles.publicLookup(),
+                                                                          "mul",
+                                                                          MethodType.methodType(double.class, Object.class, Object.class),
+                                                                          0,
+                                                                          DefBootstrap.BINARY_OPERATOR,
+                                                                          0);
+        MethodHandle handle = site.dynamicInvoker();
+        assertEquals(0, site.depth);
+
+        assertEquals(6d, (double)handle.invokeExact((Object)3L, (Object)2d), 0d);
+        assertEquals(1, site.depth);
+        assertEquals(3d, (double)handle.invokeExact((Object)1.5d, (Object)2d), 0d);
+        assertEquals(2, site.depth);
+
+        // both these should be cached
+        assertEquals(8d, (double)handle.invokeExact((Object)4L, (Object)2d), 0d);
+        assertEquals(2, site.depth);
+        assertEquals(5d, (double)handle.invokeExact((Object)2.5d, (Object)2d), 0d);
+        assertEquals(2, site.depth);
+    }
+
+    public void testOperatorTooManyTypes() throws Throwable {
+        // if this changes, test must be rewritten
+        assertEquals(5, DefBootstrap.MIC.MAX_DEPTH);
+        DefBootstrap.MIC site = (DefBootstrap.MIC) DefBootstrap.bootstrap(painlessLookup,
+                                                                          new FunctionTable(),
+                                                                          MethodHandles.publicLookup(),
+                                                                          "add",
+                                                                          MethodType.methodType(Object.class, Object.class, Object.class),
+                                                                          0,
+                                                                          DefBootstrap.BINARY_OPERATOR,
+                                                                          0);
+        MethodHandle handle = site.dynamicInvoker();
+        assertEquals(0, site.depth);
+
+        assertEquals(2, (Object)handle.invokeExact((Object)1, (Object)1));
+        assertEquals(1, site.depth);
+        assertEquals(2L, (Object)handle.invokeExact((Object)1L, (Object)1));
+        assertEquals(2, site.depth);
+        assertEquals(2f, (Object)handle.invokeExact((Object)1f, (Object)1));
+        assertEquals(3, site.depth);
+        assertEquals(2d, (Object)handle.invokeExact((Object)1d, (Object)1));
+        assertEquals(4, site.depth);
+        assertEquals("a1", (Object)handle.invokeExact((Object)"a", (Object)1));
+        assertEquals(5, site.depth);
+        // megamorphic: generic implementation
+        assertEquals(2d, (Object)handle.invokeExact((Object)1, (Object)1d));
+        assertEquals(5, site.depth);
+        // previously cached types still work
+        assertEquals(3, (Object)handle.invokeExact((Object)1, (Object)2));
+        assertEquals(3L, (Object)handle.invokeExact((Object)1L, (Object)2));
+    }
+
     // test operators with null guards
 
     public void testNullGuardAdd() throws Throwable {
@@ -70,4 +70,30 @@ public class ScriptEngineTests extends ScriptTestCase {
 
         assertEquals("value1", exec("return params.l.3.prop1;", vars, true));
     }
+
+    public void testCanonicalize() {
+        String canonical = scriptEngine.canonicalize("doc['price'].value * params.factor", PainlessTestScript.CONTEXT);
+        assertEquals(canonical, scriptEngine.canonicalize("doc['price'].value*params.factor", PainlessTestScript.CONTEXT));
+        assertEquals(canonical, scriptEngine.canonicalize("  doc['price'] .value\n\t*  params.factor  ", PainlessTestScript.CONTEXT));
+        assertEquals(canonical,
+            scriptEngine.canonicalize("/* price */ doc['price'].value * params.factor // factor\n", PainlessTestScript.CONTEXT));
+
+        // whitespace in literals is preserved
+        assertNotEquals(scriptEngine.canonicalize("return 'a b';", PainlessTestScript.CONTEXT),
+            scriptEngine.canonicalize("return 'a  b';", PainlessTestScript.CONTEXT));
+        // whitespace that separates tokens is significant
+        assertNotEquals(scriptEngine.canonicalize("x - -y", PainlessTestScript.CONTEXT),
+            scriptEngine.canonicalize("x--y", PainlessTestScript.CONTEXT));
+        // sources that cannot be tokenized are left to the compiler
+        assertEquals("return 'unterminated;", scriptEngine.canonicalize("return 'unterminated;", PainlessTestScript.CONTEXT));
+    }
+
+    public void testCanonicalFormCompilesToSameScript() {
+        String source = "int[] values = new int[] {2, -1};\nint sum = 0; /* comment */ for (int v : values) { sum += v - -1; }\n" +
+            "return sum + 'a b'.length() + Math.max(1, 2) + 10 / 2 / 5;";
+        String canonical = scriptEngine.canonicalize(source, PainlessTestScript.CONTEXT);
+        assertNotEquals(source, canonical);
+        assertEquals(9, exec(source));
+        assertEquals(9, exec(canonical));
+    }
 }
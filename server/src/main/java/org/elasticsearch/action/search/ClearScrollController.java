@@ -75,6 +75,23 @@ final class ClearScrollController implements Runnable {
 
     }
 
+    /**
+     * Creates a controller that frees the given contexts, for instance the reader contexts that a point in time holds.
+     */
+    ClearScrollController(List<ScrollIdForNode> contextIds, ActionListener<ClearScrollResponse> listener, DiscoveryNodes nodes,
+                          Logger logger, SearchTransportService searchTransportService) {
+        this.nodes = nodes;
+        this.logger = logger;
+        this.searchTransportService = searchTransportService;
+        this.listener = listener;
+        if (contextIds.isEmpty()) {
+            runner = () -> listener.onResponse(new ClearScrollResponse(true, 0));
+        } else {
+            runner = () -> cleanScrollIds(contextIds);
+        }
+        this.expectedOps = new CountDown(contextIds.size());
+    }
+
     @Override
     public void run() {
         runner.run();
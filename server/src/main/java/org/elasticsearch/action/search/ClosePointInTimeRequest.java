@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ObjectParser;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * A request to close a point in time, which frees the reader contexts that it holds on the shards. The request targets the indices
+ * that the point in time was opened on, so that closing it requires the same privileges on them as searching it.
+ */
+public final class ClosePointInTimeRequest extends ActionRequest implements IndicesRequest, ToXContentObject {
+
+    private static final ParseField ID = new ParseField("id");
+    private static final ObjectParser<ClosePointInTimeRequest, Void> PARSER =
+        new ObjectParser<>("close_point_in_time", ClosePointInTimeRequest::new);
+
+    static {
+        PARSER.declareString(ClosePointInTimeRequest::setId, ID);
+    }
+
+    private String id;
+
+    public ClosePointInTimeRequest() {
+    }
+
+    public ClosePointInTimeRequest(String id) {
+        this.id = id;
+    }
+
+    public ClosePointInTimeRequest(StreamInput in) throws IOException {
+        super(in);
+        id = in.readString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(id);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        if (Strings.isEmpty(id)) {
+            return addValidationError("point in time id is missing", null);
+        }
+        try {
+            SearchContextId.decode(id);
+        } catch (IllegalArgumentException e) {
+            return addValidationError(e.getMessage(), null);
+        }
+        return null;
+    }
+
+    @Override
+    public String[] indices() {
+        return SearchContextId.decode(id).getActualIndices();
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        // the indices of a point in time are concrete, but they may have been deleted since it was opened
+        return IndicesOptions.lenientExpandOpen();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public static ClosePointInTimeRequest fromXContent(XContentParser parser) {
+        return PARSER.apply(parser, null);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(ID.getPreferredName(), id);
+        builder.endObject();
+        return builder;
+    }
+}
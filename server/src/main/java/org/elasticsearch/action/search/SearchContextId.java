@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The id of a point in time, which maps each shard that is part of the point in time to the node that holds its reader context.
+ * The id is opaque to clients: it is encoded as a url-safe base64 string that they pass back on subsequent search requests.
+ */
+public final class SearchContextId {
+    private final Map<ShardId, SearchContextIdForNode> shards;
+
+    SearchContextId(Map<ShardId, SearchContextIdForNode> shards) {
+        this.shards = Collections.unmodifiableMap(shards);
+    }
+
+    /**
+     * The reader context of each shard that is part of the point in time.
+     */
+    public Map<ShardId, SearchContextIdForNode> shards() {
+        return shards;
+    }
+
+    /**
+     * The names of the concrete indices that the point in time was opened on.
+     */
+    public String[] getActualIndices() {
+        final Set<String> indices = new TreeSet<>();
+        for (ShardId shardId : shards.keySet()) {
+            indices.add(shardId.getIndexName());
+        }
+        return indices.toArray(new String[0]);
+    }
+
+    static String encode(Map<ShardId, SearchContextIdForNode> shards, Version version) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            Version.writeVersion(version, out);
+            out.writeMap(shards, (o, shardId) -> shardId.writeTo(o), (o, contextId) -> contextId.writeTo(o));
+            return Base64.getUrlEncoder().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public static SearchContextId decode(String id) {
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+        try (StreamInput in = StreamInput.wrap(bytes)) {
+            in.setVersion(Version.readVersion(in));
+            final Map<ShardId, SearchContextIdForNode> shards = in.readMap(ShardId::new, SearchContextIdForNode::new);
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Not all bytes were read");
+            }
+            return new SearchContextId(shards);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+    }
+}
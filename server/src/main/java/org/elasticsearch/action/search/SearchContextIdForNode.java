@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The node that holds the reader context of a shard that is part of a point in time, and the id of that reader context.
+ */
+public final class SearchContextIdForNode implements Writeable {
+    private final String node;
+    private final long readerId;
+
+    SearchContextIdForNode(String node, long readerId) {
+        this.node = node;
+        this.readerId = readerId;
+    }
+
+    SearchContextIdForNode(StreamInput in) throws IOException {
+        this.node = in.readString();
+        this.readerId = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(node);
+        out.writeLong(readerId);
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public long getReaderId() {
+        return readerId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchContextIdForNode that = (SearchContextIdForNode) o;
+        return readerId == that.readerId && node.equals(that.node);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(node, readerId);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchContextIdForNode{" +
+            "node='" + node + '\'' +
+            ", readerId=" + readerId +
+            '}';
+    }
+}
@@ -329,7 +329,31 @@ public final class SearchPhaseController {
                 assert currentOffset == sortedDocs.length : "expected no more score doc slices";
             }
         }
-        return reducedQueryPhase.buildResponse(hits);
+        return reducedQueryPhase.buildResponse(hits, mergeFetchProfileResults(reducedQueryPhase.shardResults, fetchResults));
+    }
+
+    /**
+     * Adds the fetch profile of each shard to the profile results of its query phase.
+     */
+    private static SearchProfileShardResults mergeFetchProfileResults(SearchProfileShardResults profileResults,
+                                                                      Collection<? extends SearchPhaseResult> fetchResults) {
+        if (profileResults == null) {
+            return null;
+        }
+        Map<String, ProfileShardResult> shardResults = new HashMap<>(profileResults.getShardResults());
+        for (SearchPhaseResult entry : fetchResults) {
+            FetchSearchResult fetchResult = entry.fetchResult();
+            if (fetchResult == null || fetchResult.profileResult() == null) {
+                continue;
+            }
+            String key = fetchResult.getSearchShardTarget().toString();
+            ProfileShardResult shardResult = shardResults.get(key);
+            if (shardResult != null) {
+                shardResults.put(key, new ProfileShardResult(shardResult.getQueryProfileResults(),
+                    shardResult.getAggregationProfileResults(), fetchResult.profileResult()));
+            }
+        }
+        return new SearchProfileShardResults(shardResults);
     }
 
     private SearchHits getHits(ReducedQueryPhase reducedQueryPhase, boolean ignoreFrom,
@@ -550,11 +574,11 @@ public final class SearchPhaseController {
         }
 
         /**
-         * Creates a new search response from the given merged hits.
+         * Creates a new search response from the given merged hits and profile results.
          * @see #merge(boolean, ReducedQueryPhase, Collection, IntFunction)
          */
-        public InternalSearchResponse buildResponse(SearchHits hits) {
-            return new InternalSearchResponse(hits, aggregations, suggest, shardResults, timedOut, terminatedEarly, numReducePhases);
+        public InternalSearchResponse buildResponse(SearchHits hits, SearchProfileShardResults profileResults) {
+            return new InternalSearchResponse(hits, aggregations, suggest, profileResults, timedOut, terminatedEarly, numReducePhases);
         }
     }
 
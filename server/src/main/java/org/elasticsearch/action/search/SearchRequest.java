@@ -31,6 +31,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.tasks.Task;
@@ -270,9 +271,20 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
                     addValidationError("[request_cache] cannot be used in a scroll context", validationException);
             }
         }
+        if (pointInTimeBuilder() != null && scroll) {
+            validationException = addValidationError("using [pit] is not allowed in a scroll context", validationException);
+        }
         return validationException;
     }
 
+    /**
+     * Returns the point in time that this search runs against, if any.
+     */
+    @Nullable
+    public PointInTimeBuilder pointInTimeBuilder() {
+        return source == null ? null : source.pointInTimeBuilder();
+    }
+
     /**
      * Returns the alias of the cluster that this search request is being executed on. A non-null value indicates that this search request
      * is being executed as part of a locally reduced cross-cluster search request. The cluster alias is used to prefix index names
@@ -40,6 +40,7 @@ public final class SearchShardIterator extends PlainShardIterator {
 
     private final OriginalIndices originalIndices;
     private final String clusterAlias;
+    private final long readerId;
     private boolean skip = false;
 
     /**
@@ -52,9 +53,19 @@ public final class SearchShardIterator extends PlainShardIterator {
      * @param originalIndices the indices that the search request originally related to (before any rewriting happened)
      */
     public SearchShardIterator(@Nullable String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices) {
+        this(clusterAlias, shardId, shards, originalIndices, -1L);
+    }
+
+    /**
+     * Creates a {@link PlainShardIterator} instance over the shard copies that hold the reader context with the given id, which
+     * is part of a point in time.
+     */
+    SearchShardIterator(@Nullable String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices,
+                        long readerId) {
         super(shardId, shards);
         this.originalIndices = originalIndices;
         this.clusterAlias = clusterAlias;
+        this.readerId = readerId;
     }
 
     /**
@@ -72,6 +83,14 @@ public final class SearchShardIterator extends PlainShardIterator {
         return clusterAlias;
     }
 
+    /**
+     * Returns the id of the reader context that the shard should be searched with, or {@code -1} if the search does not run
+     * against a point in time.
+     */
+    long getReaderId() {
+        return readerId;
+    }
+
     /**
      * Creates a new shard target from this iterator, pointing at the node identified by the provided identifier.
      * @see SearchShardTarget
@@ -0,0 +1,182 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.transport.RemoteClusterAware;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens a point in time: picks one copy of every shard of the requested indices, like a search would, and opens a reader context
+ * on it. The id of the point in time records, for every shard, the node that holds the reader context and the id of the context.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+    private final IndexNameExpressionResolver indexNameExpressionResolver;
+
+    @Inject
+    public TransportOpenPointInTimeAction(TransportService transportService, ClusterService clusterService, ActionFilters actionFilters,
+                                          SearchTransportService searchTransportService,
+                                          IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(OpenPointInTimeAction.NAME, transportService, actionFilters, OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+        this.indexNameExpressionResolver = indexNameExpressionResolver;
+    }
+
+    @Override
+    protected void doExecute(Task task, OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        final Map<String, OriginalIndices> remoteClusterIndices = searchTransportService.getRemoteClusterService()
+            .groupIndices(request.indicesOptions(), request.indices());
+        remoteClusterIndices.remove(RemoteClusterAware.LOCAL_CLUSTER_GROUP_KEY);
+        if (remoteClusterIndices.isEmpty() == false) {
+            listener.onFailure(new IllegalArgumentException("point in time is not supported on remote indices "
+                + remoteClusterIndices.keySet()));
+            return;
+        }
+        final ClusterState clusterState = clusterService.state();
+        clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+        final Index[] indices = indexNameExpressionResolver.concreteIndices(clusterState, request);
+        final String[] concreteIndices = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, indices[i].getName());
+            concreteIndices[i] = indices[i].getName();
+        }
+        final Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
+            request.indices());
+        final GroupShardsIterator<ShardIterator> shardIterators = clusterService.operationRouting().searchShards(clusterState,
+            concreteIndices, routingMap, request.preference());
+        new OpenReaderContexts(task, request, clusterState.nodes(), shardIterators, listener).run();
+    }
+
+    private final class OpenReaderContexts implements Runnable {
+        private final Task task;
+        private final OpenPointInTimeRequest request;
+        private final DiscoveryNodes nodes;
+        private final GroupShardsIterator<ShardIterator> shardIterators;
+        private final ActionListener<OpenPointInTimeResponse> listener;
+        private final Map<ShardId, SearchContextIdForNode> readerContexts = ConcurrentCollections.newConcurrentMap();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final CountDown countDown;
+
+        OpenReaderContexts(Task task, OpenPointInTimeRequest request, DiscoveryNodes nodes,
+                           GroupShardsIterator<ShardIterator> shardIterators, ActionListener<OpenPointInTimeResponse> listener) {
+            this.task = task;
+            this.request = request;
+            this.nodes = nodes;
+            this.shardIterators = shardIterators;
+            this.listener = listener;
+            this.countDown = new CountDown(shardIterators.size());
+        }
+
+        @Override
+        public void run() {
+            if (shardIterators.size() == 0) {
+                listener.onResponse(new OpenPointInTimeResponse(SearchContextId.encode(readerContexts, nodes.getMinNodeVersion())));
+                return;
+            }
+            for (ShardIterator shardIt : shardIterators) {
+                openOnNextCopy(shardIt, null);
+            }
+        }
+
+        /**
+         * Opens a reader context on the next copy of the shard, moving on to the copy after that if it fails.
+         */
+        private void openOnNextCopy(ShardIterator shardIt, Exception lastFailure) {
+            final ShardRouting shardRouting = shardIt.nextOrNull();
+            if (shardRouting == null) {
+                onShardDone(new NoShardAvailableActionException(shardIt.shardId(), "failed to open a point in time", lastFailure));
+                return;
+            }
+            final DiscoveryNode node = nodes.get(shardRouting.currentNodeId());
+            if (node == null) {
+                openOnNextCopy(shardIt, lastFailure);
+                return;
+            }
+            final SearchTransportService.OpenReaderContextRequest shardRequest = new SearchTransportService.OpenReaderContextRequest(
+                shardIt.shardId(), request.keepAlive(), new OriginalIndices(request.indices(), request.indicesOptions()));
+            try {
+                searchTransportService.sendOpenReaderContext(searchTransportService.getConnection(null, node), shardRequest, task,
+                    ActionListener.wrap(response -> {
+                        readerContexts.put(shardIt.shardId(), new SearchContextIdForNode(node.getId(), response.getReaderId()));
+                        onShardDone(null);
+                    }, e -> {
+                        logger.debug(() -> new ParameterizedMessage("{}: failed to open point in time on [{}]",
+                            shardIt.shardId(), node), e);
+                        openOnNextCopy(shardIt, e);
+                    }));
+            } catch (Exception e) {
+                openOnNextCopy(shardIt, e);
+            }
+        }
+
+        private void onShardDone(Exception e) {
+            if (e != null && failure.compareAndSet(null, e) == false) {
+                failure.get().addSuppressed(e);
+            }
+            if (countDown.countDown()) {
+                final Exception exception = failure.get();
+                if (exception == null) {
+                    listener.onResponse(new OpenPointInTimeResponse(SearchContextId.encode(readerContexts, nodes.getMinNodeVersion())));
+                } else {
+                    // do not leak the reader contexts that were opened on the other shards
+                    for (SearchContextIdForNode contextId : readerContexts.values()) {
+                        final DiscoveryNode node = nodes.get(contextId.getNode());
+                        try {
+                            searchTransportService.sendFreeContext(searchTransportService.getConnection(null, node),
+                                contextId.getReaderId(), ActionListener.wrap(r -> {}, ex -> {}));
+                        } catch (Exception inner) {
+                            logger.debug(() -> new ParameterizedMessage("failed to free reader context [{}] on [{}]",
+                                contextId.getReaderId(), node), inner);
+                        }
+                    }
+                    listener.onFailure(exception);
+                }
+            }
+        }
+    }
+}
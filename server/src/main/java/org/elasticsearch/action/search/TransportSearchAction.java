@@ -34,7 +34,9 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
@@ -68,6 +70,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -208,6 +211,9 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
             final Map<String, OriginalIndices> remoteClusterIndices = remoteClusterService.groupIndices(searchRequest.indicesOptions(),
                 searchRequest.indices());
             OriginalIndices localIndices = remoteClusterIndices.remove(RemoteClusterAware.LOCAL_CLUSTER_GROUP_KEY);
+            if (searchRequest.pointInTimeBuilder() != null && remoteClusterIndices.isEmpty() == false) {
+                throw new IllegalArgumentException("point in time is not supported on remote indices " + remoteClusterIndices.keySet());
+            }
             if (remoteClusterIndices.isEmpty()) {
                 executeLocalSearch(task, timeProvider, searchRequest, localIndices, clusterState, listener);
             } else {
@@ -468,7 +474,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
         // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
         // of just for the _search api
-        final Index[] indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
+        final SearchContextId searchContextId;
+        final Index[] indices;
+        if (searchRequest.pointInTimeBuilder() != null) {
+            // the point in time defines the shards to search, regardless of the current state of the indices it was opened on
+            searchContextId = SearchContextId.decode(searchRequest.pointInTimeBuilder().getId());
+            indices = searchContextId.shards().keySet().stream().map(ShardId::getIndex).distinct().toArray(Index[]::new);
+            ensurePointInTimeIndicesRequested(indices, localIndices, clusterState, timeProvider);
+        } else {
+            searchContextId = null;
+            indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
+        }
         Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
         Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
             searchRequest.indices());
@@ -477,11 +493,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         for (int i = 0; i < indices.length; i++) {
             concreteIndices[i] = indices[i].getName();
         }
-        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
-        GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
+        final GroupShardsIterator<SearchShardIterator> shardIterators;
+        if (searchContextId != null) {
+            shardIterators = getPointInTimeShardIterators(clusterState, searchContextId, localIndices,
+                searchRequest.getLocalClusterAlias());
+        } else {
+            Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
+            GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
                 concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
-        GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
-            searchRequest.getLocalClusterAlias(), remoteShardIterators);
+            shardIterators = mergeShardsIterators(localShardsIterator, localIndices, searchRequest.getLocalClusterAlias(),
+                remoteShardIterators);
+        }
 
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
@@ -556,6 +578,55 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         return new GroupShardsIterator<>(shards);
     }
 
+    /**
+     * The indices of a point in time come from its id, while the request was authorized against its own indices. Fails the search
+     * if the indices of the request do not cover every index of the point in time, so that a point in time cannot be used to search
+     * indices that the request does not name. Indices of the point in time that were deleted since it was opened are ignored, their
+     * shards fail like any other shard whose reader context is gone.
+     */
+    private void ensurePointInTimeIndicesRequested(Index[] pointInTimeIndices, OriginalIndices localIndices, ClusterState clusterState,
+                                                   SearchTimeProvider timeProvider) {
+        final IndicesOptions indicesOptions = localIndices == null ? SearchRequest.DEFAULT_INDICES_OPTIONS :
+            IndicesOptions.fromOptions(true, true, localIndices.indicesOptions().expandWildcardsOpen(),
+                localIndices.indicesOptions().expandWildcardsClosed(), localIndices.indicesOptions());
+        final Set<Index> requestedIndices = new HashSet<>(Arrays.asList(
+            resolveLocalIndices(localIndices, indicesOptions, clusterState, timeProvider)));
+        for (Index index : pointInTimeIndices) {
+            if (clusterState.metaData().index(index) != null && requestedIndices.contains(index) == false) {
+                throw new IllegalArgumentException("point in time index [" + index.getName() + "] is not part of the requested indices");
+            }
+        }
+    }
+
+    /**
+     * Builds one iterator per shard of the point in time, each iterating only over the shard copy that holds the reader context of
+     * the point in time. Shards whose copy is no longer allocated on that node get an empty iterator, so that they fail the same
+     * way as shards that have no active copy.
+     */
+    static GroupShardsIterator<SearchShardIterator> getPointInTimeShardIterators(ClusterState clusterState,
+                                                                                 SearchContextId searchContextId,
+                                                                                 OriginalIndices localIndices,
+                                                                                 @Nullable String localClusterAlias) {
+        final OriginalIndices originalIndices = new OriginalIndices(searchContextId.getActualIndices(),
+            localIndices == null ? SearchRequest.DEFAULT_INDICES_OPTIONS : localIndices.indicesOptions());
+        List<SearchShardIterator> shards = new ArrayList<>(searchContextId.shards().size());
+        for (Map.Entry<ShardId, SearchContextIdForNode> entry : searchContextId.shards().entrySet()) {
+            final ShardId shardId = entry.getKey();
+            final SearchContextIdForNode contextId = entry.getValue();
+            final List<ShardRouting> targets = new ArrayList<>(1);
+            final IndexRoutingTable indexRoutingTable = clusterState.routingTable().index(shardId.getIndex());
+            if (indexRoutingTable != null && indexRoutingTable.shard(shardId.id()) != null) {
+                for (ShardRouting shardRouting : indexRoutingTable.shard(shardId.id()).activeShards()) {
+                    if (contextId.getNode().equals(shardRouting.currentNodeId())) {
+                        targets.add(shardRouting);
+                    }
+                }
+            }
+            shards.add(new SearchShardIterator(localClusterAlias, shardId, targets, originalIndices, contextId.getReaderId()));
+        }
+        return new GroupShardsIterator<>(shards);
+    }
+
     private AbstractSearchAsyncAction searchAsyncAction(SearchTask task, SearchRequest searchRequest,
                                                         GroupShardsIterator<SearchShardIterator> shardIterators,
                                                         SearchTimeProvider timeProvider,
@@ -25,6 +25,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexGraveyard;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.index.Index;
@@ -50,6 +51,8 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    private Set<Index> indicesChanged; // lazily computed
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         Objects.requireNonNull(source, "source must not be null");
         Objects.requireNonNull(state, "state must not be null");
@@ -138,6 +141,50 @@ public class ClusterChangedEvent {
         }
     }
 
+    /**
+     * Returns the indices whose {@link IndexMetaData} or {@link IndexRoutingTable} has changed between the previous cluster state
+     * and the new cluster state, including indices that were created or removed. Appliers can use this to restrict their work to
+     * the indices that are affected by this event rather than visiting every index of the cluster. Note that these are object
+     * reference equality tests, not equals tests, which relies on unchanged parts of a cluster state diff being reused as is.
+     */
+    public Set<Index> indicesChanged() {
+        if (indicesChanged == null) {
+            indicesChanged = Collections.unmodifiableSet(computeIndicesChanged());
+        }
+        return indicesChanged;
+    }
+
+    private Set<Index> computeIndicesChanged() {
+        final Set<Index> changed = new HashSet<>();
+        if (metaDataChanged()) {
+            final MetaData previousMetaData = previousState.metaData();
+            for (ObjectCursor<IndexMetaData> cursor : state.metaData().indices().values()) {
+                final IndexMetaData previous = previousMetaData.index(cursor.value.getIndex().getName());
+                if (previous == null || indexMetaDataChanged(previous, cursor.value)) {
+                    changed.add(cursor.value.getIndex());
+                }
+            }
+            for (ObjectCursor<IndexMetaData> cursor : previousMetaData.indices().values()) {
+                if (state.metaData().index(cursor.value.getIndex()) != cursor.value) {
+                    changed.add(cursor.value.getIndex());
+                }
+            }
+        }
+        if (routingTableChanged()) {
+            for (ObjectCursor<IndexRoutingTable> cursor : state.routingTable().indicesRouting().values()) {
+                if (previousState.routingTable().index(cursor.value.getIndex().getName()) != cursor.value) {
+                    changed.add(cursor.value.getIndex());
+                }
+            }
+            for (ObjectCursor<IndexRoutingTable> cursor : previousState.routingTable().indicesRouting().values()) {
+                if (state.routingTable().index(cursor.value.getIndex().getName()) != cursor.value) {
+                    changed.add(cursor.value.getIndex());
+                }
+            }
+        }
+        return changed;
+    }
+
     /**
      * Returns <code>true</code> iff the metadata for the cluster has changed between
      * the previous cluster state and the new cluster state. Note that this is an object
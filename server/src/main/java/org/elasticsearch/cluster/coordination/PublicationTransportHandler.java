@@ -24,6 +24,8 @@ import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.Diff;
@@ -38,6 +40,8 @@ import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
@@ -49,6 +53,7 @@ import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
@@ -146,15 +151,18 @@ public class PublicationTransportHandler {
         final ClusterState newState = clusterChangedEvent.state();
         final ClusterState previousState = clusterChangedEvent.previousState();
         final boolean sendFullVersion = clusterChangedEvent.previousState().getBlocks().disableStatePersistence();
-        final Map<Version, BytesReference> serializedStates = new HashMap<>();
+        final SerializedFullStates serializedStates = new SerializedFullStates(newState);
         final Map<Version, BytesReference> serializedDiffs = new HashMap<>();
 
         // we build these early as a best effort not to commit in the case of error.
         // sadly this is not water tight as it may that a failed diff based publishing to a node
         // will cause a full serialization based on an older version, which may fail after the
-        // change has been committed.
+        // change has been committed. Full states are comparatively expensive to compress, so they
+        // are serialized on the generic thread pool, and no publish request is sent before they are
+        // all done so that a failure still fails the publication on every node.
         buildDiffAndSerializeStates(clusterChangedEvent.state(), clusterChangedEvent.previousState(),
             nodes, sendFullVersion, serializedStates, serializedDiffs);
+        final ListenableFuture<Void> fullStatesSerialized = serializedStates.startedSerializations();
 
         return new PublicationContext() {
             @Override
@@ -184,14 +192,19 @@ public class PublicationTransportHandler {
                 } else {
                     responseActionListener = originalListener;
                 }
-                if (sendFullVersion || !previousState.nodes().nodeExists(destination)) {
-                    logger.trace("sending full cluster state version {} to {}", newState.version(), destination);
-                    PublicationTransportHandler.this.sendFullClusterState(newState, serializedStates, destination, responseActionListener);
-                } else {
-                    logger.trace("sending cluster state diff for version {} to {}", newState.version(), destination);
-                    PublicationTransportHandler.this.sendClusterStateDiff(newState, serializedDiffs, serializedStates, destination,
-                        responseActionListener);
-                }
+                fullStatesSerialized.addListener(ActionListener.wrap(ignored -> {
+                    if (sendFullVersion || !previousState.nodes().nodeExists(destination)) {
+                        logger.trace("sending full cluster state version {} to {}", newState.version(), destination);
+                        PublicationTransportHandler.this.sendFullClusterState(newState, serializedStates, destination,
+                            responseActionListener);
+                    } else {
+                        logger.trace("sending cluster state diff for version {} to {}", newState.version(), destination);
+                        PublicationTransportHandler.this.sendClusterStateDiff(newState, serializedDiffs, serializedStates, destination,
+                            responseActionListener);
+                    }
+                }, e -> responseActionListener.onFailure(
+                    new ElasticsearchException("failed to serialize cluster state for publishing to node {}", e, destination))),
+                    EsExecutors.newDirectExecutorService(), transportService.getThreadPool().getThreadContext());
             }
 
             @Override
@@ -226,7 +239,7 @@ public class PublicationTransportHandler {
 
     private void sendClusterStateToNode(ClusterState clusterState, BytesReference bytes, DiscoveryNode node,
                                         ActionListener<PublishWithJoinResponse> responseActionListener, boolean sendDiffs,
-                                        Map<Version, BytesReference> serializedStates) {
+                                        SerializedFullStates serializedStates) {
         try {
             final BytesTransportRequest request = new BytesTransportRequest(bytes, node.getVersion());
             final Consumer<TransportException> transportExceptionHandler = exp -> {
@@ -269,15 +282,13 @@ public class PublicationTransportHandler {
     }
 
     private static void buildDiffAndSerializeStates(ClusterState clusterState, ClusterState previousState, DiscoveryNodes discoveryNodes,
-                                                    boolean sendFullVersion, Map<Version, BytesReference> serializedStates,
+                                                    boolean sendFullVersion, SerializedFullStates serializedStates,
                                                     Map<Version, BytesReference> serializedDiffs) {
         Diff<ClusterState> diff = null;
         for (DiscoveryNode node : discoveryNodes) {
             try {
                 if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
-                    if (serializedStates.containsKey(node.getVersion()) == false) {
-                        serializedStates.put(node.getVersion(), serializeFullClusterState(clusterState, node.getVersion()));
-                    }
+                    serializedStates.serialization(node.getVersion());
                 } else {
                     // will send a diff
                     if (diff == null) {
@@ -293,30 +304,75 @@ public class PublicationTransportHandler {
         }
     }
 
-    private void sendFullClusterState(ClusterState clusterState, Map<Version, BytesReference> serializedStates,
+    private void sendFullClusterState(ClusterState clusterState, SerializedFullStates serializedStates,
                                       DiscoveryNode node, ActionListener<PublishWithJoinResponse> responseActionListener) {
-        BytesReference bytes = serializedStates.get(node.getVersion());
-        if (bytes == null) {
-            try {
-                bytes = serializeFullClusterState(clusterState, node.getVersion());
-                serializedStates.put(node.getVersion(), bytes);
-            } catch (Exception e) {
+        serializedStates.serialization(node.getVersion()).addListener(new ActionListener<BytesReference>() {
+            @Override
+            public void onResponse(BytesReference bytes) {
+                sendClusterStateToNode(clusterState, bytes, node, responseActionListener, false, serializedStates);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 logger.warn(() -> new ParameterizedMessage("failed to serialize cluster state before publishing it to node {}", node), e);
                 responseActionListener.onFailure(e);
-                return;
             }
-        }
-        sendClusterStateToNode(clusterState, bytes, node, responseActionListener, false, serializedStates);
+        }, EsExecutors.newDirectExecutorService(), transportService.getThreadPool().getThreadContext());
     }
 
     private void sendClusterStateDiff(ClusterState clusterState,
-                                      Map<Version, BytesReference> serializedDiffs, Map<Version, BytesReference> serializedStates,
+                                      Map<Version, BytesReference> serializedDiffs, SerializedFullStates serializedStates,
                                       DiscoveryNode node, ActionListener<PublishWithJoinResponse> responseActionListener) {
         final BytesReference bytes = serializedDiffs.get(node.getVersion());
         assert bytes != null : "failed to find serialized diff for node " + node + " of version [" + node.getVersion() + "]";
         sendClusterStateToNode(clusterState, bytes, node, responseActionListener, true, serializedStates);
     }
 
+    /**
+     * Serializes and compresses the full cluster state at most once per node version. The work is done on the generic thread pool
+     * rather than on the master thread, and the resulting bytes are shared by all the nodes of the same version, including nodes that
+     * fall back to the full cluster state after failing to apply a diff.
+     */
+    private class SerializedFullStates {
+
+        private final ClusterState clusterState;
+        private final Map<Version, ListenableFuture<BytesReference>> serializations = new HashMap<>();
+
+        SerializedFullStates(ClusterState clusterState) {
+            this.clusterState = clusterState;
+        }
+
+        /**
+         * Returns a future that completes once all the serializations started so far are done, or fails if any of them failed.
+         */
+        synchronized ListenableFuture<Void> startedSerializations() {
+            final ListenableFuture<Void> future = new ListenableFuture<>();
+            if (serializations.isEmpty()) {
+                future.onResponse(null);
+            } else {
+                final ActionListener<Collection<BytesReference>> allSerialized = ActionListener.map(future, serialized -> null);
+                final GroupedActionListener<BytesReference> listener = new GroupedActionListener<>(allSerialized, serializations.size());
+                for (ListenableFuture<BytesReference> serialization : serializations.values()) {
+                    serialization.addListener(listener, EsExecutors.newDirectExecutorService(),
+                        transportService.getThreadPool().getThreadContext());
+                }
+            }
+            return future;
+        }
+
+        synchronized ListenableFuture<BytesReference> serialization(Version nodeVersion) {
+            ListenableFuture<BytesReference> serialization = serializations.get(nodeVersion);
+            if (serialization == null) {
+                final ListenableFuture<BytesReference> future = new ListenableFuture<>();
+                serializations.put(nodeVersion, future);
+                transportService.getThreadPool().generic().execute(
+                    ActionRunnable.supply(future, () -> serializeFullClusterState(clusterState, nodeVersion)));
+                serialization = future;
+            }
+            return serialization;
+        }
+    }
+
     public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
         final BytesStreamOutput bStream = new BytesStreamOutput();
         try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
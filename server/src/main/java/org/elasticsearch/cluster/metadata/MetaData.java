@@ -182,11 +182,13 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
 
     private final SortedMap<String, AliasOrIndex> aliasAndIndexLookup;
 
+    private final SharedMappings sharedMappings;
+
     MetaData(String clusterUUID, boolean clusterUUIDCommitted, long version, CoordinationMetaData coordinationMetaData,
              Settings transientSettings, Settings persistentSettings, DiffableStringMap hashesOfConsistentSettings,
              ImmutableOpenMap<String, IndexMetaData> indices, ImmutableOpenMap<String, IndexTemplateMetaData> templates,
              ImmutableOpenMap<String, Custom> customs, String[] allIndices, String[] allOpenIndices, String[] allClosedIndices,
-             SortedMap<String, AliasOrIndex> aliasAndIndexLookup) {
+             SortedMap<String, AliasOrIndex> aliasAndIndexLookup, SharedMappings sharedMappings) {
         this.clusterUUID = clusterUUID;
         this.clusterUUIDCommitted = clusterUUIDCommitted;
         this.version = version;
@@ -213,6 +215,7 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
         this.allOpenIndices = allOpenIndices;
         this.allClosedIndices = allClosedIndices;
         this.aliasAndIndexLookup = aliasAndIndexLookup;
+        this.sharedMappings = sharedMappings;
     }
 
     public long version() {
@@ -828,6 +831,7 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
         @Override
         public MetaData apply(MetaData part) {
             Builder builder = builder();
+            builder.sharedMappings = part.sharedMappings;
             builder.clusterUUID(clusterUUID);
             builder.clusterUUIDCommitted(clusterUUIDCommitted);
             builder.version(version);
@@ -836,6 +840,7 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
             builder.persistentSettings(persistentSettings);
             builder.hashesOfConsistentSettings(hashesOfConsistentSettings.apply(part.hashesOfConsistentSettings));
             builder.indices(indices.apply(part.indices));
+            builder.dedupeMappings(part.indices);
             builder.templates(templates.apply(part.templates));
             builder.customs(customs.apply(part.customs));
             return builder.build();
@@ -926,11 +931,14 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
         private final ImmutableOpenMap.Builder<String, IndexTemplateMetaData> templates;
         private final ImmutableOpenMap.Builder<String, Custom> customs;
 
+        private SharedMappings sharedMappings;
+
         public Builder() {
             clusterUUID = UNKNOWN_CLUSTER_UUID;
             indices = ImmutableOpenMap.builder();
             templates = ImmutableOpenMap.builder();
             customs = ImmutableOpenMap.builder();
+            sharedMappings = new SharedMappings();
             indexGraveyard(IndexGraveyard.builder().build()); // create new empty index graveyard to initialize
         }
 
@@ -945,28 +953,79 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
             this.indices = ImmutableOpenMap.builder(metaData.indices);
             this.templates = ImmutableOpenMap.builder(metaData.templates);
             this.customs = ImmutableOpenMap.builder(metaData.customs);
+            this.sharedMappings = metaData.sharedMappings;
         }
 
         public Builder put(IndexMetaData.Builder indexMetaDataBuilder) {
             // we know its a new one, increment the version and store
             indexMetaDataBuilder.version(indexMetaDataBuilder.version() + 1);
+            final MappingMetaData mapping = indexMetaDataBuilder.mapping();
+            if (mapping != null) {
+                indexMetaDataBuilder.putMapping(sharedMappings.dedupe(mapping));
+            }
             IndexMetaData indexMetaData = indexMetaDataBuilder.build();
             indices.put(indexMetaData.getIndex().getName(), indexMetaData);
             return this;
         }
 
         public Builder put(IndexMetaData indexMetaData, boolean incrementVersion) {
-            if (indices.get(indexMetaData.getIndex().getName()) == indexMetaData) {
+            final IndexMetaData previous = indices.get(indexMetaData.getIndex().getName());
+            if (previous == indexMetaData) {
                 return this;
             }
+            // only new and changed mappings need to be shared, the index keeps its instance otherwise
+            final boolean mappingChanged = previous == null || previous.mapping() != indexMetaData.mapping();
             // if we put a new index metadata, increment its version
             if (incrementVersion) {
-                indexMetaData = IndexMetaData.builder(indexMetaData).version(indexMetaData.getVersion() + 1).build();
+                final IndexMetaData.Builder indexMetaDataBuilder = IndexMetaData.builder(indexMetaData)
+                    .version(indexMetaData.getVersion() + 1);
+                if (mappingChanged && indexMetaData.mapping() != null) {
+                    indexMetaDataBuilder.putMapping(sharedMappings.dedupe(indexMetaData.mapping()));
+                }
+                indexMetaData = indexMetaDataBuilder.build();
+            } else if (mappingChanged) {
+                indexMetaData = dedupeMapping(indexMetaData);
             }
             indices.put(indexMetaData.getIndex().getName(), indexMetaData);
             return this;
         }
 
+        /**
+         * Many indices, such as time-based indices created from the same template, have identical mappings. Rather than keeping a copy
+         * of the compressed mapping per index, indices that are put into this builder share the {@link MappingMetaData} instance of any
+         * other index with the same mapping. The shared instances are carried over from the {@link MetaData} this builder starts from,
+         * so that only the mapping of the index being put needs to be looked up.
+         */
+        private IndexMetaData dedupeMapping(IndexMetaData indexMetaData) {
+            final MappingMetaData mapping = indexMetaData.mapping();
+            if (mapping == null) {
+                return indexMetaData;
+            }
+            final MappingMetaData sharedMapping = sharedMappings.dedupe(mapping);
+            if (sharedMapping == mapping) {
+                return indexMetaData;
+            }
+            return IndexMetaData.builder(indexMetaData).putMapping(sharedMapping).build();
+        }
+
+        /**
+         * Same as {@link #dedupeMapping(IndexMetaData)} for all the indices of this builder that are not identical to the corresponding
+         * previous index, which happens when applying a diff. Unchanged indices keep their instance.
+         */
+        private void dedupeMappings(ImmutableOpenMap<String, IndexMetaData> previousIndices) {
+            final List<IndexMetaData> changedIndices = new ArrayList<>();
+            for (ObjectCursor<IndexMetaData> cursor : indices.values()) {
+                final IndexMetaData indexMetaData = cursor.value;
+                final IndexMetaData previous = previousIndices.get(indexMetaData.getIndex().getName());
+                if (previous == null || previous.mapping() != indexMetaData.mapping()) {
+                    changedIndices.add(indexMetaData);
+                }
+            }
+            for (IndexMetaData indexMetaData : changedIndices) {
+                indices.put(indexMetaData.getIndex().getName(), dedupeMapping(indexMetaData));
+            }
+        }
+
         public IndexMetaData get(String index) {
             return indices.get(index);
         }
@@ -1192,7 +1251,7 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
 
             return new MetaData(clusterUUID, clusterUUIDCommitted, version, coordinationMetaData, transientSettings, persistentSettings,
                     hashesOfConsistentSettings, indices.build(), templates.build(), customs.build(), allIndicesArray, allOpenIndicesArray,
-                    allClosedIndicesArray, aliasAndIndexLookup);
+                    allClosedIndicesArray, aliasAndIndexLookup, sharedMappings);
         }
 
         private SortedMap<String, AliasOrIndex> buildAliasAndIndexLookup() {
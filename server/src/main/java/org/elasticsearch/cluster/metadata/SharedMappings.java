@@ -0,0 +1,47 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.metadata;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The distinct {@link MappingMetaData} instances of the indices of successive {@link MetaData} instances, used to make indices with
+ * identical mappings share a single instance. Mappings are only weakly referenced, so they drop out once no index refers to them anymore.
+ */
+final class SharedMappings {
+
+    private final Map<MappingMetaData, WeakReference<MappingMetaData>> mappings = new WeakHashMap<>();
+
+    /**
+     * Returns the shared instance of a mapping that is identical to the given one, or registers the given mapping as the shared instance
+     * if there is none yet.
+     */
+    synchronized MappingMetaData dedupe(MappingMetaData mapping) {
+        final WeakReference<MappingMetaData> sharedMappingRef = mappings.get(mapping);
+        final MappingMetaData sharedMapping = sharedMappingRef == null ? null : sharedMappingRef.get();
+        if (sharedMapping != null) {
+            return sharedMapping;
+        }
+        mappings.put(mapping, new WeakReference<>(mapping));
+        return mapping;
+    }
+}
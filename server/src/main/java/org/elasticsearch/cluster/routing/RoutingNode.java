@@ -48,6 +48,8 @@ public class RoutingNode implements Iterable<ShardRouting> {
 
     private final LinkedHashSet<ShardRouting> relocatingShards;
 
+    private long relocationsVersion;
+
     public RoutingNode(String nodeId, DiscoveryNode node, ShardRouting... shards) {
         this(nodeId, node, buildShardRoutingMap(shards));
     }
@@ -125,8 +127,10 @@ public class RoutingNode implements Iterable<ShardRouting> {
 
         if (shard.initializing()) {
             initializingShards.add(shard);
+            relocationsVersion++;
         } else if (shard.relocating()) {
             relocatingShards.add(shard);
+            relocationsVersion++;
         }
         assert invariant();
     }
@@ -144,14 +148,18 @@ public class RoutingNode implements Iterable<ShardRouting> {
         if (oldShard.initializing()) {
             boolean exist = initializingShards.remove(oldShard);
             assert exist : "expected shard " + oldShard + " to exist in initializingShards";
+            relocationsVersion++;
         } else if (oldShard.relocating()) {
             boolean exist = relocatingShards.remove(oldShard);
             assert exist : "expected shard " + oldShard + " to exist in relocatingShards";
+            relocationsVersion++;
         }
         if (newShard.initializing()) {
             initializingShards.add(newShard);
+            relocationsVersion++;
         } else if (newShard.relocating()) {
             relocatingShards.add(newShard);
+            relocationsVersion++;
         }
         assert invariant();
     }
@@ -163,13 +171,23 @@ public class RoutingNode implements Iterable<ShardRouting> {
         if (shard.initializing()) {
             boolean exist = initializingShards.remove(shard);
             assert exist : "expected shard " + shard + " to exist in initializingShards";
+            relocationsVersion++;
         } else if (shard.relocating()) {
             boolean exist = relocatingShards.remove(shard);
             assert exist : "expected shard " + shard + " to exist in relocatingShards";
+            relocationsVersion++;
         }
         assert invariant();
     }
 
+    /**
+     * Returns a counter that changes whenever the set of initializing or relocating shards on this node changes. Computations that only
+     * depend on those shards, like the size of incoming relocations, can be cached until the counter moves.
+     */
+    public long relocationsVersion() {
+        return relocationsVersion;
+    }
+
     /**
      * Determine the number of shards with a specific state
      * @param states set of states which should be counted
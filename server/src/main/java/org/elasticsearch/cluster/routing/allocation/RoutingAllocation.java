@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptySet;
 
@@ -70,6 +71,8 @@ public class RoutingAllocation {
 
     private boolean hasPendingAsyncFetch = false;
 
+    private final Map<String, Object> deciderCaches = new HashMap<>();
+
     private final long currentNanoTime;
 
     private final IndexMetaDataUpdater indexMetaDataUpdater = new IndexMetaDataUpdater();
@@ -156,6 +159,17 @@ public class RoutingAllocation {
         return customs;
     }
 
+    /**
+     * Returns the cache registered under the given key for the duration of this allocation round, creating it on first access. Deciders
+     * use this to memoize computations that are repeated for many shard/node pairs within a single reroute. Anything stored here must
+     * either only depend on inputs that are fixed for the lifetime of this allocation (metadata, nodes, cluster info) or be validated
+     * against the current {@link RoutingNodes} before being reused.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deciderCache(String key, Supplier<T> supplier) {
+        return (T) deciderCaches.computeIfAbsent(key, k -> supplier.get());
+    }
+
     public void ignoreDisable(boolean ignoreDisable) {
         this.ignoreDisable = ignoreDisable;
     }
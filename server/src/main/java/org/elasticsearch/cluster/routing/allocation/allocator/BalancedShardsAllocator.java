@@ -542,13 +542,12 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                          * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
                         if (tryRelocateShard(minNode, maxNode, index, delta)) {
                             /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
+                             * only the weights of the two nodes involved in the relocation changed, so rather than fully
+                             * sorting the nodes again we move these two nodes to their new place, which is linear
                              */
                             weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
                             weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                            sorter.restoreOrder(0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -591,8 +590,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -1245,5 +1243,32 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         public float delta() {
             return weights[weights.length - 1] - weights[0];
         }
+
+        /**
+         * Returns the difference between the highest and the lowest weight of the nodes with respect to the given index. Unlike
+         * {@link #reset(String)} followed by {@link #delta()} this does not sort the nodes and leaves the sorter untouched.
+         */
+        public float delta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : modelNodes) {
+                final float weight = function.weight(balancer, node, index);
+                minWeight = Math.min(minWeight, weight);
+                maxWeight = Math.max(maxWeight, weight);
+            }
+            return modelNodes.length == 0 ? 0 : maxWeight - minWeight;
+        }
+
+        /**
+         * Sorts the nodes in the given range again after the weights of a few of them changed. This is an insertion sort, which is
+         * linear when only a constant number of nodes are out of place, whereas {@link #sort(int, int)} always costs {@code n log(n)}.
+         */
+        public void restoreOrder(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && compare(j - 1, j) > 0; j--) {
+                    swap(j - 1, j);
+                }
+            }
+        }
     }
 }
@@ -42,6 +42,9 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import static org.elasticsearch.cluster.routing.allocation.DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_HIGH_DISK_WATERMARK_SETTING;
@@ -76,6 +79,8 @@ public class DiskThresholdDecider extends AllocationDecider {
 
     public static final String NAME = "disk_threshold";
 
+    private static final String RELOCATING_SHARDS_SIZES_CACHE = NAME + "_relocating_shards_sizes";
+
     private final DiskThresholdSettings diskThresholdSettings;
 
     public DiskThresholdDecider(Settings settings, ClusterSettings clusterSettings) {
@@ -146,8 +151,7 @@ public class DiskThresholdDecider extends AllocationDecider {
         double usedDiskPercentage = usage.getUsedDiskAsPercentage();
         long freeBytes = usage.getFreeBytes();
         if (freeBytes < 0L) {
-            final long sizeOfRelocatingShards = sizeOfRelocatingShards(node, false, usage.getPath(),
-                allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
+            final long sizeOfRelocatingShards = cachedSizeOfRelocatingShards(node, false, usage.getPath(), allocation);
             logger.debug("fewer free bytes remaining than the size of all incoming shards: " +
                     "usage {} on node {} including {} bytes of relocations, preventing allocation",
                 usage, node.nodeId(), sizeOfRelocatingShards);
@@ -317,8 +321,7 @@ public class DiskThresholdDecider extends AllocationDecider {
                     "this shard is not allocated on the most utilized disk and can remain");
         }
         if (freeBytes < 0L) {
-            final long sizeOfRelocatingShards = sizeOfRelocatingShards(node, true, usage.getPath(),
-                allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
+            final long sizeOfRelocatingShards = cachedSizeOfRelocatingShards(node, true, usage.getPath(), allocation);
             logger.debug("fewer free bytes remaining than the size of all incoming shards: " +
                     "usage {} on node {} including {} bytes of relocations, shard cannot remain",
                 usage, node.nodeId(), sizeOfRelocatingShards);
@@ -368,12 +371,50 @@ public class DiskThresholdDecider extends AllocationDecider {
         }
 
         final DiskUsageWithRelocations diskUsageWithRelocations = new DiskUsageWithRelocations(usage,
-            sizeOfRelocatingShards(node, subtractLeavingShards, usage.getPath(),
-                allocation.clusterInfo(), allocation.metaData(), allocation.routingTable()));
+            cachedSizeOfRelocatingShards(node, subtractLeavingShards, usage.getPath(), allocation));
         logger.trace("getDiskUsage(subtractLeavingShards={}) returning {}", subtractLeavingShards, diskUsageWithRelocations);
         return diskUsageWithRelocations;
     }
 
+    /**
+     * Same as {@link #sizeOfRelocatingShards(RoutingNode, boolean, String, ClusterInfo, MetaData, RoutingTable)} but memoized for the
+     * duration of the given allocation. The deciders ask for the same node many times per reroute, and the cached value stays valid
+     * until the initializing or relocating shards on the node change, as tracked by {@link RoutingNode#relocationsVersion()}.
+     */
+    static long cachedSizeOfRelocatingShards(RoutingNode node, boolean subtractShardsMovingAway, String dataPath,
+                                             RoutingAllocation allocation) {
+        final RelocatingShardsSizes sizes = allocation.deciderCache(RELOCATING_SHARDS_SIZES_CACHE, RelocatingShardsSizes::new);
+        final Map<String, RelocatingShardsSize> cache = subtractShardsMovingAway ? sizes.incomingMinusOutgoing : sizes.incoming;
+        RelocatingShardsSize cached = cache.get(node.nodeId());
+        if (cached == null || cached.node != node || cached.relocationsVersion != node.relocationsVersion()
+            || Objects.equals(cached.dataPath, dataPath) == false) {
+            final long size = sizeOfRelocatingShards(node, subtractShardsMovingAway, dataPath,
+                allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
+            cached = new RelocatingShardsSize(node, node.relocationsVersion(), dataPath, size);
+            cache.put(node.nodeId(), cached);
+        }
+        return cached.size;
+    }
+
+    private static final class RelocatingShardsSizes {
+        final Map<String, RelocatingShardsSize> incoming = new HashMap<>();
+        final Map<String, RelocatingShardsSize> incomingMinusOutgoing = new HashMap<>();
+    }
+
+    private static final class RelocatingShardsSize {
+        final RoutingNode node;
+        final long relocationsVersion;
+        final String dataPath;
+        final long size;
+
+        RelocatingShardsSize(RoutingNode node, long relocationsVersion, String dataPath, long size) {
+            this.node = node;
+            this.relocationsVersion = relocationsVersion;
+            this.dataPath = dataPath;
+            this.size = size;
+        }
+    }
+
     /**
      * Returns a {@link DiskUsage} for the {@link RoutingNode} using the
      * average usage of other nodes in the disk usage map.
@@ -31,6 +31,8 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import static org.elasticsearch.cluster.node.DiscoveryNodeFilters.IP_VALIDATOR;
@@ -125,26 +127,26 @@ public class FilterAllocationDecider extends AllocationDecider {
 
     @Override
     public Decision shouldAutoExpandToNode(IndexMetaData indexMetaData, DiscoveryNode node, RoutingAllocation allocation) {
-        Decision decision = shouldClusterFilter(node, allocation);
-        if (decision != null) return decision;
-
-        decision = shouldIndexFilter(indexMetaData, node, allocation);
-        if (decision != null) return decision;
-
-        return allocation.decision(Decision.YES, NAME, "node passes include/exclude/require filters");
+        return shouldFilter(indexMetaData, node, allocation);
     }
 
     private Decision shouldFilter(ShardRouting shardRouting, DiscoveryNode node, RoutingAllocation allocation) {
-        Decision decision = shouldClusterFilter(node, allocation);
-        if (decision != null) return decision;
-
-        decision = shouldIndexFilter(allocation.metaData().getIndexSafe(shardRouting.index()), node, allocation);
-        if (decision != null) return decision;
-
-        return allocation.decision(Decision.YES, NAME, "node passes include/exclude/require filters");
+        return shouldFilter(allocation.metaData().getIndexSafe(shardRouting.index()), node, allocation);
     }
 
     private Decision shouldFilter(IndexMetaData indexMd, DiscoveryNode node, RoutingAllocation allocation) {
+        if (allocation.debugDecision()) {
+            return computeFilterDecision(indexMd, node, allocation);
+        }
+        // the outcome only depends on the filter settings, the index metadata and the node attributes, none of which change during a
+        // reroute, so it is computed once per index and node instead of once per shard copy and node. Keyed by identity so that a
+        // caller passing in a different version of the index metadata never sees a stale decision.
+        final Map<IndexMetaData, Map<String, Decision>> cache = allocation.deciderCache(NAME, IdentityHashMap::new);
+        return cache.computeIfAbsent(indexMd, k -> new HashMap<>())
+            .computeIfAbsent(node.getId(), k -> computeFilterDecision(indexMd, node, allocation));
+    }
+
+    private Decision computeFilterDecision(IndexMetaData indexMd, DiscoveryNode node, RoutingAllocation allocation) {
         Decision decision = shouldClusterFilter(node, allocation);
         if (decision != null) return decision;
 
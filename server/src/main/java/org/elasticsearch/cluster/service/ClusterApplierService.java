@@ -53,8 +53,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,6 +64,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -105,6 +108,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private final AtomicReference<ClusterState> state; // last applied state
 
+    private final Map<String, ApplierRecording> applierRecordings = ConcurrentCollections.newConcurrentMap();
+
     private final String nodeName;
 
     private NodeConnectionsService nodeConnectionsService;
@@ -507,12 +512,58 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
         clusterStateAppliers.forEach(applier -> {
             logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
+            final long startTimeNanos = System.nanoTime();
             try (Releasable ignored = stopWatch.timing("running applier [" + applier + "]")) {
                 applier.applyClusterState(clusterChangedEvent);
+            } finally {
+                applierRecordings.computeIfAbsent(applierName(applier), k -> new ApplierRecording())
+                    .record(System.nanoTime() - startTimeNanos);
             }
         });
     }
 
+    /**
+     * Returns the name under which the time spent by the given applier is recorded. Appliers registered as lambdas or method
+     * references are recorded under the name of the class that declares them.
+     */
+    static String applierName(ClusterStateApplier applier) {
+        final String className = applier.getClass().getName();
+        final int lambdaIndex = className.indexOf("$$Lambda");
+        return lambdaIndex == -1 ? className : className.substring(0, lambdaIndex);
+    }
+
+    @Override
+    public ClusterApplierStats stats() {
+        final Map<String, ClusterApplierStats.Recording> recordings = new HashMap<>();
+        for (Map.Entry<String, ApplierRecording> entry : applierRecordings.entrySet()) {
+            recordings.put(entry.getKey(), entry.getValue().toRecording());
+        }
+        return new ClusterApplierStats(recordings);
+    }
+
+    /**
+     * Accumulates the time spent by a single applier. Only ever updated from the cluster applier thread, but read concurrently when
+     * node stats are requested.
+     */
+    private static class ApplierRecording {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTimeNanos = new LongAdder();
+        private volatile long maxTimeNanos;
+
+        void record(long tookNanos) {
+            count.increment();
+            totalTimeNanos.add(tookNanos);
+            if (tookNanos > maxTimeNanos) {
+                maxTimeNanos = tookNanos;
+            }
+        }
+
+        ClusterApplierStats.Recording toRecording() {
+            return new ClusterApplierStats.Recording(count.sum(), TimeUnit.NANOSECONDS.toMillis(totalTimeNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(maxTimeNanos));
+        }
+    }
+
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
         Stream.concat(clusterStateListeners.stream(), timeoutClusterStateListeners.stream()).forEach(listener -> {
             try {
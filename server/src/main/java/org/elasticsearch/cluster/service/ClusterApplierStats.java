@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Class encapsulating stats about the time spent by each {@link org.elasticsearch.cluster.ClusterStateApplier} applying cluster states
+ * on the local node.
+ */
+public class ClusterApplierStats implements Writeable, ToXContentFragment {
+
+    private final Map<String, Recording> appliers;
+
+    public ClusterApplierStats(Map<String, Recording> appliers) {
+        this.appliers = Collections.unmodifiableMap(new TreeMap<>(appliers));
+    }
+
+    public ClusterApplierStats(StreamInput in) throws IOException {
+        this(in.readMap(StreamInput::readString, Recording::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(appliers, StreamOutput::writeString, (o, recording) -> recording.writeTo(o));
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_applier");
+        {
+            builder.startObject("appliers");
+            for (Map.Entry<String, Recording> entry : appliers.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * The recorded timings, keyed by the name of the applier.
+     */
+    public Map<String, Recording> getAppliers() {
+        return appliers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClusterApplierStats that = (ClusterApplierStats) o;
+        return appliers.equals(that.appliers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(appliers);
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterApplierStats(" + appliers + ")";
+    }
+
+    /**
+     * The number of cluster states a single applier has processed and the time it spent doing so.
+     */
+    public static class Recording implements Writeable, ToXContentFragment {
+
+        private final long count;
+        private final long totalTimeInMillis;
+        private final long maxTimeInMillis;
+
+        public Recording(long count, long totalTimeInMillis, long maxTimeInMillis) {
+            this.count = count;
+            this.totalTimeInMillis = totalTimeInMillis;
+            this.maxTimeInMillis = maxTimeInMillis;
+        }
+
+        public Recording(StreamInput in) throws IOException {
+            count = in.readVLong();
+            totalTimeInMillis = in.readVLong();
+            maxTimeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(totalTimeInMillis);
+            out.writeVLong(maxTimeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field("count", count);
+            builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(totalTimeInMillis));
+            builder.humanReadableField("max_time_in_millis", "max_time", new TimeValue(maxTimeInMillis));
+            return builder;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalTimeInMillis() {
+            return totalTimeInMillis;
+        }
+
+        public long getMaxTimeInMillis() {
+            return maxTimeInMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Recording that = (Recording) o;
+            return count == that.count && totalTimeInMillis == that.totalTimeInMillis && maxTimeInMillis == that.maxTimeInMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, totalTimeInMillis, maxTimeInMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "Recording(count=" + count + ", total=" + totalTimeInMillis + "ms, max=" + maxTimeInMillis + "ms)";
+        }
+    }
+}
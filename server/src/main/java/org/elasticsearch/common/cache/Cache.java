@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -52,14 +54,13 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. Reads do not take this lock: a cache hit is
+ * recorded in one of a number of striped, lossy read buffers, and the buffered promotions are applied to the LRU
+ * list in batches by whichever thread next holds the lock (a write, a full read buffer or a call to {@link #refresh()}).
+ * Under heavy contention some promotions may be dropped, which only makes the recency order slightly less precise.
+ * <p>
+ * Optionally, the cache can use a frequency sketch (TinyLFU) to decide whether a newly inserted entry should be
+ * admitted at the expense of the least recently used entry, see {@link CacheBuilder#setFrequencyBasedAdmission(boolean)}.
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
@@ -97,6 +98,9 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // estimates the access frequency of keys to decide on admission; null unless frequency-based admission is enabled
+    private FrequencySketch frequencySketch;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -144,6 +148,10 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setFrequencyBasedAdmission(boolean frequencyBasedAdmission) {
+        this.frequencySketch = frequencyBasedAdmission ? new FrequencySketch() : null;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -345,6 +353,74 @@ public class Cache<K, V> {
         }
     }
 
+    /**
+     * A lossy, bounded buffer of entries that were hit by reads. Any number of threads may offer entries concurrently without
+     * locking; the buffer is only drained by a thread holding the LRU lock, which then applies the promotions in the order they
+     * were recorded.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class ReadBuffer<K, V> {
+        static final int SIZE = 32;
+        static final int MASK = SIZE - 1;
+
+        final AtomicReferenceArray<Entry<K, V>> buffer = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        // only written while holding the LRU lock
+        volatile long readCounter;
+
+        /**
+         * record a read of the entry
+         *
+         * @param entry the entry that was read
+         * @return false if the buffer is full and needs to be drained before more reads can be recorded
+         */
+        boolean offer(Entry<K, V> entry) {
+            final long tail = writeCounter.get();
+            if (tail - readCounter >= SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & MASK), entry);
+            }
+            // if we lost the race for the slot the read is dropped, the entry was just recorded by another thread anyway
+            return true;
+        }
+
+        /**
+         * drain the recorded reads in the order they were recorded; must be called while holding the LRU lock
+         *
+         * @param consumer the callback for each recorded entry
+         */
+        void drain(Consumer<Entry<K, V>> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            while (head < tail) {
+                final int index = (int) (head & MASK);
+                final Entry<K, V> entry = buffer.get(index);
+                if (entry == null) {
+                    // the slot was claimed but the entry is not published yet, pick it up on the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(entry);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+
+    static final int NUMBER_OF_READ_BUFFERS = 16;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
     Entry<K, V> head;
     Entry<K, V> tail;
 
@@ -367,11 +443,33 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            recordRead(entry, now);
             return entry.value;
         }
     }
 
+    private void recordRead(Entry<K, V> entry, long now) {
+        final ReadBuffer<K, V> readBuffer = readBuffers[(int) Thread.currentThread().getId() & (NUMBER_OF_READ_BUFFERS - 1)];
+        if (readBuffer.offer(entry) == false) {
+            // the buffer is full; if another thread is busy with the LRU list it will get to the buffered reads soon enough, so
+            // rather than waiting for the lock we drop this read
+            final ReleasableLock lock = lruLock.tryAcquire();
+            if (lock != null) {
+                try (ReleasableLock ignored = lock) {
+                    promote(entry, now);
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        for (ReadBuffer<K, V> readBuffer : readBuffers) {
+            readBuffer.drain(this::link);
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -542,6 +640,7 @@ public class Cache<K, V> {
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
+                drainReadBuffers();
                 h = head;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
                 Entry<K, V> current = head;
@@ -572,6 +671,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             evict(now);
         }
     }
@@ -603,7 +703,7 @@ public class Cache<K, V> {
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -631,7 +731,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -654,9 +754,13 @@ public class Cache<K, V> {
         private Entry<K, V> current;
         private Entry<K, V> next;
 
-        CacheIterator(Entry<K, V> head) {
+        CacheIterator() {
             current = null;
-            next = head;
+            try (ReleasableLock ignored = lruLock.acquire()) {
+                // apply the buffered reads so that the iteration order reflects them
+                drainReadBuffers();
+                next = head;
+            }
         }
 
         @Override
@@ -728,31 +832,64 @@ public class Cache<K, V> {
     }
 
     private boolean promote(Entry<K, V> entry, long now) {
-        boolean promoted = true;
+        boolean promoted;
         try (ReleasableLock ignored = lruLock.acquire()) {
-            switch (entry.state) {
-                case DELETED:
-                    promoted = false;
-                    break;
-                case EXISTING:
-                    relinkAtHead(entry);
-                    break;
-                case NEW:
-                    linkAtHead(entry);
-                    break;
-            }
+            // apply earlier reads first so that the LRU list reflects the order of accesses
+            drainReadBuffers();
+            final boolean isNew = entry.state == State.NEW;
+            promoted = link(entry);
             if (promoted) {
-                evict(now);
+                evict(now, isNew ? entry : null);
             }
         }
         return promoted;
     }
 
+    private boolean link(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        switch (entry.state) {
+            case DELETED:
+                return false;
+            case EXISTING:
+                relinkAtHead(entry);
+                break;
+            case NEW:
+                linkAtHead(entry);
+                if (frequencySketch != null) {
+                    frequencySketch.ensureCapacity(count);
+                }
+                break;
+        }
+        if (frequencySketch != null) {
+            frequencySketch.increment(entry.key);
+        }
+        return true;
+    }
+
     private void evict(long now) {
+        evict(now, null);
+    }
+
+    /**
+     * evict expired entries and, if the cache exceeds its maximum weight, the least recently used entries
+     *
+     * @param now       the current time
+     * @param candidate the entry that was just inserted, if any; with frequency-based admission it is evicted instead of the least
+     *                  recently used entry if it is not accessed more frequently than that entry
+     */
+    private void evict(long now, Entry<K, V> candidate) {
         assert lruLock.isHeldByCurrentThread();
 
         while (tail != null && shouldPrune(tail, now)) {
-            evictEntry(tail);
+            final Entry<K, V> victim = tail;
+            if (candidate != null && candidate != victim && candidate.state == State.EXISTING && isExpired(victim, now) == false
+                && frequencySketch != null && frequencySketch.frequency(candidate.key) <= frequencySketch.frequency(victim.key)) {
+                evictEntry(candidate);
+                candidate = null;
+            } else {
+                evictEntry(victim);
+            }
         }
     }
 
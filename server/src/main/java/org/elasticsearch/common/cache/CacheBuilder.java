@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean frequencyBasedAdmission;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,17 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Enables frequency-based admission for caches with a maximum weight. When the cache is full, a newly inserted entry is only kept
+     * if it was accessed more often than the least recently used entry that would make room for it, as estimated by a compact frequency
+     * sketch. This protects frequently used entries from being flushed out by one-off accesses, at the cost of not always retaining the
+     * most recently inserted entry.
+     */
+    public CacheBuilder<K, V> setFrequencyBasedAdmission(boolean frequencyBasedAdmission) {
+        this.frequencyBasedAdmission = frequencyBasedAdmission;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +119,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (frequencyBasedAdmission) {
+            cache.setFrequencyBasedAdmission(true);
+        }
         return cache;
     }
 }
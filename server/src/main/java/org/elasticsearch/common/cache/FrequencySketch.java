@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * This code is derived from the FrequencySketch of the Caffeine caching library:
+ * https://github.com/ben-manes/caffeine/blob/v2.8.0/caffeine/src/main/java/com/github/benmanes/caffeine/cache/FrequencySketch.java
+ */
+
+package org.elasticsearch.common.cache;
+
+/**
+ * A probabilistic estimate of how often keys have been accessed recently, used by {@link Cache} to decide whether a new entry is
+ * worth admitting at the expense of an existing one (TinyLFU).
+ * <p>
+ * This is a count-min sketch with four hash functions and 4-bit counters, sixteen of which are packed into each {@code long}. To keep
+ * the estimate focused on recent history all counters are halved once the number of recorded accesses reaches ten times the size of
+ * the table. Not thread-safe, callers must hold the LRU lock of the cache.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MINIMUM_TABLE_SIZE = 16;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch() {
+        resize(MINIMUM_TABLE_SIZE);
+    }
+
+    /**
+     * Grows the sketch so that it can track at least the given number of entries with reasonable accuracy. The recorded frequencies
+     * are carried over, halved like on a reset.
+     */
+    void ensureCapacity(long expectedEntries) {
+        final int capacity = (int) Math.min(expectedEntries, 1 << 30);
+        if (capacity > table.length) {
+            resize(Integer.highestOneBit(capacity - 1) << 1);
+        }
+    }
+
+    private void resize(int tableSize) {
+        final long[] previousTable = table;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * tableSize;
+        if (previousTable != null) {
+            // a slot of the previous table is the low bits of the same hash as the slots of the new table, so copying it into all the
+            // slots it is spread to keeps the estimate of every key. Halving ages the counters copied that way, like on a reset.
+            final int previousTableMask = previousTable.length - 1;
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (previousTable[i & previousTableMask] >>> 1) & RESET_MASK;
+            }
+            size >>>= 1;
+        }
+    }
+
+    /**
+     * Returns the estimated number of recent accesses to the given key, between 0 and 15.
+     */
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the given key, halving all counters if the sample period is over.
+     */
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        // each increment touched four counters, so a quarter of the truncated odd counts is what was lost by halving
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -18,8 +18,10 @@
  */
 package org.elasticsearch.common.lucene.index;
 
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SegmentReader;
 import org.elasticsearch.index.shard.ShardId;
 
 /**
@@ -58,6 +60,21 @@ public final class ElasticsearchLeafReader extends FilterLeafReader {
         return in.getReaderCacheHelper();
     }
 
+    /**
+     * Returns a stored fields reader that keeps the last decompressed block around, so that visiting documents in increasing
+     * doc id order only decompresses each block once, or {@code null} if the underlying segment doesn't provide one. The
+     * returned reader is not thread-safe and must only be used by the thread that acquired it.
+     */
+    public StoredFieldsReader getSequentialStoredFieldsReader() {
+        // the readers wrapped by this one are only added by the engine, e.g. to hide soft-deleted documents, and never
+        // change the stored fields of a document
+        LeafReader reader = FilterLeafReader.unwrap(in);
+        if (reader instanceof SegmentReader) {
+            return ((SegmentReader) reader).getFieldsReader().getMergeInstance();
+        }
+        return null;
+    }
+
     public static ElasticsearchLeafReader getElasticsearchLeafReader(LeafReader reader) {
         if (reader instanceof FilterLeafReader) {
             if (reader instanceof ElasticsearchLeafReader) {
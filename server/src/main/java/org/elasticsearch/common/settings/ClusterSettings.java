@@ -389,6 +389,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
             MultiBucketConsumerService.MAX_BUCKET_SETTING,
             SearchService.LOW_LEVEL_CANCELLATION_SETTING,
             SearchService.MAX_OPEN_SCROLL_CONTEXT,
+            SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT,
+            SearchService.MAX_FETCH_CONCURRENCY,
+            SearchService.CONCURRENT_SEGMENT_SEARCH_SETTING,
             Node.WRITE_PORTS_FILE_SETTING,
             Node.NODE_NAME_SETTING,
             Node.NODE_DATA_SETTING,
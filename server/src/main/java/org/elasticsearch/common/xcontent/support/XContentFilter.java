@@ -0,0 +1,217 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+
+/**
+ * Filters an object with the same include and exclude rules as {@link XContentMapValues#filter(String[], String[])}, but
+ * by copying the matching tokens from a parser straight to a builder instead of parsing the whole object into maps and
+ * serializing the filtered maps again. Unlike the map based filter, the filtered object keeps the order of its fields.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class XContentFilter {
+
+    private static final CharacterRunAutomaton MATCH_ALL = new CharacterRunAutomaton(Automata.makeAnyString());
+
+    private final CharacterRunAutomaton include;
+    private final CharacterRunAutomaton exclude;
+
+    public XContentFilter(String[] includes, String[] excludes) {
+        if (includes == null || includes.length == 0) {
+            include = MATCH_ALL;
+        } else {
+            include = new CharacterRunAutomaton(XContentMapValues.makeMatchDotsInFieldNames(Regex.simpleMatchToAutomaton(includes)));
+        }
+        Automaton excludeA;
+        if (excludes == null || excludes.length == 0) {
+            excludeA = Automata.makeEmpty();
+        } else {
+            excludeA = XContentMapValues.makeMatchDotsInFieldNames(Regex.simpleMatchToAutomaton(excludes));
+        }
+        exclude = new CharacterRunAutomaton(excludeA);
+    }
+
+    /**
+     * Copies the object the parser is positioned on, or the next object if the parser hasn't been advanced yet, to the
+     * builder, keeping only the properties that match the includes but not the excludes. The builder always receives an
+     * object, which is empty if nothing matched.
+     */
+    public void filter(XContentParser parser, XContentBuilder builder) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException("expected an object but got [" + token + "]");
+        }
+        Frame root = new Frame(null, null, false);
+        root.open(builder);
+        filterObject(parser, builder, root, include, 0, 0);
+        builder.endObject();
+    }
+
+    private void filterObject(XContentParser parser, XContentBuilder builder, Frame frame,
+                              CharacterRunAutomaton includeAutomaton, int initialIncludeState, int initialExcludeState) throws IOException {
+        while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+            final String key = parser.currentName();
+            final XContentParser.Token token = parser.nextToken();
+
+            final int includeState = XContentMapValues.step(includeAutomaton, key, initialIncludeState);
+            if (includeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+
+            int excludeState = XContentMapValues.step(exclude, key, initialExcludeState);
+            if (excludeState != -1 && exclude.isAccept(excludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+            int subIncludeState = includeState;
+            if (includeAutomaton.isAccept(includeState)) {
+                if (excludeState == -1 || exclude.step(excludeState, '.') == -1) {
+                    // the exclude has no chances to match inner properties
+                    frame.open(builder);
+                    builder.field(key);
+                    builder.copyCurrentStructure(parser);
+                    continue;
+                } else {
+                    // the object matched, so consider that the include matches every inner property
+                    // we only care about excludes now
+                    subIncludeAutomaton = MATCH_ALL;
+                    subIncludeState = 0;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+                subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                if (subIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (excludeState != -1) {
+                    excludeState = exclude.step(excludeState, '.');
+                }
+                Frame child = new Frame(frame, key, false);
+                if (includeAutomaton.isAccept(includeState)) {
+                    // an object that matched an include is kept even if all of its properties are excluded
+                    child.open(builder);
+                }
+                filterObject(parser, builder, child, subIncludeAutomaton, subIncludeState, excludeState);
+                child.close(builder);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                Frame child = new Frame(frame, key, true);
+                filterArray(parser, builder, child, subIncludeAutomaton, subIncludeState, excludeState);
+                child.close(builder);
+            } else if (includeAutomaton.isAccept(includeState)
+                    && (excludeState == -1 || exclude.isAccept(excludeState) == false)) {
+                frame.open(builder);
+                builder.field(key);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    private void filterArray(XContentParser parser, XContentBuilder builder, Frame frame,
+                             CharacterRunAutomaton includeAutomaton, int initialIncludeState, int initialExcludeState) throws IOException {
+        final boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                int includeState = includeAutomaton.step(initialIncludeState, '.');
+                if (includeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int excludeState = initialExcludeState;
+                if (excludeState != -1) {
+                    excludeState = exclude.step(excludeState, '.');
+                }
+                Frame child = new Frame(frame, null, false);
+                filterObject(parser, builder, child, includeAutomaton, includeState, excludeState);
+                child.close(builder);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                Frame child = new Frame(frame, null, true);
+                filterArray(parser, builder, child, includeAutomaton, initialIncludeState, initialExcludeState);
+                child.close(builder);
+            } else if (isInclude) {
+                // only accept this array value if the key we are on is accepted
+                frame.open(builder);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * An object or array of the input whose start is only written once the first of its properties or values is kept,
+     * so that objects and arrays that end up empty are left out like the map based filter does.
+     */
+    private static final class Frame {
+        private final Frame parent;
+        private final String name;
+        private final boolean array;
+        private boolean opened;
+
+        Frame(Frame parent, String name, boolean array) {
+            this.parent = parent;
+            this.name = name;
+            this.array = array;
+        }
+
+        void open(XContentBuilder builder) throws IOException {
+            if (opened) {
+                return;
+            }
+            if (parent != null) {
+                parent.open(builder);
+            }
+            if (name != null) {
+                builder.field(name);
+            }
+            if (array) {
+                builder.startArray();
+            } else {
+                builder.startObject();
+            }
+            opened = true;
+        }
+
+        void close(XContentBuilder builder) throws IOException {
+            if (opened) {
+                if (array) {
+                    builder.endArray();
+                } else {
+                    builder.endObject();
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.discovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -33,21 +35,36 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
 
     private final PendingClusterStateStats queueStats;
     private final PublishClusterStateStats publishStats;
+    private final ClusterApplierStats applierStats;
 
     public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats) {
+        this(queueStats, publishStats, null);
+    }
+
+    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats,
+                          ClusterApplierStats applierStats) {
         this.queueStats = queueStats;
         this.publishStats = publishStats;
+        this.applierStats = applierStats;
     }
 
     public DiscoveryStats(StreamInput in) throws IOException {
         queueStats = in.readOptionalWriteable(PendingClusterStateStats::new);
         publishStats = in.readOptionalWriteable(PublishClusterStateStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            applierStats = in.readOptionalWriteable(ClusterApplierStats::new);
+        } else {
+            applierStats = null;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeOptionalWriteable(queueStats);
         out.writeOptionalWriteable(publishStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(applierStats);
+        }
     }
 
     @Override
@@ -59,6 +76,9 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (publishStats != null) {
             publishStats.toXContent(builder, params);
         }
+        if (applierStats != null) {
+            applierStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -74,4 +94,8 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
     public PublishClusterStateStats getPublishStats() {
         return publishStats;
     }
+
+    public ClusterApplierStats getApplierStats() {
+        return applierStats;
+    }
 }
@@ -243,7 +243,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         createIndices(state);
 
-        createOrUpdateShards(state);
+        createOrUpdateShards(event);
     }
 
     /**
@@ -566,7 +566,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createOrUpdateShards(final ClusterState state) {
+    private void createOrUpdateShards(final ClusterChangedEvent event) {
+        final ClusterState state = event.state();
         RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
@@ -574,6 +575,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         DiscoveryNodes nodes = state.nodes();
         RoutingTable routingTable = state.routingTable();
+        // only shards of indices touched by this event can require an update, unless they are still waiting to be started
+        final Set<Index> indicesChanged = event.indicesChanged();
 
         for (final ShardRouting shardRouting : localRoutingNode) {
             ShardId shardId = shardRouting.shardId();
@@ -584,7 +587,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                 if (shard == null) {
                     assert shardRouting.initializing() : shardRouting + " should have been removed by failMissingShards";
                     createShard(nodes, routingTable, shardRouting, state);
-                } else {
+                } else if (shardRouting.initializing() || indicesChanged.contains(shardId.getIndex())
+                    || shardRouting.equals(shard.routingEntry()) == false) {
                     updateShard(nodes, shardRouting, shard, routingTable, state);
                 }
             }
@@ -443,7 +443,8 @@ public class IngestService implements ClusterStateApplier {
             processorMetrics.forEach(t -> {
                 Processor processor = t.v1();
                 IngestMetric processorMetric = t.v2();
-                statsBuilder.addProcessorMetrics(id, getProcessorName(processor), processor.getType(), processorMetric);
+                statsBuilder.addProcessorMetrics(id, getProcessorName(processor), processor.getType(), processorMetric,
+                    unwrapConditional(processor).getDetailedStats());
             });
         });
         return statsBuilder.build();
@@ -460,6 +461,13 @@ public class IngestService implements ClusterStateApplier {
         ingestClusterStateListeners.add(listener);
     }
 
+    private static Processor unwrapConditional(Processor processor) {
+        if (processor instanceof ConditionalProcessor) {
+            return ((ConditionalProcessor) processor).getInnerProcessor();
+        }
+        return processor;
+    }
+
     //package private for testing
     static String getProcessorName(Processor processor) {
         // conditionals are implemented as wrappers around the real processor, so get the real processor for the correct type for the name
@@ -599,6 +607,7 @@ public class IngestService implements ClusterStateApplier {
                             IngestMetric oldMetric = oldCompositeMetric.v2();
                             if (type.equals(oldType)) {
                                 metric.add(oldMetric);
+                                unwrapConditional(compositeMetric.v1()).addDetailedStats(unwrapConditional(oldCompositeMetric.v1()));
                             }
                         }
                     }
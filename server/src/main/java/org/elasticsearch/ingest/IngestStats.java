@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -74,7 +75,17 @@ public class IngestStats implements Writeable, ToXContentFragment {
                     processorType = in.readString();
                 }
                 Stats processorStat = new Stats(in);
-                processorStatsPerPipeline.add(new ProcessorStat(processorName, processorType, processorStat));
+                Map<String, DetailedStat> detailedStats = Collections.emptyMap();
+                if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                    int detailedStatsSize = in.readVInt();
+                    if (detailedStatsSize > 0) {
+                        detailedStats = new LinkedHashMap<>(detailedStatsSize);
+                        for (int k = 0; k < detailedStatsSize; k++) {
+                            detailedStats.put(in.readString(), new DetailedStat(in));
+                        }
+                    }
+                }
+                processorStatsPerPipeline.add(new ProcessorStat(processorName, processorType, processorStat, detailedStats));
             }
             this.processorStats.put(pipelineId, processorStatsPerPipeline);
         }
@@ -98,6 +109,13 @@ public class IngestStats implements Writeable, ToXContentFragment {
                         out.writeString(processorStat.getType());
                     }
                     processorStat.getStats().writeTo(out);
+                    if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                        out.writeVInt(processorStat.getDetailedStats().size());
+                        for (Map.Entry<String, DetailedStat> entry : processorStat.getDetailedStats().entrySet()) {
+                            out.writeString(entry.getKey());
+                            entry.getValue().writeTo(out);
+                        }
+                    }
                 }
             }
         }
@@ -123,6 +141,15 @@ public class IngestStats implements Writeable, ToXContentFragment {
                     builder.startObject("stats");
                     processorStat.getStats().toXContent(builder, params);
                     builder.endObject();
+                    if (processorStat.getDetailedStats().isEmpty() == false) {
+                        builder.startObject("detailed_stats");
+                        for (Map.Entry<String, DetailedStat> entry : processorStat.getDetailedStats().entrySet()) {
+                            builder.startObject(entry.getKey());
+                            entry.getValue().toXContent(builder, params);
+                            builder.endObject();
+                        }
+                        builder.endObject();
+                    }
                     builder.endObject();
                     builder.endObject();
                 }
@@ -248,6 +275,68 @@ public class IngestStats implements Writeable, ToXContentFragment {
         }
     }
 
+    /**
+     * Stats about a part of the work of a processor, see {@link Processor#getDetailedStats()}.
+     */
+    public static class DetailedStat implements Writeable, ToXContentFragment {
+
+        private final long count;
+        private final long timeInMillis;
+
+        public DetailedStat(long count, long timeInMillis) {
+            this.count = count;
+            this.timeInMillis = timeInMillis;
+        }
+
+        /**
+         * Read from a stream.
+         */
+        public DetailedStat(StreamInput in) throws IOException {
+            count = in.readVLong();
+            timeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(timeInMillis);
+        }
+
+        /**
+         * @return The number of times this part of the processor applied.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The time spent on this part of the processor in millis.
+         */
+        public long getTimeInMillis() {
+            return timeInMillis;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field("count", count);
+            builder.humanReadableField("time_in_millis", "time", new TimeValue(timeInMillis, TimeUnit.MILLISECONDS));
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            IngestStats.DetailedStat that = (IngestStats.DetailedStat) o;
+            return count == that.count && timeInMillis == that.timeInMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, timeInMillis);
+        }
+    }
+
     /**
      * Easy conversion from scoped {@link IngestMetric} objects to a serializable Stats objects
      */
@@ -267,9 +356,10 @@ public class IngestStats implements Writeable, ToXContentFragment {
             return this;
         }
 
-        Builder addProcessorMetrics(String pipelineId, String processorName, String processorType, IngestMetric metric) {
+        Builder addProcessorMetrics(String pipelineId, String processorName, String processorType, IngestMetric metric,
+                                    Map<String, DetailedStat> detailedStats) {
             this.processorStats.computeIfAbsent(pipelineId, k -> new ArrayList<>())
-                .add(new ProcessorStat(processorName, processorType, metric.createStats()));
+                .add(new ProcessorStat(processorName, processorType, metric.createStats(), detailedStats));
             return this;
         }
 
@@ -321,11 +411,17 @@ public class IngestStats implements Writeable, ToXContentFragment {
         private final String name;
         private final String type;
         private final Stats stats;
+        private final Map<String, DetailedStat> detailedStats;
 
         public ProcessorStat(String name, String type, Stats stats) {
+            this(name, type, stats, Collections.emptyMap());
+        }
+
+        public ProcessorStat(String name, String type, Stats stats, Map<String, DetailedStat> detailedStats) {
             this.name = name;
             this.type = type;
             this.stats = stats;
+            this.detailedStats = detailedStats;
         }
 
         public String getName() {
@@ -340,6 +436,12 @@ public class IngestStats implements Writeable, ToXContentFragment {
             return stats;
         }
 
+        /**
+         * @return Stats that break down the work of the processor, see {@link Processor#getDetailedStats()}.
+         */
+        public Map<String, DetailedStat> getDetailedStats() {
+            return detailedStats;
+        }
 
         @Override
         public boolean equals(Object o) {
@@ -348,12 +450,13 @@ public class IngestStats implements Writeable, ToXContentFragment {
             IngestStats.ProcessorStat that = (IngestStats.ProcessorStat) o;
             return Objects.equals(name, that.name)
                 && Objects.equals(type, that.type)
-                && Objects.equals(stats, that.stats);
+                && Objects.equals(stats, that.stats)
+                && Objects.equals(detailedStats, that.detailedStats);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(name, type, stats);
+            return Objects.hash(name, type, stats, detailedStats);
         }
     }
 }
@@ -26,6 +26,7 @@ import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.Scheduler;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -73,6 +74,21 @@ public interface Processor {
      */
     String getTag();
 
+    /**
+     * Gets stats that break down the work of this processor, keyed by the part of the processor they apply to, for instance
+     * the patterns of a grok processor. They are reported along with the ingest stats of the processor.
+     */
+    default Map<String, IngestStats.DetailedStat> getDetailedStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Adds the detailed stats of the given processor to the detailed stats of this processor. This is called when this processor
+     * replaces the given one because its pipeline got updated.
+     */
+    default void addDetailedStats(Processor previous) {
+    }
+
     /**
      * A factory that knows how to construct a processor based on a map of maps.
      */
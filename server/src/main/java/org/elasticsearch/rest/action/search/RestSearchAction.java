@@ -20,8 +20,8 @@
 package org.elasticsearch.rest.action.search;
 
 import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchContextId;
 import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.Booleans;
@@ -32,7 +32,6 @@ import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestActions;
-import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.StoredFieldsContext;
@@ -100,7 +99,7 @@ public class RestSearchAction extends BaseRestHandler {
             parseSearchRequest(searchRequest, request, parser, setSize));
 
         return channel -> {
-            RestStatusToXContentListener<SearchResponse> listener = new RestStatusToXContentListener<>(channel);
+            RestSearchResponseListener listener = new RestSearchResponseListener(channel);
             HttpChannelTaskHandler.INSTANCE.execute(client, request.getHttpChannel(), searchRequest, SearchAction.INSTANCE, listener);
         };
     }
@@ -123,6 +122,13 @@ public class RestSearchAction extends BaseRestHandler {
         if (requestContentParser != null) {
             searchRequest.source().parseXContent(requestContentParser, true);
         }
+        if (searchRequest.pointInTimeBuilder() != null) {
+            if (searchRequest.indices().length > 0) {
+                throw new IllegalArgumentException("[indices] cannot be used with point in time");
+            }
+            // searches on a point in time target the indices that it was opened on
+            searchRequest.indices(SearchContextId.decode(searchRequest.pointInTimeBuilder().getId()).getActualIndices());
+        }
 
         final int batchedReduceSize = request.paramAsInt("batched_reduce_size", searchRequest.getBatchedReduceSize());
         searchRequest.setBatchedReduceSize(batchedReduceSize);
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestStatusToXContentListener;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Renders a {@link SearchResponse} that is owned by the channel and rendered exactly once. Each hit releases its {@code _source}
+ * as soon as it has been written to the channel's pooled output, so that responses with many hits only hold roughly one copy
+ * of their sources in heap rather than the fetched hits plus their rendered bytes.
+ */
+public class RestSearchResponseListener extends RestStatusToXContentListener<SearchResponse> {
+
+    private static final Map<String, String> RENDER_PARAMS = Collections.singletonMap(SearchHit.RELEASE_SOURCE_PARAM, "true");
+
+    public RestSearchResponseListener(RestChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public RestResponse buildResponse(SearchResponse response, XContentBuilder builder) throws Exception {
+        response.toXContent(builder, new ToXContent.DelegatingMapParams(RENDER_PARAMS, channel.request()));
+        return new BytesRestResponse(response.status(), builder);
+    }
+}
@@ -24,7 +24,6 @@ import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
-import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 
 import java.io.IOException;
@@ -69,7 +68,7 @@ public class RestSearchScrollAction extends BaseRestHandler {
                     throw new IllegalArgumentException("Failed to parse request body", e);
                 }
             }});
-        return channel -> client.searchScroll(searchScrollRequest, new RestStatusToXContentListener<>(channel));
+        return channel -> client.searchScroll(searchScrollRequest, new RestSearchResponseListener(channel));
     }
 
     @Override
@@ -22,6 +22,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Scorable;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.lucene.ScorerAware;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.search.lookup.LeafSearchLookup;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -145,6 +146,17 @@ public abstract class AggregationScript implements ScorerAware {
          * Return {@code true} if the script needs {@code _score} calculated, or {@code false} otherwise.
          */
         boolean needs_score();
+
+        /**
+         * Return the values of the script on the given segment as single-valued doubles, or {@code null} if the script
+         * may produce any number of values of any type, in which case they are read from {@link #newInstance} one document
+         * at a time. Engines whose scripts always evaluate to exactly one number per document can implement this to let
+         * aggregations read script values the same way as they read single-valued numeric fields. This is only called if
+         * {@link #needs_score()} returns {@code false}.
+         */
+        default NumericDoubleValues singleDoubleValues(LeafReaderContext ctx) throws IOException {
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Compilation and script cache stats of a single {@link ScriptContext}.
+ */
+public class ScriptContextStats implements Writeable, ToXContentFragment {
+    private final long compilations;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long cacheEvictions;
+
+    public ScriptContextStats(long compilations, long cacheHits, long cacheMisses, long cacheEvictions) {
+        this.compilations = compilations;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.cacheEvictions = cacheEvictions;
+    }
+
+    public ScriptContextStats(StreamInput in) throws IOException {
+        compilations = in.readVLong();
+        cacheHits = in.readVLong();
+        cacheMisses = in.readVLong();
+        cacheEvictions = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(compilations);
+        out.writeVLong(cacheHits);
+        out.writeVLong(cacheMisses);
+        out.writeVLong(cacheEvictions);
+    }
+
+    public long getCompilations() {
+        return compilations;
+    }
+
+    /**
+     * The number of compilation requests that were answered from the script cache.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * The number of compilation requests that were not found in the script cache and had to be compiled.
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.COMPILATIONS, getCompilations());
+        builder.field(Fields.CACHE_HITS, getCacheHits());
+        builder.field(Fields.CACHE_MISSES, getCacheMisses());
+        builder.field(Fields.CACHE_EVICTIONS, getCacheEvictions());
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScriptContextStats that = (ScriptContextStats) o;
+        return compilations == that.compilations && cacheHits == that.cacheHits && cacheMisses == that.cacheMisses
+            && cacheEvictions == that.cacheEvictions;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(compilations, cacheHits, cacheMisses, cacheEvictions);
+    }
+
+    static final class Fields {
+        static final String COMPILATIONS = "compilations";
+        static final String CACHE_HITS = "cache_hits";
+        static final String CACHE_MISSES = "cache_misses";
+        static final String CACHE_EVICTIONS = "cache_evictions";
+    }
+}
@@ -49,6 +49,17 @@ public interface ScriptEngine extends Closeable {
         Map<String, String> params
     );
 
+    /**
+     * Returns the form of a script's source that is used to look it up in the compiled script cache, and that is compiled in
+     * place of the source. The canonical form must compile to a script that is equivalent to the source for the given context.
+     * @param code actual source of the script
+     * @param context the context this script will be used for
+     * @return the canonical source, which defaults to the source itself
+     */
+    default String canonicalize(String code, ScriptContext<?> context) {
+        return code;
+    }
+
     @Override
     default void close() throws IOException {}
 
@@ -21,24 +21,64 @@ package org.elasticsearch.script;
 
 import org.elasticsearch.common.metrics.CounterMetric;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 public class ScriptMetrics {
     final CounterMetric compilationsMetric = new CounterMetric();
     final CounterMetric cacheEvictionsMetric = new CounterMetric();
     final CounterMetric compilationLimitTriggered = new CounterMetric();
+    private final ConcurrentMap<String, ContextMetrics> contextMetrics = new ConcurrentHashMap<>();
 
     public ScriptStats stats() {
-        return new ScriptStats(compilationsMetric.count(), cacheEvictionsMetric.count(), compilationLimitTriggered.count());
+        Map<String, ScriptContextStats> contextStats = new HashMap<>();
+        for (Map.Entry<String, ContextMetrics> entry : contextMetrics.entrySet()) {
+            contextStats.put(entry.getKey(), entry.getValue().stats());
+        }
+        return new ScriptStats(compilationsMetric.count(), cacheEvictionsMetric.count(), compilationLimitTriggered.count(),
+            contextStats);
     }
 
-    public void onCompilation() {
+    public void onCompilation(String context) {
         compilationsMetric.inc();
+        contextMetrics(context).compilations.inc();
+    }
+
+    public void onCacheHit(String context) {
+        contextMetrics(context).cacheHits.inc();
+    }
+
+    public void onCacheMiss(String context) {
+        contextMetrics(context).cacheMisses.inc();
     }
 
-    public void onCacheEviction() {
+    public void onCacheEviction(String context) {
         cacheEvictionsMetric.inc();
+        contextMetrics(context).cacheEvictions.inc();
     }
 
     public void onCompilationLimit() {
         compilationLimitTriggered.inc();
     }
+
+    private ContextMetrics contextMetrics(String context) {
+        ContextMetrics metrics = contextMetrics.get(context);
+        if (metrics == null) {
+            metrics = contextMetrics.computeIfAbsent(context, k -> new ContextMetrics());
+        }
+        return metrics;
+    }
+
+    private static final class ContextMetrics {
+        final CounterMetric compilations = new CounterMetric();
+        final CounterMetric cacheHits = new CounterMetric();
+        final CounterMetric cacheMisses = new CounterMetric();
+        final CounterMetric cacheEvictions = new CounterMetric();
+
+        ScriptContextStats stats() {
+            return new ScriptContextStats(compilations.count(), cacheHits.count(), cacheMisses.count(), cacheEvictions.count());
+        }
+    }
 }
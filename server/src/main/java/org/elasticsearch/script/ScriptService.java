@@ -123,6 +123,7 @@ public class ScriptService implements Closeable, ClusterStateApplier {
     private final Map<String, ScriptContext<?>> contexts;
 
     private final Cache<CacheKey, Object> cache;
+    private final Cache<CacheKey, String> canonicalSources;
 
     private final ScriptMetrics scriptMetrics = new ScriptMetrics();
 
@@ -228,6 +229,16 @@ public class ScriptService implements Closeable, ClusterStateApplier {
         logger.debug("using script cache with max_size [{}], expire [{}]", cacheMaxSize, cacheExpire);
         this.cache = cacheBuilder.removalListener(new ScriptCacheRemovalListener()).build();
 
+        // the canonical form of the sources is cached with the same bounds as the compiled scripts, but without counting evictions
+        CacheBuilder<CacheKey, String> canonicalSourcesBuilder = CacheBuilder.builder();
+        if (cacheMaxSize >= 0) {
+            canonicalSourcesBuilder.setMaximumWeight(cacheMaxSize);
+        }
+        if (cacheExpire.getNanos() != 0) {
+            canonicalSourcesBuilder.setExpireAfterAccess(cacheExpire);
+        }
+        this.canonicalSources = canonicalSourcesBuilder.build();
+
         this.lastInlineCompileTime = System.nanoTime();
         this.setMaxSizeInBytes(SCRIPT_MAX_SIZE_IN_BYTES.get(settings));
         this.setMaxCompilationRate(SCRIPT_MAX_COMPILATIONS_RATE.get(settings));
@@ -332,10 +343,19 @@ public class ScriptService implements Closeable, ClusterStateApplier {
             logger.trace("compiling lang: [{}] type: [{}] script: {}", lang, type, idOrCode);
         }
 
-        CacheKey cacheKey = new CacheKey(lang, idOrCode, context.name, options);
+        // key the cache on the canonical form of the source so that scripts that only differ in formatting share a compilation,
+        // canonicalizing a source that was seen before is only a lookup
+        CacheKey sourceKey = new CacheKey(lang, idOrCode, context.name, options);
+        String canonicalSource = canonicalSources.get(sourceKey);
+        if (canonicalSource == null) {
+            canonicalSource = scriptEngine.canonicalize(idOrCode, context);
+            canonicalSources.put(sourceKey, canonicalSource);
+        }
+        CacheKey cacheKey = new CacheKey(lang, canonicalSource, context.name, options);
         Object compiledScript = cache.get(cacheKey);
 
         if (compiledScript != null) {
+            scriptMetrics.onCacheHit(context.name);
             return context.factoryClazz.cast(compiledScript);
         }
 
@@ -344,7 +364,10 @@ public class ScriptService implements Closeable, ClusterStateApplier {
             // Retrieve it again in case it has been put by a different thread
             compiledScript = cache.get(cacheKey);
 
-            if (compiledScript == null) {
+            if (compiledScript != null) {
+                scriptMetrics.onCacheHit(context.name);
+            } else {
+                scriptMetrics.onCacheMiss(context.name);
                 try {
                     // Either an un-cached inline script or indexed script
                     // If the script type is inline the name will be the same as the code for identification in exceptions
@@ -355,7 +378,7 @@ public class ScriptService implements Closeable, ClusterStateApplier {
                     }
                     // Check whether too many compilations have happened
                     checkCompilationLimit();
-                    compiledScript = scriptEngine.compile(id, idOrCode, context, options);
+                    compiledScript = compileCanonicalSource(scriptEngine, id, idOrCode, canonicalSource, context, options);
                 } catch (ScriptException good) {
                     // TODO: remove this try-catch completely, when all script engines have good exceptions!
                     throw good; // its already good
@@ -366,7 +389,7 @@ public class ScriptService implements Closeable, ClusterStateApplier {
 
                 // Since the cache key is the script content itself we don't need to
                 // invalidate/check the cache if an indexed script changes.
-                scriptMetrics.onCompilation();
+                scriptMetrics.onCompilation(context.name);
                 cache.put(cacheKey, compiledScript);
             }
 
@@ -577,6 +600,24 @@ public class ScriptService implements Closeable, ClusterStateApplier {
         clusterState = event.state();
     }
 
+    /**
+     * Compiles the canonical form of a source, so that all the sources that share a cache entry also share the source that
+     * runtime errors are reported against. Compilation errors are reported against the source of the caller though, which is
+     * compiled as is if its canonical form does not compile.
+     */
+    private static <FactoryType> FactoryType compileCanonicalSource(ScriptEngine scriptEngine, String id, String source,
+                                                                   String canonicalSource, ScriptContext<FactoryType> context,
+                                                                   Map<String, String> options) {
+        if (canonicalSource.equals(source)) {
+            return scriptEngine.compile(id, source, context, options);
+        }
+        try {
+            return scriptEngine.compile(id, canonicalSource, context, options);
+        } catch (ScriptException e) {
+            return scriptEngine.compile(id, source, context, options);
+        }
+    }
+
     /**
      * A small listener for the script cache that calls each
      * {@code ScriptEngine}'s {@code scriptRemoved} method when the
@@ -588,7 +629,7 @@ public class ScriptService implements Closeable, ClusterStateApplier {
             if (logger.isDebugEnabled()) {
                 logger.debug("removed {} from cache, reason: {}", notification.getValue(), notification.getRemovalReason());
             }
-            scriptMetrics.onCacheEviction();
+            scriptMetrics.onCacheEviction(notification.getKey().context);
         }
     }
 
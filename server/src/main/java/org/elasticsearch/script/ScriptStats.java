@@ -19,6 +19,7 @@
 
 package org.elasticsearch.script;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -26,22 +27,37 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ScriptStats implements Writeable, ToXContentFragment {
     private final long compilations;
     private final long cacheEvictions;
     private final long compilationLimitTriggered;
+    private final Map<String, ScriptContextStats> contextStats;
 
     public ScriptStats(long compilations, long cacheEvictions, long compilationLimitTriggered) {
+        this(compilations, cacheEvictions, compilationLimitTriggered, Collections.emptyMap());
+    }
+
+    public ScriptStats(long compilations, long cacheEvictions, long compilationLimitTriggered,
+                       Map<String, ScriptContextStats> contextStats) {
         this.compilations = compilations;
         this.cacheEvictions = cacheEvictions;
         this.compilationLimitTriggered = compilationLimitTriggered;
+        this.contextStats = Collections.unmodifiableMap(new TreeMap<>(contextStats));
     }
 
     public ScriptStats(StreamInput in) throws IOException {
         compilations = in.readVLong();
         cacheEvictions = in.readVLong();
         compilationLimitTriggered = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            contextStats = Collections.unmodifiableMap(new TreeMap<>(in.readMap(StreamInput::readString, ScriptContextStats::new)));
+        } else {
+            contextStats = Collections.emptyMap();
+        }
     }
 
     @Override
@@ -49,6 +65,9 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         out.writeVLong(compilations);
         out.writeVLong(cacheEvictions);
         out.writeVLong(compilationLimitTriggered);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeMap(contextStats, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+        }
     }
 
     public long getCompilations() {
@@ -63,12 +82,26 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         return compilationLimitTriggered;
     }
 
+    /**
+     * The compilation and script cache stats of each script context that has been used on the node, keyed by context name.
+     */
+    public Map<String, ScriptContextStats> getContextStats() {
+        return contextStats;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.SCRIPT_STATS);
         builder.field(Fields.COMPILATIONS, getCompilations());
         builder.field(Fields.CACHE_EVICTIONS, getCacheEvictions());
         builder.field(Fields.COMPILATION_LIMIT_TRIGGERED, getCompilationLimitTriggered());
+        builder.startObject(Fields.CONTEXTS);
+        for (Map.Entry<String, ScriptContextStats> entry : contextStats.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -78,5 +111,6 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         static final String COMPILATIONS = "compilations";
         static final String CACHE_EVICTIONS = "cache_evictions";
         static final String COMPILATION_LIMIT_TRIGGERED = "compilation_limit_triggered";
+        static final String CONTEXTS = "contexts";
     }
 }
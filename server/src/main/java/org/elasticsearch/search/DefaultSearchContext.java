@@ -78,6 +78,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.LongSupplier;
 
 final class DefaultSearchContext extends SearchContext {
@@ -118,6 +119,8 @@ final class DefaultSearchContext extends SearchContext {
     private FieldDoc searchAfter;
     private CollapseContext collapse;
     private boolean lowLevelCancellation;
+    private Executor fetchExecutor;
+    private int fetchMaxConcurrency = 1;
     // filter for sliced scroll
     private SliceBuilder sliceBuilder;
     private SearchShardTask task;
@@ -155,7 +158,7 @@ final class DefaultSearchContext extends SearchContext {
     DefaultSearchContext(long id, ShardSearchRequest request, SearchShardTarget shardTarget,
                          Engine.Searcher engineSearcher, ClusterService clusterService, IndexService indexService,
                          IndexShard indexShard, BigArrays bigArrays, LongSupplier relativeTimeSupplier, TimeValue timeout,
-                         FetchPhase fetchPhase) {
+                         FetchPhase fetchPhase, @Nullable Executor concurrentSearchExecutor) {
         this.id = id;
         this.request = request;
         this.fetchPhase = fetchPhase;
@@ -171,7 +174,7 @@ final class DefaultSearchContext extends SearchContext {
         this.indexService = indexService;
         this.clusterService = clusterService;
         this.searcher = new ContextIndexSearcher(engineSearcher.getIndexReader(), engineSearcher.getSimilarity(),
-            engineSearcher.getQueryCache(), engineSearcher.getQueryCachingPolicy());
+            engineSearcher.getQueryCache(), engineSearcher.getQueryCachingPolicy(), concurrentSearchExecutor);
         this.relativeTimeSupplier = relativeTimeSupplier;
         this.timeout = timeout;
         queryShardContext = indexService.newQueryShardContext(request.shardId().id(), searcher,
@@ -561,6 +564,21 @@ final class DefaultSearchContext extends SearchContext {
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    @Override
+    public Executor fetchExecutor() {
+        return fetchExecutor;
+    }
+
+    @Override
+    public int fetchMaxConcurrency() {
+        return fetchMaxConcurrency;
+    }
+
+    public void fetchConcurrency(Executor fetchExecutor, int fetchMaxConcurrency) {
+        this.fetchExecutor = fetchExecutor;
+        this.fetchMaxConcurrency = fetchMaxConcurrency;
+    }
+
     @Override
     public FieldDoc searchAfter() {
         return searchAfter;
@@ -80,6 +80,12 @@ import static org.elasticsearch.common.xcontent.XContentParserUtils.parseFieldsV
  */
 public final class SearchHit implements Writeable, ToXContentObject, Iterable<DocumentField> {
 
+    /**
+     * Rendering parameter that makes a hit drop its {@code _source} as soon as it has been written. It is only set internally by
+     * callers that own the hit and render it exactly once, and never parsed from a request.
+     */
+    public static final String RELEASE_SOURCE_PARAM = "release_source_after_rendering";
+
     private final transient int docId;
 
     private static final float DEFAULT_SCORE = Float.NaN;
@@ -612,6 +618,10 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
         }
         if (source != null) {
             XContentHelper.writeRawField(SourceFieldMapper.NAME, source, builder, params);
+            if (params.paramAsBoolean(RELEASE_SOURCE_PARAM, false)) {
+                // the source is now held by the builder, there is no need to keep a second copy until the whole response is rendered
+                sourceRef(null);
+            }
         }
         if (!otherFields.isEmpty()) {
             builder.startObject(Fields.FIELDS);
@@ -35,6 +35,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -58,6 +59,7 @@ import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.node.ResponseCollectorService;
@@ -82,6 +84,7 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -152,6 +155,23 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Integer> MAX_OPEN_SCROLL_CONTEXT =
         Setting.intSetting("search.max_open_scroll_context", 500, 0, Property.Dynamic, Property.NodeScope);
 
+    public static final Setting<Integer> MAX_OPEN_POINT_IN_TIME_CONTEXT =
+        Setting.intSetting("search.max_open_point_in_time_context", 500, 0, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The maximum number of search threads the fetch phase of a single shard request may use to run sub phases like highlighting
+     * for chunks of hits concurrently. The default of 1 fetches all hits on the thread that executes the request.
+     */
+    public static final Setting<Integer> MAX_FETCH_CONCURRENCY =
+        Setting.intSetting("search.fetch.max_concurrency", 1, 1, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * Enables searching slices of the segments of a shard concurrently on the {@link Names#SEARCH_WORKER} thread pool, for the
+     * requests that only collect top hits.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_SETTING =
+        Setting.boolSetting("search.concurrent_segment_search.enabled", false, Property.Dynamic, Property.NodeScope);
+
     public static final int DEFAULT_SIZE = 10;
     public static final int DEFAULT_FROM = 0;
 
@@ -185,16 +205,26 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile int maxOpenScrollContext;
 
+    private volatile int maxOpenPointInTimeContext;
+
+    private volatile int maxFetchConcurrency;
+
+    private volatile boolean concurrentSegmentSearch;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final MultiBucketConsumerService multiBucketConsumerService;
 
     private final AtomicInteger openScrollContexts = new AtomicInteger();
 
+    private final AtomicInteger openPointInTimeContexts = new AtomicInteger();
+
     public SearchService(ClusterService clusterService, IndicesService indicesService,
                          ThreadPool threadPool, ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                          ResponseCollectorService responseCollectorService) {
@@ -227,6 +257,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         maxOpenScrollContext = MAX_OPEN_SCROLL_CONTEXT.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_OPEN_SCROLL_CONTEXT, this::setMaxOpenScrollContext);
 
+        maxOpenPointInTimeContext = MAX_OPEN_POINT_IN_TIME_CONTEXT.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_OPEN_POINT_IN_TIME_CONTEXT,
+            this::setMaxOpenPointInTimeContext);
+
+        maxFetchConcurrency = MAX_FETCH_CONCURRENCY.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_FETCH_CONCURRENCY, this::setMaxFetchConcurrency);
+
+        concurrentSegmentSearch = CONCURRENT_SEGMENT_SEARCH_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_SETTING,
+            this::setConcurrentSegmentSearch);
+
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
     }
@@ -261,6 +302,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.maxOpenScrollContext = maxOpenScrollContext;
     }
 
+    private void setMaxOpenPointInTimeContext(int maxOpenPointInTimeContext) {
+        this.maxOpenPointInTimeContext = maxOpenPointInTimeContext;
+    }
+
+    private void setMaxFetchConcurrency(int maxFetchConcurrency) {
+        this.maxFetchConcurrency = maxFetchConcurrency;
+    }
+
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     private void setLowLevelCancellation(Boolean lowLevelCancellation) {
         this.lowLevelCancellation = lowLevelCancellation;
     }
@@ -296,6 +349,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final ReaderContext readerContext : activeReaders.values()) {
+            freeReaderContext(readerContext.id());
+        }
     }
 
     @Override
@@ -610,6 +666,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             }
             contextScrollKeepAlive(context, keepAlive);
             context.lowLevelCancellation(lowLevelCancellation);
+            context.fetchConcurrency(getExecutor(context.indexShard()), maxFetchConcurrency);
         } catch (Exception e) {
             context.close();
             throw e;
@@ -629,13 +686,26 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(),
                 indexShard.shardId(), request.getClusterAlias(), OriginalIndices.NONE);
-        Engine.Searcher searcher = indexShard.acquireSearcher(source);
+        final Engine.Searcher searcher;
+        if (request.readerId() != -1L) {
+            final ReaderContext readerContext = findReaderContext(request.readerId(), request.shardId(), request);
+            if (request.readerKeepAlive() != null) {
+                readerKeepAlive(readerContext, request.readerKeepAlive().millis());
+            }
+            // the reader wrapper is applied on behalf of this search, not of the one that opened the point in time
+            searcher = indexShard.wrapSearcher(readerContext.acquireSearcher(source));
+        } else {
+            searcher = indexShard.acquireSearcher(source);
+        }
 
+        // throttled indices are meant to use as few resources as possible
+        final Executor concurrentSearchExecutor = concurrentSegmentSearch && indexShard.indexSettings().isSearchThrottled() == false ?
+            threadPool.executor(Names.SEARCH_WORKER) : null;
         boolean success = false;
         DefaultSearchContext searchContext = null;
         try {
-            searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
-                searcher, clusterService, indexService, indexShard, bigArrays, threadPool::relativeTimeInMillis, timeout, fetchPhase);
+            searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, searcher, clusterService,
+                indexService, indexShard, bigArrays, threadPool::relativeTimeInMillis, timeout, fetchPhase, concurrentSearchExecutor);
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
             // during rewrite and normalized / evaluate templates etc.
@@ -663,8 +733,89 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 freeContext(ctx.id());
             }
         }
+        for (ReaderContext readerContext : activeReaders.values()) {
+            if (index.equals(readerContext.indexShard().shardId().getIndex())) {
+                freeReaderContext(readerContext.id());
+            }
+        }
     }
 
+    /**
+     * Opens a {@link ReaderContext} that holds a searcher of the given shard until it is freed or its keep alive expires, and
+     * notifies the listener with its id. Search requests that refer to this id all search the same point in time view of the shard.
+     */
+    public void openReaderContext(ShardId shardId, TimeValue keepAlive, ActionListener<Long> listener) {
+        try {
+            checkReaderKeepAlive(keepAlive.millis());
+            final IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+            final IndexShard indexShard = indexService.getShard(shardId.id());
+            // make sure that a pending refresh of a search idle shard is part of the point in time
+            indexShard.awaitShardSearchActive(ignored -> getExecutor(indexShard).execute(ActionRunnable.supply(listener, () -> {
+                if (openPointInTimeContexts.incrementAndGet() > maxOpenPointInTimeContext) {
+                    openPointInTimeContexts.decrementAndGet();
+                    throw new ElasticsearchException(
+                        "Trying to create too many point in time contexts. Must be less than or equal to: [" +
+                            maxOpenPointInTimeContext + "]. " + "This limit can be set by changing the ["
+                            + MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey() + "] setting.");
+                }
+                ReaderContext readerContext = null;
+                boolean success = false;
+                try {
+                    final Engine.Searcher searcher = indexShard.acquireSearcherNoWrap("point_in_time");
+                    readerContext = new ReaderContext(idGenerator.incrementAndGet(), indexService, indexShard,
+                        searcher, keepAlive.millis(), threadPool::relativeTimeInMillis);
+                    indexShard.getSearchOperationListener().onNewReaderContext(readerContext);
+                    final ReaderContext previous = activeReaders.put(readerContext.id(), readerContext);
+                    assert previous == null;
+                    success = true;
+                    return readerContext.id();
+                } finally {
+                    if (success == false) {
+                        openPointInTimeContexts.decrementAndGet();
+                        Releasables.close(readerContext);
+                    }
+                }
+            })));
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    private ReaderContext findReaderContext(long id, ShardId shardId, TransportRequest request) throws SearchContextMissingException {
+        final ReaderContext readerContext = activeReaders.get(id);
+        if (readerContext == null || readerContext.indexShard().shardId().equals(shardId) == false) {
+            throw new SearchContextMissingException(id);
+        }
+        readerContext.indexShard().getSearchOperationListener().validateReaderContext(readerContext, request);
+        return readerContext;
+    }
+
+    /**
+     * Frees the {@link ReaderContext} with the given id. Searches that are still running on its reader complete normally, the
+     * reader is released once the last of them is done.
+     */
+    public boolean freeReaderContext(long id) {
+        try (ReaderContext readerContext = activeReaders.remove(id)) {
+            if (readerContext != null) {
+                openPointInTimeContexts.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Frees the {@link ReaderContext} with the given id on behalf of the given request, provided that the reader context is valid
+     * for that request. Throws {@link SearchContextMissingException} otherwise, as if the reader context did not exist.
+     */
+    public boolean freeReaderContext(long id, TransportRequest request) {
+        final ReaderContext readerContext = activeReaders.get(id);
+        if (readerContext == null) {
+            return false;
+        }
+        readerContext.indexShard().getSearchOperationListener().validateReaderContext(readerContext, request);
+        return freeReaderContext(id);
+    }
 
     public boolean freeContext(long id) {
         try (SearchContext context = removeContext(id)) {
@@ -704,6 +855,20 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         context.keepAlive(keepAlive);
     }
 
+    private void checkReaderKeepAlive(long keepAlive) {
+        if (keepAlive > maxKeepAlive) {
+            throw new IllegalArgumentException(
+                "Keep alive for point in time (" + TimeValue.timeValueMillis(keepAlive) + ") is too large. " +
+                    "It must be less than (" + TimeValue.timeValueMillis(maxKeepAlive) + "). " +
+                    "This limit can be set by changing the [" + MAX_KEEPALIVE_SETTING.getKey() + "] cluster level setting.");
+        }
+    }
+
+    private void readerKeepAlive(ReaderContext readerContext, long keepAlive) {
+        checkReaderKeepAlive(keepAlive);
+        readerContext.keepAlive(keepAlive);
+    }
+
     private void contextProcessing(SearchContext context) {
         // disable timeout while executing a search
         context.accessed(-1);
@@ -984,6 +1149,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeContexts.size();
     }
 
+    /**
+     * Returns the number of point in time reader contexts that are open in this SearchService
+     */
+    public int getActiveReaders() {
+        return this.activeReaders.size();
+    }
+
     public ResponseCollectorService getResponseCollectorService() {
         return this.responseCollectorService;
     }
@@ -1005,6 +1177,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (ReaderContext readerContext : activeReaders.values()) {
+                if (readerContext.isInUse()) {
+                    continue;
+                }
+                final long lastAccessTime = readerContext.lastAccessTime();
+                if (time - lastAccessTime > readerContext.keepAlive()) {
+                    logger.debug("freeing reader context [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", readerContext.id(), time,
+                        lastAccessTime, readerContext.keepAlive());
+                    freeReaderContext(readerContext.id());
+                }
+            }
         }
     }
 
@@ -1023,7 +1206,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         // we don't want to use the reader wrapper since it could run costly operations
         // and we can afford false positives.
-        try (Engine.Searcher searcher = indexShard.acquireSearcherNoWrap("can_match")) {
+        // searches on a point in time must be checked against the reader they will eventually search
+        try (Engine.Searcher searcher = request.readerId() != -1L ?
+                findReaderContext(request.readerId(), request.shardId(), request).acquireSearcher("can_match") :
+                indexShard.acquireSearcherNoWrap("can_match")) {
             QueryShardContext context = indexService.newQueryShardContext(request.shardId().id(), searcher,
                 request::nowInMillis, request.getClusterAlias());
             Rewriteable.rewrite(request.getRewriteable(), context, false);
@@ -1067,10 +1253,15 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private void rewriteShardRequest(ShardSearchRequest request, ActionListener<ShardSearchRequest> listener) {
         IndexShard shard = indicesService.indexServiceSafe(request.shardId().getIndex()).getShard(request.shardId().id());
         Executor executor = getExecutor(shard);
-        ActionListener<Rewriteable> actionListener = ActionListener.wrap(r ->
-                // now we need to check if there is a pending refresh and register
-                shard.awaitShardSearchActive(b -> executor.execute(ActionRunnable.supply(listener, () -> request))),
-            listener::onFailure);
+        ActionListener<Rewriteable> actionListener = ActionListener.wrap(r -> {
+                if (request.readerId() != -1L) {
+                    // a point in time searches a reader that is already open, a pending refresh would not be visible anyway
+                    executor.execute(ActionRunnable.supply(listener, () -> request));
+                } else {
+                    // now we need to check if there is a pending refresh and register
+                    shard.awaitShardSearchActive(b -> executor.execute(ActionRunnable.supply(listener, () -> request)));
+                }
+            }, listener::onFailure);
         // we also do rewrite on the coordinating node (TransportSearchService) but we also need to do it here for BWC as well as
         // AliasFilters that might need to be rewritten. These are edge-cases but we are every efficient doing the rewrite here so it's not
         // adding a lot of overhead
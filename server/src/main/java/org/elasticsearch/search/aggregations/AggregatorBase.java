@@ -56,6 +56,7 @@ public abstract class AggregatorBase extends Aggregator {
     private final List<PipelineAggregator> pipelineAggregators;
     private final CircuitBreakerService breakerService;
     private long requestBytesUsed;
+    private BlockLeafBucketCollector blockCollector;
 
     /**
      * Constructs a new Aggregator.
@@ -164,9 +165,22 @@ public abstract class AggregatorBase extends Aggregator {
 
     @Override
     public final LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // flush the documents buffered for the previous segment before sub-aggregators move to the next one
+        flushBlockCollector();
         preGetSubLeafCollectors();
         final LeafBucketCollector sub = collectableSubAggregators.getLeafCollector(ctx);
-        return getLeafCollector(ctx, sub);
+        final LeafBucketCollector collector = getLeafCollector(ctx, sub);
+        if (collector instanceof BlockLeafBucketCollector) {
+            blockCollector = (BlockLeafBucketCollector) collector;
+        }
+        return collector;
+    }
+
+    private void flushBlockCollector() throws IOException {
+        if (blockCollector != null) {
+            blockCollector.flush();
+            blockCollector = null;
+        }
     }
 
     /**
@@ -237,6 +251,7 @@ public abstract class AggregatorBase extends Aggregator {
      */
     @Override
     public final void postCollection() throws IOException {
+        flushBlockCollector();
         // post-collect this agg before subs to make it possible to buffer and then replay in postCollection()
         doPostCollection();
         collectableSubAggregators.postCollection();
@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafBucketCollector} that buffers the documents it collects and processes them in blocks of documents that
+ * fall in the same bucket via {@link #collectBlock(int[], int, long)}. This lets implementations read the values of a block
+ * into primitive arrays and aggregate them in tight loops rather than one document at a time.
+ * <p>
+ * Buffered documents are processed when the bucket changes, when the block is full and when {@link #flush()} is called,
+ * which {@link AggregatorBase} does before moving to the next segment and when collection ends. Since documents are
+ * processed after the scorer moved past them, buffering must be disabled when scores are needed.
+ */
+public abstract class BlockLeafBucketCollector extends LeafBucketCollectorBase {
+
+    /**
+     * The maximum number of documents that are buffered before they are processed.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    private final boolean buffer;
+    private final int[] docs;
+    private int count;
+    private long bucket = -1;
+
+    /**
+     * @param sub    The leaf collector for sub aggregations.
+     * @param values The values, see {@link LeafBucketCollectorBase}.
+     * @param buffer Whether documents may be buffered, which must be {@code false} if collecting a document needs its score.
+     */
+    public BlockLeafBucketCollector(LeafBucketCollector sub, Object values, boolean buffer) {
+        super(sub, values);
+        this.buffer = buffer;
+        this.docs = new int[buffer ? BLOCK_SIZE : 1];
+    }
+
+    @Override
+    public final void collect(int doc, long bucket) throws IOException {
+        if (count > 0 && bucket != this.bucket) {
+            flush();
+        }
+        this.bucket = bucket;
+        docs[count++] = doc;
+        if (count == docs.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Process the documents that are currently buffered.
+     */
+    public final void flush() throws IOException {
+        if (count > 0) {
+            final int size = count;
+            count = 0;
+            collectBlock(docs, size, bucket);
+        }
+    }
+
+    /**
+     * Collect the first {@code count} documents of {@code docs}, which are in increasing order and never more than
+     * {@link #BLOCK_SIZE}, in the given bucket.
+     */
+    protected abstract void collectBlock(int[] docs, int count, long bucket) throws IOException;
+
+    /**
+     * Read the values of the first {@code count} documents of {@code docs} into {@code values}, skipping documents that
+     * don't have a value, and return the number of values that were read.
+     */
+    protected static int readValues(NumericDoubleValues singleValues, int[] docs, int count, double[] values) throws IOException {
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (singleValues.advanceExact(docs[i])) {
+                values[numValues++] = singleValues.doubleValue();
+            }
+        }
+        return numValues;
+    }
+}
@@ -281,6 +281,12 @@ final class CompositeAggregator extends BucketsAggregator {
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         finishLeaf();
 
+        if (sourceConfigs[0].hasScript() == false && sources[0].canSkipLeaf(ctx, queue.getUpperValueLeadSource())) {
+            // The values of the leading source in this segment are all lower than the after key or greater
+            // than the lowest composite bucket in the queue so none of the documents can produce a competitive key.
+            throw new CollectionTerminatedException();
+        }
+
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
 
         Sort indexSortPrefix = buildIndexSortPrefix(ctx);
@@ -313,7 +319,14 @@ final class CompositeAggregator extends BucketsAggregator {
                 processLeafFromQuery(ctx, indexSortPrefix);
                 throw new CollectionTerminatedException();
             } else {
-                final LeafBucketCollector inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder, sortPrefixLen));
+                final LeafBucketCollector inner;
+                if (sortPrefixLen == 0) {
+                    // The index sort cannot terminate the collection so we can skip the documents whose leading
+                    // source value is not competitive before the values of the other sources are extracted.
+                    inner = queue.getPruningLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder, sortPrefixLen));
+                } else {
+                    inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder, sortPrefixLen));
+                }
                 return new LeafBucketCollector() {
                     @Override
                     public void collect(int doc, long zeroBucket) throws IOException {
@@ -244,6 +244,45 @@ final class CompositeValuesCollectorQueue extends PriorityQueue<Integer> impleme
         return collector;
     }
 
+    /**
+     * Creates the collector that will visit the composite buckets of the matching documents like
+     * {@link #getLeafCollector(LeafReaderContext, LeafBucketCollector)} but that checks the value of
+     * the leading source first and skips it, without extracting the values of the other sources, if it
+     * cannot produce a competitive key. This must not be used when the collection relies on the index
+     * sort to terminate early since skipped candidates never reach {@link #addIfCompetitive(int)}.
+     */
+    LeafBucketCollector getPruningLeafCollector(LeafReaderContext context, LeafBucketCollector in) throws IOException {
+        int last = arrays.length - 1;
+        LeafBucketCollector collector = in;
+        while (last > 0) {
+            collector = arrays[last--].getLeafCollector(context, collector);
+        }
+        final LeafBucketCollector next = collector;
+        return arrays[0].getLeafCollector(context, new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                if (isLeadSourceCompetitive()) {
+                    next.collect(doc, bucket);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns false if the current value of the leading source guarantees that the candidate is not competitive,
+     * that is if it sorts before the leading value of the after key or, when the queue is full, after the leading
+     * value of the weakest key in the queue.
+     */
+    boolean isLeadSourceCompetitive() {
+        if (afterKeyIsSet && arrays[0].compareCurrentWithAfter() < 0) {
+            return false;
+        }
+        if (size() >= maxSize && arrays[0].compareCurrent(top()) > 0) {
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Check if the current candidate should be added in the queue.
      * @return <code>true</code> if the candidate is competitive (added or already in the queue).
@@ -21,8 +21,10 @@ package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
@@ -249,33 +251,60 @@ class LongValuesSource extends SingleDimensionValuesSource<Long> {
             upperPoint = null;
         }
 
+        final ToLongFunction<byte[]> toBucketFunction = createPointDecoderOrNull();
+        if (toBucketFunction == null) {
+            return null;
+        }
+        return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
+    }
+
+    /**
+     * Returns a function that converts the points of the field to the values of this source, or null
+     * if the points of the field cannot be used.
+     */
+    private ToLongFunction<byte[]> createPointDecoderOrNull() {
         if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
             NumberFieldMapper.NumberFieldType ft = (NumberFieldMapper.NumberFieldType) fieldType;
-            final ToLongFunction<byte[]> toBucketFunction;
-
             switch (ft.typeName()) {
                 case "long":
-                    toBucketFunction = (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
-                    break;
+                    return (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
 
                 case "int":
                 case "short":
                 case "byte":
-                    toBucketFunction = (value) -> rounding.applyAsLong(IntPoint.decodeDimension(value, 0));
-                    break;
+                    return (value) -> rounding.applyAsLong(IntPoint.decodeDimension(value, 0));
 
                 default:
                     return null;
             }
-            return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
         } else if (fieldType instanceof DateFieldMapper.DateFieldType) {
-            final ToLongFunction<byte[]> toBucketFunction = (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
-            return new PointsSortedDocsProducer(fieldType.name(), toBucketFunction, lowerPoint, upperPoint);
+            return (value) -> rounding.applyAsLong(LongPoint.decodeDimension(value, 0));
         } else {
             return null;
         }
     }
 
+    @Override
+    boolean canSkipLeaf(LeafReaderContext context, Comparable upperValue) throws IOException {
+        if (missingBucket || fieldType == null || fieldType.indexOptions() == IndexOptions.NONE) {
+            return false;
+        }
+        final ToLongFunction<byte[]> toBucketFunction = createPointDecoderOrNull();
+        final PointValues pointValues = toBucketFunction != null ? context.reader().getPointValues(fieldType.name()) : null;
+        if (pointValues == null) {
+            return false;
+        }
+        // the rounding is monotonic so the bounds of the points are also the bounds of the values of this source
+        final long min = toBucketFunction.applyAsLong(pointValues.getMinPackedValue());
+        final long max = toBucketFunction.applyAsLong(pointValues.getMaxPackedValue());
+        final long first = reverseMul == 1 ? min : max;
+        final long last = reverseMul == 1 ? max : min;
+        if (afterValue != null && compareValues(last, afterValue) < 0) {
+            return true;
+        }
+        return upperValue != null && compareValues(first, (Long) upperValue) > 0;
+    }
+
     @Override
     public void close() {
         Releasables.close(values, bits);
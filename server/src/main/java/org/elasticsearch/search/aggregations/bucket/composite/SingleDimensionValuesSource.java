@@ -142,6 +142,15 @@ abstract class SingleDimensionValuesSource<T extends Comparable<T>> implements R
     abstract LeafBucketCollector getLeafCollector(Comparable value,
                                                   LeafReaderContext context, LeafBucketCollector next) throws IOException;
 
+    /**
+     * Returns true if no document in <code>context</code> can produce a competitive value for this source, that is
+     * if all values of the segment sort before the after value or after <code>upperValue</code> (when not null).
+     * This is used to skip whole segments when this is the leading source. The default implementation returns false.
+     */
+    boolean canSkipLeaf(LeafReaderContext context, @Nullable Comparable upperValue) throws IOException {
+        return false;
+    }
+
     /**
      * Returns a {@link SortedDocsProducer} or null if this source cannot produce sorted docs.
      */
@@ -80,12 +80,13 @@ public final class DateHistogramAggregatorFactory
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        if (collectsFromSingleBucket == false) {
-            return asMultiBucketAggregator(this, searchContext, parent);
-        }
         if (valuesSource instanceof ValuesSource.Numeric) {
-            return createAggregator((ValuesSource.Numeric) valuesSource, searchContext, parent, pipelineAggregators, metaData);
+            return createAggregator((ValuesSource.Numeric) valuesSource, searchContext, parent, collectsFromSingleBucket,
+                pipelineAggregators, metaData);
         } else if (valuesSource instanceof ValuesSource.Range) {
+            if (collectsFromSingleBucket == false) {
+                return asMultiBucketAggregator(this, searchContext, parent);
+            }
             ValuesSource.Range rangeValueSource = (ValuesSource.Range) valuesSource;
             if (rangeValueSource.rangeType() != RangeType.DATE) {
                 throw new IllegalArgumentException("Expected date range type but found range type [" + rangeValueSource.rangeType().name
@@ -100,10 +101,11 @@ public final class DateHistogramAggregatorFactory
     }
 
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, SearchContext searchContext,
-                                        Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+                                        Aggregator parent, boolean collectsFromSingleBucket,
+                                        List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
         return new DateHistogramAggregator(name, factories, rounding, shardRounding, order, keyed, minDocCount, extendedBounds,
-                valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
+                valuesSource, config.format(), searchContext, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
     }
 
     private Aggregator createRangeAggregator(ValuesSource.Range valuesSource,
@@ -120,6 +122,7 @@ public final class DateHistogramAggregatorFactory
                                             Aggregator parent,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return createAggregator(null, searchContext, parent, pipelineAggregators, metaData);
+        // unmapped aggregators are not wrapped per owning bucket so they must be able to build any of them
+        return createAggregator(null, searchContext, parent, false, pipelineAggregators, metaData);
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.CollectionUtil;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An aggregator for pre-aggregated histogram fields. Every value of a document's histogram is rounded
+ * like {@link NumericHistogramAggregator} rounds numeric values, and the bucket it falls in is incremented
+ * by the count of that value rather than by one, so the buckets hold the number of values that were
+ * summarized by the histograms. Sub-aggregations are not supported because there are no documents to
+ * collect behind these counts.
+ */
+public class HistoBackedHistogramAggregator extends BucketsAggregator {
+    private final ValuesSource.Histogram valuesSource;
+    private final DocValueFormat formatter;
+    private final double interval, offset;
+    private final BucketOrder order;
+    private final boolean keyed;
+    private final long minDocCount;
+    private final double minBound, maxBound;
+
+    private final LongHash bucketOrds;
+
+    HistoBackedHistogramAggregator(String name, AggregatorFactories factories, double interval, double offset,
+                                   BucketOrder order, boolean keyed, long minDocCount, double minBound, double maxBound,
+                                   @Nullable ValuesSource.Histogram valuesSource, DocValueFormat formatter,
+                                   SearchContext context, Aggregator parent,
+                                   List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+
+        super(name, factories, context, parent, pipelineAggregators, metaData);
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive, got: " + interval);
+        }
+        if (factories.countAggregators() > 0) {
+            throw new IllegalArgumentException("Histogram aggregation [" + name + "] on histogram fields does not support "
+                + "sub-aggregations");
+        }
+        this.interval = interval;
+        this.offset = offset;
+        this.order = InternalOrder.validate(order, this);
+        this.keyed = keyed;
+        this.minDocCount = minDocCount;
+        this.minBound = minBound;
+        this.maxBound = maxBound;
+        this.valuesSource = valuesSource;
+        this.formatter = formatter;
+
+        bucketOrds = new LongHash(1, context.bigArrays());
+    }
+
+    @Override
+    protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        if (valuesSource == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        final HistogramValues values = valuesSource.getHistogramValues(ctx);
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                assert bucket == 0;
+                if (values.advanceExact(doc)) {
+                    final HistogramValue sketch = values.histogram();
+                    while (sketch.next()) {
+                        final double key = Math.floor((sketch.value() - offset) / interval);
+                        long bucketOrd = bucketOrds.add(Double.doubleToLongBits(key));
+                        if (bucketOrd < 0) { // already seen
+                            bucketOrd = -1 - bucketOrd;
+                        }
+                        incrementBucketDocCount(bucketOrd, sketch.count());
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        assert bucket == 0;
+        consumeBucketsAndMaybeBreak((int) bucketOrds.size());
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>((int) bucketOrds.size());
+        for (long i = 0; i < bucketOrds.size(); i++) {
+            double roundKey = Double.longBitsToDouble(bucketOrds.get(i));
+            double key = roundKey * interval + offset;
+            buckets.add(new InternalHistogram.Bucket(key, bucketDocCount(i), keyed, formatter, bucketAggregations(i)));
+        }
+
+        // the contract of the histogram aggregation is that shards must return buckets ordered by key in ascending order
+        CollectionUtil.introSort(buckets, BucketOrder.key(true).comparator(this));
+
+        InternalHistogram.EmptyBucketInfo emptyBucketInfo = null;
+        if (minDocCount == 0) {
+            emptyBucketInfo = new InternalHistogram.EmptyBucketInfo(interval, offset, minBound, maxBound, buildEmptySubAggregations());
+        }
+        return new InternalHistogram(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, pipelineAggregators(),
+            metaData());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        InternalHistogram.EmptyBucketInfo emptyBucketInfo = null;
+        if (minDocCount == 0) {
+            emptyBucketInfo = new InternalHistogram.EmptyBucketInfo(interval, offset, minBound, maxBound, buildEmptySubAggregations());
+        }
+        return new InternalHistogram(name, Collections.emptyList(), order, minDocCount, emptyBucketInfo, formatter, keyed,
+            pipelineAggregators(), metaData());
+    }
+
+    @Override
+    public void doClose() {
+        Releasables.close(bucketOrds);
+    }
+}
@@ -35,8 +35,8 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Constructs the per-shard aggregator instance for histogram aggregation.  Selects the numeric or range field implementation based on the
- * field type.
+ * Constructs the per-shard aggregator instance for histogram aggregation.  Selects the numeric, range or pre-aggregated histogram field
+ * implementation based on the field type.
  */
 public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource> {
 
@@ -104,9 +104,12 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
             return new RangeHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
                 (ValuesSource.Range) valuesSource, config.format(), searchContext, parent, pipelineAggregators,
                 metaData);
+        } else if (valuesSource instanceof ValuesSource.Histogram) {
+            return new HistoBackedHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
+                (ValuesSource.Histogram) valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
         }
         else {
-            throw new IllegalArgumentException("Expected one of [Numeric, Range] values source, found ["
+            throw new IllegalArgumentException("Expected one of [Numeric, Range, Histogram] values source, found ["
                 + valuesSource.toString() + "]");
         }
     }
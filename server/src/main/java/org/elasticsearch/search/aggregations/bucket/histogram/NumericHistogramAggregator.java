@@ -25,13 +25,15 @@ import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
-import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
 import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram.EmptyBucketInfo;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
@@ -103,32 +105,59 @@ class NumericHistogramAggregator extends BucketsAggregator {
         }
 
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
-        return new LeafBucketCollectorBase(sub, values) {
+        final NumericDoubleValues singleValues = FieldData.unwrapSingleton(values);
+        final int[] docsWithValue = new int[BlockLeafBucketCollector.BLOCK_SIZE];
+        final double[] keys = new double[BlockLeafBucketCollector.BLOCK_SIZE];
+        return new BlockLeafBucketCollector(sub, values, scoreMode().needsScores() == false) {
             @Override
-            public void collect(int doc, long bucket) throws IOException {
+            protected void collectBlock(int[] docs, int count, long bucket) throws IOException {
                 assert bucket == 0;
-                if (values.advanceExact(doc)) {
-                    final int valuesCount = values.docValueCount();
-
-                    double previousKey = Double.NEGATIVE_INFINITY;
-                    for (int i = 0; i < valuesCount; ++i) {
-                        double value = values.nextValue();
-                        double key = Math.floor((value - offset) / interval);
-                        assert key >= previousKey;
-                        if (key == previousKey) {
-                            continue;
+                if (singleValues != null) {
+                    int numValues = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (singleValues.advanceExact(docs[i])) {
+                            docsWithValue[numValues] = docs[i];
+                            keys[numValues] = singleValues.doubleValue();
+                            numValues++;
                         }
-                        long bucketOrd = bucketOrds.add(Double.doubleToLongBits(key));
-                        if (bucketOrd < 0) { // already seen
-                            bucketOrd = -1 - bucketOrd;
-                            collectExistingBucket(sub, doc, bucketOrd);
-                        } else {
-                            collectBucket(sub, doc, bucketOrd);
+                    }
+                    for (int i = 0; i < numValues; i++) {
+                        keys[i] = Math.floor((keys[i] - offset) / interval);
+                    }
+                    for (int i = 0; i < numValues; i++) {
+                        collectKey(docsWithValue[i], keys[i]);
+                    }
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        final int doc = docs[i];
+                        if (values.advanceExact(doc)) {
+                            final int valuesCount = values.docValueCount();
+
+                            double previousKey = Double.NEGATIVE_INFINITY;
+                            for (int j = 0; j < valuesCount; ++j) {
+                                double value = values.nextValue();
+                                double key = Math.floor((value - offset) / interval);
+                                assert key >= previousKey;
+                                if (key == previousKey) {
+                                    continue;
+                                }
+                                collectKey(doc, key);
+                                previousKey = key;
+                            }
                         }
-                        previousKey = key;
                     }
                 }
             }
+
+            private void collectKey(int doc, double key) throws IOException {
+                long bucketOrd = bucketOrds.add(Double.doubleToLongBits(key));
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                    collectExistingBucket(sub, doc, bucketOrd);
+                } else {
+                    collectBucket(sub, doc, bucketOrd);
+                }
+            }
         };
     }
 
@@ -28,6 +28,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.significant.heuristics.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
+import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
 import org.elasticsearch.search.aggregations.bucket.terms.LongTermsAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
@@ -50,7 +51,7 @@ public class SignificantLongTermsAggregator extends LongTermsAggregator {
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
 
         super(name, factories, valuesSource, format, null, bucketCountThresholds, context, parent,
-                SubAggCollectionMode.BREADTH_FIRST, false, includeExclude, pipelineAggregators, metaData);
+                SubAggCollectionMode.BREADTH_FIRST, false, includeExclude, true, pipelineAggregators, metaData);
         this.significanceHeuristic = significanceHeuristic;
         this.termsAggFactory = termsAggFactory;
     }
@@ -82,15 +83,16 @@ public class SignificantLongTermsAggregator extends LongTermsAggregator {
 
         BucketSignificancePriorityQueue<SignificantLongTerms.Bucket> ordered = new BucketSignificancePriorityQueue<>(size);
         SignificantLongTerms.Bucket spare = null;
-        for (long i = 0; i < bucketOrds.size(); i++) {
-            final int docCount = bucketDocCount(i);
+        LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(owningBucketOrdinal);
+        while (ordsEnum.next()) {
+            final int docCount = bucketDocCount(ordsEnum.ord());
             if (docCount < bucketCountThresholds.getShardMinDocCount()) {
                 continue;
             }
             if (spare == null) {
                 spare = new SignificantLongTerms.Bucket(0, 0, 0, 0, 0, null, format, 0);
             }
-            spare.term = bucketOrds.get(i);
+            spare.term = ordsEnum.value();
             spare.subsetDf = docCount;
             spare.subsetSize = subsetSize;
             spare.supersetDf = termsAggFactory.getBackgroundFrequency(spare.term);
@@ -99,7 +101,7 @@ public class SignificantLongTermsAggregator extends LongTermsAggregator {
             // Back at the central reducer these properties will be updated with global stats
             spare.updateScore(significanceHeuristic);
 
-            spare.bucketOrd = i;
+            spare.bucketOrd = ordsEnum.ord();
             spare = ordered.insertWithOverflow(spare);
             if (spare == null) {
                 consumeBucketsAndMaybeBreak(1);
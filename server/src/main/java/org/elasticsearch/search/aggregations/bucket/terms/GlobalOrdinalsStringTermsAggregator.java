@@ -386,12 +386,12 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         }
     }
 
-    private static final class FilteredOrdinals extends AbstractSortedSetDocValues {
+    static final class FilteredOrdinals extends AbstractSortedSetDocValues {
 
         private final SortedSetDocValues inner;
         private final LongBitSet accepted;
 
-        private FilteredOrdinals(SortedSetDocValues inner, LongBitSet accepted) {
+        FilteredOrdinals(SortedSetDocValues inner, LongBitSet accepted) {
             this.inner = inner;
             this.accepted = accepted;
         }
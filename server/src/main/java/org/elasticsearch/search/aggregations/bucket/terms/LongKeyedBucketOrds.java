@@ -0,0 +1,310 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.common.util.LongLongHash;
+
+/**
+ * Maps {@code long} bucket keys to bucket ordinals for aggregators that may collect from more than one owning bucket.
+ * Aggregators that use it can collect for all their owning buckets at once instead of being wrapped into one instance
+ * per owning bucket by {@link org.elasticsearch.search.aggregations.AggregatorFactory#asMultiBucketAggregator}.
+ */
+public abstract class LongKeyedBucketOrds implements Releasable {
+
+    /**
+     * Build a {@link LongKeyedBucketOrds}, picking the cheaper implementation when the aggregator only ever collects
+     * from the single owning bucket {@code 0}.
+     */
+    public static LongKeyedBucketOrds build(BigArrays bigArrays, boolean collectsFromSingleBucket) {
+        return collectsFromSingleBucket ? new FromSingle(bigArrays) : new FromMany(bigArrays);
+    }
+
+    private LongKeyedBucketOrds() {}
+
+    /**
+     * Add the {@code owningBucketOrd, value} pair. Return the ord for their bucket if they have yet to be added, or
+     * {@code -1-ord} if they were already present.
+     */
+    public abstract long add(long owningBucketOrd, long value);
+
+    /**
+     * Find the ord of the {@code owningBucketOrd, value} pair or -1 if it hasn't been added yet.
+     */
+    public abstract long find(long owningBucketOrd, long value);
+
+    /**
+     * Count the buckets in {@code owningBucketOrd}.
+     */
+    public abstract long bucketsInOrd(long owningBucketOrd);
+
+    /**
+     * The number of collected buckets, across all owning buckets.
+     */
+    public abstract long size();
+
+    /**
+     * Build an iterator over the buckets collected in {@code owningBucketOrd}.
+     */
+    public abstract BucketOrdsEnum ordsEnum(long owningBucketOrd);
+
+    /**
+     * An iterator over the buckets of an owning bucket.
+     */
+    public interface BucketOrdsEnum {
+        /**
+         * Advance to the next bucket, returning {@code false} once there are no more buckets.
+         */
+        boolean next();
+
+        /**
+         * The ordinal of the current bucket.
+         */
+        long ord();
+
+        /**
+         * The key of the current bucket.
+         */
+        long value();
+
+        /**
+         * A {@linkplain BucketOrdsEnum} that contains no buckets.
+         */
+        BucketOrdsEnum EMPTY = new BucketOrdsEnum() {
+            @Override
+            public boolean next() {
+                return false;
+            }
+
+            @Override
+            public long ord() {
+                return 0;
+            }
+
+            @Override
+            public long value() {
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * Implementation that only works if it is collecting from a single bucket.
+     */
+    private static class FromSingle extends LongKeyedBucketOrds {
+        private final LongHash ords;
+
+        FromSingle(BigArrays bigArrays) {
+            ords = new LongHash(1, bigArrays);
+        }
+
+        @Override
+        public long add(long owningBucketOrd, long value) {
+            assert owningBucketOrd == 0;
+            return ords.add(value);
+        }
+
+        @Override
+        public long find(long owningBucketOrd, long value) {
+            assert owningBucketOrd == 0;
+            return ords.find(value);
+        }
+
+        @Override
+        public long bucketsInOrd(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return ords.size();
+        }
+
+        @Override
+        public long size() {
+            return ords.size();
+        }
+
+        @Override
+        public BucketOrdsEnum ordsEnum(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return new BucketOrdsEnum() {
+                private long ord = -1;
+                private long value;
+
+                @Override
+                public boolean next() {
+                    ord++;
+                    if (ord >= ords.size()) {
+                        return false;
+                    }
+                    value = ords.get(ord);
+                    return true;
+                }
+
+                @Override
+                public long ord() {
+                    return ord;
+                }
+
+                @Override
+                public long value() {
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            ords.close();
+        }
+    }
+
+    /**
+     * Implementation that works properly when collecting from many buckets. Buckets are keyed on the
+     * {@code owningBucketOrd, value} pair so the ordinals stay dense across all owning buckets.
+     * <p>
+     * Counting and iterating the buckets of an owning bucket uses an index of the ordinals of each owning bucket that is
+     * built in a single pass over all buckets the first time it is needed, usually when results are built once collection
+     * is over. Adding a new bucket drops the index.
+     */
+    private static class FromMany extends LongKeyedBucketOrds {
+        private final BigArrays bigArrays;
+        private final LongLongHash ords;
+        private long maxOwningBucketOrd = -1;
+        // the end of the range of each owning bucket in ordsByOwningBucket, the range starts at the end of the previous one
+        private LongArray owningBucketEnds;
+        private LongArray ordsByOwningBucket;
+
+        FromMany(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            ords = new LongLongHash(1, bigArrays);
+        }
+
+        @Override
+        public long add(long owningBucketOrd, long value) {
+            final long ord = ords.add(owningBucketOrd, value);
+            if (ord >= 0) {
+                maxOwningBucketOrd = Math.max(maxOwningBucketOrd, owningBucketOrd);
+                releaseIndex();
+            }
+            return ord;
+        }
+
+        @Override
+        public long find(long owningBucketOrd, long value) {
+            return ords.find(owningBucketOrd, value);
+        }
+
+        @Override
+        public long bucketsInOrd(long owningBucketOrd) {
+            if (owningBucketOrd > maxOwningBucketOrd) {
+                return 0;
+            }
+            buildIndex();
+            return owningBucketEnds.get(owningBucketOrd) - owningBucketStart(owningBucketOrd);
+        }
+
+        @Override
+        public long size() {
+            return ords.size();
+        }
+
+        @Override
+        public BucketOrdsEnum ordsEnum(long owningBucketOrd) {
+            if (owningBucketOrd > maxOwningBucketOrd) {
+                return BucketOrdsEnum.EMPTY;
+            }
+            buildIndex();
+            final long start = owningBucketStart(owningBucketOrd);
+            final long end = owningBucketEnds.get(owningBucketOrd);
+            return new BucketOrdsEnum() {
+                private long position = start - 1;
+                private long ord;
+                private long value;
+
+                @Override
+                public boolean next() {
+                    position++;
+                    if (position >= end) {
+                        return false;
+                    }
+                    ord = ordsByOwningBucket.get(position);
+                    value = ords.getKey2(ord);
+                    return true;
+                }
+
+                @Override
+                public long ord() {
+                    return ord;
+                }
+
+                @Override
+                public long value() {
+                    return value;
+                }
+            };
+        }
+
+        private long owningBucketStart(long owningBucketOrd) {
+            return owningBucketOrd == 0 ? 0 : owningBucketEnds.get(owningBucketOrd - 1);
+        }
+
+        /**
+         * Sort the bucket ordinals by owning bucket with a counting sort, keeping them in ascending order within each owning bucket.
+         */
+        private void buildIndex() {
+            if (owningBucketEnds != null) {
+                return;
+            }
+            final long owningBuckets = maxOwningBucketOrd + 1;
+            owningBucketEnds = bigArrays.newLongArray(owningBuckets, true);
+            for (long ord = 0; ord < ords.size(); ord++) {
+                owningBucketEnds.increment(ords.getKey1(ord), 1);
+            }
+            // turn the counts into the start of each range, which is then moved to its end while filling the range
+            long start = 0;
+            for (long owningBucketOrd = 0; owningBucketOrd < owningBuckets; owningBucketOrd++) {
+                final long count = owningBucketEnds.get(owningBucketOrd);
+                owningBucketEnds.set(owningBucketOrd, start);
+                start += count;
+            }
+            ordsByOwningBucket = bigArrays.newLongArray(ords.size(), false);
+            for (long ord = 0; ord < ords.size(); ord++) {
+                final long owningBucketOrd = ords.getKey1(ord);
+                ordsByOwningBucket.set(owningBucketEnds.get(owningBucketOrd), ord);
+                owningBucketEnds.increment(owningBucketOrd, 1);
+            }
+        }
+
+        private void releaseIndex() {
+            if (owningBucketEnds != null) {
+                Releasables.close(owningBucketEnds, ordsByOwningBucket);
+                owningBucketEnds = null;
+                ordsByOwningBucket = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(ords, owningBucketEnds, ordsByOwningBucket);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.LongBitSet;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
+
+/**
+ * An aggregator of string values that works on segment ordinals and never needs global ordinals. Each segment collects
+ * the ordinals it sees into a small hash sized by the number of distinct matching terms rather than by the cardinality of
+ * the field, and only resolves those ordinals to terms once per segment. This makes it a good fit for selective queries
+ * on high-cardinality fields, where building global ordinals would dominate the cost of the request.
+ */
+public class SegmentOrdinalsStringTermsAggregator extends StringTermsAggregator {
+
+    private final ValuesSource.Bytes.WithOrdinals valuesSource;
+    private final IncludeExclude.OrdinalsFilter ordinalsFilter;
+
+    // state of the segment that is currently being collected
+    private SortedSetDocValues segmentValues;
+    private LongHash segmentOrds;
+    private IntArray segmentDocCounts;
+    private LongArray segmentBucketOrds;
+
+    public SegmentOrdinalsStringTermsAggregator(String name, AggregatorFactories factories,
+                                                ValuesSource.Bytes.WithOrdinals valuesSource, BucketOrder order,
+                                                DocValueFormat format, BucketCountThresholds bucketCountThresholds,
+                                                IncludeExclude.StringFilter stringFilter, IncludeExclude.OrdinalsFilter ordinalsFilter,
+                                                SearchContext context, Aggregator parent, SubAggCollectionMode collectionMode,
+                                                boolean showTermDocCountError, List<PipelineAggregator> pipelineAggregators,
+                                                Map<String, Object> metaData) throws IOException {
+        // the string filter is only used to fill in empty buckets when min_doc_count is 0, collection filters on ordinals
+        super(name, factories, valuesSource, order, format, bucketCountThresholds, stringFilter, context, parent, collectionMode,
+            showTermDocCountError, pipelineAggregators, metaData);
+        this.valuesSource = valuesSource;
+        this.ordinalsFilter = ordinalsFilter;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+        flushSegment();
+        SortedSetDocValues values = valuesSource.ordinalsValues(ctx);
+        if (ordinalsFilter != null) {
+            final LongBitSet accepted = ordinalsFilter.acceptedGlobalOrdinals(values);
+            values = new GlobalOrdinalsStringTermsAggregator.FilteredOrdinals(values, accepted);
+        }
+        segmentValues = values;
+        segmentOrds = new LongHash(1, context.bigArrays());
+        // without sub-aggregations we only need to count, and can defer the lookup of the terms to the end of the segment
+        final boolean countOnly = sub == LeafBucketCollector.NO_OP_COLLECTOR;
+        if (countOnly) {
+            segmentDocCounts = context.bigArrays().newIntArray(1, true);
+        } else {
+            segmentBucketOrds = context.bigArrays().newLongArray(1, false);
+        }
+
+        final SortedDocValues singleValues = DocValues.unwrapSingleton(values);
+        if (singleValues != null) {
+            return new LeafBucketCollectorBase(sub, values) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (singleValues.advanceExact(doc)) {
+                        collectOrd(sub, doc, singleValues.ordValue(), countOnly);
+                    }
+                }
+            };
+        } else {
+            final SortedSetDocValues multiValues = values;
+            return new LeafBucketCollectorBase(sub, values) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (multiValues.advanceExact(doc)) {
+                        for (long ord = multiValues.nextOrd(); ord != NO_MORE_ORDS; ord = multiValues.nextOrd()) {
+                            collectOrd(sub, doc, ord, countOnly);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    private void collectOrd(LeafBucketCollector sub, int doc, long segmentOrd, boolean countOnly) throws IOException {
+        long id = segmentOrds.add(segmentOrd);
+        if (countOnly) {
+            if (id < 0) {
+                id = -1 - id;
+            } else {
+                segmentDocCounts = context.bigArrays().grow(segmentDocCounts, id + 1);
+            }
+            segmentDocCounts.increment(id, 1);
+        } else if (id < 0) {
+            collectExistingBucket(sub, doc, segmentBucketOrds.get(-1 - id));
+        } else {
+            // first time we see this term in the segment, resolve it to its bucket once
+            long bucketOrd = bucketOrds.add(segmentValues.lookupOrd(segmentOrd));
+            if (bucketOrd < 0) {
+                bucketOrd = -1 - bucketOrd;
+            }
+            segmentBucketOrds = context.bigArrays().grow(segmentBucketOrds, id + 1);
+            segmentBucketOrds.set(id, bucketOrd);
+            collectBucket(sub, doc, bucketOrd);
+        }
+    }
+
+    /**
+     * Resolves the counts of the segment that was collected last to buckets and releases its per-segment state.
+     */
+    private void flushSegment() throws IOException {
+        if (segmentOrds == null) {
+            return;
+        }
+        if (segmentDocCounts != null) {
+            for (long id = 0; id < segmentOrds.size(); id++) {
+                long bucketOrd = bucketOrds.add(segmentValues.lookupOrd(segmentOrds.get(id)));
+                if (bucketOrd < 0) {
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, segmentDocCounts.get(id));
+            }
+        }
+        Releasables.close(segmentOrds, segmentDocCounts, segmentBucketOrds);
+        segmentValues = null;
+        segmentOrds = null;
+        segmentDocCounts = null;
+        segmentBucketOrds = null;
+    }
+
+    @Override
+    protected void doPostCollection() throws IOException {
+        flushSegment();
+    }
+
+    @Override
+    public void doClose() {
+        super.doClose();
+        Releasables.close(segmentOrds, segmentDocCounts, segmentBucketOrds);
+    }
+}
@@ -20,7 +20,16 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -50,7 +59,18 @@ import java.util.Map;
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource> {
     private static final DeprecationLogger deprecationLogger = new DeprecationLogger(LogManager.getLogger(TermsAggregatorFactory.class));
 
-    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
+    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS, USE_SEGMENT_ORDINALS;
+
+    /**
+     * The automatic execution mode picks {@link ExecutionMode#SEGMENT_ORDINALS} when the estimated number of documents matching
+     * the query multiplied by this ratio is still lower than the number of terms that building global ordinals would have to visit.
+     */
+    static final int SEGMENT_ORDINALS_COST_RATIO = 8;
+
+    /**
+     * The maximum number of terms whose document frequency is looked up to estimate the number of documents a query matches.
+     */
+    static final int MAX_ESTIMATED_TERMS = 16;
 
     private final BucketOrder order;
     private final IncludeExclude includeExclude;
@@ -119,7 +139,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        if (collectsFromSingleBucket == false) {
+        if (collectsFromSingleBucket == false && valuesSource instanceof ValuesSource.Numeric == false) {
             return asMultiBucketAggregator(this, searchContext, parent);
         }
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
@@ -142,7 +162,8 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             }
             final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, searchContext.searcher()) : -1;
             if (execution == null) {
-                execution = ExecutionMode.GLOBAL_ORDINALS;
+                execution = useSegmentOrdinals(valuesSource, config, searchContext, parent) ? ExecutionMode.SEGMENT_ORDINALS
+                    : ExecutionMode.GLOBAL_ORDINALS;
             }
             SubAggCollectionMode cm = collectMode;
             if (cm == null) {
@@ -179,20 +200,24 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                     cm = SubAggCollectionMode.DEPTH_FIRST;
                 }
             }
+            if (collectsFromSingleBucket == false && cm == SubAggCollectionMode.BREADTH_FIRST && factories != AggregatorFactories.EMPTY) {
+                // deferred sub-aggregations can only be replayed once, so they still need one aggregator per owning bucket
+                return asMultiBucketAggregator(this, searchContext, parent);
+            }
             if (((ValuesSource.Numeric) valuesSource).isFloatingPoint()) {
                 if (includeExclude != null) {
                     longFilter = includeExclude.convertToDoubleFilter();
                 }
                 return new DoubleTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
                         bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter,
-                        pipelineAggregators, metaData);
+                        collectsFromSingleBucket, pipelineAggregators, metaData);
             }
             if (includeExclude != null) {
                 longFilter = includeExclude.convertToLongFilter(config.format());
             }
             return new LongTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
-                    bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter, pipelineAggregators,
-                    metaData);
+                    bucketCountThresholds, searchContext, parent, cm, showTermDocCountError, longFilter, collectsFromSingleBucket,
+                    pipelineAggregators, metaData);
         }
 
         throw new AggregationExecutionException("terms aggregation cannot be applied to field [" + config.fieldContext().field()
@@ -213,6 +238,101 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         return SubAggCollectionMode.DEPTH_FIRST;
     }
 
+    /**
+     * Whether the automatic execution mode should collect segment ordinals rather than global ordinals. This is the case
+     * when the query is expected to match few documents compared to the cardinality of the field, in which case building
+     * global ordinals would cost more than resolving the matching segment ordinals to terms. The number of matching documents
+     * is only estimated from term statistics, see {@link MatchingDocsEstimator}, so that this stays cheap whatever the query.
+     */
+    static boolean useSegmentOrdinals(ValuesSource valuesSource, ValuesSourceConfig<ValuesSource> config, SearchContext context,
+                                      Aggregator parent) throws IOException {
+        if (USE_SEGMENT_ORDINALS != null) {
+            // we use the static USE_SEGMENT_ORDINALS to allow tests to force specific optimizations
+            return USE_SEGMENT_ORDINALS;
+        }
+        if (parent != null || valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false || context.query() == null) {
+            // the number of documents matching the query is only a good estimate of the collected documents for top-level aggregations
+            return false;
+        }
+        if (config.fieldContext() != null && config.fieldContext().fieldType().eagerGlobalOrdinals()) {
+            // global ordinals are built on refresh already
+            return false;
+        }
+        final IndexReader reader = context.searcher().getIndexReader();
+        final long matchingDocs = new MatchingDocsEstimator(reader).estimate(context.query());
+        if (matchingDocs < 0) {
+            return false;
+        }
+        final ValuesSource.Bytes.WithOrdinals ordinalsValuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSource;
+        long segmentValueCount = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            segmentValueCount += ordinalsValuesSource.ordinalsValues(ctx).getValueCount();
+        }
+        return matchingDocs * SEGMENT_ORDINALS_COST_RATIO < segmentValueCount;
+    }
+
+    /**
+     * Estimates an upper bound of the number of documents a query matches from the document frequencies of its terms, without
+     * creating a weight for it. Only term queries and conjunctions or disjunctions of them can be estimated, and at most
+     * {@link #MAX_ESTIMATED_TERMS} terms are looked up. Other queries are not estimated.
+     */
+    static final class MatchingDocsEstimator {
+
+        private final IndexReader reader;
+        private int remainingTerms = MAX_ESTIMATED_TERMS;
+
+        MatchingDocsEstimator(IndexReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Returns an upper bound of the number of documents the query matches, or {@code -1} if it can't be estimated.
+         */
+        long estimate(Query query) throws IOException {
+            if (query instanceof TermQuery) {
+                if (remainingTerms == 0) {
+                    return -1;
+                }
+                remainingTerms--;
+                return reader.docFreq(((TermQuery) query).getTerm());
+            } else if (query instanceof ConstantScoreQuery) {
+                return estimate(((ConstantScoreQuery) query).getQuery());
+            } else if (query instanceof BoostQuery) {
+                return estimate(((BoostQuery) query).getQuery());
+            } else if (query instanceof MatchNoDocsQuery) {
+                return 0;
+            } else if (query instanceof BooleanQuery) {
+                return estimate((BooleanQuery) query);
+            }
+            return -1;
+        }
+
+        private long estimate(BooleanQuery query) throws IOException {
+            boolean conjunction = false;
+            for (BooleanClause clause : query.clauses()) {
+                conjunction |= clause.isRequired();
+            }
+            long estimate = -1;
+            for (BooleanClause clause : query.clauses()) {
+                if (conjunction && clause.isRequired()) {
+                    // a conjunction matches at most as many documents as its most selective clause
+                    final long clauseEstimate = estimate(clause.getQuery());
+                    if (clauseEstimate >= 0 && (estimate < 0 || clauseEstimate < estimate)) {
+                        estimate = clauseEstimate;
+                    }
+                } else if (conjunction == false && clause.getOccur() == BooleanClause.Occur.SHOULD) {
+                    // a disjunction matches at most as many documents as all its clauses together
+                    final long clauseEstimate = estimate(clause.getQuery());
+                    if (clauseEstimate < 0) {
+                        return -1;
+                    }
+                    estimate = Math.max(estimate, 0) + clauseEstimate;
+                }
+            }
+            return estimate;
+        }
+    }
+
     /**
      * Get the maximum global ordinal value for the provided {@link ValuesSource} or -1
      * if the values source is not an instance of {@link ValuesSource.Bytes.WithOrdinals}.
@@ -249,6 +369,32 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                         context, parent, subAggCollectMode, showTermDocCountError, pipelineAggregators, metaData);
             }
         },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(String name,
+                              AggregatorFactories factories,
+                              ValuesSource valuesSource,
+                              BucketOrder order,
+                              DocValueFormat format,
+                              TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                              IncludeExclude includeExclude,
+                              SearchContext context,
+                              Aggregator parent,
+                              SubAggCollectionMode subAggCollectMode,
+                              boolean showTermDocCountError,
+                              List<PipelineAggregator> pipelineAggregators,
+                              Map<String, Object> metaData) throws IOException {
+                assert valuesSource instanceof ValuesSource.Bytes.WithOrdinals;
+                final IncludeExclude.StringFilter stringFilter =
+                    includeExclude == null ? null : includeExclude.convertToStringFilter(format);
+                final IncludeExclude.OrdinalsFilter ordinalsFilter =
+                    includeExclude == null ? null : includeExclude.convertToOrdinalsFilter(format);
+                return new SegmentOrdinalsStringTermsAggregator(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource,
+                        order, format, bucketCountThresholds, stringFilter, ordinalsFilter, context, parent, subAggCollectMode,
+                        showTermDocCountError, pipelineAggregators, metaData);
+            }
+        },
         GLOBAL_ORDINALS(new ParseField("global_ordinals")) {
 
             @Override
@@ -323,10 +469,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             switch (value) {
                 case "global_ordinals":
                     return GLOBAL_ORDINALS;
+                case "segment_ordinals":
+                    return SEGMENT_ORDINALS;
                 case "map":
                     return MAP;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], " +
+                        "expected any of [map, global_ordinals, segment_ordinals]");
             }
         }
 
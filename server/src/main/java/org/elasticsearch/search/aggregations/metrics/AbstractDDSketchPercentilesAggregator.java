@@ -0,0 +1,166 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.ArrayUtils;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+abstract class AbstractDDSketchPercentilesAggregator extends NumericMetricsAggregator.MultiValue {
+
+    private static int indexOfKey(double[] keys, double key) {
+        return ArrayUtils.binarySearch(keys, key, 0.001);
+    }
+
+    protected final double[] keys;
+    protected final ValuesSource valuesSource;
+    protected final DocValueFormat formatter;
+    protected ObjectArray<DDSketchState> states;
+    protected final double relativeAccuracy;
+    protected final boolean keyed;
+
+    AbstractDDSketchPercentilesAggregator(String name, ValuesSource valuesSource, SearchContext context, Aggregator parent,
+            double[] keys, double relativeAccuracy, boolean keyed, DocValueFormat formatter,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        super(name, context, parent, pipelineAggregators, metaData);
+        this.valuesSource = valuesSource;
+        this.keyed = keyed;
+        this.formatter = formatter;
+        this.states = context.bigArrays().newObjectArray(1);
+        this.keys = keys;
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return valuesSource != null && valuesSource.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
+            final LeafBucketCollector sub) throws IOException {
+        if (valuesSource == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        final BigArrays bigArrays = context.bigArrays();
+        if (valuesSource instanceof ValuesSource.Histogram) {
+            final HistogramValues values = ((ValuesSource.Histogram)valuesSource).getHistogramValues(ctx);
+            return collectHistogramValues(values, bigArrays, sub);
+        } else {
+            final SortedNumericDoubleValues values = ((ValuesSource.Numeric)valuesSource).doubleValues(ctx);
+            return collectNumeric(values, bigArrays, sub);
+        }
+
+    }
+
+    private LeafBucketCollector collectNumeric(final SortedNumericDoubleValues values,
+                                               final BigArrays bigArrays, final LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                DDSketchState state = getExistingOrNewHistogram(bigArrays, bucket);
+                if (values.advanceExact(doc)) {
+                    final long ramBytesUsed = state.ramBytesUsed();
+                    final int valueCount = values.docValueCount();
+                    for (int i = 0; i < valueCount; i++) {
+                        state.add(values.nextValue());
+                    }
+                    addRequestCircuitBreakerBytes(state, ramBytesUsed);
+                }
+            }
+        };
+    }
+
+    private LeafBucketCollector collectHistogramValues(final HistogramValues values,
+                                                       final BigArrays bigArrays, final LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                DDSketchState state = getExistingOrNewHistogram(bigArrays, bucket);
+                if (values.advanceExact(doc)) {
+                    final long ramBytesUsed = state.ramBytesUsed();
+                    final HistogramValue sketch = values.histogram();
+                    while(sketch.next()) {
+                        state.add(sketch.value(), sketch.count());
+                    }
+                    addRequestCircuitBreakerBytes(state, ramBytesUsed);
+                }
+            }
+        };
+    }
+
+    private DDSketchState getExistingOrNewHistogram(final BigArrays bigArrays, long bucket) {
+        states = bigArrays.grow(states, bucket + 1);
+        DDSketchState state = states.get(bucket);
+        if (state == null) {
+            state = new DDSketchState(relativeAccuracy);
+            addRequestCircuitBreakerBytes(state.ramBytesUsed());
+            states.set(bucket, state);
+        }
+        return state;
+    }
+
+    /**
+     * Accounts the buckets that the sketch of a bucket allocated since it used <code>previousRamBytesUsed</code> bytes. Sketches
+     * only allocate when they widen their range of buckets, so the breaker is only called a few times per sketch.
+     */
+    private void addRequestCircuitBreakerBytes(DDSketchState state, long previousRamBytesUsed) {
+        final long growth = state.ramBytesUsed() - previousRamBytesUsed;
+        if (growth != 0) {
+            addRequestCircuitBreakerBytes(growth);
+        }
+    }
+
+    @Override
+    public boolean hasMetric(String name) {
+        return indexOfKey(keys, Double.parseDouble(name)) >= 0;
+    }
+
+    protected DDSketchState getState(long bucketOrd) {
+        if (bucketOrd >= states.size()) {
+            return null;
+        }
+        final DDSketchState state = states.get(bucketOrd);
+        return state;
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(states);
+    }
+
+}
@@ -24,9 +24,14 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -40,14 +45,14 @@ import java.util.Map;
 
 class AvgAggregator extends NumericMetricsAggregator.SingleValue {
 
-    final ValuesSource.Numeric valuesSource;
+    final ValuesSource valuesSource;
 
     LongArray counts;
     DoubleArray sums;
     DoubleArray compensations;
     DocValueFormat format;
 
-    AvgAggregator(String name, ValuesSource.Numeric valuesSource, DocValueFormat formatter, SearchContext context,
+    AvgAggregator(String name, ValuesSource valuesSource, DocValueFormat formatter, SearchContext context,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
@@ -72,31 +77,68 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         final BigArrays bigArrays = context.bigArrays();
-        final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        if (valuesSource instanceof ValuesSource.Histogram) {
+            final HistogramValues values = ((ValuesSource.Histogram) valuesSource).getHistogramValues(ctx);
+            return collectHistogramValues(values, bigArrays, sub);
+        }
+        final SortedNumericDoubleValues values = ((ValuesSource.Numeric) valuesSource).doubleValues(ctx);
+        final NumericDoubleValues singleValues = FieldData.unwrapSingleton(values);
+        final double[] buffer = new double[BlockLeafBucketCollector.BLOCK_SIZE];
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
 
+        return new BlockLeafBucketCollector(sub, values, valuesSource.needsScores() == false) {
+            @Override
+            protected void collectBlock(int[] docs, int count, long bucket) throws IOException {
+                counts = bigArrays.grow(counts, bucket + 1);
+                sums = bigArrays.grow(sums, bucket + 1);
+                compensations = bigArrays.grow(compensations, bucket + 1);
+
+                // Compute the sum of double values with Kahan summation algorithm which is more
+                // accurate than naive summation.
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                long valueCount = 0;
+                if (singleValues != null) {
+                    final int numValues = readValues(singleValues, docs, count, buffer);
+                    for (int i = 0; i < numValues; i++) {
+                        kahanSummation.add(buffer[i]);
+                    }
+                    valueCount = numValues;
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        if (values.advanceExact(docs[i])) {
+                            final int docValueCount = values.docValueCount();
+                            for (int j = 0; j < docValueCount; j++) {
+                                kahanSummation.add(values.nextValue());
+                            }
+                            valueCount += docValueCount;
+                        }
+                    }
+                }
+                counts.increment(bucket, valueCount);
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+            }
+        };
+    }
+
+    private LeafBucketCollector collectHistogramValues(final HistogramValues values, final BigArrays bigArrays,
+                                                       final LeafBucketCollector sub) {
+        final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 counts = bigArrays.grow(counts, bucket + 1);
                 sums = bigArrays.grow(sums, bucket + 1);
                 compensations = bigArrays.grow(compensations, bucket + 1);
-
                 if (values.advanceExact(doc)) {
-                    final int valueCount = values.docValueCount();
-                    counts.increment(bucket, valueCount);
-                    // Compute the sum of double values with Kahan summation algorithm which is more
-                    // accurate than naive summation.
-                    double sum = sums.get(bucket);
-                    double compensation = compensations.get(bucket);
-
-                    kahanSummation.reset(sum, compensation);
-
-                    for (int i = 0; i < valueCount; i++) {
-                        double value = values.nextValue();
-                        kahanSummation.add(value);
+                    final HistogramValue sketch = values.histogram();
+                    kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                    long valueCount = 0;
+                    while (sketch.next()) {
+                        kahanSummation.add(sketch.value() * sketch.count());
+                        valueCount += sketch.count();
                     }
-
+                    counts.increment(bucket, valueCount);
                     sums.set(bucket, kahanSummation.value());
                     compensations.set(bucket, kahanSummation.delta());
                 }
@@ -0,0 +1,377 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A quantile sketch with relative-error guarantees, based on DDSketch (https://arxiv.org/abs/1908.10693).
+ *
+ * Values are mapped to logarithmically sized buckets so that every quantile is estimated within <code>relativeAccuracy</code>
+ * of the actual value. The number of buckets is bounded by {@link #MAX_BUCKETS} per sign: once the range of values would
+ * need more buckets, the ones that hold the values that are the closest to zero are collapsed. Adding a value is a constant
+ * time increment and merging two sketches adds their counts bucket by bucket.
+ */
+public class DDSketchState implements Accountable {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    static final int MAX_BUCKETS = 2048;
+    private static final int INITIAL_BUCKETS = 16;
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(DDSketchState.class)
+        + 2 * RamUsageEstimator.shallowSizeOfInstance(Store.class);
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Store positives = new Store();
+    private final Store negatives = new Store();
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public DDSketchState(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException(
+                "[relative_accuracy] must be greater than 0 and lower than 1, got [" + relativeAccuracy + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * The number of values that have been added to this sketch.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * The memory used by this sketch, which only grows when values fall out of the range of the buckets it already has.
+     */
+    @Override
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE + RamUsageEstimator.sizeOf(positives.counts) + RamUsageEstimator.sizeOf(negatives.counts);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, long n) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot add NaN to a sketch");
+        }
+        if (value >= Double.MIN_NORMAL) {
+            positives.add(index(value), n);
+        } else if (value <= -Double.MIN_NORMAL) {
+            negatives.add(index(-value), n);
+        } else {
+            zeroCount += n;
+        }
+        count += n;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges the counts of <code>other</code> into this sketch.
+     */
+    public void add(DDSketchState other) {
+        if (relativeAccuracy != other.relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracies ["
+                + relativeAccuracy + "] and [" + other.relativeAccuracy + "]");
+        }
+        positives.add(other.positives);
+        negatives.add(other.negatives);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the estimated value at the given quantile, which must be between 0 and 1.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        final double rank = q * (count - 1);
+        long n = 0;
+        for (int i = negatives.maxIndex; i >= negatives.minIndex; --i) {
+            n += negatives.get(i);
+            if (n > rank) {
+                return clamp(-value(i));
+            }
+        }
+        n += zeroCount;
+        if (n > rank) {
+            return clamp(0);
+        }
+        for (int i = positives.minIndex; i <= positives.maxIndex; ++i) {
+            n += positives.get(i);
+            if (n > rank) {
+                return clamp(value(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the estimated fraction of the values that are lower than or equal to <code>x</code>.
+     */
+    public double cdf(double x) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (x < min) {
+            return 0;
+        }
+        if (x >= max) {
+            return 1;
+        }
+        long n = 0;
+        for (int i = negatives.maxIndex; i >= negatives.minIndex && -value(i) <= x; --i) {
+            n += negatives.get(i);
+        }
+        if (x >= 0) {
+            n += zeroCount;
+            for (int i = positives.minIndex; i <= positives.maxIndex && value(i) <= x; ++i) {
+                n += positives.get(i);
+            }
+        }
+        return (double) n / count;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The representative value of a bucket, which is within <code>relativeAccuracy</code> of every value of the bucket.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public static void write(DDSketchState state, StreamOutput out) throws IOException {
+        out.writeDouble(state.relativeAccuracy);
+        out.writeVLong(state.zeroCount);
+        out.writeDouble(state.min);
+        out.writeDouble(state.max);
+        state.positives.writeTo(out);
+        state.negatives.writeTo(out);
+    }
+
+    public static DDSketchState read(StreamInput in) throws IOException {
+        DDSketchState state = new DDSketchState(in.readDouble());
+        state.zeroCount = in.readVLong();
+        state.min = in.readDouble();
+        state.max = in.readDouble();
+        state.positives.readFrom(in);
+        state.negatives.readFrom(in);
+        state.count = state.zeroCount + state.positives.total + state.negatives.total;
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        DDSketchState that = (DDSketchState) obj;
+        return relativeAccuracy == that.relativeAccuracy
+            && zeroCount == that.zeroCount
+            && count == that.count
+            && Double.compare(min, that.min) == 0
+            && Double.compare(max, that.max) == 0
+            && positives.equals(that.positives)
+            && negatives.equals(that.negatives);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(relativeAccuracy, zeroCount, count, min, max, positives, negatives);
+    }
+
+    /**
+     * The counts of the buckets of one sign, in a window of contiguous indexes that grows on demand up to {@link #MAX_BUCKETS}.
+     */
+    private static final class Store {
+
+        private long[] counts = new long[0];
+        // index of the first slot of counts
+        private int offset;
+        // lowest and highest indexes that may have a non-zero count
+        private int minIndex = Integer.MAX_VALUE;
+        private int maxIndex = Integer.MIN_VALUE;
+        private long total;
+
+        long get(int index) {
+            return counts[index - offset];
+        }
+
+        void add(int index, long n) {
+            counts[slot(index)] += n;
+            total += n;
+        }
+
+        void add(Store other) {
+            for (int i = other.minIndex; i <= other.maxIndex; ++i) {
+                final long n = other.get(i);
+                if (n != 0) {
+                    add(i, n);
+                }
+            }
+        }
+
+        private int slot(int index) {
+            if (counts.length == 0) {
+                counts = new long[INITIAL_BUCKETS];
+                offset = index - INITIAL_BUCKETS / 2;
+            } else if (index < offset || index >= offset + counts.length) {
+                int newMin = Math.min(minIndex, index);
+                final int newMax = Math.max(maxIndex, index);
+                if (newMax - newMin + 1 > MAX_BUCKETS) {
+                    // collapse the buckets that are the closest to zero
+                    newMin = newMax - MAX_BUCKETS + 1;
+                    index = Math.max(index, newMin);
+                }
+                resize(newMin, newMax);
+            }
+            minIndex = Math.min(minIndex, index);
+            maxIndex = Math.max(maxIndex, index);
+            return index - offset;
+        }
+
+        /**
+         * Makes the window cover <code>[newMin, newMax]</code>, adding the counts of the indexes below <code>newMin</code> to it.
+         */
+        private void resize(int newMin, int newMax) {
+            if (newMin >= offset && newMax < offset + counts.length) {
+                long collapsed = 0;
+                for (int i = minIndex; i < newMin; ++i) {
+                    collapsed += counts[i - offset];
+                    counts[i - offset] = 0;
+                }
+                counts[newMin - offset] += collapsed;
+            } else {
+                final int span = newMax - newMin + 1;
+                final int length = Math.min(MAX_BUCKETS, Math.max(span, counts.length * 2));
+                // leave room on both sides so that the window does not need to move for every new extreme value
+                final int newOffset = newMin - (length - span) / 2;
+                final long[] newCounts = new long[length];
+                for (int i = minIndex; i <= maxIndex; ++i) {
+                    newCounts[Math.max(i, newMin) - newOffset] += counts[i - offset];
+                }
+                counts = newCounts;
+                offset = newOffset;
+            }
+            minIndex = Math.max(minIndex, newMin);
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            if (total == 0) {
+                out.writeVInt(0);
+                return;
+            }
+            out.writeVInt(maxIndex - minIndex + 1);
+            out.writeInt(minIndex);
+            for (int i = minIndex; i <= maxIndex; ++i) {
+                out.writeVLong(get(i));
+            }
+        }
+
+        void readFrom(StreamInput in) throws IOException {
+            final int numBuckets = in.readVInt();
+            if (numBuckets == 0) {
+                return;
+            }
+            final int from = in.readInt();
+            for (int i = 0; i < numBuckets; ++i) {
+                final long n = in.readVLong();
+                if (n != 0) {
+                    add(from + i, n);
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            Store that = (Store) obj;
+            if (total != that.total) {
+                return false;
+            }
+            if (total == 0) {
+                return true;
+            }
+            final int from = Math.min(minIndex, that.minIndex);
+            final int to = Math.max(maxIndex, that.maxIndex);
+            for (int i = from; i <= to; ++i) {
+                if (getOrZero(i) != that.getOrZero(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long getOrZero(int index) {
+            return index < minIndex || index > maxIndex ? 0 : get(index);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = Long.hashCode(total);
+            for (int i = minIndex; i <= maxIndex; ++i) {
+                final long n = get(i);
+                if (n != 0) {
+                    h = 31 * h + i;
+                    h = 31 * h + Long.hashCode(n);
+                }
+            }
+            return h;
+        }
+    }
+}
@@ -19,21 +19,17 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
-import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
-import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -48,6 +44,10 @@ import java.util.Set;
  * This implementation is different from the original implementation in that it uses a hash table instead of a sorted list for linear
  * counting. Although this requires more space and makes hyperloglog (which is less accurate) used sooner, this is also considerably faster.
  *
+ * Buckets start with a small hash table that grows with the number of distinct values, and only get their <code>2^p</code> registers
+ * once they switch to hyperloglog. This keeps memory proportional to the actual cardinalities when many buckets only see a few values.
+ * Registers are packed eight to a long so that merging two sets of registers works on a word at a time.
+ *
  * Trying to understand what this class does without having read the paper is considered adventurous.
  */
 public final class HyperLogLogPlusPlus implements Releasable {
@@ -60,6 +60,9 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private static final float MAX_LOAD_FACTOR = 0.75f;
     private static final int P2 = 25;
     private static final int BIAS_K = 6;
+    private static final int REGISTERS_PER_WORD = Long.BYTES;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final int SPARSE_INITIAL_CAPACITY = 16;
 
     /**
      * Compute the required precision so that <code>count</code> distinct entries would be counted with linear counting.
@@ -766,11 +769,16 @@ public final class HyperLogLogPlusPlus implements Releasable {
         350000 };
 
     private final BigArrays bigArrays;
-    private final OpenBitSet algorithm;
-    private ByteArray runLens;
-    private final Hashset hashSet;
     private final int p, m;
     private final double alphaMM;
+    // number of longs that hold the registers of a dense bucket
+    private final int wordsPerBucket;
+    // per bucket, 0 while the bucket uses linear counting, otherwise 1 + the slot of its registers
+    private LongArray denseSlots;
+    // registers of all dense buckets, packed REGISTERS_PER_WORD to a long
+    private LongArray registers;
+    private long numDenseSlots;
+    private final Hashset hashSet;
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
         if (precision < 4) {
@@ -781,9 +789,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
         p = precision;
         m = 1 << p;
+        wordsPerBucket = m / REGISTERS_PER_WORD;
         this.bigArrays = bigArrays;
-        algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
+        denseSlots = bigArrays.newLongArray(initialBucketCount);
+        registers = bigArrays.newLongArray(0, false);
         hashSet = new Hashset(initialBucketCount);
         final double alpha;
         switch (p) {
@@ -805,11 +814,47 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return denseSlots.size();
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        final long size = denseSlots.size();
+        if (numBuckets > size) {
+            denseSlots = bigArrays.grow(denseSlots, numBuckets);
+            denseSlots.fill(size, denseSlots.size(), 0L);
+        }
+    }
+
+    private boolean isDense(long bucket) {
+        return bucket < denseSlots.size() && denseSlots.get(bucket) != 0;
+    }
+
+    private long registersStart(long bucket) {
+        return (denseSlots.get(bucket) - 1) * wordsPerBucket;
+    }
+
+    private int register(long start, int index) {
+        return (int) ((registers.get(start + (index >>> 3)) >>> ((index & 7) << 3)) & 0xFF);
+    }
+
+    private void maxRegister(long start, int index, int runLen) {
+        final long word = start + (index >>> 3);
+        final int shift = (index & 7) << 3;
+        final long value = registers.get(word);
+        if (((value >>> shift) & 0xFF) < runLen) {
+            registers.set(word, (value & ~(0xFFL << shift)) | ((long) runLen << shift));
+        }
+    }
+
+    /**
+     * Computes the byte-wise maximum of two words of packed registers. Registers are always lower than 128, so
+     * subtracting with the high bit of each byte set never borrows from the next byte and leaves that bit set
+     * exactly where the register of <code>a</code> is greater than or equal to the register of <code>b</code>.
+     */
+    static long maxRegisters(long a, long b) {
+        final long greaterOrEqual = ((a | HIGH_BITS) - b) & HIGH_BITS;
+        final long mask = (greaterOrEqual >>> 7) * 0xFF;
+        return (a & mask) | (b & ~mask);
     }
 
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
@@ -817,12 +862,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
             throw new IllegalArgumentException();
         }
         ensureCapacity(thisBucket + 1);
-        if (other.algorithm.get(otherBucket) == LINEAR_COUNTING) {
+        if (other.isDense(otherBucket) == false) {
             final IntArray values = other.hashSet.values(otherBucket);
             try {
                 for (long i = 0; i < values.size(); ++i) {
                     final int encoded = values.get(i);
-                    if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
+                    if (isDense(thisBucket) == false) {
                         collectLcEncoded(thisBucket, encoded);
                     } else {
                         collectHllEncoded(thisBucket, encoded);
@@ -832,20 +877,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
                 Releasables.close(values);
             }
         } else {
-            if (algorithm.get(thisBucket) != HYPERLOGLOG) {
+            if (isDense(thisBucket) == false) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
-            for (int i = 0; i < m; ++i) {
-                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+            final long thisStart = registersStart(thisBucket);
+            final long otherStart = other.registersStart(otherBucket);
+            for (int i = 0; i < wordsPerBucket; ++i) {
+                registers.set(thisStart + i, maxRegisters(registers.get(thisStart + i), other.registers.get(otherStart + i)));
             }
         }
     }
 
     public void collect(long bucket, long hash) {
         ensureCapacity(bucket + 1);
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isDense(bucket) == false) {
             collectLc(bucket, hash);
         } else {
             collectHll(bucket, hash);
@@ -867,7 +912,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private void collectHll(long bucket, long hash) {
         final long index = index(hash, p);
         final int runLen = runLen(hash, p);
-        collectHll(bucket, index, runLen);
+        collectHll(bucket, (int) index, runLen);
     }
 
     private void collectHllEncoded(long bucket, int encoded) {
@@ -876,13 +921,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
         collectHll(bucket, index, runLen);
     }
 
-    private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
-        runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
+    private void collectHll(long bucket, int index, int runLen) {
+        maxRegister(registersStart(bucket), index, runLen);
     }
 
     public long cardinality(long bucket) {
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isDense(bucket) == false) {
             return cardinalityLc(bucket);
         } else {
             return cardinalityHll(bucket);
@@ -898,11 +942,15 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
-            final int runLen = runLens.get(i);
-            inverseSum += 1. / (1L << runLen);
-            if (runLen == 0) {
-                ++zeros;
+        final long start = registersStart(bucket);
+        for (long i = start, end = start + wordsPerBucket; i < end; ++i) {
+            long word = registers.get(i);
+            for (int j = 0; j < REGISTERS_PER_WORD; ++j, word >>>= 8) {
+                final int runLen = (int) (word & 0xFF);
+                inverseSum += 1. / (1L << runLen);
+                if (runLen == 0) {
+                    ++zeros;
+                }
             }
         }
         double e1 = alphaMM / inverseSum;
@@ -920,18 +968,25 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
     }
 
+    /**
+     * Switches the bucket to dense registers, which are only allocated at this point, and releases its hash set.
+     */
     void upgradeToHll(long bucket) {
         ensureCapacity(bucket + 1);
+        assert isDense(bucket) == false;
+        final long slot = numDenseSlots++;
+        registers = bigArrays.grow(registers, (slot + 1) * wordsPerBucket);
+        registers.fill(slot * wordsPerBucket, (slot + 1) * wordsPerBucket, 0L);
+        denseSlots.set(bucket, slot + 1);
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
-            algorithm.set(bucket);
         } finally {
             Releasables.close(values);
+            hashSet.clear(bucket);
         }
     }
 
@@ -1031,11 +1086,11 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     @Override
     public void close() {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(denseSlots, registers, hashSet);
     }
 
     private Object getComparableData(long bucket) {
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isDense(bucket) == false) {
             Set<Integer> values = new HashSet<>();
             try (IntArray hashSetValues = hashSet.values(bucket)) {
                 for (long i = 0; i < hashSetValues.size(); i++) {
@@ -1044,71 +1099,55 @@ public final class HyperLogLogPlusPlus implements Releasable {
             }
             return values;
         } else {
-            Map<Byte, Integer> values = new HashMap<>();
-            for (long i = 0; i < runLens.size(); i++) {
-                byte runLength = runLens.get((bucket << p) + i);
-                Integer numOccurances = values.get(runLength);
-                if (numOccurances == null) {
-                    values.put(runLength, 1);
-                } else {
-                    values.put(runLength, numOccurances + 1);
-                }
+            Map<Integer, Integer> values = new HashMap<>();
+            final long start = registersStart(bucket);
+            for (int i = 0; i < m; i++) {
+                values.merge(register(start, i), 1, Integer::sum);
             }
             return values;
         }
     }
 
     public int hashCode(long bucket) {
-        return Objects.hash(p, algorithm.get(bucket), getComparableData(bucket));
+        return Objects.hash(p, isDense(bucket), getComparableData(bucket));
     }
 
     public boolean equals(long bucket, HyperLogLogPlusPlus other) {
         return Objects.equals(p, other.p)
-            && Objects.equals(algorithm.get(bucket), other.algorithm.get(bucket))
+            && isDense(bucket) == other.isDense(bucket)
             && Objects.equals(getComparableData(bucket), other.getComparableData(bucket));
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set for linear counting.
+     * Sparse storage for buckets that use linear counting: each bucket gets its own open-addressing hash table of
+     * encoded hashes, which starts small and doubles as it fills up until it reaches the size of the dense registers.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
 
         private final int capacity;
         private final int threshold;
-        private final int mask;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private ObjectArray<IntArray> tables;
 
         Hashset(long initialBucketCount) {
             capacity = m / 4; // because ints take 4 bytes
             threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
             sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index(long bucket, int index) {
-            return (bucket << p) + (index << 2);
+            tables = bigArrays.newObjectArray(initialBucketCount);
         }
 
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+        private IntArray table(long bucket) {
+            return bucket < tables.size() ? tables.get(bucket) : null;
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = table(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
-                    ++size;
+            if (table != null) {
+                for (long i = 0; i < table.size(); ++i) {
+                    if (table.get(i) != 0) {
+                        ++size;
+                    }
                 }
             }
             return size;
@@ -1128,17 +1167,43 @@ public final class HyperLogLogPlusPlus implements Releasable {
          * or the new set size if it was added.
          */
         public int add(long bucket, int k) {
-            sizes = bigArrays.grow(sizes, bucket + 1);
             assert k != 0;
+            sizes = bigArrays.grow(sizes, bucket + 1);
+            tables = bigArrays.grow(tables, bucket + 1);
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(capacity, SPARSE_INITIAL_CAPACITY));
+                tables.set(bucket, table);
+            }
+            if (insert(table, k) == false) {
+                return -1;
+            }
+            final int size = sizes.increment(bucket, 1);
+            if (table.size() < capacity && size > table.size() * MAX_LOAD_FACTOR) {
+                final IntArray newTable = bigArrays.newIntArray(table.size() << 1);
+                for (long i = 0; i < table.size(); ++i) {
+                    final int v = table.get(i);
+                    if (v != 0) {
+                        insert(newTable, v);
+                    }
+                }
+                tables.set(bucket, newTable);
+                Releasables.close(table);
+            }
+            return size;
+        }
+
+        private boolean insert(IntArray table, int k) {
+            final int mask = (int) table.size() - 1;
             for (int i = (k & mask);; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
-                    return sizes.increment(bucket, 1);
+                    table.set(i, k);
+                    return true;
                 } else if (v == k) {
                     // k is already in the set
-                    return -1;
+                    return false;
                 }
             }
         }
@@ -1149,9 +1214,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (size == 0) {
                 return values;
             }
+            final IntArray table = tables.get(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -1160,11 +1226,30 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        /**
+         * Releases the hash table of a bucket that has been upgraded to dense registers.
+         */
+        public void clear(long bucket) {
+            final IntArray table = table(bucket);
+            if (table != null) {
+                tables.set(bucket, null);
+                sizes.set(bucket, 0);
+                Releasables.close(table);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (long i = 0; i < tables.size(); ++i) {
+                Releasables.close(tables.get(i));
+            }
+            Releasables.close(tables, sizes);
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
         out.writeVInt(p);
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isDense(bucket) == false) {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
                 out.writeVLong(hashes.size());
@@ -1174,8 +1259,9 @@ public final class HyperLogLogPlusPlus implements Releasable {
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
-                out.writeByte(runLens.get(i));
+            final long start = registersStart(bucket);
+            for (int i = 0; i < m; ++i) {
+                out.writeByte((byte) register(start, i));
             }
         }
     }
@@ -1185,46 +1271,19 @@ public final class HyperLogLogPlusPlus implements Releasable {
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
         final boolean algorithm = in.readBoolean();
         if (algorithm == LINEAR_COUNTING) {
-            counts.algorithm.clear(0);
             final long size = in.readVLong();
             for (long i = 0; i < size; ++i) {
                 final int encoded = in.readInt();
                 counts.hashSet.add(0, encoded);
             }
         } else {
-            counts.algorithm.set(0);
+            counts.upgradeToHll(0);
+            final long start = counts.registersStart(0);
             for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+                counts.maxRegister(start, i, in.readByte());
             }
         }
         return counts;
     }
 
-    /** looks and smells like the old openbitset. */
-    static class OpenBitSet {
-        LongBitSet impl = new LongBitSet(64);
-
-        boolean get(long bit) {
-            if (bit < impl.length()) {
-                return impl.get(bit);
-            } else {
-                return false;
-            }
-        }
-
-        void ensureCapacity(long bit) {
-            impl = LongBitSet.ensureCapacity(impl, bit);
-        }
-
-        void set(long bit) {
-            ensureCapacity(bit);
-            impl.set(bit);
-        }
-
-        void clear(long bit) {
-            ensureCapacity(bit);
-            impl.clear(bit);
-        }
-    }
-
 }
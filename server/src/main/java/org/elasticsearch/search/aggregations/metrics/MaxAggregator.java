@@ -28,11 +28,14 @@ import org.apache.lucene.util.FutureArrays;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
 import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -50,7 +53,7 @@ import static org.elasticsearch.search.aggregations.metrics.MinAggregator.getPoi
 
 class MaxAggregator extends NumericMetricsAggregator.SingleValue {
 
-    final ValuesSource.Numeric valuesSource;
+    final ValuesSource valuesSource;
     final DocValueFormat formatter;
 
     final String pointField;
@@ -59,8 +62,8 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
     DoubleArray maxes;
 
     MaxAggregator(String name,
-                    ValuesSourceConfig<ValuesSource.Numeric> config,
-                    ValuesSource.Numeric valuesSource,
+                    ValuesSourceConfig<ValuesSource> config,
+                    ValuesSource valuesSource,
                     SearchContext context,
                     Aggregator parent, List<PipelineAggregator> pipelineAggregators,
                     Map<String, Object> metaData) throws IOException {
@@ -95,7 +98,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 throw new CollectionTerminatedException();
             }
         }
-        if (pointConverter != null) {
+        if (pointConverter != null && SegmentCoverage.matchesAllDocs(context.query(), ctx.reader())) {
             Number segMax = findLeafMaxValue(ctx.reader(), pointField, pointConverter);
             if (segMax != null) {
                 /**
@@ -111,10 +114,36 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
             }
         }
         final BigArrays bigArrays = context.bigArrays();
-        final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
+        if (valuesSource instanceof ValuesSource.Histogram) {
+            final HistogramValues values = ((ValuesSource.Histogram) valuesSource).getHistogramValues(ctx);
+            return collectHistogramValues(values, bigArrays, sub);
+        }
+        final SortedNumericDoubleValues allValues = ((ValuesSource.Numeric) valuesSource).doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues);
-        return new LeafBucketCollectorBase(sub, allValues) {
+        final double[] buffer = new double[BlockLeafBucketCollector.BLOCK_SIZE];
+        return new BlockLeafBucketCollector(sub, allValues, valuesSource.needsScores() == false) {
+
+            @Override
+            protected void collectBlock(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays.grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                final int numValues = readValues(values, docs, count, buffer);
+                double max = maxes.get(bucket);
+                for (int i = 0; i < numValues; i++) {
+                    max = Math.max(max, buffer[i]);
+                }
+                maxes.set(bucket, max);
+            }
+
+        };
+    }
 
+    private LeafBucketCollector collectHistogramValues(final HistogramValues values, final BigArrays bigArrays,
+                                                       final LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 if (bucket >= maxes.size()) {
@@ -123,13 +152,14 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                     maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
                 }
                 if (values.advanceExact(doc)) {
-                    final double value = values.doubleValue();
+                    final HistogramValue sketch = values.histogram();
                     double max = maxes.get(bucket);
-                    max = Math.max(max, value);
+                    while (sketch.next()) {
+                        max = Math.max(max, sketch.value());
+                    }
                     maxes.set(bucket, max);
                 }
             }
-
         };
     }
 
@@ -24,12 +24,13 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.CollectionTerminatedException;
-import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
 import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.mapper.DateFieldMapper;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -54,7 +56,7 @@ import java.util.function.Function;
 class MinAggregator extends NumericMetricsAggregator.SingleValue {
     private static final int MAX_BKD_LOOKUPS = 1024;
 
-    final ValuesSource.Numeric valuesSource;
+    final ValuesSource valuesSource;
     final DocValueFormat format;
 
     final String pointField;
@@ -63,8 +65,8 @@ class MinAggregator extends NumericMetricsAggregator.SingleValue {
     DoubleArray mins;
 
     MinAggregator(String name,
-                    ValuesSourceConfig<ValuesSource.Numeric> config,
-                    ValuesSource.Numeric valuesSource,
+                    ValuesSourceConfig<ValuesSource> config,
+                    ValuesSource valuesSource,
                     SearchContext context,
                     Aggregator parent,
                     List<PipelineAggregator> pipelineAggregators,
@@ -100,7 +102,7 @@ class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 throw new CollectionTerminatedException();
             }
         }
-        if (pointConverter != null) {
+        if (pointConverter != null && SegmentCoverage.matchesAllDocs(context.query(), ctx.reader())) {
             Number segMin = findLeafMinValue(ctx.reader(), pointField, pointConverter);
             if (segMin != null) {
                 /**
@@ -115,10 +117,36 @@ class MinAggregator extends NumericMetricsAggregator.SingleValue {
             }
         }
         final BigArrays bigArrays = context.bigArrays();
-        final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
+        if (valuesSource instanceof ValuesSource.Histogram) {
+            final HistogramValues values = ((ValuesSource.Histogram) valuesSource).getHistogramValues(ctx);
+            return collectHistogramValues(values, bigArrays, sub);
+        }
+        final SortedNumericDoubleValues allValues = ((ValuesSource.Numeric) valuesSource).doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MIN.select(allValues);
-        return new LeafBucketCollectorBase(sub, allValues) {
+        final double[] buffer = new double[BlockLeafBucketCollector.BLOCK_SIZE];
+        return new BlockLeafBucketCollector(sub, allValues, valuesSource.needsScores() == false) {
+
+            @Override
+            protected void collectBlock(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays.grow(mins, bucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                final int numValues = readValues(values, docs, count, buffer);
+                double min = mins.get(bucket);
+                for (int i = 0; i < numValues; i++) {
+                    min = Math.min(min, buffer[i]);
+                }
+                mins.set(bucket, min);
+            }
+
+        };
+    }
 
+    private LeafBucketCollector collectHistogramValues(final HistogramValues values, final BigArrays bigArrays,
+                                                       final LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 if (bucket >= mins.size()) {
@@ -127,13 +155,14 @@ class MinAggregator extends NumericMetricsAggregator.SingleValue {
                     mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
                 }
                 if (values.advanceExact(doc)) {
-                    final double value = values.doubleValue();
+                    final HistogramValue sketch = values.histogram();
                     double min = mins.get(bucket);
-                    min = Math.min(min, value);
+                    while (sketch.next()) {
+                        min = Math.min(min, sketch.value());
+                    }
                     mins.set(bucket, min);
                 }
             }
-
         };
     }
 
@@ -166,16 +195,16 @@ class MinAggregator extends NumericMetricsAggregator.SingleValue {
 
     /**
      * Returns a converter for point values if early termination is applicable to
-     * the context or <code>null</code> otherwise.
+     * the context or <code>null</code> otherwise. The shortcut is only taken on segments
+     * that are entirely matched by the query, see {@link SegmentCoverage#matchesAllDocs}.
      *
      * @param context The {@link SearchContext} of the aggregation.
      * @param parent The parent aggregator.
      * @param config The config for the values source metric.
      */
     static Function<byte[], Number> getPointReaderOrNull(SearchContext context, Aggregator parent,
-                                                                ValuesSourceConfig<ValuesSource.Numeric> config) {
-        if (context.query() != null &&
-                context.query().getClass() != MatchAllDocsQuery.class) {
+                                                                ValuesSourceConfig<?> config) {
+        if (SegmentCoverage.canMatchAllDocs(context.query()) == false) {
             return null;
         }
         if (parent != null) {
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -72,6 +73,17 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
                 new ParseField("number_of_significant_value_digits"));
     }
 
+    private static class DDSketchOptions {
+        Double relativeAccuracy;
+    }
+
+    private static final ObjectParser<DDSketchOptions, String> DDSKETCH_OPTIONS_PARSER =
+            new ObjectParser<>(PercentilesMethod.DDSKETCH.getParseField().getPreferredName(), DDSketchOptions::new);
+    static {
+        DDSKETCH_OPTIONS_PARSER.declareDouble((opts, relativeAccuracy) -> opts.relativeAccuracy = relativeAccuracy,
+                PercentilesAggregationBuilder.RELATIVE_ACCURACY_FIELD);
+    }
+
     // The builder requires two parameters for the constructor: aggregation name and values array.  The
     // agg name is supplied externally via the Parser's context (as a String), while the values array
     // is parsed from the request and supplied to the ConstructingObjectParser as a ctor argument
@@ -96,6 +108,13 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
                 b.numberOfSignificantValueDigits(v.numberOfSigDigits);
             }
         }, HDR_OPTIONS_PARSER::parse, PercentilesMethod.HDR.getParseField(), ObjectParser.ValueType.OBJECT);
+
+        PARSER.declareField((b, v) -> {
+            b.method(PercentilesMethod.DDSKETCH);
+            if (v.relativeAccuracy != null) {
+                b.relativeAccuracy(v.relativeAccuracy);
+            }
+        }, DDSKETCH_OPTIONS_PARSER::parse, PercentilesMethod.DDSKETCH.getParseField(), ObjectParser.ValueType.OBJECT);
     }
 
     public static AggregationBuilder parse(String aggregationName, XContentParser parser) throws IOException {
@@ -107,6 +126,7 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
     private PercentilesMethod method = PercentilesMethod.TDIGEST;
     private int numberOfSignificantValueDigits = 3;
     private double compression = 100.0;
+    private double relativeAccuracy = DDSketchState.DEFAULT_RELATIVE_ACCURACY;
     private boolean keyed = true;
 
     private PercentileRanksAggregationBuilder(String name, List<Double> values) {
@@ -134,6 +154,7 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         this.method = clone.method;
         this.numberOfSignificantValueDigits = clone.numberOfSignificantValueDigits;
         this.compression = clone.compression;
+        this.relativeAccuracy = clone.relativeAccuracy;
         this.keyed = clone.keyed;
     }
 
@@ -152,6 +173,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         numberOfSignificantValueDigits = in.readVInt();
         compression = in.readDouble();
         method = PercentilesMethod.readFromStream(in);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            relativeAccuracy = in.readDouble();
+        }
     }
 
     @Override
@@ -160,7 +184,14 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         out.writeBoolean(keyed);
         out.writeVInt(numberOfSignificantValueDigits);
         out.writeDouble(compression);
+        if (method == PercentilesMethod.DDSKETCH && out.getVersion().before(Version.V_8_0_0)) {
+            throw new IllegalArgumentException("[" + PercentilesMethod.DDSKETCH + "] percentiles are not supported on nodes before ["
+                + Version.V_8_0_0 + "]");
+        }
         method.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeDouble(relativeAccuracy);
+        }
     }
 
     /**
@@ -226,6 +257,27 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         return compression;
     }
 
+    /**
+     * Expert: set the relative accuracy of the estimated values, between 0 and 1. Lower values improve
+     * accuracy but also increase memory usage. Only relevant when using {@link PercentilesMethod#DDSKETCH}.
+     */
+    public PercentileRanksAggregationBuilder relativeAccuracy(double relativeAccuracy) {
+        if (relativeAccuracy <= 0.0 || relativeAccuracy >= 1.0) {
+            throw new IllegalArgumentException(
+                    "[relativeAccuracy] must be greater than 0 and lower than 1. Found [" + relativeAccuracy + "] in [" + name + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        return this;
+    }
+
+    /**
+     * Expert: get the relative accuracy of the estimated values. Only relevant when using
+     * {@link PercentilesMethod#DDSKETCH}.
+     */
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
     public PercentileRanksAggregationBuilder method(PercentilesMethod method) {
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
@@ -250,6 +302,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         case HDR:
             return new HDRPercentileRanksAggregatorFactory(name, config, values, numberOfSignificantValueDigits, keyed, queryShardContext,
                     parent, subFactoriesBuilder, metaData);
+        case DDSKETCH:
+            return new DDSketchPercentileRanksAggregatorFactory(name, config, values, relativeAccuracy, keyed, queryShardContext, parent,
+                    subFactoriesBuilder, metaData);
         default:
             throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -262,6 +317,8 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
         builder.startObject(method.toString());
         if (method == PercentilesMethod.TDIGEST) {
             builder.field(PercentilesAggregationBuilder.COMPRESSION_FIELD.getPreferredName(), compression);
+        } else if (method == PercentilesMethod.DDSKETCH) {
+            builder.field(PercentilesAggregationBuilder.RELATIVE_ACCURACY_FIELD.getPreferredName(), relativeAccuracy);
         } else {
             builder.field(PercentilesAggregationBuilder.NUMBER_SIGNIFICANT_DIGITS_FIELD.getPreferredName(), numberOfSignificantValueDigits);
         }
@@ -286,6 +343,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
             case TDIGEST:
                 equalSettings = Objects.equals(compression, other.compression);
                 break;
+            case DDSKETCH:
+                equalSettings = Objects.equals(relativeAccuracy, other.relativeAccuracy);
+                break;
             default:
                 throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -302,6 +362,8 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource, Pe
                 return Objects.hash(super.hashCode(), Arrays.hashCode(values), keyed, numberOfSignificantValueDigits, method);
             case TDIGEST:
                 return Objects.hash(super.hashCode(), Arrays.hashCode(values), keyed, compression, method);
+            case DDSKETCH:
+                return Objects.hash(super.hashCode(), Arrays.hashCode(values), keyed, relativeAccuracy, method);
             default:
                 throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -52,6 +53,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
     public static final ParseField METHOD_FIELD = new ParseField("method");
     public static final ParseField COMPRESSION_FIELD = new ParseField("compression");
     public static final ParseField NUMBER_SIGNIFICANT_DIGITS_FIELD = new ParseField("number_of_significant_value_digits");
+    public static final ParseField RELATIVE_ACCURACY_FIELD = new ParseField("relative_accuracy");
 
     private static class TDigestOptions {
         Double compression;
@@ -75,6 +77,17 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
                 NUMBER_SIGNIFICANT_DIGITS_FIELD);
     }
 
+    private static class DDSketchOptions {
+        Double relativeAccuracy;
+    }
+
+    private static final ObjectParser<DDSketchOptions, Void> DDSKETCH_OPTIONS_PARSER =
+            new ObjectParser<>(PercentilesMethod.DDSKETCH.getParseField().getPreferredName(), DDSketchOptions::new);
+    static {
+        DDSKETCH_OPTIONS_PARSER.declareDouble((opts, relativeAccuracy) -> opts.relativeAccuracy = relativeAccuracy,
+                RELATIVE_ACCURACY_FIELD);
+    }
+
     private static final ObjectParser<InternalBuilder, Void> PARSER;
     static {
         PARSER = new ObjectParser<>(PercentilesAggregationBuilder.NAME);
@@ -99,6 +112,13 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
                 b.numberOfSignificantValueDigits(v.numberOfSigDigits);
             }
         }, HDR_OPTIONS_PARSER::parse, PercentilesMethod.HDR.getParseField(), ObjectParser.ValueType.OBJECT);
+
+        PARSER.declareField((b, v) -> {
+            b.method(PercentilesMethod.DDSKETCH);
+            if (v.relativeAccuracy != null) {
+                b.relativeAccuracy(v.relativeAccuracy);
+            }
+        }, DDSKETCH_OPTIONS_PARSER::parse, PercentilesMethod.DDSKETCH.getParseField(), ObjectParser.ValueType.OBJECT);
     }
 
     public static AggregationBuilder parse(String aggregationName, XContentParser parser) throws IOException {
@@ -115,6 +135,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         returnedAgg.keyed(internal.keyed());
         returnedAgg.compression(internal.compression());
         returnedAgg.numberOfSignificantValueDigits(internal.numberOfSignificantValueDigits());
+        returnedAgg.relativeAccuracy(internal.relativeAccuracy());
         return returnedAgg;
     }
 
@@ -128,6 +149,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
     private PercentilesMethod method = PercentilesMethod.TDIGEST;
     private int numberOfSignificantValueDigits = 3;
     private double compression = 100.0;
+    private double relativeAccuracy = DDSketchState.DEFAULT_RELATIVE_ACCURACY;
     private boolean keyed = true;
 
     public PercentilesAggregationBuilder(String name) {
@@ -141,6 +163,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         this.method = clone.method;
         this.numberOfSignificantValueDigits = clone.numberOfSignificantValueDigits;
         this.compression = clone.compression;
+        this.relativeAccuracy = clone.relativeAccuracy;
         this.keyed = clone.keyed;
     }
 
@@ -159,6 +182,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         numberOfSignificantValueDigits = in.readVInt();
         compression = in.readDouble();
         method = PercentilesMethod.readFromStream(in);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            relativeAccuracy = in.readDouble();
+        }
     }
 
     @Override
@@ -167,7 +193,14 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         out.writeBoolean(keyed);
         out.writeVInt(numberOfSignificantValueDigits);
         out.writeDouble(compression);
+        if (method == PercentilesMethod.DDSKETCH && out.getVersion().before(Version.V_8_0_0)) {
+            throw new IllegalArgumentException("[" + PercentilesMethod.DDSKETCH + "] percentiles are not supported on nodes before ["
+                + Version.V_8_0_0 + "]");
+        }
         method.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeDouble(relativeAccuracy);
+        }
     }
 
     /**
@@ -249,6 +282,27 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         return compression;
     }
 
+    /**
+     * Expert: set the relative accuracy of the estimated values, between 0 and 1. Lower values improve
+     * accuracy but also increase memory usage. Only relevant when using {@link PercentilesMethod#DDSKETCH}.
+     */
+    public PercentilesAggregationBuilder relativeAccuracy(double relativeAccuracy) {
+        if (relativeAccuracy <= 0.0 || relativeAccuracy >= 1.0) {
+            throw new IllegalArgumentException(
+                    "[relativeAccuracy] must be greater than 0 and lower than 1. Found [" + relativeAccuracy + "] in [" + name + "]");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        return this;
+    }
+
+    /**
+     * Expert: get the relative accuracy of the estimated values. Only relevant when using
+     * {@link PercentilesMethod#DDSKETCH}.
+     */
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
     public PercentilesAggregationBuilder method(PercentilesMethod method) {
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
@@ -273,6 +327,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         case HDR:
             return new HDRPercentilesAggregatorFactory(name, config, percents,
                 numberOfSignificantValueDigits, keyed, queryShardContext, parent, subFactoriesBuilder, metaData);
+        case DDSKETCH:
+            return new DDSketchPercentilesAggregatorFactory(name, config, percents, relativeAccuracy, keyed, queryShardContext, parent,
+                    subFactoriesBuilder, metaData);
         default:
             throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -285,6 +342,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
         builder.startObject(method.toString());
         if (method == PercentilesMethod.TDIGEST) {
             builder.field(COMPRESSION_FIELD.getPreferredName(), compression);
+        } else if (method == PercentilesMethod.DDSKETCH) {
+            builder.field(RELATIVE_ACCURACY_FIELD.getPreferredName(), relativeAccuracy);
         } else {
             builder.field(NUMBER_SIGNIFICANT_DIGITS_FIELD.getPreferredName(), numberOfSignificantValueDigits);
         }
@@ -310,6 +369,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
             case TDIGEST:
                 equalSettings = Objects.equals(compression, other.compression);
                 break;
+            case DDSKETCH:
+                equalSettings = Objects.equals(relativeAccuracy, other.relativeAccuracy);
+                break;
             default:
                 throw new IllegalStateException("Illegal method [" + method.toString() + "]");
         }
@@ -326,6 +388,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource, Percen
             return Objects.hash(super.hashCode(), Arrays.hashCode(percents), keyed, numberOfSignificantValueDigits, method);
         case TDIGEST:
             return Objects.hash(super.hashCode(), Arrays.hashCode(percents), keyed, compression, method);
+        case DDSKETCH:
+            return Objects.hash(super.hashCode(), Arrays.hashCode(percents), keyed, relativeAccuracy, method);
         default:
             throw new IllegalStateException("Illegal method [" + method.toString() + "]");
         }
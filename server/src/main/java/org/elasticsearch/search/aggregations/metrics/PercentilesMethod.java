@@ -37,7 +37,11 @@ public enum PercentilesMethod implements Writeable {
     /**
      * The HDRHistogram method of calculating percentiles
      */
-    HDR("hdr", "HDR");
+    HDR("hdr", "HDR"),
+    /**
+     * A DDSketch, which estimates percentiles with a relative accuracy from a bounded number of logarithmic buckets
+     */
+    DDSKETCH("ddsketch");
 
     private final ParseField parseField;
 
@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.FutureArrays;
+
+import java.io.IOException;
+
+/**
+ * Decides whether the top-level query of a search matches every document of a segment, in which case metrics
+ * like {@code min}, {@code max} and {@code value_count} can be read from the segment's {@link PointValues}
+ * instead of iterating over the matching documents.
+ */
+final class SegmentCoverage {
+
+    private SegmentCoverage() {}
+
+    /**
+     * Returns <code>true</code> if the provided query is of a shape that {@link #matchesAllDocs} can reason
+     * about, that is it may cover entire segments. A <code>null</code> query matches all documents.
+     */
+    static boolean canMatchAllDocs(Query query) {
+        query = unwrap(query);
+        if (query == null || query instanceof MatchAllDocsQuery || query instanceof PointRangeQuery) {
+            return true;
+        }
+        if (query instanceof BooleanQuery) {
+            BooleanQuery bq = (BooleanQuery) query;
+            if (bq.clauses().isEmpty()) {
+                return false;
+            }
+            for (BooleanClause clause : bq.clauses()) {
+                if (clause.isRequired() == false || clause.isProhibited() || canMatchAllDocs(clause.getQuery()) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the provided query matches all documents of the segment, deleted documents aside.
+     * This is a conservative check: <code>false</code> only means that coverage could not be proven from the
+     * segment metadata.
+     */
+    static boolean matchesAllDocs(Query query, LeafReader reader) throws IOException {
+        query = unwrap(query);
+        if (query == null || query instanceof MatchAllDocsQuery) {
+            return true;
+        }
+        if (query instanceof PointRangeQuery) {
+            return rangeMatchesAllDocs((PointRangeQuery) query, reader);
+        }
+        if (query instanceof BooleanQuery) {
+            BooleanQuery bq = (BooleanQuery) query;
+            if (bq.clauses().isEmpty()) {
+                return false;
+            }
+            for (BooleanClause clause : bq.clauses()) {
+                if (clause.isRequired() == false || clause.isProhibited() || matchesAllDocs(clause.getQuery(), reader) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * A range matches all documents of a segment if every document has a point in the field
+     * and the bounds of the segment lie within the range in every dimension.
+     */
+    private static boolean rangeMatchesAllDocs(PointRangeQuery query, LeafReader reader) throws IOException {
+        final PointValues pointValues = reader.getPointValues(query.getField());
+        if (pointValues == null
+                || pointValues.getDocCount() != reader.maxDoc()
+                || pointValues.getNumDataDimensions() != query.getNumDims()
+                || pointValues.getBytesPerDimension() != query.getBytesPerDim()) {
+            return false;
+        }
+        final byte[] lower = query.getLowerPoint();
+        final byte[] upper = query.getUpperPoint();
+        final byte[] min = pointValues.getMinPackedValue();
+        final byte[] max = pointValues.getMaxPackedValue();
+        final int bytesPerDim = query.getBytesPerDim();
+        for (int dim = 0; dim < query.getNumDims(); dim++) {
+            final int from = dim * bytesPerDim;
+            final int to = from + bytesPerDim;
+            if (FutureArrays.compareUnsigned(min, from, to, lower, from, to) < 0
+                    || FutureArrays.compareUnsigned(max, from, to, upper, from, to) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Query unwrap(Query query) {
+        while (true) {
+            if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else if (query instanceof IndexOrDocValuesQuery) {
+                query = ((IndexOrDocValuesQuery) query).getIndexQuery();
+            } else {
+                return query;
+            }
+        }
+    }
+}
@@ -24,12 +24,14 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
-import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -81,11 +83,13 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
         }
         final BigArrays bigArrays = context.bigArrays();
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        final NumericDoubleValues singleValues = FieldData.unwrapSingleton(values);
+        final double[] buffer = new double[BlockLeafBucketCollector.BLOCK_SIZE];
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
 
-        return new LeafBucketCollectorBase(sub, values) {
+        return new BlockLeafBucketCollector(sub, values, valuesSource.needsScores() == false) {
             @Override
-            public void collect(int doc, long bucket) throws IOException {
+            protected void collectBlock(int[] docs, int count, long bucket) throws IOException {
                 if (bucket >= counts.size()) {
                     final long from = counts.size();
                     final long overSize = BigArrays.overSize(bucket + 1);
@@ -98,28 +102,42 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
                     maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
                 }
 
-                if (values.advanceExact(doc)) {
-                    final int valuesCount = values.docValueCount();
-                    counts.increment(bucket, valuesCount);
-                    double min = mins.get(bucket);
-                    double max = maxes.get(bucket);
-                    // Compute the sum of double values with Kahan summation algorithm which is more
-                    // accurate than naive summation.
-                    double sum = sums.get(bucket);
-                    double compensation = compensations.get(bucket);
-                    kahanSummation.reset(sum, compensation);
-
-                    for (int i = 0; i < valuesCount; i++) {
-                        double value = values.nextValue();
-                        kahanSummation.add(value);
-                        min = Math.min(min, value);
-                        max = Math.max(max, value);
+                double min = mins.get(bucket);
+                double max = maxes.get(bucket);
+                // Compute the sum of double values with Kahan summation algorithm which is more
+                // accurate than naive summation.
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                long valueCount = 0;
+                if (singleValues != null) {
+                    final int numValues = readValues(singleValues, docs, count, buffer);
+                    for (int i = 0; i < numValues; i++) {
+                        kahanSummation.add(buffer[i]);
+                    }
+                    // min and max don't depend on each other, keep them in their own loop so that it can be vectorized
+                    for (int i = 0; i < numValues; i++) {
+                        min = Math.min(min, buffer[i]);
+                        max = Math.max(max, buffer[i]);
+                    }
+                    valueCount = numValues;
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        if (values.advanceExact(docs[i])) {
+                            final int docValueCount = values.docValueCount();
+                            for (int j = 0; j < docValueCount; j++) {
+                                double value = values.nextValue();
+                                kahanSummation.add(value);
+                                min = Math.min(min, value);
+                                max = Math.max(max, value);
+                            }
+                            valueCount += docValueCount;
+                        }
                     }
-                    sums.set(bucket, kahanSummation.value());
-                    compensations.set(bucket, kahanSummation.delta());
-                    mins.set(bucket, min);
-                    maxes.set(bucket, max);
                 }
+                counts.increment(bucket, valueCount);
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+                mins.set(bucket, min);
+                maxes.set(bucket, max);
             }
         };
     }
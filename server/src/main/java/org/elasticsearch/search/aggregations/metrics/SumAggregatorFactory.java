@@ -25,7 +25,6 @@ import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
-import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import org.elasticsearch.search.internal.SearchContext;
@@ -34,10 +33,10 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
-class SumAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Numeric> {
+class SumAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource> {
 
     SumAggregatorFactory(String name,
-                            ValuesSourceConfig<Numeric> config,
+                            ValuesSourceConfig<ValuesSource> config,
                             QueryShardContext queryShardContext,
                             AggregatorFactory parent,
                             AggregatorFactories.Builder subFactoriesBuilder,
@@ -55,7 +54,7 @@ class SumAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Nu
     }
 
     @Override
-    protected Aggregator doCreateInternal(Numeric valuesSource,
+    protected Aggregator doCreateInternal(ValuesSource valuesSource,
                                             SearchContext searchContext,
                                             Aggregator parent,
                                             boolean collectsFromSingleBucket,
@@ -19,9 +19,13 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.HistogramValue;
+import org.elasticsearch.index.fielddata.HistogramValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -29,6 +33,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -44,11 +49,12 @@ import java.util.Map;
 class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
 
     final ValuesSource valuesSource;
+    final String pointField;
 
     // a count per bucket
     LongArray counts;
 
-    ValueCountAggregator(String name, ValuesSource valuesSource,
+    ValueCountAggregator(String name, ValuesSourceConfig<ValuesSource> config, ValuesSource valuesSource,
             SearchContext aggregationContext, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData)
             throws IOException {
@@ -57,6 +63,11 @@ class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource != null) {
             counts = context.bigArrays().newLongArray(1, true);
         }
+        if (valuesSource != null && MinAggregator.getPointReaderOrNull(aggregationContext, parent, config) != null) {
+            pointField = config.fieldContext().field();
+        } else {
+            pointField = null;
+        }
     }
 
     @Override
@@ -65,7 +76,38 @@ class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (pointField != null && ctx.reader().getLiveDocs() == null
+                && SegmentCoverage.matchesAllDocs(context.query(), ctx.reader())) {
+            final PointValues pointValues = ctx.reader().getPointValues(pointField);
+            if (pointValues != null) {
+                /*
+                 * Every document of the segment matches and numeric fields index one point per value,
+                 * so the number of points is the number of values. There is no parent aggregator
+                 * (see {@link MinAggregator#getPointReaderOrNull}) so the ordinal for the bucket is always 0.
+                 */
+                counts.increment(0, pointValues.size());
+                throw new CollectionTerminatedException();
+            }
+        }
         final BigArrays bigArrays = context.bigArrays();
+        if (valuesSource instanceof ValuesSource.Histogram) {
+            final HistogramValues values = ((ValuesSource.Histogram) valuesSource).getHistogramValues(ctx);
+            return new LeafBucketCollectorBase(sub, values) {
+
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    counts = bigArrays.grow(counts, bucket + 1);
+                    if (values.advanceExact(doc)) {
+                        // a pre-aggregated histogram holds as many values as the sum of its counts
+                        final HistogramValue sketch = values.histogram();
+                        while (sketch.next()) {
+                            counts.increment(bucket, sketch.count());
+                        }
+                    }
+                }
+
+            };
+        }
         final SortedBinaryDocValues values = valuesSource.bytesValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
 
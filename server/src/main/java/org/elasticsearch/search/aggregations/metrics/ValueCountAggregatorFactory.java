@@ -45,7 +45,7 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSo
                                             Aggregator parent,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new ValueCountAggregator(name, null, searchContext, parent, pipelineAggregators, metaData);
+        return new ValueCountAggregator(name, config, null, searchContext, parent, pipelineAggregators, metaData);
     }
 
     @Override
@@ -55,6 +55,6 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSo
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new ValueCountAggregator(name, valuesSource, searchContext, parent, pipelineAggregators, metaData);
+        return new ValueCountAggregator(name, config, valuesSource, searchContext, parent, pipelineAggregators, metaData);
     }
 }
@@ -40,6 +40,7 @@ import org.elasticsearch.index.fielddata.IndexHistogramFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.MultiGeoPointValues;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortingBinaryDocValues;
@@ -507,6 +508,12 @@ public abstract class ValuesSource {
 
             @Override
             public SortedNumericDoubleValues doubleValues(LeafReaderContext context) throws IOException {
+                if (script.needs_score() == false) {
+                    final NumericDoubleValues singleValues = script.singleDoubleValues(context);
+                    if (singleValues != null) {
+                        return org.elasticsearch.index.fielddata.FieldData.singleton(singleValues);
+                    }
+                }
                 return new ScriptDoubleValues(script.newInstance(context));
             }
 
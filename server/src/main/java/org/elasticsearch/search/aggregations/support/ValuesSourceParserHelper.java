@@ -45,8 +45,13 @@ public final class ValuesSourceParserHelper {
         declareFields(objectParser, scriptable, formattable, timezoneAware, null);
     }
 
+    /**
+     * Declares the fields of an aggregation that works on numeric values. The builder may accept a wider
+     * {@link ValuesSource} than {@link ValuesSource.Numeric}, for instance to also consume pre-aggregated
+     * histogram fields, but a script can only be configured with a numeric value type.
+     */
     public static <T> void declareNumericFields(
-            AbstractObjectParser<? extends ValuesSourceAggregationBuilder<ValuesSource.Numeric, ?>, T> objectParser,
+            AbstractObjectParser<? extends ValuesSourceAggregationBuilder<? extends ValuesSource, ?>, T> objectParser,
             boolean scriptable, boolean formattable, boolean timezoneAware) {
         declareFields(objectParser, scriptable, formattable, timezoneAware, ValueType.NUMERIC);
     }
@@ -63,8 +68,8 @@ public final class ValuesSourceParserHelper {
         declareFields(objectParser, scriptable, formattable, false, ValueType.GEOPOINT);
     }
 
-    private static <VS extends ValuesSource, T> void declareFields(
-            AbstractObjectParser<? extends ValuesSourceAggregationBuilder<VS, ?>, T> objectParser,
+    private static <T> void declareFields(
+            AbstractObjectParser<? extends ValuesSourceAggregationBuilder<?, ?>, T> objectParser,
             boolean scriptable, boolean formattable, boolean timezoneAware, ValueType targetValueType) {
 
 
@@ -21,8 +21,10 @@ package org.elasticsearch.search.fetch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
@@ -30,11 +32,15 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.lucene.index.ElasticsearchLeafReader;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
@@ -55,9 +61,12 @@ import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsFetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.search.profile.fetch.FetchProfileShardResult;
 import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -65,6 +74,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -74,6 +86,16 @@ import java.util.Set;
 public class FetchPhase implements SearchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
 
+    /**
+     * The minimum number of hits in a segment for their stored fields to be read with a sequential reader.
+     */
+    static final int SEQUENTIAL_DOCS_THRESHOLD = 10;
+
+    /**
+     * The minimum number of hits that are worth handing over to another thread when sub phases run concurrently.
+     */
+    static final int MIN_HITS_PER_CHUNK = 50;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -140,15 +162,59 @@ public class FetchPhase implements SearchPhase {
         }
 
         try {
+            DocIdToIndex[] docs = new DocIdToIndex[context.docIdsToLoadSize()];
+            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+                docs[index] = new DocIdToIndex(context.docIdsToLoad()[context.docIdsToLoadFrom() + index], index);
+            }
+            // load the hits in doc id order so that the stored fields of each segment are read front to back
+            Arrays.sort(docs);
+
+            // sub phases that support it run concurrently for chunks of hits once all hits are loaded
+            final List<FetchSubPhase> sequentialSubPhases = new ArrayList<>();
+            final List<FetchSubPhase> concurrentSubPhases = new ArrayList<>();
+            final boolean concurrent = canExecuteConcurrently(context, docs.length);
+            for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
+                if (concurrent && fetchSubPhase.supportsConcurrentHitExecution(context)) {
+                    concurrentSubPhases.add(fetchSubPhase);
+                } else {
+                    sequentialSubPhases.add(fetchSubPhase);
+                }
+            }
+            final SearchHit[] hitsInDocOrder = new SearchHit[docs.length];
+            final LeafReaderContext[] hitReaderContexts = new LeafReaderContext[docs.length];
+            final int[] hitSubDocIds = new int[docs.length];
+
             SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
             FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-            for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+            List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+            int currentReaderIndex = -1;
+            LeafReaderContext subReaderContext = null;
+            CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> fieldReader = null;
+            boolean sequential = false;
+            long sequentialHits = 0;
+            long segments = 0;
+            long sequentialSegments = 0;
+            for (int index = 0; index < docs.length; index++) {
                 if (context.isCancelled()) {
                     throw new TaskCancelledException("cancelled");
                 }
-                int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-                int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-                LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+                int docId = docs[index].docId;
+                int readerIndex = ReaderUtil.subIndex(docId, leaves);
+                if (currentReaderIndex != readerIndex) {
+                    subReaderContext = leaves.get(readerIndex);
+                    currentReaderIndex = readerIndex;
+                    StoredFieldsReader sequentialReader = null;
+                    if (hasDenseDocs(docs, index, subReaderContext)
+                            && subReaderContext.reader() instanceof ElasticsearchLeafReader) {
+                        sequentialReader = ((ElasticsearchLeafReader) subReaderContext.reader()).getSequentialStoredFieldsReader();
+                    }
+                    sequential = sequentialReader != null;
+                    fieldReader = sequential ? sequentialReader::visitDocument : subReaderContext.reader()::document;
+                    segments++;
+                    if (sequential) {
+                        sequentialSegments++;
+                    }
+                }
                 int subDocId = docId - subReaderContext.docBase;
 
                 final SearchHit searchHit;
@@ -158,15 +224,28 @@ public class FetchPhase implements SearchPhase {
                         storedToRequestedFields, subReaderContext);
                 } else {
                     searchHit = createSearchHit(context, fieldsVisitor, docId, subDocId,
-                        storedToRequestedFields, subReaderContext);
+                        storedToRequestedFields, subReaderContext, fieldReader);
+                    if (sequential) {
+                        sequentialHits++;
+                    }
                 }
 
-                hits[index] = searchHit;
+                hits[docs[index].index] = searchHit;
+                hitsInDocOrder[index] = searchHit;
+                hitReaderContexts[index] = subReaderContext;
+                hitSubDocIds[index] = subDocId;
                 hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
-                for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
+                for (FetchSubPhase fetchSubPhase : sequentialSubPhases) {
                     fetchSubPhase.hitExecute(context, hitContext);
                 }
             }
+            if (concurrentSubPhases.isEmpty() == false) {
+                executeConcurrently(context, concurrentSubPhases, hitsInDocOrder, hitReaderContexts, hitSubDocIds);
+            }
+            if (context.getProfilers() != null) {
+                context.fetchResult().profileResult(new FetchProfileShardResult(docs.length, sequentialHits, segments,
+                    sequentialSegments));
+            }
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
             }
@@ -185,6 +264,105 @@ public class FetchPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Whether the hits of the segment that starts at {@code from} are dense enough to be worth reading with a sequential
+     * stored fields reader, which decompresses each block of stored fields once but always decompresses entire blocks.
+     */
+    static boolean hasDenseDocs(DocIdToIndex[] docs, int from, LeafReaderContext leafReaderContext) {
+        final int end = leafReaderContext.docBase + leafReaderContext.reader().maxDoc();
+        int to = from;
+        while (to < docs.length && docs[to].docId < end) {
+            to++;
+        }
+        final int count = to - from;
+        if (count < SEQUENTIAL_DOCS_THRESHOLD) {
+            return false;
+        }
+        // at least every other document of the range spanned by the hits must be a hit
+        final long span = (long) docs[to - 1].docId - docs[from].docId + 1;
+        return span <= 2L * count;
+    }
+
+    /**
+     * Whether sub phases may run for chunks of the given number of hits concurrently. This is not the case for indices with
+     * nested documents, since the source of nested hits only lives in the source lookup of the search.
+     */
+    private static boolean canExecuteConcurrently(SearchContext context, int numHits) {
+        return context.fetchExecutor() != null
+            && context.fetchMaxConcurrency() > 1
+            && numHits >= 2 * MIN_HITS_PER_CHUNK
+            && context.mapperService().hasNested() == false;
+    }
+
+    /**
+     * Runs the given sub phases for chunks of consecutive hits on the fetch executor of the search. The calling thread
+     * processes chunks as well and only waits for the chunks that other threads have already started, so a busy search
+     * thread pool delays the fetch at worst until the calling thread has gone through all chunks on its own.
+     */
+    private static void executeConcurrently(SearchContext context, List<FetchSubPhase> subPhases, SearchHit[] hits,
+                                            LeafReaderContext[] readerContexts, int[] subDocIds) throws IOException {
+        final int concurrency = Math.min(context.fetchMaxConcurrency(), hits.length / MIN_HITS_PER_CHUNK);
+        final int chunkSize = (hits.length + concurrency - 1) / concurrency;
+        final int numChunks = (hits.length + chunkSize - 1) / chunkSize;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch remainingChunks = new CountDownLatch(numChunks);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+                try {
+                    if (failure.get() == null) {
+                        final int from = chunk * chunkSize;
+                        executeChunk(context, subPhases, hits, readerContexts, subDocIds, from, Math.min(from + chunkSize, hits.length));
+                    }
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    remainingChunks.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < numChunks; i++) {
+            try {
+                context.fetchExecutor().execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread picks up the chunks that could not be handed over
+                break;
+            }
+        }
+        worker.run();
+        try {
+            remainingChunks.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+        final Exception e = failure.get();
+        if (e != null) {
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw ExceptionsHelper.convertToRuntime(e);
+        }
+    }
+
+    private static void executeChunk(SearchContext context, List<FetchSubPhase> subPhases, SearchHit[] hits,
+                                     LeafReaderContext[] readerContexts, int[] subDocIds, int from, int to) throws IOException {
+        FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
+        hitContext.sourceLookup(new SourceLookup());
+        for (int index = from; index < to; index++) {
+            if (context.isCancelled()) {
+                throw new TaskCancelledException("cancelled");
+            }
+            hitContext.reset(hits[index], readerContexts[index], subDocIds[index], context.searcher());
+            for (FetchSubPhase subPhase : subPhases) {
+                subPhase.hitExecute(context, hitContext);
+            }
+        }
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitSet bits = context.bitsetFilterCache()
@@ -202,13 +380,14 @@ public class FetchPhase implements SearchPhase {
                                       int docId,
                                       int subDocId,
                                       Map<String, Set<String>> storedToRequestedFields,
-                                      LeafReaderContext subReaderContext) {
+                                      LeafReaderContext subReaderContext,
+                                      CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> fieldReader) {
         if (fieldsVisitor == null) {
             return new SearchHit(docId, null, null);
         }
 
         Map<String, DocumentField> searchFields = getSearchFields(context, fieldsVisitor, subDocId,
-            storedToRequestedFields, subReaderContext);
+            storedToRequestedFields, fieldReader);
 
         SearchHit searchHit = new SearchHit(docId, fieldsVisitor.id(), searchFields);
         // Set _source if requested.
@@ -224,8 +403,8 @@ public class FetchPhase implements SearchPhase {
                                                        FieldsVisitor fieldsVisitor,
                                                        int subDocId,
                                                        Map<String, Set<String>> storedToRequestedFields,
-                                                       LeafReaderContext subReaderContext) {
-        loadStoredFields(context.shardTarget(), subReaderContext, fieldsVisitor, subDocId);
+                                                       CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> fieldReader) {
+        loadStoredFields(context.shardTarget(), fieldReader, fieldsVisitor, subDocId);
         fieldsVisitor.postProcess(context.mapperService());
 
         if (fieldsVisitor.fields().isEmpty()) {
@@ -263,7 +442,7 @@ public class FetchPhase implements SearchPhase {
         final boolean needSource = context.sourceRequested() || context.highlight() != null;
         if (needSource || (context instanceof InnerHitsContext.InnerHitSubContext == false)) {
             FieldsVisitor rootFieldsVisitor = new FieldsVisitor(needSource);
-            loadStoredFields(context.shardTarget(), subReaderContext, rootFieldsVisitor, rootSubDocId);
+            loadStoredFields(context.shardTarget(), subReaderContext.reader()::document, rootFieldsVisitor, rootSubDocId);
             rootFieldsVisitor.postProcess(context.mapperService());
             id = rootFieldsVisitor.id();
             source = rootFieldsVisitor.source();
@@ -277,7 +456,7 @@ public class FetchPhase implements SearchPhase {
         if (context.hasStoredFields() && !context.storedFieldsContext().fieldNames().isEmpty()) {
             FieldsVisitor nestedFieldsVisitor = new CustomFieldsVisitor(storedToRequestedFields.keySet(), false);
             searchFields = getSearchFields(context, nestedFieldsVisitor, nestedSubDocId,
-                storedToRequestedFields, subReaderContext);
+                storedToRequestedFields, subReaderContext.reader()::document);
         }
 
         DocumentMapper documentMapper = context.mapperService().documentMapper();
@@ -403,12 +582,28 @@ public class FetchPhase implements SearchPhase {
         return nestedIdentity;
     }
 
-    private void loadStoredFields(SearchShardTarget shardTarget, LeafReaderContext readerContext, FieldsVisitor fieldVisitor, int docId) {
+    private void loadStoredFields(SearchShardTarget shardTarget, CheckedBiConsumer<Integer, StoredFieldVisitor, IOException> fieldReader,
+                                  FieldsVisitor fieldVisitor, int docId) {
         fieldVisitor.reset();
         try {
-            readerContext.reader().document(docId, fieldVisitor);
+            fieldReader.accept(docId, fieldVisitor);
         } catch (IOException e) {
             throw new FetchPhaseExecutionException(shardTarget, "Failed to fetch doc id [" + docId + "]", e);
         }
     }
+
+    static final class DocIdToIndex implements Comparable<DocIdToIndex> {
+        final int docId;
+        final int index;
+
+        DocIdToIndex(int docId, int index) {
+            this.docId = docId;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(DocIdToIndex o) {
+            return Integer.compare(docId, o.docId);
+        }
+    }
 }
@@ -22,8 +22,10 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -40,6 +42,7 @@ public interface FetchSubPhase {
         private LeafReaderContext readerContext;
         private int docId;
         private Map<String, Object> cache;
+        private SourceLookup sourceLookup;
 
         public void reset(SearchHit hit, LeafReaderContext context, int docId, IndexSearcher searcher) {
             this.hit = hit;
@@ -74,6 +77,22 @@ public interface FetchSubPhase {
             }
             return cache;
         }
+
+        /**
+         * Sets the lookup to load the {@code _source} of hits with, for hit contexts that are used concurrently with others and
+         * can therefore not share the source lookup of the search.
+         */
+        public void sourceLookup(SourceLookup sourceLookup) {
+            this.sourceLookup = sourceLookup;
+        }
+
+        /**
+         * The lookup to load the {@code _source} of hits with, or {@code null} if the source lookup of the search should be used.
+         */
+        @Nullable
+        public SourceLookup sourceLookup() {
+            return sourceLookup;
+        }
     }
 
     /**
@@ -83,4 +102,12 @@ public interface FetchSubPhase {
 
 
     default void hitsExecute(SearchContext context, SearchHit[] hits) throws IOException {}
+
+    /**
+     * Whether {@link #hitExecute} may run for different hits of the given search concurrently, each thread using its own
+     * {@link HitContext}. Sub phases that do may be executed after all others, once all hits have been loaded.
+     */
+    default boolean supportsConcurrentHitExecution(SearchContext context) {
+        return false;
+    }
 }
@@ -22,7 +22,11 @@ package org.elasticsearch.search.fetch.subphase;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
@@ -58,6 +62,12 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
             return;
         }
 
+        // If this is a parent document whose source hasn't been parsed yet, copy the matching parts straight from the source bytes.
+        if (nestedHit == false && source.source() == null) {
+            hitContext.hit().sourceRef(filterSource(fetchSourceContext, source.internalSourceRef()));
+            return;
+        }
+
         // Otherwise, filter the source and add it to the hit.
         Object value = source.filter(fetchSourceContext);
         if (nestedHit) {
@@ -85,6 +95,18 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
         }
     }
 
+    private static BytesReference filterSource(FetchSourceContext fetchSourceContext, BytesReference source) {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source)) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, source.length()));
+            XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+            fetchSourceContext.getXContentFilter().filter(parser, builder);
+            return BytesReference.bytes(builder);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error filtering source", e);
+        }
+    }
+
     private static boolean containsFilters(FetchSourceContext context) {
         return context.includes().length != 0 || context.excludes().length != 0;
     }
@@ -50,6 +50,20 @@ public class HighlightPhase implements FetchSubPhase {
         hitExecute(context.shardTarget(), context.getQueryShardContext(), context.parsedQuery().query(), context.highlight(), hitContext);
     }
 
+    @Override
+    public boolean supportsConcurrentHitExecution(SearchContext context) {
+        if (context.highlight() == null) {
+            return false;
+        }
+        for (SearchContextHighlight.Field field : context.highlight().fields()) {
+            Highlighter highlighter = highlighters.get(highlighterType(field));
+            if (highlighter == null || highlighter.supportsConcurrentHighlighting() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void hitExecute(SearchShardTarget shardTarget,
                            QueryShardContext context,
                            Query query,
@@ -93,10 +107,7 @@ public class HighlightPhase implements FetchSubPhase {
                         continue;
                     }
                 }
-                String highlighterType = field.fieldOptions().highlighterType();
-                if (highlighterType == null) {
-                    highlighterType = "unified";
-                }
+                String highlighterType = highlighterType(field);
                 Highlighter highlighter = highlighters.get(highlighterType);
                 if (highlighter == null) {
                     throw new IllegalArgumentException("unknown highlighter type [" + highlighterType
@@ -126,4 +137,9 @@ public class HighlightPhase implements FetchSubPhase {
         }
         hitContext.hit().highlightFields(highlightFields);
     }
+
+    private static String highlighterType(SearchContextHighlight.Field field) {
+        String highlighterType = field.fieldOptions().highlighterType();
+        return highlighterType == null ? "unified" : highlighterType;
+    }
 }
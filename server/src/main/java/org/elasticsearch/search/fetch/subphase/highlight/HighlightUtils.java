@@ -61,7 +61,7 @@ public final class HighlightUtils {
                 textsToHighlight = Collections.emptyList();
             }
         } else {
-            SourceLookup sourceLookup = context.lookup().source();
+            SourceLookup sourceLookup = sourceLookup(context, hitContext);
             sourceLookup.setSegmentAndDocument(hitContext.readerContext(), hitContext.docId());
             textsToHighlight = sourceLookup.extractRawValues(fieldType.name());
         }
@@ -69,6 +69,13 @@ public final class HighlightUtils {
         return textsToHighlight;
     }
 
+    /**
+     * The lookup to load the {@code _source} of the hit with, see {@link FetchSubPhase.HitContext#sourceLookup()}.
+     */
+    static SourceLookup sourceLookup(QueryShardContext context, FetchSubPhase.HitContext hitContext) {
+        return hitContext.sourceLookup() != null ? hitContext.sourceLookup() : context.lookup().source();
+    }
+
     public static class Encoders {
         public static final Encoder DEFAULT = new DefaultEncoder();
         public static final Encoder HTML = new SimpleHTMLEncoder();
@@ -28,4 +28,12 @@ public interface Highlighter {
     HighlightField highlight(HighlighterContext highlighterContext);
 
     boolean canHighlight(MappedFieldType fieldType);
+
+    /**
+     * Whether different hits may be highlighted concurrently, as long as each thread uses its own
+     * {@link org.elasticsearch.search.fetch.FetchSubPhase.HitContext}.
+     */
+    default boolean supportsConcurrentHighlighting() {
+        return false;
+    }
 }
@@ -195,6 +195,12 @@ public class PlainHighlighter implements Highlighter {
         return true;
     }
 
+    @Override
+    public boolean supportsConcurrentHighlighting() {
+        // per search state is kept in the cache of the hit context
+        return true;
+    }
+
     private static int findGoodEndForNoHighlightExcerpt(int noMatchSize, Analyzer analyzer, String fieldName, String contents)
             throws IOException {
         try (TokenStream tokenStream = analyzer.tokenStream(fieldName, contents)) {
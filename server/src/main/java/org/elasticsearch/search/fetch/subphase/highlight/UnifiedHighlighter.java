@@ -57,6 +57,11 @@ public class UnifiedHighlighter implements Highlighter {
         return true;
     }
 
+    @Override
+    public boolean supportsConcurrentHighlighting() {
+        return true;
+    }
+
     @Override
     public HighlightField highlight(HighlighterContext highlighterContext) {
         MappedFieldType fieldType = highlighterContext.fieldType;
@@ -49,7 +49,11 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -62,8 +66,13 @@ import org.elasticsearch.search.query.QuerySearchResult;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -75,15 +84,41 @@ public class ContextIndexSearcher extends IndexSearcher {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * Segments with more documents than this are searched concurrently as several ranges of doc ids, so that shards with few
+     * large segments, like force-merged shards, are not searched on a single thread.
+     */
+    static final int MAX_DOCS_PER_PARTITION = 250_000;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private Runnable checkCancelled;
+    private final Executor concurrentSearchExecutor;
+    private final int maxDocsPerPartition;
+    private LeafPartition[][] concurrentSearchSlices;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
+        this(reader, similarity, queryCache, queryCachingPolicy, null);
+    }
+
+    /**
+     * @param concurrentSearchExecutor the executor {@link #searchConcurrently} searches slices of segments on, or {@code null} to
+     *                                 search all segments on the calling thread
+     */
+    public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
+                                @Nullable Executor concurrentSearchExecutor) {
+        this(reader, similarity, queryCache, queryCachingPolicy, concurrentSearchExecutor, MAX_DOCS_PER_PARTITION);
+    }
+
+    ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
+                         @Nullable Executor concurrentSearchExecutor, int maxDocsPerPartition) {
+        // the executor is deliberately not passed on to lucene, which would otherwise use it for any search with a collector manager
         super(reader);
         setSimilarity(similarity);
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
+        this.concurrentSearchExecutor = concurrentSearchExecutor;
+        this.maxDocsPerPartition = maxDocsPerPartition;
     }
 
     public void setProfiler(QueryProfiler profiler) {
@@ -166,6 +201,132 @@ public class ContextIndexSearcher extends IndexSearcher {
         result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), formats);
     }
 
+    /**
+     * Whether {@link #searchConcurrently} may search slices of the segments on other threads.
+     */
+    public boolean hasConcurrentSearchExecutor() {
+        return concurrentSearchExecutor != null;
+    }
+
+    /**
+     * Searches slices of the segments concurrently, each with its own collector of the given manager, and reduces the collectors
+     * once all slices are done. Segments that are larger than {@link #MAX_DOCS_PER_PARTITION} are split into slices of ranges of
+     * doc ids. The calling thread searches slices as well and only waits for the slices that other threads have already started,
+     * so a busy executor delays the search at worst until the calling thread has gone through all slices on its own.
+     * Falls back to a search of all segments on the calling thread if there is no executor or only a single slice.
+     */
+    public <C extends Collector, T> T searchConcurrently(Query query, CollectorManager<C, T> manager) throws IOException {
+        if (concurrentSearchExecutor != null && concurrentSearchSlices == null) {
+            concurrentSearchSlices = slices(getIndexReader().leaves(), maxDocsPerPartition);
+        }
+        final LeafPartition[][] slices = concurrentSearchSlices;
+        if (slices == null || slices.length <= 1) {
+            final C collector = manager.newCollector();
+            search(query, collector);
+            return manager.reduce(Collections.singletonList(collector));
+        }
+        final List<C> collectors = new ArrayList<>(slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            collectors.add(manager.newCollector());
+        }
+        final Weight weight = createWeight(rewrite(query), collectors.get(0).scoreMode(), 1f);
+        final AtomicInteger nextSlice = new AtomicInteger();
+        final CountDownLatch remainingSlices = new CountDownLatch(slices.length);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            int slice;
+            while ((slice = nextSlice.getAndIncrement()) < slices.length) {
+                try {
+                    // like a sequential search, stop searching once a slice failed or timed out
+                    if (failure.get() == null) {
+                        search(slices[slice], weight, collectors.get(slice));
+                    }
+                } catch (Exception e) {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                } finally {
+                    remainingSlices.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < slices.length; i++) {
+            try {
+                concurrentSearchExecutor.execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread picks up the slices that could not be handed over
+                break;
+            }
+        }
+        worker.run();
+        // wait for all slices, even after a failure, since they use the reader of this searcher
+        try {
+            remainingSlices.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+        final Exception e = failure.get();
+        if (e != null) {
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw ExceptionsHelper.convertToRuntime(e);
+        }
+        return manager.reduce(collectors);
+    }
+
+    /**
+     * Groups the given segments into the slices that {@link #searchConcurrently} searches. Segments with more than
+     * <code>maxDocsPerPartition</code> documents are split into slices of ranges of doc ids of similar sizes, the other
+     * segments are grouped like {@link IndexSearcher#slices} does.
+     */
+    LeafPartition[][] slices(List<LeafReaderContext> leaves, int maxDocsPerPartition) {
+        final List<LeafPartition[]> slices = new ArrayList<>();
+        final List<LeafReaderContext> smallLeaves = new ArrayList<>();
+        for (LeafReaderContext leaf : leaves) {
+            final int maxDoc = leaf.reader().maxDoc();
+            if (maxDoc > maxDocsPerPartition) {
+                final int numPartitions = (maxDoc + maxDocsPerPartition - 1) / maxDocsPerPartition;
+                final int docsPerPartition = (maxDoc + numPartitions - 1) / numPartitions;
+                for (int minDocId = 0; minDocId < maxDoc; minDocId += docsPerPartition) {
+                    slices.add(new LeafPartition[] { new LeafPartition(leaf, minDocId, Math.min(minDocId + docsPerPartition, maxDoc)) });
+                }
+            } else {
+                smallLeaves.add(leaf);
+            }
+        }
+        for (LeafSlice slice : slices(smallLeaves)) {
+            final LeafPartition[] partitions = new LeafPartition[slice.leaves.length];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new LeafPartition(slice.leaves[i], 0, DocIdSetIterator.NO_MORE_DOCS);
+            }
+            slices.add(partitions);
+        }
+        return slices.toArray(new LeafPartition[0][]);
+    }
+
+    private void search(LeafPartition[] partitions, Weight weight, Collector collector) throws IOException {
+        for (LeafPartition partition : partitions) {
+            searchLeaf(partition.leaf, partition.minDocId, partition.maxDocId, weight, collector);
+        }
+    }
+
+    /**
+     * The documents of a segment whose doc ids are in <code>[minDocId, maxDocId)</code>.
+     */
+    static final class LeafPartition {
+        final LeafReaderContext leaf;
+        final int minDocId;
+        final int maxDocId;
+
+        LeafPartition(LeafReaderContext leaf, int minDocId, int maxDocId) {
+            this.leaf = leaf;
+            this.minDocId = minDocId;
+            this.maxDocId = maxDocId;
+        }
+    }
+
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
@@ -180,6 +341,14 @@ public class ContextIndexSearcher extends IndexSearcher {
      * the provided <code>ctx</code>.
      */
     private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
+        searchLeaf(ctx, 0, DocIdSetIterator.NO_MORE_DOCS, weight, collector);
+    }
+
+    /**
+     * Like {@link #searchLeaf(LeafReaderContext, Weight, Collector)}, but only for the documents whose doc ids are in
+     * <code>[minDocId, maxDocId)</code>.
+     */
+    private void searchLeaf(LeafReaderContext ctx, int minDocId, int maxDocId, Weight weight, Collector collector) throws IOException {
         checkCancelled();
         weight = wrapWeight(weight);
         final LeafCollector leafCollector;
@@ -196,7 +365,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             BulkScorer bulkScorer = weight.bulkScorer(ctx);
             if (bulkScorer != null) {
                 try {
-                    bulkScorer.score(leafCollector, liveDocs);
+                    bulkScorer.score(leafCollector, liveDocs, minDocId, maxDocId);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
                     // continue with the following leaf
@@ -207,7 +376,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             Scorer scorer = weight.scorer(ctx);
             if (scorer != null) {
                 try {
-                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector,
+                    intersectScorerAndBitSet(scorer, liveDocsBitSet, leafCollector, minDocId, maxDocId,
                         checkCancelled == null ? () -> { } : checkCancelled);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
@@ -271,6 +440,11 @@ public class ContextIndexSearcher extends IndexSearcher {
 
     static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs,
                                          LeafCollector collector, Runnable checkCancelled) throws IOException {
+        intersectScorerAndBitSet(scorer, acceptDocs, collector, 0, DocIdSetIterator.NO_MORE_DOCS, checkCancelled);
+    }
+
+    static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs, LeafCollector collector,
+                                         int minDocId, int maxDocId, Runnable checkCancelled) throws IOException {
         collector.setScorer(scorer);
         // ConjunctionDISI uses the DocIdSetIterator#cost() to order the iterators, so if roleBits has the lowest cardinality it should
         // be used first:
@@ -278,7 +452,7 @@ public class ContextIndexSearcher extends IndexSearcher {
             acceptDocs.approximateCardinality()), scorer.iterator()));
         int seen = 0;
         checkCancelled.run();
-        for (int docId = iterator.nextDoc(); docId < DocIdSetIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+        for (int docId = iterator.advance(minDocId); docId < maxDocId; docId = iterator.nextDoc()) {
             if (++seen % CHECK_CANCELLED_SCORER_INTERVAL == 0) {
                 checkCancelled.run();
             }
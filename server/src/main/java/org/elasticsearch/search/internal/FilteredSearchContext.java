@@ -56,6 +56,7 @@ import org.elasticsearch.search.suggest.SuggestionSearchContext;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public abstract class FilteredSearchContext extends SearchContext {
 
@@ -290,6 +291,16 @@ public abstract class FilteredSearchContext extends SearchContext {
         return in.lowLevelCancellation();
     }
 
+    @Override
+    public Executor fetchExecutor() {
+        return in.fetchExecutor();
+    }
+
+    @Override
+    public int fetchMaxConcurrency() {
+        return in.fetchMaxConcurrency();
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         return in.minimumScore(minimumScore);
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.search.SearchContextMissingException;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds a point in time view of a shard: the {@link Engine.Searcher} that was acquired when the point in time was opened. Unlike
+ * a {@link SearchContext}, a reader context does not carry any per-request state, so that any number of independent search requests
+ * can build their own cheap {@link SearchContext} over the same frozen reader. The searcher is released once the reader context is
+ * freed and the last search that acquired it completes.
+ *
+ * The held searcher is acquired without the reader wrapper of the shard, each search applies the wrapper itself so that it only sees
+ * what its own permissions allow.
+ */
+public final class ReaderContext extends AbstractRefCounted implements Releasable {
+
+    private final long id;
+    private final IndexService indexService;
+    private final IndexShard indexShard;
+    private final Engine.Searcher searcher;
+    private final LongSupplier relativeTimeSupplier;
+    private volatile long keepAlive;
+    private volatile long lastAccessTime;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Map<String, Object> context = ConcurrentCollections.newConcurrentMap();
+
+    public ReaderContext(long id, IndexService indexService, IndexShard indexShard, Engine.Searcher searcher, long keepAlive,
+                         LongSupplier relativeTimeSupplier) {
+        super("reader_context");
+        this.id = id;
+        this.indexService = indexService;
+        this.indexShard = indexShard;
+        this.searcher = searcher;
+        this.keepAlive = keepAlive;
+        this.relativeTimeSupplier = relativeTimeSupplier;
+        this.lastAccessTime = relativeTimeSupplier.getAsLong();
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public IndexService indexService() {
+        return indexService;
+    }
+
+    public IndexShard indexShard() {
+        return indexShard;
+    }
+
+    /**
+     * Returns a searcher over the reader held by this context. The returned searcher must be closed once the search is done,
+     * which does not close the underlying reader but only releases the reference taken on this context. The reader wrapper of
+     * the shard is not applied, see {@link IndexShard#wrapSearcher(Engine.Searcher)}.
+     */
+    public Engine.Searcher acquireSearcher(String source) {
+        if (tryIncRef() == false) {
+            throw new SearchContextMissingException(id);
+        }
+        lastAccessTime = relativeTimeSupplier.getAsLong();
+        return new Engine.Searcher(source, searcher.getIndexReader(), searcher.getSimilarity(), searcher.getQueryCache(),
+            searcher.getQueryCachingPolicy(), this::releaseSearcher);
+    }
+
+    private void releaseSearcher() {
+        lastAccessTime = relativeTimeSupplier.getAsLong();
+        decRef();
+    }
+
+    /**
+     * Returns {@code true} if a search currently holds a searcher acquired from this context.
+     */
+    public boolean isInUse() {
+        return refCount() > (closed.get() ? 0 : 1);
+    }
+
+    public long keepAlive() {
+        return keepAlive;
+    }
+
+    public void keepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Returns the object or <code>null</code> if the given key does not have a
+     * value in the context
+     */
+    @SuppressWarnings("unchecked") // (T)object
+    public <T> T getFromContext(String key) {
+        return (T) context.get(key);
+    }
+
+    /**
+     * Puts the object into the context
+     */
+    public void putInContext(String key, Object value) {
+        context.put(key, value);
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) { // prevent double closing
+            decRef();
+        }
+    }
+
+    @Override
+    protected void closeInternal() {
+        searcher.close();
+    }
+}
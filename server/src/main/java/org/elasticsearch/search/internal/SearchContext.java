@@ -65,6 +65,7 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -231,6 +232,18 @@ public abstract class SearchContext extends AbstractRefCounted implements Releas
      */
     public abstract boolean lowLevelCancellation();
 
+    /**
+     * The executor the fetch phase may run sub phases on for chunks of hits concurrently, or {@code null} if all hits must be
+     * fetched on the calling thread.
+     */
+    @Nullable
+    public abstract Executor fetchExecutor();
+
+    /**
+     * The maximum number of threads, including the calling thread, the fetch phase may use to process the hits.
+     */
+    public abstract int fetchMaxConcurrency();
+
     public abstract SearchContext minimumScore(float minimumScore);
 
     public abstract Float minimumScore();
@@ -37,6 +37,7 @@ import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
@@ -74,6 +75,8 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
     private final String[] indexRoutings;
     private final String preference;
     private final OriginalIndices originalIndices;
+    private final long readerId;
+    private final TimeValue readerKeepAlive;
 
     //these are the only two mutable fields, as they are subject to rewriting
     private AliasFilter aliasFilter;
@@ -88,6 +91,25 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
                               long nowInMillis,
                               @Nullable String clusterAlias,
                               String[] indexRoutings) {
+        this(originalIndices, searchRequest, shardId, numberOfShards, aliasFilter, indexBoost, nowInMillis, clusterAlias,
+            indexRoutings, -1L, null);
+    }
+
+    /**
+     * Creates a shard level request that searches the reader held by the reader context with the given id, see
+     * {@link ReaderContext}. If the keep alive is not {@code null}, the reader context is kept alive for that much longer.
+     */
+    public ShardSearchRequest(OriginalIndices originalIndices,
+                              SearchRequest searchRequest,
+                              ShardId shardId,
+                              int numberOfShards,
+                              AliasFilter aliasFilter,
+                              float indexBoost,
+                              long nowInMillis,
+                              @Nullable String clusterAlias,
+                              String[] indexRoutings,
+                              long readerId,
+                              @Nullable TimeValue readerKeepAlive) {
         this(originalIndices,
             shardId,
             numberOfShards,
@@ -101,7 +123,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
             searchRequest.preference(),
             searchRequest.scroll(),
             nowInMillis,
-            clusterAlias);
+            clusterAlias,
+            readerId,
+            readerKeepAlive);
         // If allowPartialSearchResults is unset (ie null), the cluster-level default should have been substituted
         // at this stage. Any NPEs in the above are therefore an error in request preparation logic.
         assert searchRequest.allowPartialSearchResults() != null;
@@ -111,7 +135,7 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
                               long nowInMillis,
                               AliasFilter aliasFilter) {
         this(OriginalIndices.NONE, shardId, -1, null, null, null,
-            aliasFilter, 1.0f, false, Strings.EMPTY_ARRAY, null, null, nowInMillis, null);
+            aliasFilter, 1.0f, false, Strings.EMPTY_ARRAY, null, null, nowInMillis, null, -1L, null);
     }
 
     private ShardSearchRequest(OriginalIndices originalIndices,
@@ -127,7 +151,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
                                String preference,
                                Scroll scroll,
                                long nowInMillis,
-                               @Nullable String clusterAlias) {
+                               @Nullable String clusterAlias,
+                               long readerId,
+                               @Nullable TimeValue readerKeepAlive) {
         this.shardId = shardId;
         this.numberOfShards = numberOfShards;
         this.searchType = searchType;
@@ -142,6 +168,8 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         this.nowInMillis = nowInMillis;
         this.clusterAlias = clusterAlias;
         this.originalIndices = originalIndices;
+        this.readerId = readerId;
+        this.readerKeepAlive = readerKeepAlive;
     }
 
     public ShardSearchRequest(StreamInput in) throws IOException {
@@ -168,6 +196,13 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         indexRoutings = in.readStringArray();
         preference = in.readOptionalString();
         originalIndices = OriginalIndices.readOriginalIndices(in);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            readerId = in.readLong();
+            readerKeepAlive = in.readOptionalTimeValue();
+        } else {
+            readerId = -1L;
+            readerKeepAlive = null;
+        }
     }
 
     @Override
@@ -175,6 +210,10 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         super.writeTo(out);
         innerWriteTo(out, false);
         OriginalIndices.writeOriginalIndices(originalIndices, out);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeLong(readerId);
+            out.writeOptionalTimeValue(readerKeepAlive);
+        }
     }
 
     protected final void innerWriteTo(StreamOutput out, boolean asKey) throws IOException {
@@ -275,6 +314,23 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         return preference;
     }
 
+    /**
+     * Returns the id of the {@link ReaderContext} this request should search, or {@code -1} if the request should acquire a fresh
+     * searcher from the shard.
+     */
+    public long readerId() {
+        return readerId;
+    }
+
+    /**
+     * Returns how much longer the {@link ReaderContext} this request searches should be kept alive, or {@code null} if its keep
+     * alive should not be extended.
+     */
+    @Nullable
+    public TimeValue readerKeepAlive() {
+        return readerKeepAlive;
+    }
+
     /**
      * Returns the cache key for this shard search request, based on its content
      */
@@ -19,10 +19,13 @@
 
 package org.elasticsearch.search.profile;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.search.profile.aggregation.AggregationProfileShardResult;
+import org.elasticsearch.search.profile.fetch.FetchProfileShardResult;
 import org.elasticsearch.search.profile.query.QueryProfileShardResult;
 
 import java.io.IOException;
@@ -36,9 +39,17 @@ public class ProfileShardResult implements Writeable {
 
     private final AggregationProfileShardResult aggProfileShardResult;
 
+    private final FetchProfileShardResult fetchProfileResult;
+
     public ProfileShardResult(List<QueryProfileShardResult> queryProfileResults, AggregationProfileShardResult aggProfileShardResult) {
+        this(queryProfileResults, aggProfileShardResult, null);
+    }
+
+    public ProfileShardResult(List<QueryProfileShardResult> queryProfileResults, AggregationProfileShardResult aggProfileShardResult,
+                              @Nullable FetchProfileShardResult fetchProfileResult) {
         this.aggProfileShardResult = aggProfileShardResult;
         this.queryProfileResults = Collections.unmodifiableList(queryProfileResults);
+        this.fetchProfileResult = fetchProfileResult;
     }
 
     public ProfileShardResult(StreamInput in) throws IOException {
@@ -50,6 +61,11 @@ public class ProfileShardResult implements Writeable {
         }
         this.queryProfileResults = Collections.unmodifiableList(queryProfileResults);
         this.aggProfileShardResult = new AggregationProfileShardResult(in);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            this.fetchProfileResult = in.readOptionalWriteable(FetchProfileShardResult::new);
+        } else {
+            this.fetchProfileResult = null;
+        }
     }
 
     @Override
@@ -59,6 +75,9 @@ public class ProfileShardResult implements Writeable {
             queryShardResult.writeTo(out);
         }
         aggProfileShardResult.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(fetchProfileResult);
+        }
     }
 
     public List<QueryProfileShardResult> getQueryProfileResults() {
@@ -68,4 +87,12 @@ public class ProfileShardResult implements Writeable {
     public AggregationProfileShardResult getAggregationProfileResults() {
         return aggProfileShardResult;
     }
+
+    /**
+     * The profile of the fetch phase, or {@code null} if the shard didn't fetch any hits.
+     */
+    @Nullable
+    public FetchProfileShardResult getFetchProfileResult() {
+        return fetchProfileResult;
+    }
 }
@@ -28,6 +28,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.profile.aggregation.AggregationProfileShardResult;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
+import org.elasticsearch.search.profile.fetch.FetchProfileShardResult;
 import org.elasticsearch.search.profile.query.QueryProfileShardResult;
 import org.elasticsearch.search.profile.query.QueryProfiler;
 
@@ -99,6 +100,9 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
             }
             builder.endArray();
             profileShardResult.getAggregationProfileResults().toXContent(builder, params);
+            if (profileShardResult.getFetchProfileResult() != null) {
+                profileShardResult.getFetchProfileResult().toXContent(builder, params);
+            }
             builder.endObject();
         }
         builder.endArray().endObject();
@@ -131,6 +135,7 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
         ensureExpectedToken(XContentParser.Token.START_OBJECT, token, parser::getTokenLocation);
         List<QueryProfileShardResult> queryProfileResults = new ArrayList<>();
         AggregationProfileShardResult aggProfileShardResult = null;
+        FetchProfileShardResult fetchProfileResult = null;
         String id = null;
         String currentFieldName = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
@@ -152,11 +157,13 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
                 } else {
                     parser.skipChildren();
                 }
+            } else if (token == XContentParser.Token.START_OBJECT && FetchProfileShardResult.FETCH.equals(currentFieldName)) {
+                fetchProfileResult = FetchProfileShardResult.fromXContent(parser);
             } else {
                 parser.skipChildren();
             }
         }
-        searchProfileResults.put(id, new ProfileShardResult(queryProfileResults, aggProfileShardResult));
+        searchProfileResults.put(id, new ProfileShardResult(queryProfileResults, aggProfileShardResult, fetchProfileResult));
     }
 
     /**
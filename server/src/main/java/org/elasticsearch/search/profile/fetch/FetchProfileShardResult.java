@@ -0,0 +1,157 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile.fetch;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
+
+/**
+ * How the fetch phase of a single shard loaded the stored fields of its hits. Hits of segments that were read sequentially
+ * decompress each block of stored fields at most once, while the other hits decompress the block they are in on every
+ * lookup.
+ */
+public final class FetchProfileShardResult implements Writeable, ToXContentFragment {
+
+    public static final String FETCH = "fetch";
+    private static final String HITS = "hits";
+    private static final String SEQUENTIAL_HITS = "sequential_hits";
+    private static final String SEGMENTS = "segments";
+    private static final String SEQUENTIAL_SEGMENTS = "sequential_segments";
+
+    private final long hits;
+    private final long sequentialHits;
+    private final long segments;
+    private final long sequentialSegments;
+
+    public FetchProfileShardResult(long hits, long sequentialHits, long segments, long sequentialSegments) {
+        this.hits = hits;
+        this.sequentialHits = sequentialHits;
+        this.segments = segments;
+        this.sequentialSegments = sequentialSegments;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public FetchProfileShardResult(StreamInput in) throws IOException {
+        hits = in.readVLong();
+        sequentialHits = in.readVLong();
+        segments = in.readVLong();
+        sequentialSegments = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(hits);
+        out.writeVLong(sequentialHits);
+        out.writeVLong(segments);
+        out.writeVLong(sequentialSegments);
+    }
+
+    /**
+     * The number of hits whose stored fields were loaded.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of hits whose stored fields were loaded with a sequential reader.
+     */
+    public long getSequentialHits() {
+        return sequentialHits;
+    }
+
+    /**
+     * The number of segments that hits were loaded from.
+     */
+    public long getSegments() {
+        return segments;
+    }
+
+    /**
+     * The number of segments whose hits were loaded with a sequential reader.
+     */
+    public long getSequentialSegments() {
+        return sequentialSegments;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(FETCH);
+        builder.field(HITS, hits);
+        builder.field(SEQUENTIAL_HITS, sequentialHits);
+        builder.field(SEGMENTS, segments);
+        builder.field(SEQUENTIAL_SEGMENTS, sequentialSegments);
+        builder.endObject();
+        return builder;
+    }
+
+    public static FetchProfileShardResult fromXContent(XContentParser parser) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        ensureExpectedToken(XContentParser.Token.START_OBJECT, token, parser::getTokenLocation);
+        long hits = 0;
+        long sequentialHits = 0;
+        long segments = 0;
+        long sequentialSegments = 0;
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if (HITS.equals(currentFieldName)) {
+                    hits = parser.longValue();
+                } else if (SEQUENTIAL_HITS.equals(currentFieldName)) {
+                    sequentialHits = parser.longValue();
+                } else if (SEGMENTS.equals(currentFieldName)) {
+                    segments = parser.longValue();
+                } else if (SEQUENTIAL_SEGMENTS.equals(currentFieldName)) {
+                    sequentialSegments = parser.longValue();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new FetchProfileShardResult(hits, sequentialHits, segments, sequentialSegments);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FetchProfileShardResult that = (FetchProfileShardResult) o;
+        return hits == that.hits && sequentialHits == that.sequentialHits
+            && segments == that.segments && sequentialSegments == that.sequentialSegments;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hits, sequentialHits, segments, sequentialSegments);
+    }
+}
@@ -44,6 +44,7 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.apache.lucene.search.Weight;
@@ -65,6 +66,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.profile.SearchProfileShardResults;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
+import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
@@ -74,6 +76,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -85,6 +88,7 @@ import static org.elasticsearch.search.query.QueryCollectorContext.createFiltere
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
 
 
@@ -290,6 +294,8 @@ public class QueryPhase implements SearchPhase {
             // if we are optimizing sort and there are no other collectors
             if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
                 shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+            } else if (collectors.isEmpty() && canSearchConcurrently(searchContext)) {
+                shouldRescore = searchConcurrently(searchContext, searcher, query, timeoutSet);
             } else {
                 shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
             }
@@ -405,6 +411,119 @@ public class QueryPhase implements SearchPhase {
         return false; // no rescoring when sorting by field
     }
 
+    /**
+     * Whether the slices of the segments can be searched concurrently, which is only the case for requests that do nothing but
+     * collect top hits, since these are the only results that can be merged at shard level.
+     */
+    private static boolean canSearchConcurrently(SearchContext searchContext) {
+        return searchContext.searcher().hasConcurrentSearchExecutor()
+            && searchContext.size() > 0
+            && searchContext.scrollContext() == null
+            && searchContext.collapse() == null
+            && searchContext.searchAfter() == null
+            && searchContext.trackScores() == false
+            && searchContext.getProfilers() == null;
+    }
+
+    /*
+     * Searches slices of the segments concurrently with collectors that share the count of hits towards the total hits
+     * threshold, and merges their top docs. The caller must have checked canSearchConcurrently and that there are no other
+     * collectors.
+     */
+    private static boolean searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                              boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        int numHits = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+        final boolean rescore = searchContext.rescore().isEmpty() == false;
+        if (rescore) {
+            assert sortAndFormats == null;
+            for (RescoreContext rescoreContext : searchContext.rescore()) {
+                numHits = Math.max(numHits, rescoreContext.getWindowSize());
+            }
+        }
+
+        final int totalHitsThreshold;
+        final TotalHits totalHits;
+        if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0])) && hasInfMaxScore(query)) {
+            // count all hits since the max score optimization is disabled anyway
+            totalHitsThreshold = Integer.MAX_VALUE;
+            totalHits = null;
+        } else if (searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            totalHitsThreshold = 1;
+            totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else {
+            int hitCount = shortcutTotalHitCount(reader, query);
+            if (hitCount == -1) {
+                totalHitsThreshold = searchContext.trackTotalHitsUpTo();
+                totalHits = null; // will be computed via the collectors
+            } else {
+                totalHitsThreshold = 1;
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+        }
+
+        TopDocs topDocs;
+        if (sortAndFormats == null) {
+            topDocs = searchSlices(searchContext, searcher, query,
+                TopScoreDocCollector.createSharedManager(numHits, null, totalHitsThreshold), timeoutSet);
+        } else {
+            topDocs = searchSlices(searchContext, searcher, query,
+                TopFieldCollector.createSharedManager(sortAndFormats.sort, numHits, null, totalHitsThreshold), timeoutSet);
+        }
+        // Lucene sets shards indexes during merging of topDocs from different collectors
+        // We need to reset shard index; ES will set shard index later during reduce stage
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        if (totalHits != null) {
+            topDocs = topDocs instanceof TopFieldDocs
+                ? new TopFieldDocs(totalHits, topDocs.scoreDocs, ((TopFieldDocs) topDocs).fields)
+                : new TopDocs(totalHits, topDocs.scoreDocs);
+        }
+        final float maxScore = sortAndFormats == null && topDocs.scoreDocs.length > 0 ? topDocs.scoreDocs[0].score : Float.NaN;
+        searchContext.queryResult().topDocs(new TopDocsAndMaxScore(topDocs, maxScore),
+            sortAndFormats == null ? null : sortAndFormats.formats);
+        return rescore;
+    }
+
+    /*
+     * Searches the slices of the segments concurrently with collectors of the given manager. If the search times out and partial
+     * results are allowed, the collectors of all slices are reduced with whatever they collected until then, like a sequential
+     * search keeps the hits it collected before the timeout.
+     */
+    private static <C extends Collector, T> T searchSlices(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                                           CollectorManager<C, T> manager, boolean timeoutSet) throws IOException {
+        // the collectors are all created on this thread before any slice is searched
+        final List<C> collectors = new ArrayList<>();
+        try {
+            return searcher.searchConcurrently(query, new CollectorManager<C, T>() {
+                @Override
+                public C newCollector() throws IOException {
+                    final C collector = manager.newCollector();
+                    collectors.add(collector);
+                    return collector;
+                }
+
+                @Override
+                public T reduce(Collection<C> collectors) throws IOException {
+                    return manager.reduce(collectors);
+                }
+            });
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            searchContext.queryResult().searchTimedOut(true);
+            // all slices are done once the timeout is rethrown, so their collectors are safe to reduce
+            return manager.reduce(collectors);
+        } finally {
+            searchContext.clearReleasables(SearchContext.Lifetime.COLLECTION);
+        }
+    }
+
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
         if (searchContext.searchAfter() != null) return null; //TODO: handle sort optimization with search after
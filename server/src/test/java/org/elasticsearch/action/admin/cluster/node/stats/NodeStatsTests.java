@@ -25,6 +25,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
@@ -35,6 +36,7 @@ import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.process.ProcessStats;
 import org.elasticsearch.node.AdaptiveSelectionStats;
 import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.script.ScriptContextStats;
 import org.elasticsearch.script.ScriptStats;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
@@ -245,6 +247,7 @@ public class NodeStatsTests extends ESTestCase {
                 } else {
                     assertEquals(scriptStats.getCacheEvictions(), deserializedNodeStats.getScriptStats().getCacheEvictions());
                     assertEquals(scriptStats.getCompilations(), deserializedNodeStats.getScriptStats().getCompilations());
+                    assertEquals(scriptStats.getContextStats(), deserializedNodeStats.getScriptStats().getContextStats());
                 }
                 DiscoveryStats discoveryStats = nodeStats.getDiscoveryStats();
                 DiscoveryStats deserializedDiscoveryStats = deserializedNodeStats.getDiscoveryStats();
@@ -259,6 +262,7 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    assertEquals(discoveryStats.getApplierStats(), deserializedDiscoveryStats.getApplierStats());
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -425,8 +429,16 @@ public class NodeStatsTests extends ESTestCase {
             }
             allCircuitBreakerStats = new AllCircuitBreakerStats(circuitBreakerStatsArray);
         }
-        ScriptStats scriptStats = frequently() ?
-                new ScriptStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+        ScriptStats scriptStats = null;
+        if (frequently()) {
+            Map<String, ScriptContextStats> contextStats = new HashMap<>();
+            int numContexts = randomIntBetween(0, 3);
+            for (int i = 0; i < numContexts; i++) {
+                contextStats.put(randomAlphaOfLengthBetween(3, 10), new ScriptContextStats(randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()));
+            }
+            scriptStats = new ScriptStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), contextStats);
+        }
         DiscoveryStats discoveryStats = frequently()
             ? new DiscoveryStats(
                 randomBoolean()
@@ -437,6 +449,9 @@ public class NodeStatsTests extends ESTestCase {
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
+                : null,
+                randomBoolean()
+                ? randomClusterApplierStats()
                 : null)
             : null;
         IngestStats ingestStats = null;
@@ -494,4 +509,14 @@ public class NodeStatsTests extends ESTestCase {
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
         return pipelineStats.stream().filter(p1 -> p1.getPipelineId().equals(id)).findFirst().map(p2 -> p2.getStats()).orElse(null);
     }
+
+    private static ClusterApplierStats randomClusterApplierStats() {
+        final int numAppliers = randomIntBetween(0, 5);
+        final Map<String, ClusterApplierStats.Recording> recordings = new HashMap<>();
+        for (int i = 0; i < numAppliers; i++) {
+            recordings.put(randomAlphaOfLengthBetween(3, 20),
+                new ClusterApplierStats.Recording(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()));
+        }
+        return new ClusterApplierStats(recordings);
+    }
 }
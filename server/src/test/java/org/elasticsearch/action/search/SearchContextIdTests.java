@@ -0,0 +1,48 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SearchContextIdTests extends ESTestCase {
+
+    public void testEncodeDecode() {
+        final Map<ShardId, SearchContextIdForNode> shards = new HashMap<>();
+        shards.put(new ShardId("idy", "uuid1", 2), new SearchContextIdForNode("node_1", 1));
+        shards.put(new ShardId("idx", "uuid2", 42), new SearchContextIdForNode("node_2", 12));
+        shards.put(new ShardId("idy", "uuid1", 43), new SearchContextIdForNode("node_3", 42));
+
+        final String id = SearchContextId.encode(shards, Version.CURRENT);
+        final SearchContextId searchContextId = SearchContextId.decode(id);
+        assertEquals(shards, searchContextId.shards());
+        assertArrayEquals(new String[] {"idx", "idy"}, searchContextId.getActualIndices());
+    }
+
+    public void testDecodeInvalidId() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> SearchContextId.decode("not an id"));
+        assertEquals("Cannot parse point in time id", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class, () -> SearchContextId.decode("dGVzdA"));
+        assertEquals("Cannot parse point in time id", e.getMessage());
+    }
+}
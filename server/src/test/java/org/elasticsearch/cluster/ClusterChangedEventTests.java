@@ -29,6 +29,7 @@ import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
@@ -47,6 +48,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 
 /**
@@ -225,6 +227,47 @@ public class ClusterChangedEventTests extends ESTestCase {
         assertTrue("index routing table should not be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
     }
 
+    /**
+     * Test that only the indices whose metadata or routing table changed are reported as changed.
+     */
+    public void testIndicesChanged() {
+        final int numNodesInCluster = 3;
+        final ClusterState originalState = createState(numNodesInCluster, randomBoolean(), initialIndices);
+
+        // nothing changed
+        ClusterState newState = ClusterState.builder(originalState).build();
+        ClusterChangedEvent event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.indicesChanged(), empty());
+
+        // the metadata of a single index changed
+        final Index updatedIndex = randomFrom(initialIndices);
+        final IndexMetaData updatedIndexMetaData =
+            createIndexMetadata(updatedIndex, originalState.metaData().index(updatedIndex).getVersion() + 1);
+        newState = ClusterState.builder(originalState)
+            .metaData(MetaData.builder(originalState.metaData()).put(updatedIndexMetaData, false))
+            .build();
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.indicesChanged(), equalTo(Collections.singleton(updatedIndex)));
+
+        // the routing table of a single index changed
+        newState = ClusterState.builder(originalState)
+            .routingTable(RoutingTable.builder(originalState.routingTable())
+                .add(IndexRoutingTable.builder(updatedIndex).initializeAsNew(originalState.metaData().index(updatedIndex)))
+                .build())
+            .build();
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.indicesChanged(), equalTo(Collections.singleton(updatedIndex)));
+
+        // indices added and removed
+        final List<Index> addedIndices = addIndices(randomIntBetween(1, 3), "new_idx");
+        final List<Index> deletedIndices = delIndices(randomIntBetween(1, initialIndices.size() - 1), initialIndices);
+        newState = nextState(originalState, false, addedIndices, deletedIndices, 0);
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        final Set<Index> expected = new HashSet<>(addedIndices);
+        expected.addAll(deletedIndices);
+        assertThat(event.indicesChanged(), equalTo(expected));
+    }
+
     /**
      * Test custom metadata change checks
      */
@@ -20,7 +20,9 @@ package org.elasticsearch.cluster.coordination;
 
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.service.ClusterApplier;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 
+import java.util.Collections;
 import java.util.function.Supplier;
 
 public class NoOpClusterApplier implements ClusterApplier {
@@ -33,4 +35,9 @@ public class NoOpClusterApplier implements ClusterApplier {
     public void onNewClusterState(String source, Supplier<ClusterState> clusterStateSupplier, ClusterApplyListener listener) {
         listener.onSuccess(source);
     }
+
+    @Override
+    public ClusterApplierStats stats() {
+        return new ClusterApplierStats(Collections.emptyMap());
+    }
 }
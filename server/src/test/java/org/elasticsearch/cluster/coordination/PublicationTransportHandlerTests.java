@@ -20,24 +20,38 @@ package org.elasticsearch.cluster.coordination;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.Diff;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
+import org.elasticsearch.cluster.block.ClusterBlocks;
 import org.elasticsearch.cluster.coordination.CoordinationMetaData.VotingConfiguration;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.transport.CapturingTransport;
+import org.elasticsearch.transport.BytesTransportRequest;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class PublicationTransportHandlerTests extends ESTestCase {
@@ -87,4 +101,115 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         assertThat(e.getCause(), instanceOf(IOException.class));
         assertThat(e.getCause().getMessage(), containsString("Simulated failure of diff serialization"));
     }
+
+    public void testFullStateSerializationFailureFailsPublication() {
+        DeterministicTaskQueue deterministicTaskQueue =
+            new DeterministicTaskQueue(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "test").build(), random());
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final TransportService transportService = new CapturingTransport().createTransportService(Settings.EMPTY,
+            deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            x -> localNode,
+            clusterSettings, Collections.emptySet());
+        final PublicationTransportHandler handler = new PublicationTransportHandler(transportService,
+            writableRegistry(), pu -> null, (pu, l) -> {});
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final ClusterState clusterState = CoordinationStateTests.clusterState(2L, 1L,
+            DiscoveryNodes.builder().add(localNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+        // a previous state that does not persist the cluster state forces publishing the full cluster state
+        final ClusterState previousState = ClusterState.builder(clusterState)
+            .blocks(ClusterBlocks.builder().addGlobalBlock(GatewayService.STATE_NOT_RECOVERED_BLOCK)).build();
+
+        final AtomicInteger serializations = new AtomicInteger();
+        final ClusterState unserializableClusterState = new ClusterState(clusterState.version(),
+            clusterState.stateUUID(), clusterState) {
+            @Override
+            public void writeTo(StreamOutput out) throws IOException {
+                serializations.incrementAndGet();
+                throw new IOException("Simulated failure of full state serialization");
+            }
+        };
+
+        final PublicationTransportHandler.PublicationContext context =
+            handler.newPublicationContext(new ClusterChangedEvent("test", unserializableClusterState, previousState));
+        // the full state is not serialized on the calling thread
+        assertThat(serializations.get(), equalTo(0));
+
+        final List<Exception> failures = new ArrayList<>();
+        context.sendPublishRequest(localNode, new PublishRequest(unserializableClusterState),
+            ActionListener.wrap(r -> fail("publication should have failed"), failures::add));
+        assertThat(failures, empty());
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(serializations.get(), equalTo(1));
+        assertThat(failures, hasSize(1));
+        assertThat(failures.get(0), instanceOf(ElasticsearchException.class));
+        assertThat(failures.get(0).getCause(), instanceOf(IOException.class));
+        assertThat(failures.get(0).getCause().getMessage(), containsString("Simulated failure of full state serialization"));
+    }
+
+    public void testFullStateSerializedOffThreadAndReusedAfterIncompatibleDiff() {
+        DeterministicTaskQueue deterministicTaskQueue =
+            new DeterministicTaskQueue(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "test").build(), random());
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final DiscoveryNode localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final CapturingTransport capturingTransport = new CapturingTransport();
+        final TransportService transportService = capturingTransport.createTransportService(Settings.EMPTY,
+            deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            x -> localNode,
+            clusterSettings, Collections.emptySet());
+        final PublicationTransportHandler handler = new PublicationTransportHandler(transportService,
+            writableRegistry(), pu -> null, (pu, l) -> {});
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        final DiscoveryNode existingNode = new DiscoveryNode("existingNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode newNode = new DiscoveryNode("newNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ClusterState previousState = CoordinationStateTests.clusterState(2L, 1L,
+            DiscoveryNodes.builder().add(localNode).add(existingNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+        final ClusterState clusterState = CoordinationStateTests.clusterState(2L, 2L,
+            DiscoveryNodes.builder().add(localNode).add(existingNode).add(newNode).localNodeId(localNode.getId()).build(),
+            VotingConfiguration.EMPTY_CONFIG, VotingConfiguration.EMPTY_CONFIG, 0L);
+
+        final AtomicInteger serializations = new AtomicInteger();
+        final ClusterState countingClusterState = new ClusterState(clusterState.version(), clusterState.stateUUID(), clusterState) {
+            @Override
+            public void writeTo(StreamOutput out) throws IOException {
+                serializations.incrementAndGet();
+                super.writeTo(out);
+            }
+        };
+
+        final PublicationTransportHandler.PublicationContext context =
+            handler.newPublicationContext(new ClusterChangedEvent("test", countingClusterState, previousState));
+        for (DiscoveryNode node : Arrays.asList(existingNode, newNode)) {
+            context.sendPublishRequest(node, new PublishRequest(countingClusterState),
+                ActionListener.wrap(r -> {}, e -> fail("publication should not have failed: " + e)));
+        }
+        // nothing is sent before the full state has been serialized on the generic thread pool
+        assertThat(serializations.get(), equalTo(0));
+        assertThat(capturingTransport.capturedRequests().length, equalTo(0));
+
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(serializations.get(), equalTo(1));
+        final Map<String, List<CapturingTransport.CapturedRequest>> requests = capturingTransport.getCapturedRequestsByTargetNodeAndClear();
+        assertThat(requests.get(existingNode.getId()), hasSize(1));
+        assertThat(requests.get(newNode.getId()), hasSize(1));
+        final BytesReference fullState = ((BytesTransportRequest) requests.get(newNode.getId()).get(0).request).bytes();
+
+        // the node that fails to apply the diff gets the full state that was already serialized
+        capturingTransport.handleRemoteError(requests.get(existingNode.getId()).get(0).requestId,
+            new IncompatibleClusterStateVersionException("simulated incompatible diff"));
+        deterministicTaskQueue.runAllRunnableTasks();
+        final CapturingTransport.CapturedRequest[] retries = capturingTransport.getCapturedRequestsAndClear();
+        assertThat(retries.length, equalTo(1));
+        assertThat(retries[0].node, equalTo(existingNode));
+        assertThat(((BytesTransportRequest) retries[0].request).bytes(), equalTo(fullState));
+        assertThat(serializations.get(), equalTo(1));
+    }
 }
@@ -53,6 +53,8 @@ import java.util.Set;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 
 public class MetaDataTests extends ESTestCase {
@@ -873,4 +875,48 @@ public class MetaDataTests extends ESTestCase {
         final ImmutableOpenMap<String, MetaData.Custom> map = mapBuilder.build();
         assertThat(expectThrows(NullPointerException.class, () -> builder.customs(map)).getMessage(), containsString(key));
     }
+
+    public void testIdenticalMappingsAreShared() throws IOException {
+        final String otherMapping = "{\"_doc\": {\"properties\": {\"other\": {\"type\": \"keyword\"}}}}";
+        final MetaData metaData = MetaData.builder()
+            .put(buildIndexMetaData("index1", FIND_MAPPINGS_TEST_ITEM))
+            .put(buildIndexMetaData("index2", FIND_MAPPINGS_TEST_ITEM))
+            .put(buildIndexMetaData("index3", otherMapping))
+            .build();
+        assertThat(metaData.index("index2").mapping(), sameInstance(metaData.index("index1").mapping()));
+        assertThat(metaData.index("index3").mapping(), not(sameInstance(metaData.index("index1").mapping())));
+
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+        final BytesStreamOutput out = new BytesStreamOutput();
+        metaData.writeTo(out);
+        final MetaData fromStreamMeta = MetaData.readFrom(
+            new NamedWriteableAwareStreamInput(out.bytes().streamInput(), namedWriteableRegistry));
+        assertThat(fromStreamMeta.index("index2").mapping(), sameInstance(fromStreamMeta.index("index1").mapping()));
+        assertThat(fromStreamMeta.index("index1").mapping(), equalTo(metaData.index("index1").mapping()));
+
+        // indices received through a diff share the mappings of the existing indices, which are left untouched
+        final MetaData nextMetaData = MetaData.builder(metaData)
+            .put(buildIndexMetaData("index4", FIND_MAPPINGS_TEST_ITEM))
+            .build();
+        final BytesStreamOutput diffOut = new BytesStreamOutput();
+        nextMetaData.diff(metaData).writeTo(diffOut);
+        final MetaData appliedMetaData = MetaData.readDiffFrom(
+            new NamedWriteableAwareStreamInput(diffOut.bytes().streamInput(), namedWriteableRegistry)).apply(fromStreamMeta);
+        assertThat(appliedMetaData.index("index4").mapping(), sameInstance(fromStreamMeta.index("index1").mapping()));
+        assertThat(appliedMetaData.index("index1"), sameInstance(fromStreamMeta.index("index1")));
+        assertThat(appliedMetaData.index("index3"), sameInstance(fromStreamMeta.index("index3")));
+
+        // an index whose mapping did not change is stored as is
+        final IndexMetaData updatedIndex = IndexMetaData.builder(metaData.index("index3"))
+            .settingsVersion(metaData.index("index3").getSettingsVersion() + 1).build();
+        final MetaData updatedMetaData = MetaData.builder(metaData).put(updatedIndex, false).build();
+        assertThat(updatedMetaData.index("index3"), sameInstance(updatedIndex));
+    }
+
+    private static IndexMetaData.Builder buildIndexMetaData(String name, String mapping) {
+        return IndexMetaData.builder(name)
+            .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+            .putMapping(mapping);
+    }
 }
@@ -31,6 +31,7 @@ import java.net.InetAddress;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -90,6 +91,34 @@ public class RoutingNodeTests extends ESTestCase {
         assertThat(routingNode.getByShardId(new ShardId("test", IndexMetaData.INDEX_UUID_NA_VALUE, 2)), is(nullValue()));
     }
 
+    public void testRelocationsVersion() {
+        long version = routingNode.relocationsVersion();
+
+        ShardRouting startedShard3 = TestShardRouting.newShardRouting("test", 3, "node-1", false, ShardRoutingState.STARTED);
+        routingNode.add(startedShard3);
+        assertThat(routingNode.relocationsVersion(), equalTo(version));
+
+        ShardRouting initializingShard4 = TestShardRouting.newShardRouting("test", 4, "node-1", false, ShardRoutingState.INITIALIZING);
+        routingNode.add(initializingShard4);
+        assertThat(routingNode.relocationsVersion(), greaterThan(version));
+        version = routingNode.relocationsVersion();
+
+        ShardRouting startedShard0 = TestShardRouting.newShardRouting("test", 0, "node-1", false, ShardRoutingState.STARTED);
+        routingNode.update(unassignedShard0, startedShard0);
+        assertThat(routingNode.relocationsVersion(), equalTo(version));
+
+        ShardRouting startedShard1 = TestShardRouting.newShardRouting("test", 1, "node-1", false, ShardRoutingState.STARTED);
+        routingNode.update(initializingShard0, startedShard1);
+        assertThat(routingNode.relocationsVersion(), greaterThan(version));
+        version = routingNode.relocationsVersion();
+
+        routingNode.remove(startedShard3);
+        assertThat(routingNode.relocationsVersion(), equalTo(version));
+
+        routingNode.remove(relocatingShard0);
+        assertThat(routingNode.relocationsVersion(), greaterThan(version));
+    }
+
     public void testNumberOfShardsWithState() {
         assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.INITIALIZING, ShardRoutingState.STARTED), equalTo(2));
         assertThat(routingNode.numberOfShardsWithState(ShardRoutingState.STARTED), equalTo(1));
@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.Balancer;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.NodeSorter;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightFunction;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class NodeSorterTests extends ESTestCase {
+
+    public void testDeltaOfNoNodes() {
+        NodeSorter sorter = new NodeSorter(new ModelNode[0], new FixedWeightFunction(new HashMap<>()), null);
+        assertThat(sorter.delta("index"), equalTo(0f));
+        sorter.restoreOrder(0, 0);
+    }
+
+    public void testDeltaIsDeltaOfSortedWeights() {
+        Map<String, Float> weights = new HashMap<>();
+        ModelNode[] nodes = createNodes(between(1, 20));
+        for (ModelNode node : nodes) {
+            // a small range of values so that there are ties
+            weights.put(node.getNodeId(), (float) between(-3, 3));
+        }
+        NodeSorter sorter = new NodeSorter(nodes, new FixedWeightFunction(weights), null);
+        ModelNode[] originalOrder = nodes.clone();
+
+        float delta = sorter.delta("index");
+        // computing the delta does not sort the nodes
+        for (int i = 0; i < nodes.length; i++) {
+            assertThat(sorter.modelNodes[i], sameInstance(originalOrder[i]));
+        }
+
+        sorter.reset("index");
+        assertThat(delta, equalTo(sorter.delta()));
+    }
+
+    public void testDeltaOfTiedWeights() {
+        Map<String, Float> weights = new HashMap<>();
+        ModelNode[] nodes = createNodes(between(1, 10));
+        float weight = randomFloat();
+        for (ModelNode node : nodes) {
+            weights.put(node.getNodeId(), weight);
+        }
+        NodeSorter sorter = new NodeSorter(nodes, new FixedWeightFunction(weights), null);
+        assertThat(sorter.delta("index"), equalTo(0f));
+    }
+
+    public void testRestoreOrderAfterPartialSort() {
+        Map<String, Float> weights = new HashMap<>();
+        ModelNode[] nodes = createNodes(between(3, 20));
+        for (ModelNode node : nodes) {
+            weights.put(node.getNodeId(), (float) between(-3, 3));
+        }
+        NodeSorter sorter = new NodeSorter(nodes, new FixedWeightFunction(weights), null);
+        int to = between(2, nodes.length);
+        // only the first nodes are relevant, like in Balancer#balanceByWeights
+        sorter.reset("index", 0, to);
+        ModelNode[] irrelevantNodes = Arrays.copyOfRange(sorter.modelNodes, to, nodes.length);
+
+        // moving a shard changes the weights of the lowest and the highest node
+        int low = 0;
+        int high = to - 1;
+        weights.put(sorter.modelNodes[low].getNodeId(), (float) between(-3, 3));
+        weights.put(sorter.modelNodes[high].getNodeId(), (float) between(-3, 3));
+        sorter.weights[low] = sorter.weight(sorter.modelNodes[low]);
+        sorter.weights[high] = sorter.weight(sorter.modelNodes[high]);
+        ModelNode[] expectedOrder = Arrays.copyOf(sorter.modelNodes, to);
+        // a stable sort, nodes with the same weight keep their order
+        Arrays.sort(expectedOrder, (a, b) -> Float.compare(weights.get(a.getNodeId()), weights.get(b.getNodeId())));
+
+        sorter.restoreOrder(0, to);
+        for (int i = 0; i < to; i++) {
+            assertThat(sorter.modelNodes[i], sameInstance(expectedOrder[i]));
+            assertThat(sorter.weights[i], equalTo(weights.get(sorter.modelNodes[i].getNodeId())));
+            if (i > 0) {
+                assertThat(sorter.weights[i - 1], lessThanOrEqualTo(sorter.weights[i]));
+            }
+        }
+        for (int i = to; i < nodes.length; i++) {
+            assertThat(sorter.modelNodes[i], sameInstance(irrelevantNodes[i - to]));
+        }
+    }
+
+    private static ModelNode[] createNodes(int count) {
+        ModelNode[] nodes = new ModelNode[count];
+        for (int i = 0; i < count; i++) {
+            String nodeId = "node_" + i;
+            DiscoveryNode discoveryNode = new DiscoveryNode(nodeId, buildNewFakeTransportAddress(), Version.CURRENT);
+            nodes[i] = new ModelNode(new RoutingNode(nodeId, discoveryNode));
+        }
+        return nodes;
+    }
+
+    /**
+     * A weight function that returns a given weight per node, whatever the index.
+     */
+    private static class FixedWeightFunction extends WeightFunction {
+
+        private final Map<String, Float> weights;
+
+        FixedWeightFunction(Map<String, Float> weights) {
+            super(1.0f, 1.0f);
+            this.weights = weights;
+        }
+
+        @Override
+        public float weight(Balancer balancer, ModelNode node, String index) {
+            return weights.get(node.getNodeId());
+        }
+    }
+}
@@ -352,8 +352,11 @@ public class DiskThresholdDeciderUnitTests extends ESAllocationTestCase {
     }
 
     public long sizeOfRelocatingShards(RoutingAllocation allocation, RoutingNode node, boolean subtractShardsMovingAway, String dataPath) {
-        return DiskThresholdDecider.sizeOfRelocatingShards(node, subtractShardsMovingAway, dataPath,
+        final long size = DiskThresholdDecider.sizeOfRelocatingShards(node, subtractShardsMovingAway, dataPath,
             allocation.clusterInfo(), allocation.metaData(), allocation.routingTable());
+        // the per-allocation cache must never hand out a value computed for a different node instance or data path
+        assertEquals(size, DiskThresholdDecider.cachedSizeOfRelocatingShards(node, subtractShardsMovingAway, dataPath, allocation));
+        return size;
     }
 
     public void testSizeShrinkIndex() {
@@ -197,4 +197,44 @@ public class FilterAllocationDeciderTests extends ESAllocationTestCase {
         indexScopedSettings.updateDynamicSettings(Settings.builder().put(filterSetting.getKey() + ipKey, wildcardIP).build(),
             Settings.builder().put(Settings.EMPTY), Settings.builder(), "test ip validation");
     }
+
+    public void testFilterDecisionsAreCachedPerReroute() {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        FilterAllocationDecider filterAllocationDecider = new FilterAllocationDecider(Settings.EMPTY, clusterSettings);
+        AllocationDeciders allocationDeciders = new AllocationDeciders(Collections.singletonList(filterAllocationDecider));
+        IndexMetaData indexMetaData = IndexMetaData.builder("idx")
+            .settings(settings(Version.CURRENT).put(IndexMetaData.INDEX_ROUTING_EXCLUDE_GROUP_SETTING.getKey() + "_id", "node1"))
+            .numberOfShards(2).numberOfReplicas(0).build();
+        MetaData metaData = MetaData.builder().put(indexMetaData, false).build();
+        ClusterState state = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData).routingTable(RoutingTable.builder().addAsNew(metaData.index("idx")).build())
+            .nodes(DiscoveryNodes.builder().add(newNode("node1")).add(newNode("node2"))).build();
+        ShardRouting shard0 = state.routingTable().index("idx").shard(0).primaryShard();
+        ShardRouting shard1 = state.routingTable().index("idx").shard(1).primaryShard();
+
+        RoutingAllocation allocation = new RoutingAllocation(allocationDeciders, state.getRoutingNodes(), state, null, 0);
+        Decision decision = filterAllocationDecider.canAllocate(shard0, state.getRoutingNodes().node("node1"), allocation);
+        assertEquals(Type.NO, decision.type());
+        assertSame(decision, filterAllocationDecider.canAllocate(shard1, state.getRoutingNodes().node("node1"), allocation));
+        assertSame(decision, filterAllocationDecider.canRemain(shard0, state.getRoutingNodes().node("node1"), allocation));
+        assertEquals(Type.YES, filterAllocationDecider.canAllocate(shard0, state.getRoutingNodes().node("node2"), allocation).type());
+
+        // a different version of the index metadata must not reuse the decision cached for the version in the cluster state
+        IndexMetaData updatedIndexMetaData = IndexMetaData.builder(indexMetaData)
+            .settings(settings(Version.CURRENT).put(IndexMetaData.INDEX_ROUTING_EXCLUDE_GROUP_SETTING.getKey() + "_id", "node2"))
+            .numberOfShards(2).numberOfReplicas(0).build();
+        assertEquals(Type.YES,
+            filterAllocationDecider.canAllocate(updatedIndexMetaData, state.getRoutingNodes().node("node1"), allocation).type());
+        assertEquals(Type.NO,
+            filterAllocationDecider.canAllocate(updatedIndexMetaData, state.getRoutingNodes().node("node2"), allocation).type());
+
+        // decisions with explanations are never cached
+        allocation = new RoutingAllocation(allocationDeciders, state.getRoutingNodes(), state, null, 0);
+        allocation.debugDecision(true);
+        Decision.Single single = (Decision.Single) filterAllocationDecider.canAllocate(shard0, state.getRoutingNodes().node("node1"),
+            allocation);
+        assertEquals(Type.NO, single.type());
+        assertEquals("node matches index setting [index.routing.allocation.exclude.] filters [_id:\"node1\"]", single.getExplanation());
+        assertNotSame(single, filterAllocationDecider.canAllocate(shard1, state.getRoutingNodes().node("node1"), allocation));
+    }
 }
@@ -51,6 +51,7 @@ import org.junit.BeforeClass;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
@@ -58,7 +59,9 @@ import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -354,6 +357,38 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testClusterStateApplierStats() throws InterruptedException {
+        AtomicInteger applierCalls = new AtomicInteger();
+        clusterApplierService.addStateApplier(event -> applierCalls.incrementAndGet());
+
+        final int numStates = randomIntBetween(1, 5);
+        for (int i = 0; i < numStates; i++) {
+            CountDownLatch latch = new CountDownLatch(1);
+            clusterApplierService.onNewClusterState("test", () -> ClusterState.builder(clusterApplierService.state()).build(),
+                new ClusterApplyListener() {
+
+                    @Override
+                    public void onSuccess(String source) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            );
+            latch.await();
+        }
+
+        assertThat(applierCalls.get(), equalTo(numStates));
+        ClusterApplierStats stats = clusterApplierService.stats();
+        ClusterApplierStats.Recording recording = stats.getAppliers().get(ClusterApplierServiceTests.class.getName());
+        assertNotNull("no recording found in " + stats, recording);
+        assertThat(recording.getCount(), equalTo((long) numStates));
+        assertThat(recording.getMaxTimeInMillis(), lessThanOrEqualTo(recording.getTotalTimeInMillis()));
+    }
+
     public void testClusterStateApplierBubblesUpExceptionsInApplier() throws InterruptedException {
         AtomicReference<Throwable> error = new AtomicReference<>();
         clusterApplierService.addStateApplier(event -> {
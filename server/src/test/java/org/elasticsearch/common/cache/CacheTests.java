@@ -26,6 +26,7 @@ import org.junit.Before;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -48,7 +49,10 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -159,6 +163,112 @@ public class CacheTests extends ESTestCase {
         }
     }
 
+    // fill the cache with entries that are read a few times, then check that a new key is only admitted once it has been seen
+    // more often than the least recently used entry
+    public void testFrequencyBasedAdmission() {
+        List<Integer> evictedKeys = new ArrayList<>();
+        Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(10)
+                        .setFrequencyBasedAdmission(true)
+                        .removalListener(notification -> {
+                            assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+                            evictedKeys.add(notification.getKey());
+                        })
+                        .build();
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Integer.toString(i), cache.get(i));
+            }
+        }
+
+        // a key seen for the first time must not displace any of the frequently read entries
+        cache.put(100, "100");
+        assertNull(cache.get(100));
+        assertEquals(Collections.singletonList(100), evictedKeys);
+        assertEquals(10, cache.count());
+
+        // once the key has been inserted more often than the cached entries were accessed it displaces the least recently used one
+        int attempts = 1;
+        while (cache.get(100) == null) {
+            assertThat(attempts, lessThan(16));
+            cache.put(100, "100");
+            attempts++;
+        }
+        assertEquals(Integer.valueOf(0), evictedKeys.get(evictedKeys.size() - 1));
+        assertEquals(10, cache.count());
+        for (int i = 1; i < 10; i++) {
+            assertEquals(Integer.toString(i), cache.get(i));
+        }
+    }
+
+    // growing the sketch as the cache grows must not make it forget which keys are frequently used
+    public void testFrequencySketchKeepsFrequenciesWhenGrowing() {
+        FrequencySketch sketch = new FrequencySketch();
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("cold");
+        sketch.ensureCapacity(randomIntBetween(17, 1 << 16));
+        assertThat(sketch.frequency("hot"), greaterThanOrEqualTo(4));
+        assertThat(sketch.frequency("hot"), greaterThan(sketch.frequency("cold")));
+    }
+
+    // read the same entries from many threads while another thread keeps inserting, then check that the cache is consistent
+    public void testConcurrentReadsAndWrites() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(numberOfEntries / 2)
+                        .build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            final boolean writer = i == 0;
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        if (writer) {
+                            cache.put(key, Integer.toString(key));
+                        } else {
+                            String value = cache.get(key);
+                            if (value != null) {
+                                assertEquals(Integer.toString(key), value);
+                            }
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertEquals(numberOfEntries / 2, cache.count());
+        int keys = 0;
+        for (Integer key : cache.keys()) {
+            assertNotNull(key);
+            keys++;
+        }
+        assertEquals(cache.count(), keys);
+    }
+
     // cache some entries and exceed the maximum weight, then check that the cache has the expected weight and the
     // expected evictions occurred
     public void testWeigher() {
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LongLongHashTests extends ESTestCase {
+
+    private BigArrays randomBigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    private LongLongHash randomHash() {
+        // Test high load factors to make sure that collision resolution works fine
+        final float maxLoadFactor = 0.6f + randomFloat() * 0.39f;
+        return new LongLongHash(randomIntBetween(0, 100), maxLoadFactor, randomBigArrays());
+    }
+
+    public void testDuel() {
+        final long[][] values = new long[randomIntBetween(1, 100000)][];
+        for (int i = 0; i < values.length; ++i) {
+            // use a small range for the first key so that many pairs share it
+            values[i] = new long[] { randomLongBetween(0, 100), randomLong() };
+        }
+        final Map<Key, Long> keyToId = new HashMap<>();
+        final long[][] idToKey = new long[values.length][];
+        try (LongLongHash hash = randomHash()) {
+            final int iters = randomInt(1000000);
+            for (int i = 0; i < iters; ++i) {
+                final long[] value = randomFrom(values);
+                final Key key = new Key(value[0], value[1]);
+                final Long id = keyToId.get(key);
+                if (id != null) {
+                    assertEquals(-1 - id, hash.add(value[0], value[1]));
+                } else {
+                    assertEquals(keyToId.size(), hash.add(value[0], value[1]));
+                    idToKey[keyToId.size()] = value;
+                    keyToId.put(key, (long) keyToId.size());
+                }
+            }
+
+            assertEquals(keyToId.size(), hash.size());
+            for (Map.Entry<Key, Long> entry : keyToId.entrySet()) {
+                assertEquals(entry.getValue().longValue(), hash.find(entry.getKey().key1, entry.getKey().key2));
+            }
+            for (long i = 0; i < hash.size(); i++) {
+                assertEquals(idToKey[(int) i][0], hash.getKey1(i));
+                assertEquals(idToKey[(int) i][1], hash.getKey2(i));
+            }
+            assertEquals(-1, hash.find(randomLongBetween(101, Long.MAX_VALUE), randomLong()));
+        }
+    }
+
+    public void testSameKeysInDifferentOrder() {
+        try (LongLongHash hash = randomHash()) {
+            assertEquals(0, hash.add(1, 2));
+            assertEquals(1, hash.add(2, 1));
+            assertEquals(-1, hash.add(1, 2));
+            assertEquals(0, hash.find(1, 2));
+            assertEquals(1, hash.find(2, 1));
+            assertEquals(-1, hash.find(1, 1));
+        }
+    }
+
+    private static class Key {
+        final long key1;
+        final long key2;
+
+        Key(long key1, long key2) {
+            this.key1 = key1;
+            this.key2 = key2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key other = (Key) o;
+            return key1 == other.key1 && key2 == other.key2;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key1) * 31 + Long.hashCode(key2);
+        }
+    }
+}
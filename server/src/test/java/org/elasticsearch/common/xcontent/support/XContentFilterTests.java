@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.xcontent.support;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.XContentHelper.convertToMap;
+import static org.elasticsearch.common.xcontent.XContentHelper.toXContent;
+
+public class XContentFilterTests extends AbstractFilteringTestCase {
+
+    @Override
+    protected void testFilter(Builder expected, Builder actual, Set<String> includes, Set<String> excludes) throws IOException {
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final boolean humanReadable = randomBoolean();
+        String[] sourceIncludes = includes == null ? null : includes.toArray(new String[includes.size()]);
+        String[] sourceExcludes = excludes == null ? null : excludes.toArray(new String[excludes.size()]);
+
+        ToXContentObject toXContent = (builder, params) -> actual.apply(builder);
+        BytesReference source = toXContent(toXContent, xContentType, humanReadable);
+        BytesReference filtered = filter(source, sourceIncludes, sourceExcludes);
+
+        ToXContentObject expectedXContent = (builder, params) -> expected.apply(builder);
+        assertEquals("Filtered source must be equal to the expected source",
+                convertToMap(toXContent(expectedXContent, xContentType, humanReadable), true, xContentType).v2(),
+                convertToMap(filtered, true, xContentType).v2());
+    }
+
+    public void testSameAsMapFiltering() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("field", "value");
+        map.put("foo.bar", 2);
+        map.put("foo", Map.of("baz", 3, "bar", Map.of("qux", 4)));
+        map.put("obj", Map.of("field", "value", "field2", "value2"));
+        map.put("n_obj", Map.of("n_field", "value", "n_field2", "value2"));
+        map.put("photos", Arrays.asList("foo", "bar"));
+        map.put("photosCount", 2);
+        map.put("objects", Arrays.asList(Map.of("field", 1, "field2", 2), Map.of("field2", 3), Arrays.asList(4, Map.of("field", 5))));
+        map.put("搜索", 2);
+
+        assertSameAsMapFiltering(map, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"foo"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, Strings.EMPTY_ARRAY, new String[] {"foo"});
+        assertSameAsMapFiltering(map, new String[] {"foo.bar"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"*.field2"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"*.*"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"*"}, new String[] {"*.*2"});
+        assertSameAsMapFiltering(map, new String[] {"*qux"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"photosCount"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"objects"}, new String[] {"objects.field"});
+        assertSameAsMapFiltering(map, new String[] {"objects.field"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"搜索"}, Strings.EMPTY_ARRAY);
+        assertSameAsMapFiltering(map, new String[] {"obj", "foo"}, new String[] {"obj.field", "foo.baz"});
+    }
+
+    public void testKeepsFieldOrder() throws IOException {
+        XContentBuilder builder = JsonXContent.contentBuilder().startObject()
+                .field("c", 1)
+                .field("b", 2)
+                .field("a", 3)
+                .startObject("obj").field("z", 1).field("y", 2).endObject()
+            .endObject();
+        BytesReference filtered = filter(BytesReference.bytes(builder), Strings.EMPTY_ARRAY, new String[] {"b", "obj.x"});
+        assertEquals("{\"c\":1,\"a\":3,\"obj\":{\"z\":1,\"y\":2}}", filtered.utf8ToString());
+    }
+
+    private static void assertSameAsMapFiltering(Map<String, Object> map, String[] includes, String[] excludes) throws IOException {
+        XContentType xContentType = randomFrom(XContentType.values());
+        BytesReference source = BytesReference.bytes(XContentFactory.contentBuilder(xContentType).map(map));
+        assertEquals(XContentMapValues.filter(map, includes, excludes),
+            convertToMap(filter(source, includes, excludes), true, xContentType).v2());
+    }
+
+    private static BytesReference filter(BytesReference source, String[] includes, String[] excludes) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source)) {
+            XContentBuilder builder = XContentFactory.contentBuilder(parser.contentType());
+            new XContentFilter(includes, excludes).filter(parser, builder);
+            return BytesReference.bytes(builder);
+        }
+    }
+}
@@ -1107,6 +1107,9 @@ public class IngestServiceTests extends ESTestCase {
         assertProcessorStats(0, afterForthRequestStats, "_id1", 1, 1, 0); //not carried forward since type changed
         assertProcessorStats(1, afterForthRequestStats, "_id1", 2, 0, 0); //carried forward and added from old stats
         assertProcessorStats(0, afterForthRequestStats, "_id2", 1, 0, 0);
+        //detailed stats are carried forward along with the processor stats
+        verify(processor, times(1)).addDetailedStats(processor);
+        verify(processorFailure, never()).addDetailedStats(any());
     }
 
     public void testStatName(){
@@ -29,6 +29,7 @@ import org.elasticsearch.test.VersionUtils;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -42,7 +43,7 @@ public class IngestStatsTests extends ESTestCase {
         Map<String, List<IngestStats.ProcessorStat>> processorStats = createProcessorStats(pipelineStats);
         IngestStats ingestStats = new IngestStats(totalStats, pipelineStats, processorStats);
         IngestStats serializedStats = serialize(ingestStats);
-        assertIngestStats(ingestStats, serializedStats, true, true);
+        assertIngestStats(ingestStats, serializedStats, true, true, true);
     }
 
     public void testBWCIngestProcessorTypeStats() throws IOException {
@@ -59,7 +60,24 @@ public class IngestStatsTests extends ESTestCase {
         StreamInput in = out.bytes().streamInput();
         in.setVersion(VersionUtils.getPreviousVersion(Version.V_7_6_0));
         IngestStats serializedStats = new IngestStats(in);
-        assertIngestStats(expectedIngestStats, serializedStats, true, false);
+        assertIngestStats(expectedIngestStats, serializedStats, true, false, false);
+    }
+
+    public void testBWCDetailedProcessorStats() throws IOException {
+        IngestStats.Stats totalStats = new IngestStats.Stats(50, 100, 200, 300);
+        List<IngestStats.PipelineStat> pipelineStats = createPipelineStats();
+        Map<String, List<IngestStats.ProcessorStat>> processorStats = createProcessorStats(pipelineStats);
+        IngestStats expectedIngestStats = new IngestStats(totalStats, pipelineStats, processorStats);
+
+        Version version = VersionUtils.randomVersionBetween(random(), Version.V_7_6_0, VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        expectedIngestStats.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        IngestStats serializedStats = new IngestStats(in);
+        assertIngestStats(expectedIngestStats, serializedStats, true, true, false);
     }
 
     private List<IngestStats.PipelineStat> createPipelineStats() {
@@ -73,8 +91,11 @@ public class IngestStatsTests extends ESTestCase {
         assert(pipelineStats.size() >= 2);
         IngestStats.ProcessorStat processor1Stat = new IngestStats.ProcessorStat("processor1", "type", new IngestStats.Stats(1, 1, 1, 1));
         IngestStats.ProcessorStat processor2Stat = new IngestStats.ProcessorStat("processor2", "type", new IngestStats.Stats(2, 2, 2, 2));
+        Map<String, IngestStats.DetailedStat> processor3DetailedStats = new LinkedHashMap<>();
+        processor3DetailedStats.put("pattern2", new IngestStats.DetailedStat(40, 90));
+        processor3DetailedStats.put("pattern1", new IngestStats.DetailedStat(7, 7));
         IngestStats.ProcessorStat processor3Stat = new IngestStats.ProcessorStat("processor3", "type",
-            new IngestStats.Stats(47, 97, 197, 297));
+            new IngestStats.Stats(47, 97, 197, 297), processor3DetailedStats);
         //pipeline1 -> processor1,processor2; pipeline2 -> processor3
         return MapBuilder.<String, List<IngestStats.ProcessorStat>>newMapBuilder()
             .put(pipelineStats.get(0).getPipelineId(), Stream.of(processor1Stat, processor2Stat).collect(Collectors.toList()))
@@ -90,7 +111,7 @@ public class IngestStatsTests extends ESTestCase {
     }
 
     private void assertIngestStats(IngestStats ingestStats, IngestStats serializedStats, boolean expectProcessors,
-                                   boolean expectProcessorTypes){
+                                   boolean expectProcessorTypes, boolean expectDetailedStats){
         assertNotSame(ingestStats, serializedStats);
         assertNotSame(ingestStats.getTotalStats(), serializedStats.getTotalStats());
         assertNotSame(ingestStats.getPipelineStats(), serializedStats.getPipelineStats());
@@ -118,6 +139,18 @@ public class IngestStatsTests extends ESTestCase {
                             assertEquals("_NOT_AVAILABLE", serializedProcessorStat.getType());
                         }
                         assertStats(ps.getStats(), serializedProcessorStat.getStats());
+                        if (expectDetailedStats) {
+                            assertEquals(List.copyOf(ps.getDetailedStats().keySet()),
+                                List.copyOf(serializedProcessorStat.getDetailedStats().keySet()));
+                            for (Map.Entry<String, IngestStats.DetailedStat> entry : ps.getDetailedStats().entrySet()) {
+                                IngestStats.DetailedStat serializedDetailedStat =
+                                    serializedProcessorStat.getDetailedStats().get(entry.getKey());
+                                assertEquals(entry.getValue().getCount(), serializedDetailedStat.getCount());
+                                assertEquals(entry.getValue().getTimeInMillis(), serializedDetailedStat.getTimeInMillis());
+                            }
+                        } else {
+                            assertTrue(serializedProcessorStat.getDetailedStats().isEmpty());
+                        }
                     }
                     assertFalse(it.hasNext());
                 }
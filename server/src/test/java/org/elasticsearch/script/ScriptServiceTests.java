@@ -37,9 +37,12 @@ import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.elasticsearch.script.ScriptService.MAX_COMPILATION_RATE_FUNCTION;
@@ -275,6 +278,57 @@ public class ScriptServiceTests extends ESTestCase {
         assertEquals(1L, scriptService.stats().getCacheEvictions());
     }
 
+    public void testContextCacheStats() throws IOException {
+        Settings.Builder builder = Settings.builder();
+        builder.put(ScriptService.SCRIPT_CACHE_SIZE_SETTING.getKey(), 1);
+        buildScriptService(builder.build());
+        ScriptContext<?> context = randomFrom(contexts.values());
+        scriptService.compile(new Script(ScriptType.INLINE, "test", "1+1", Collections.emptyMap()), context);
+        scriptService.compile(new Script(ScriptType.INLINE, "test", "1+1", Collections.emptyMap()), context);
+        scriptService.compile(new Script(ScriptType.INLINE, "test", "2+2", Collections.emptyMap()), context);
+
+        ScriptContextStats contextStats = scriptService.stats().getContextStats().get(context.name);
+        assertNotNull(contextStats);
+        assertEquals(2L, contextStats.getCompilations());
+        assertEquals(1L, contextStats.getCacheHits());
+        assertEquals(2L, contextStats.getCacheMisses());
+        assertEquals(1L, contextStats.getCacheEvictions());
+        assertEquals(1, scriptService.stats().getContextStats().size());
+    }
+
+    public void testCanonicalSources() throws IOException {
+        AtomicInteger canonicalizations = new AtomicInteger();
+        List<String> compiledSources = new ArrayList<>();
+        engines.put("test", new MockScriptEngine("test", Collections.singletonMap("1+1", p -> null), Collections.emptyMap()) {
+            @Override
+            public String canonicalize(String code, ScriptContext<?> context) {
+                canonicalizations.incrementAndGet();
+                return code.replace(" ", "");
+            }
+
+            @Override
+            public <T> T compile(String name, String source, ScriptContext<T> context, Map<String, String> params) {
+                compiledSources.add(source);
+                return super.compile(name, source, context, params);
+            }
+        });
+        buildScriptService(Settings.EMPTY);
+        ScriptContext<?> context = randomFrom(contexts.values());
+
+        Object compiled = scriptService.compile(new Script(ScriptType.INLINE, "test", "1 + 1", Collections.emptyMap()), context);
+        assertThat(scriptService.compile(new Script(ScriptType.INLINE, "test", "1+1", Collections.emptyMap()), context),
+            sameInstance(compiled));
+        // the canonical form is what gets compiled
+        assertEquals(Collections.singletonList("1+1"), compiledSources);
+        assertEquals(2, canonicalizations.get());
+
+        // sources that were seen before are not canonicalized again
+        assertThat(scriptService.compile(new Script(ScriptType.INLINE, "test", "1 + 1", Collections.emptyMap()), context),
+            sameInstance(compiled));
+        assertEquals(2, canonicalizations.get());
+        assertEquals(1L, scriptService.stats().getCompilations());
+    }
+
     public void testStoreScript() throws Exception {
         BytesReference script = BytesReference.bytes(XContentFactory.jsonBuilder()
             .startObject()
@@ -217,6 +217,22 @@ public class SearchHitTests extends AbstractWireSerializingTestCase<SearchHit> {
         assertEquals("{\"_id\":\"id1\",\"_score\":1.5}", Strings.toString(builder));
     }
 
+    public void testReleaseSourceAfterRendering() throws IOException {
+        SearchHit searchHit = new SearchHit(1, "id1", Collections.emptyMap());
+        searchHit.score(1.5f);
+        searchHit.sourceRef(new BytesArray("{\"field\":\"value\"}"));
+        XContentBuilder builder = JsonXContent.contentBuilder();
+        searchHit.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertTrue(searchHit.hasSource());
+        String expected = Strings.toString(builder);
+        assertEquals("{\"_id\":\"id1\",\"_score\":1.5,\"_source\":{\"field\":\"value\"}}", expected);
+
+        builder = JsonXContent.contentBuilder();
+        searchHit.toXContent(builder, new ToXContent.MapParams(Collections.singletonMap(SearchHit.RELEASE_SOURCE_PARAM, "true")));
+        assertEquals(expected, Strings.toString(builder));
+        assertFalse(searchHit.hasSource());
+    }
+
     public void testSerializeShardTarget() throws Exception {
         String clusterAlias = randomBoolean() ? null : "cluster_alias";
         SearchShardTarget target = new SearchShardTarget("_node_id", new ShardId(new Index("_index", "_na_"), 0),
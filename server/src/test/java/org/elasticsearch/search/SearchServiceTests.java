@@ -82,6 +82,7 @@ import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -697,6 +698,114 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertHitCount(client().prepareSearch().setIndicesOptions(IndicesOptions.STRICT_EXPAND_OPEN_FORBID_CLOSED).get(), 1L);
     }
 
+    public void testPointInTimeReaderContext() throws Exception {
+        createIndex("index");
+        client().prepareIndex("index").setId("1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+
+        final int numWrapsBeforeOpen = numWrapInvocations.get();
+        PlainActionFuture<Long> future = new PlainActionFuture<>();
+        service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1), future);
+        final long readerId = future.actionGet();
+        assertEquals(1, service.getActiveReaders());
+        // the reader wrapper is applied by each search on the point in time, not once by the request that opened it
+        assertEquals(numWrapsBeforeOpen, numWrapInvocations.get());
+
+        client().prepareIndex("index").setId("2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        final SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(true);
+        final int numWrapsBeforeSearch = numWrapInvocations.get();
+        try (SearchContext context = service.createContext(new ShardSearchRequest(OriginalIndices.NONE, searchRequest,
+            indexShard.shardId(), 1, new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f, -1, null, null, readerId, null))) {
+            // the point in time keeps seeing the reader it was opened on
+            assertEquals(1, context.searcher().getIndexReader().numDocs());
+            assertEquals(numWrapsBeforeSearch + 1, numWrapInvocations.get());
+
+            try (SearchContext latest = service.createContext(new ShardSearchRequest(OriginalIndices.NONE, searchRequest,
+                indexShard.shardId(), 1, new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f, -1, null, null))) {
+                assertEquals(2, latest.searcher().getIndexReader().numDocs());
+            }
+
+            // freeing the reader while it is in use must not close it under the running search
+            assertTrue(service.freeReaderContext(readerId));
+            assertFalse(service.freeReaderContext(readerId));
+            assertEquals(0, service.getActiveReaders());
+            assertEquals(1, context.searcher().getIndexReader().numDocs());
+        }
+
+        expectThrows(SearchContextMissingException.class, () -> service.createContext(new ShardSearchRequest(OriginalIndices.NONE,
+            searchRequest, indexShard.shardId(), 1, new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f, -1, null, null, readerId, null)));
+    }
+
+    public void testPointInTimeKeepAliveTooLarge() {
+        createIndex("index");
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+
+        PlainActionFuture<Long> future = new PlainActionFuture<>();
+        service.openReaderContext(indexShard.shardId(), TimeValue.timeValueDays(365), future);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, future::actionGet);
+        assertThat(e.getMessage(), startsWith("Keep alive for point in time (365d) is too large"));
+        assertEquals(0, service.getActiveReaders());
+    }
+
+    public void testMaxOpenPointInTimeContexts() {
+        createIndex("index");
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+
+        final int maxOpenContexts = randomIntBetween(1, 10);
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey(), maxOpenContexts))
+            .get();
+        try {
+            // open all possible point in time contexts, free one of them, then open one more until the limit is reached
+            final List<Long> readerIds = new ArrayList<>();
+            for (int i = 0; i < maxOpenContexts; i++) {
+                PlainActionFuture<Long> future = new PlainActionFuture<>();
+                service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1), future);
+                readerIds.add(future.actionGet());
+            }
+            assertEquals(maxOpenContexts, service.getActiveReaders());
+
+            PlainActionFuture<Long> future = new PlainActionFuture<>();
+            service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1), future);
+            ElasticsearchException ex = expectThrows(ElasticsearchException.class, future::actionGet);
+            assertEquals(
+                "Trying to create too many point in time contexts. Must be less than or equal to: [" + maxOpenContexts + "]. " +
+                    "This limit can be set by changing the [search.max_open_point_in_time_context] setting.",
+                ex.getMessage());
+            assertEquals(maxOpenContexts, service.getActiveReaders());
+
+            assertTrue(service.freeReaderContext(randomFrom(readerIds)));
+            future = new PlainActionFuture<>();
+            service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1), future);
+            future.actionGet();
+            assertEquals(maxOpenContexts, service.getActiveReaders());
+        } finally {
+            client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey()))
+                .get();
+        }
+    }
+
+    public void testClearPointInTimeOnIndexDelete() {
+        createIndex("index");
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+
+        PlainActionFuture<Long> future = new PlainActionFuture<>();
+        service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1), future);
+        future.actionGet();
+        assertEquals(1, service.getActiveReaders());
+        assertAcked(client().admin().indices().prepareDelete("index"));
+        assertEquals(0, service.getActiveReaders());
+    }
+
     public void testCreateReduceContext() {
         final SearchService service = getInstanceFromNode(SearchService.class);
         {
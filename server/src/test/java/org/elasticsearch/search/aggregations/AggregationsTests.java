@@ -56,6 +56,8 @@ import org.elasticsearch.search.aggregations.bucket.terms.LongTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalAvgTests;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinalityTests;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentilesRanksTests;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentilesTests;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStatsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoBoundsTests;
 import org.elasticsearch.search.aggregations.metrics.InternalGeoCentroidTests;
@@ -108,6 +110,8 @@ public class AggregationsTests extends ESTestCase {
             new InternalTDigestPercentilesRanksTests(),
             new InternalHDRPercentilesTests(),
             new InternalHDRPercentilesRanksTests(),
+            new InternalDDSketchPercentilesTests(),
+            new InternalDDSketchPercentilesRanksTests(),
             new InternalPercentilesBucketTests(),
             new InternalMinTests(),
             new InternalMaxTests(),
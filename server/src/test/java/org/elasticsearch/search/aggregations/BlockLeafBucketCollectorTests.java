@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BlockLeafBucketCollectorTests extends ESTestCase {
+
+    public void testBlocks() throws IOException {
+        final List<long[]> collected = new ArrayList<>();
+        final List<Integer> blockSizes = new ArrayList<>();
+        BlockLeafBucketCollector collector = new BlockLeafBucketCollector(LeafBucketCollector.NO_OP_COLLECTOR, null, true) {
+            @Override
+            protected void collectBlock(int[] docs, int count, long bucket) {
+                blockSizes.add(count);
+                for (int i = 0; i < count; i++) {
+                    collected.add(new long[] { docs[i], bucket });
+                }
+            }
+        };
+
+        final List<long[]> expected = new ArrayList<>();
+        int doc = 0;
+        final int numDocs = randomIntBetween(1, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            doc += randomIntBetween(1, 10);
+            // collect runs of documents in the same bucket
+            final long bucket = randomBoolean() ? 0 : randomIntBetween(0, 3);
+            collector.collect(doc, bucket);
+            expected.add(new long[] { doc, bucket });
+        }
+        assertThat(collected.size(), lessThanOrEqualTo(expected.size()));
+        collector.flush();
+
+        // all documents are collected in order, in their bucket and in blocks that never exceed the block size
+        assertThat(collected.size(), equalTo(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(collected.get(i)[0], equalTo(expected.get(i)[0]));
+            assertThat(collected.get(i)[1], equalTo(expected.get(i)[1]));
+        }
+        for (int blockSize : blockSizes) {
+            assertThat(blockSize, lessThanOrEqualTo(BlockLeafBucketCollector.BLOCK_SIZE));
+        }
+
+        // flushing again is a no-op
+        collector.flush();
+        assertThat(collected.size(), equalTo(expected.size()));
+    }
+
+    public void testUnbuffered() throws IOException {
+        final List<Integer> collected = new ArrayList<>();
+        BlockLeafBucketCollector collector = new BlockLeafBucketCollector(LeafBucketCollector.NO_OP_COLLECTOR, null, false) {
+            @Override
+            protected void collectBlock(int[] docs, int count, long bucket) {
+                assertThat(count, equalTo(1));
+                collected.add(docs[0]);
+            }
+        };
+        for (int doc = 0; doc < 10; doc++) {
+            collector.collect(doc, 0);
+            // documents are collected right away when scores may be needed
+            assertThat(collected.size(), equalTo(doc + 1));
+        }
+    }
+}
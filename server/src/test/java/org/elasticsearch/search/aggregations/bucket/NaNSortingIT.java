@@ -99,8 +99,7 @@ public class NaNSortingIT extends ESIntegTestCase {
 
         public String name;
 
-        public abstract ValuesSourceAggregationBuilder.LeafOnly<ValuesSource.Numeric,
-                ? extends ValuesSourceAggregationBuilder.LeafOnly<ValuesSource.Numeric, ?>> builder();
+        public abstract ValuesSourceAggregationBuilder.LeafOnly<? extends ValuesSource, ?> builder();
 
         public String sortKey() {
             return name;
@@ -307,13 +307,19 @@ public class CompositeValuesCollectorQueueTests extends AggregatorTestCase {
                             assertEquals(DocIdSet.EMPTY,
                                 docsProducer.processLeaf(new MatchAllDocsQuery(), queue, leafReaderContext, false));
                         } else {
+                            final boolean prune = indexSortSourcePrefix == 0 && randomBoolean();
+                            if (prune && sources[0].canSkipLeaf(leafReaderContext, queue.getUpperValueLeadSource())) {
+                                continue;
+                            }
                             final LeafBucketCollector leafCollector = new LeafBucketCollector() {
                                 @Override
                                 public void collect(int doc, long bucket) throws IOException {
                                     queue.addIfCompetitive(indexSortSourcePrefix);
                                 }
                             };
-                            final LeafBucketCollector queueCollector = queue.getLeafCollector(leafReaderContext, leafCollector);
+                            final LeafBucketCollector queueCollector = prune ?
+                                queue.getPruningLeafCollector(leafReaderContext, leafCollector) :
+                                queue.getLeafCollector(leafReaderContext, leafCollector);
                             final Bits liveDocs = leafReaderContext.reader().getLiveDocs();
                             for (int i = 0; i < leafReaderContext.reader().maxDoc(); i++) {
                                 if (liveDocs == null || liveDocs.get(i)) {
@@ -0,0 +1,158 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LongKeyedBucketOrdsTests extends ESTestCase {
+    private final BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+
+    public void testCollectsFromSingleBucket() {
+        collectsFromSingleBucketCase(LongKeyedBucketOrds.build(bigArrays, true));
+    }
+
+    public void testCollectsFromManyBucketsWithSingleOwningBucket() {
+        collectsFromSingleBucketCase(LongKeyedBucketOrds.build(bigArrays, false));
+    }
+
+    private void collectsFromSingleBucketCase(LongKeyedBucketOrds ords) {
+        try {
+            // Test a few explicit values
+            assertThat(ords.add(0, 0), equalTo(0L));
+            assertThat(ords.add(0, 1000), equalTo(1L));
+            assertThat(ords.add(0, 0), equalTo(-1L));
+            assertThat(ords.add(0, 1000), equalTo(-2L));
+            assertThat(ords.find(0, 0), equalTo(0L));
+            assertThat(ords.find(0, 1000), equalTo(1L));
+            assertThat(ords.find(0, 2000), equalTo(-1L));
+
+            // And some random values
+            Set<Long> seen = new HashSet<>();
+            seen.add(0L);
+            seen.add(1000L);
+            long[] values = new long[scaledRandomIntBetween(1, 10000)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = randomValueOtherThanMany(seen::contains, ESTestCase::randomLong);
+                seen.add(values[i]);
+            }
+            for (int i = 0; i < values.length; i++) {
+                assertThat(ords.add(0, values[i]), equalTo(i + 2L));
+                if (randomBoolean()) {
+                    assertThat(ords.add(0, 0), equalTo(-1L));
+                }
+            }
+            for (int i = 0; i < values.length; i++) {
+                assertThat(ords.add(0, values[i]), equalTo(-1 - (i + 2L)));
+            }
+
+            // And the explicit values are still ok
+            assertThat(ords.add(0, 0), equalTo(-1L));
+            assertThat(ords.add(0, 1000), equalTo(-2L));
+
+            assertThat(ords.bucketsInOrd(0), equalTo(values.length + 2L));
+            assertThat(ords.size(), equalTo(values.length + 2L));
+            LongKeyedBucketOrds.BucketOrdsEnum ordEnum = ords.ordsEnum(0);
+            assertTrue(ordEnum.next());
+            assertThat(ordEnum.ord(), equalTo(0L));
+            assertThat(ordEnum.value(), equalTo(0L));
+            assertTrue(ordEnum.next());
+            assertThat(ordEnum.ord(), equalTo(1L));
+            assertThat(ordEnum.value(), equalTo(1000L));
+            for (int i = 0; i < values.length; i++) {
+                assertTrue(ordEnum.next());
+                assertThat(ordEnum.ord(), equalTo(i + 2L));
+                assertThat(ordEnum.value(), equalTo(values[i]));
+            }
+            assertFalse(ordEnum.next());
+        } finally {
+            ords.close();
+        }
+    }
+
+    public void testCollectsFromManyBuckets() {
+        try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, false)) {
+            // Test a few explicit values
+            assertThat(ords.add(0, 0), equalTo(0L));
+            assertThat(ords.add(1, 0), equalTo(1L));
+            assertThat(ords.add(0, 0), equalTo(-1L));
+            assertThat(ords.add(1, 0), equalTo(-2L));
+            assertThat(ords.find(1, 0), equalTo(1L));
+            assertThat(ords.find(2, 0), equalTo(-1L));
+
+            // And some random values
+            Map<Long, Map<Long, Long>> expected = new HashMap<>();
+            expected.computeIfAbsent(0L, k -> new HashMap<>()).put(0L, 0L);
+            expected.computeIfAbsent(1L, k -> new HashMap<>()).put(0L, 1L);
+            int maxOwningBucketOrd = scaledRandomIntBetween(0, 1000);
+            long nextOrd = 2;
+            int iterations = scaledRandomIntBetween(1, 10000);
+            for (int i = 0; i < iterations; i++) {
+                long owningBucketOrd = between(0, maxOwningBucketOrd);
+                long value = randomLongBetween(0, 100);
+                Map<Long, Long> valueToOrd = expected.computeIfAbsent(owningBucketOrd, k -> new HashMap<>());
+                Long ord = valueToOrd.get(value);
+                if (ord == null) {
+                    assertThat(ords.add(owningBucketOrd, value), equalTo(nextOrd));
+                    valueToOrd.put(value, nextOrd++);
+                } else {
+                    assertThat(ords.add(owningBucketOrd, value), equalTo(-1 - ord));
+                }
+            }
+            assertThat(ords.size(), equalTo(nextOrd));
+
+            for (long owningBucketOrd = 0; owningBucketOrd <= Math.max(1, maxOwningBucketOrd); owningBucketOrd++) {
+                Map<Long, Long> valueToOrd = expected.getOrDefault(owningBucketOrd, Map.of());
+                assertThat(ords.bucketsInOrd(owningBucketOrd), equalTo((long) valueToOrd.size()));
+                Map<Long, Long> actual = new HashMap<>();
+                LongKeyedBucketOrds.BucketOrdsEnum ordEnum = ords.ordsEnum(owningBucketOrd);
+                while (ordEnum.next()) {
+                    assertNull(actual.put(ordEnum.value(), ordEnum.ord()));
+                }
+                assertThat(actual, equalTo(valueToOrd));
+            }
+            assertFalse(ords.ordsEnum(randomLongBetween(maxOwningBucketOrd + 2, Long.MAX_VALUE)).next());
+
+            // adding a bucket after iterating is visible in the counts and iterators built later
+            long owningBucketOrd = between(0, maxOwningBucketOrd);
+            long bucketsInOrd = ords.bucketsInOrd(owningBucketOrd);
+            assertThat(ords.add(owningBucketOrd, 1000), equalTo(nextOrd));
+            assertThat(ords.bucketsInOrd(owningBucketOrd), equalTo(bucketsInOrd + 1));
+            LongKeyedBucketOrds.BucketOrdsEnum ordEnum = ords.ordsEnum(owningBucketOrd);
+            long lastOrd = -1;
+            while (ordEnum.next()) {
+                assertThat(ordEnum.ord() > lastOrd, equalTo(true));
+                lastOrd = ordEnum.ord();
+            }
+            assertThat(lastOrd, equalTo(nextOrd));
+        }
+    }
+}
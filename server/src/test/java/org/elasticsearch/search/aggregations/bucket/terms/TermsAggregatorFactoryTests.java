@@ -19,9 +19,27 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.MatchingDocsEstimator;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+
 import static org.hamcrest.Matchers.equalTo;
 
 public class TermsAggregatorFactoryTests extends ESTestCase {
@@ -41,4 +59,49 @@ public class TermsAggregatorFactoryTests extends ESTestCase {
         assertThat(TermsAggregatorFactory.subAggCollectionMode(1, 100),
             equalTo(Aggregator.SubAggCollectionMode.BREADTH_FIRST));
     }
+
+    public void testEstimateMatchingDocs() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+                for (int i = 0; i < 100; i++) {
+                    Document document = new Document();
+                    document.add(new StringField("ten", Integer.toString(i % 10), Field.Store.NO));
+                    document.add(new StringField("fifty", Integer.toString(i % 50), Field.Store.NO));
+                    writer.addDocument(document);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                Query ten = new TermQuery(new Term("ten", "1"));
+                Query fifty = new TermQuery(new Term("fifty", "1"));
+                assertThat(new MatchingDocsEstimator(reader).estimate(ten), equalTo(10L));
+                assertThat(new MatchingDocsEstimator(reader).estimate(new ConstantScoreQuery(fifty)), equalTo(2L));
+                assertThat(new MatchingDocsEstimator(reader).estimate(new MatchNoDocsQuery()), equalTo(0L));
+                assertThat(new MatchingDocsEstimator(reader).estimate(new MatchAllDocsQuery()), equalTo(-1L));
+
+                // conjunctions are bounded by their most selective clause that can be estimated
+                Query conjunction = new BooleanQuery.Builder()
+                    .add(ten, Occur.MUST)
+                    .add(fifty, Occur.FILTER)
+                    .add(new PrefixQuery(new Term("ten", "1")), Occur.FILTER)
+                    .add(new TermQuery(new Term("ten", "2")), Occur.SHOULD)
+                    .build();
+                assertThat(new MatchingDocsEstimator(reader).estimate(conjunction), equalTo(2L));
+
+                // disjunctions by the sum of their clauses, if they can all be estimated
+                Query disjunction = new BooleanQuery.Builder().add(ten, Occur.SHOULD).add(fifty, Occur.SHOULD).build();
+                assertThat(new MatchingDocsEstimator(reader).estimate(disjunction), equalTo(12L));
+                disjunction = new BooleanQuery.Builder().add(ten, Occur.SHOULD).add(new MatchAllDocsQuery(), Occur.SHOULD).build();
+                assertThat(new MatchingDocsEstimator(reader).estimate(disjunction), equalTo(-1L));
+                Query negation = new BooleanQuery.Builder().add(ten, Occur.MUST_NOT).build();
+                assertThat(new MatchingDocsEstimator(reader).estimate(negation), equalTo(-1L));
+
+                // only a bounded number of terms are looked up
+                BooleanQuery.Builder manyTerms = new BooleanQuery.Builder();
+                for (int i = 0; i <= TermsAggregatorFactory.MAX_ESTIMATED_TERMS; i++) {
+                    manyTerms.add(new TermQuery(new Term("fifty", Integer.toString(i))), Occur.SHOULD);
+                }
+                assertThat(new MatchingDocsEstimator(reader).estimate(manyTerms.build()), equalTo(-1L));
+            }
+        }
+    }
 }
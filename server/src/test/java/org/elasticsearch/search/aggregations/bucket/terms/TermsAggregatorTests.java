@@ -32,9 +32,12 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
@@ -68,6 +71,7 @@ import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
@@ -78,9 +82,11 @@ import org.elasticsearch.search.aggregations.bucket.nested.InternalNested;
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.InternalTopHits;
 import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
 import org.elasticsearch.search.aggregations.pipeline.BucketScriptPipelineAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.ScoreSortBuilder;
 import org.elasticsearch.test.geo.RandomGeoGenerator;
@@ -88,11 +94,13 @@ import org.elasticsearch.test.geo.RandomGeoGenerator;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -100,9 +108,12 @@ import java.util.function.Function;
 import static org.elasticsearch.index.mapper.SeqNoFieldMapper.PRIMARY_TERM_NAME;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.search.aggregations.PipelineAggregatorBuilders.bucketScript;
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.Mockito.when;
+import static org.hamcrest.Matchers.not;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
@@ -162,6 +173,87 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         directory.close();
     }
 
+    public void testSegmentOrdinalsExecutionHint() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < 100; i++) {
+                    Document document = new Document();
+                    document.add(new SortedSetDocValuesField("string", new BytesRef(String.format(Locale.ROOT, "%03d", i))));
+                    document.add(new StringField("filter", i % 50 == 0 ? "yes" : "no", Field.Store.NO));
+                    indexWriter.addDocument(document);
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                    fieldType.setName("string");
+                    fieldType.setHasDocValues(true);
+                    TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                        .field("string")
+                        .order(BucketOrder.key(true));
+
+                    // a query matching few documents compared to the cardinality of the field doesn't need global ordinals
+                    Query selectiveQuery = new TermQuery(new Term("filter", "yes"));
+                    TermsAggregator aggregator = createAggregatorWithQuery(selectiveQuery, aggregationBuilder, indexSearcher, fieldType);
+                    assertThat(aggregator, instanceOf(SegmentOrdinalsStringTermsAggregator.class));
+                    aggregator.preCollection();
+                    indexSearcher.search(selectiveQuery, aggregator);
+                    aggregator.postCollection();
+                    Terms result = (Terms) aggregator.buildAggregation(0L);
+                    assertEquals(2, result.getBuckets().size());
+                    assertEquals("000", result.getBuckets().get(0).getKeyAsString());
+                    assertEquals(1L, result.getBuckets().get(0).getDocCount());
+                    assertEquals("050", result.getBuckets().get(1).getKeyAsString());
+                    assertEquals(1L, result.getBuckets().get(1).getDocCount());
+                    aggregator.close();
+
+                    // queries that match many documents or whose number of matching documents can't be estimated use global ordinals
+                    Query matchAllQuery = new MatchAllDocsQuery();
+                    for (Query query : Arrays.asList(new TermQuery(new Term("filter", "no")), matchAllQuery)) {
+                        aggregator = createAggregatorWithQuery(query, aggregationBuilder, indexSearcher, fieldType);
+                        assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+                        aggregator.close();
+                    }
+
+                    // so do fields that load global ordinals eagerly
+                    MappedFieldType eagerFieldType = fieldType.clone();
+                    eagerFieldType.setEagerGlobalOrdinals(true);
+                    aggregator = createAggregatorWithQuery(selectiveQuery, aggregationBuilder, indexSearcher, eagerFieldType);
+                    assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+                    aggregator.close();
+
+                    // sub-aggregations resolve each segment ordinal to its bucket the first time it is seen
+                    aggregationBuilder
+                        .executionHint(TermsAggregatorFactory.ExecutionMode.SEGMENT_ORDINALS.toString())
+                        .subAggregation(AggregationBuilders.count("count").field("string"));
+                    aggregator = createAggregatorWithQuery(matchAllQuery, aggregationBuilder, indexSearcher, fieldType);
+                    assertThat(aggregator, instanceOf(SegmentOrdinalsStringTermsAggregator.class));
+                    aggregator.preCollection();
+                    indexSearcher.search(matchAllQuery, aggregator);
+                    aggregator.postCollection();
+                    result = (Terms) aggregator.buildAggregation(0L);
+                    assertEquals(10, result.getBuckets().size());
+                    for (int i = 0; i < 10; i++) {
+                        Terms.Bucket bucket = result.getBuckets().get(i);
+                        assertEquals(String.format(Locale.ROOT, "%03d", i), bucket.getKeyAsString());
+                        assertEquals(1L, bucket.getDocCount());
+                        assertEquals(1L, ((ValueCount) bucket.getAggregations().get("count")).getValue());
+                    }
+                    aggregator.close();
+                }
+            }
+        }
+    }
+
+    private <A extends Aggregator> A createAggregatorWithQuery(Query query, AggregationBuilder aggregationBuilder,
+                                                               IndexSearcher indexSearcher, MappedFieldType... fieldTypes) throws IOException {
+        SearchContext searchContext = createSearchContext(indexSearcher, createIndexSettings(), query,
+            new MultiBucketConsumer(DEFAULT_MAX_BUCKETS), fieldTypes);
+        when(searchContext.query()).thenReturn(query);
+        @SuppressWarnings("unchecked")
+        A aggregator = (A) aggregationBuilder.build(searchContext.getQueryShardContext(), null).create(searchContext, null, true);
+        return aggregator;
+    }
+
     public void testSimple() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
@@ -1034,6 +1126,64 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testNestedNumericTermsAggCollectsFromManyBuckets() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                for (int i = 0; i < 30; i++) {
+                    Document document = new Document();
+                    document.add(new SortedDocValuesField("field1", new BytesRef(Integer.toString(i % 3))));
+                    document.add(new SortedNumericDocValuesField("field2", i % 5));
+                    indexWriter.addDocument(document);
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    TermsAggregationBuilder nestedAggregationBuilder = new TermsAggregationBuilder("_name2", ValueType.LONG)
+                        .field("field2")
+                        .order(BucketOrder.key(true))
+                        .subAggregation(AggregationBuilders.count("count").field("field2"));
+                    TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name1", ValueType.STRING)
+                        .field("field1")
+                        .order(BucketOrder.key(true))
+                        .subAggregation(nestedAggregationBuilder);
+                    MappedFieldType fieldType1 = new KeywordFieldMapper.KeywordFieldType();
+                    fieldType1.setName("field1");
+                    fieldType1.setHasDocValues(true);
+                    MappedFieldType fieldType2 = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                    fieldType2.setName("field2");
+                    fieldType2.setHasDocValues(true);
+
+                    // sub-aggregations default to breadth_first, which needs one aggregator per owning bucket
+                    Aggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType1, fieldType2);
+                    assertThat(aggregator.subAggregator("_name2"), not(instanceOf(LongTermsAggregator.class)));
+                    aggregator.close();
+
+                    // with depth_first the numeric terms aggregation collects for all the buckets of its parent at once
+                    nestedAggregationBuilder.collectMode(Aggregator.SubAggCollectionMode.DEPTH_FIRST);
+                    aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType1, fieldType2);
+                    assertThat(aggregator.subAggregator("_name2"), instanceOf(LongTermsAggregator.class));
+                    aggregator.preCollection();
+                    indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                    aggregator.postCollection();
+                    Terms result = (Terms) aggregator.buildAggregation(0L);
+                    assertEquals(3, result.getBuckets().size());
+                    for (int i = 0; i < 3; i++) {
+                        Terms.Bucket bucket = result.getBuckets().get(i);
+                        assertEquals(Integer.toString(i), bucket.getKeyAsString());
+                        assertEquals(10L, bucket.getDocCount());
+                        Terms nested = bucket.getAggregations().get("_name2");
+                        assertEquals(5, nested.getBuckets().size());
+                        for (int j = 0; j < 5; j++) {
+                            Terms.Bucket nestedBucket = nested.getBuckets().get(j);
+                            assertEquals((long) j, nestedBucket.getKeyAsNumber().longValue());
+                            assertEquals(2L, nestedBucket.getDocCount());
+                            assertEquals(2L, ((ValueCount) nestedBucket.getAggregations().get("count")).getValue());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     public void testMixLongAndDouble() throws Exception {
         for (TermsAggregatorFactory.ExecutionMode executionMode : TermsAggregatorFactory.ExecutionMode.values()) {
             TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.LONG)
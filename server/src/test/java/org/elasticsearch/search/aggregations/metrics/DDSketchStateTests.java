@@ -0,0 +1,145 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DDSketchStateTests extends ESTestCase {
+
+    public void testRelativeAccuracy() {
+        final double relativeAccuracy = randomFrom(0.01, 0.02, 0.05);
+        final DDSketchState sketch = new DDSketchState(relativeAccuracy);
+        final double[] values = new double[randomIntBetween(1, 10000)];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (randomBoolean() ? -1 : 1) * Math.pow(10, randomDoubleBetween(-5, 10, true));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, sketch.size());
+        assertEquals(values[0], sketch.quantile(0), 0d);
+        assertEquals(values[values.length - 1], sketch.quantile(1), 0d);
+        for (double q : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, randomDouble() }) {
+            final double expected = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals("q=" + q, expected, sketch.quantile(q), relativeAccuracy * Math.abs(expected) * (1 + 1e-9));
+        }
+    }
+
+    public void testZeroAndTinyValues() {
+        final DDSketchState sketch = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        sketch.add(0);
+        sketch.add(Double.MIN_VALUE);
+        sketch.add(-Double.MIN_VALUE);
+        assertEquals(3, sketch.size());
+        assertEquals(0d, sketch.quantile(0.5), 0d);
+        expectThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+    }
+
+    public void testCdf() {
+        final DDSketchState sketch = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        assertTrue(Double.isNaN(sketch.cdf(1)));
+        for (int i = 1; i <= 100; ++i) {
+            sketch.add(i);
+        }
+        assertEquals(0d, sketch.cdf(0.5), 0d);
+        assertEquals(1d, sketch.cdf(100), 0d);
+        assertEquals(0.5d, sketch.cdf(50), 0.02d);
+    }
+
+    public void testMerge() {
+        final DDSketchState all = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        final DDSketchState merged = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        final DDSketchState[] parts = new DDSketchState[randomIntBetween(2, 10)];
+        for (int i = 0; i < parts.length; ++i) {
+            parts[i] = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        }
+        final int numValues = randomIntBetween(0, 10000);
+        for (int i = 0; i < numValues; ++i) {
+            final double value = randomDoubleBetween(-1000, 1000, true);
+            all.add(value);
+            parts[randomInt(parts.length - 1)].add(value);
+        }
+        for (DDSketchState part : parts) {
+            merged.add(part);
+        }
+        assertEquals(all, merged);
+        assertEquals(all.hashCode(), merged.hashCode());
+
+        expectThrows(IllegalArgumentException.class, () -> merged.add(new DDSketchState(0.05)));
+    }
+
+    public void testBoundedNumberOfBuckets() {
+        final double relativeAccuracy = 0.01;
+        final DDSketchState sketch = new DDSketchState(relativeAccuracy);
+        // spans way more buckets than a sketch keeps, the buckets of the lowest values get collapsed
+        for (int exponent = -300; exponent <= 300; ++exponent) {
+            sketch.add(Math.pow(10, exponent));
+        }
+        final double expected = Math.pow(10, 294);
+        assertEquals(expected, sketch.quantile(0.99), relativeAccuracy * expected);
+        assertEquals(Math.pow(10, -300), sketch.quantile(0), 0d);
+    }
+
+    public void testRamBytesUsed() {
+        final DDSketchState sketch = new DDSketchState(0.01);
+        final long empty = sketch.ramBytesUsed();
+        sketch.add(1);
+        final long oneBucket = sketch.ramBytesUsed();
+        assertThat(oneBucket, greaterThan(empty));
+        // values that fall in buckets the sketch already has don't allocate
+        sketch.add(1.001);
+        assertEquals(oneBucket, sketch.ramBytesUsed());
+        long previous = oneBucket;
+        for (int exponent = -300; exponent <= 300; ++exponent) {
+            sketch.add(Math.pow(10, exponent));
+            sketch.add(-Math.pow(10, exponent));
+            assertThat(sketch.ramBytesUsed(), greaterThanOrEqualTo(previous));
+            previous = sketch.ramBytesUsed();
+        }
+        // both signs are capped to the maximum number of buckets
+        assertThat(sketch.ramBytesUsed(), lessThanOrEqualTo(empty + 2 * RamUsageEstimator.sizeOf(new long[DDSketchState.MAX_BUCKETS])));
+    }
+
+    public void testSerialization() throws IOException {
+        final DDSketchState sketch = new DDSketchState(randomDoubleBetween(0.001, 0.5, true));
+        final int numValues = randomIntBetween(0, 1000);
+        for (int i = 0; i < numValues; ++i) {
+            sketch.add(randomDoubleBetween(-1000, 1000, true), randomIntBetween(1, 10));
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            DDSketchState.write(sketch, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                final DDSketchState read = DDSketchState.read(in);
+                assertEquals(sketch, read);
+                assertEquals(sketch.size(), read.size());
+                assertEquals(sketch.quantile(0.5), read.quantile(0.5), 0d);
+            }
+        }
+    }
+}
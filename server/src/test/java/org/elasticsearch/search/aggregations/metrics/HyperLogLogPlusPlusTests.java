@@ -25,6 +25,8 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.Arrays;
+
 import static org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
@@ -118,6 +120,45 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         assertEquals(1, counts.cardinality(0));
     }
 
+    public void testMaxRegisters() {
+        for (int iter = 0; iter < 1000; ++iter) {
+            long a = 0;
+            long b = 0;
+            long expected = 0;
+            for (int i = 0; i < Long.BYTES; ++i) {
+                // registers hold run lengths, which never exceed 64
+                final long x = randomIntBetween(0, 64);
+                final long y = randomIntBetween(0, 64);
+                a |= x << (i * 8);
+                b |= y << (i * 8);
+                expected |= Math.max(x, y) << (i * 8);
+            }
+            assertEquals(expected, HyperLogLogPlusPlus.maxRegisters(a, b));
+        }
+    }
+
+    public void testManySparseBuckets() {
+        final int p = randomIntBetween(14, MAX_PRECISION);
+        final int numBuckets = randomIntBetween(100, 10000);
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+             HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            final int[] expected = new int[numBuckets];
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                final int numValues = randomIntBetween(0, 3);
+                for (int i = 0; i < numValues; ++i) {
+                    counts.collect(bucket, BitMixer.mix64(bucket * 4 + i));
+                }
+                expected[bucket] = numValues;
+            }
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                assertEquals(expected[bucket], counts.cardinality(bucket));
+                merged.merge(0, counts, bucket);
+            }
+            final long total = Arrays.stream(expected).sum();
+            assertThat((double) merged.cardinality(0), closeTo(total, 0.1 * total));
+        }
+    }
+
     public void testPrecisionFromThreshold() {
         assertEquals(4, HyperLogLogPlusPlus.precisionFromThreshold(0));
         assertEquals(6, HyperLogLogPlusPlus.precisionFromThreshold(10));
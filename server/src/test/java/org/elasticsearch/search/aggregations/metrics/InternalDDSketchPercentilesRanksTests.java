@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.common.io.stream.Writeable.Reader;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.metrics.InternalDDSketchPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.ParsedDDSketchPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.DDSketchState;
+import org.elasticsearch.search.aggregations.metrics.InternalPercentilesRanksTestCase;
+import org.elasticsearch.search.aggregations.metrics.ParsedPercentiles;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InternalDDSketchPercentilesRanksTests extends InternalPercentilesRanksTestCase<InternalDDSketchPercentileRanks> {
+
+    @Override
+    protected InternalDDSketchPercentileRanks createTestInstance(String name, List<PipelineAggregator> aggregators,
+                                                                Map<String, Object> metadata,
+                                                                boolean keyed, DocValueFormat format, double[] percents, double[] values) {
+        final DDSketchState state = new DDSketchState(DDSketchState.DEFAULT_RELATIVE_ACCURACY);
+        Arrays.stream(values).forEach(state::add);
+
+        assertEquals(state.size(), values.length);
+        return new InternalDDSketchPercentileRanks(name, percents, state, keyed, format, aggregators, metadata);
+    }
+
+    @Override
+    protected void assertReduced(InternalDDSketchPercentileRanks reduced, List<InternalDDSketchPercentileRanks> inputs) {
+        // it is hard to check the values due to the inaccuracy of the algorithm
+        // the min/max values should be accurate due to the way the algo works so we can at least test those
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long totalCount = 0;
+        for (InternalDDSketchPercentileRanks ranks : inputs) {
+            if (ranks.state.size() == 0) {
+                // quantiles would return NaN
+                continue;
+            }
+            totalCount += ranks.state.size();
+            min = Math.min(ranks.state.quantile(0), min);
+            max = Math.max(ranks.state.quantile(1), max);
+        }
+        assertEquals(totalCount, reduced.state.size());
+        if (totalCount > 0) {
+            assertEquals(reduced.state.quantile(0), min, 0d);
+            assertEquals(reduced.state.quantile(1), max, 0d);
+        }
+    }
+
+    @Override
+    protected Reader<InternalDDSketchPercentileRanks> instanceReader() {
+        return InternalDDSketchPercentileRanks::new;
+    }
+
+    @Override
+    protected Class<? extends ParsedPercentiles> implementationClass() {
+        return ParsedDDSketchPercentileRanks.class;
+    }
+
+    @Override
+    protected InternalDDSketchPercentileRanks mutateInstance(InternalDDSketchPercentileRanks instance) {
+        String name = instance.getName();
+        double[] percents = instance.keys;
+        DDSketchState state = instance.state;
+        boolean keyed = instance.keyed;
+        DocValueFormat formatter = instance.formatter();
+        List<PipelineAggregator> pipelineAggregators = instance.pipelineAggregators();
+        Map<String, Object> metaData = instance.getMetaData();
+        switch (between(0, 4)) {
+        case 0:
+            name += randomAlphaOfLength(5);
+            break;
+        case 1:
+            percents = Arrays.copyOf(percents, percents.length + 1);
+            percents[percents.length - 1] = randomDouble() * 100;
+            Arrays.sort(percents);
+            break;
+        case 2:
+            DDSketchState newState = new DDSketchState(state.relativeAccuracy());
+            newState.add(state);
+            for (int i = 0; i < between(10, 100); i++) {
+                newState.add(randomDouble());
+            }
+            state = newState;
+            break;
+        case 3:
+            keyed = keyed == false;
+            break;
+        case 4:
+            if (metaData == null) {
+                metaData = new HashMap<>(1);
+            } else {
+                metaData = new HashMap<>(instance.getMetaData());
+            }
+            metaData.put(randomAlphaOfLength(15), randomInt());
+            break;
+        default:
+            throw new AssertionError("Illegal randomisation branch");
+        }
+        return new InternalDDSketchPercentileRanks(name, percents, state, keyed, formatter, pipelineAggregators, metaData);
+    }
+}
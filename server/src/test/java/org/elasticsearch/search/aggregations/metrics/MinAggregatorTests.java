@@ -725,6 +725,13 @@ public class MinAggregatorTests extends AggregatorTestCase {
                     mockNumericValuesSourceConfig("number", type, true)
                 )
             );
+            assertNotNull(
+                MinAggregator.getPointReaderOrNull(
+                    mockSearchContext(LongPoint.newRangeQuery("other", 0, 10)),
+                    null,
+                    mockNumericValuesSourceConfig("number", type, true)
+                )
+            );
             assertNull(
                 MinAggregator.getPointReaderOrNull(
                     mockSearchContext(null),
@@ -799,6 +806,47 @@ public class MinAggregatorTests extends AggregatorTestCase {
             (v) -> DoublePoint.decodeDimension(v, 0));
     }
 
+    public void testShortcutOnQueryCoveringSegment() throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("number");
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                for (long value = 0; value < 100; value++) {
+                    Document document = new Document();
+                    document.add(new LongPoint("number", value));
+                    document.add(new SortedNumericDocValuesField("number", value));
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newSearcher(reader, false, true);
+                LeafReaderContext ctx = reader.leaves().get(0);
+
+                Query covering = LongPoint.newRangeQuery("number", -10, 1000);
+                assertTrue(SegmentCoverage.matchesAllDocs(covering, ctx.reader()));
+                assertEquals(0, searchMin(searcher, covering, fieldType), 0);
+
+                Query partial = LongPoint.newRangeQuery("number", 10, 50);
+                assertFalse(SegmentCoverage.matchesAllDocs(partial, ctx.reader()));
+                assertEquals(10, searchMin(searcher, partial, fieldType), 0);
+
+                Query unknownField = LongPoint.newRangeQuery("other", -10, 1000);
+                assertFalse(SegmentCoverage.matchesAllDocs(unknownField, ctx.reader()));
+            }
+        }
+    }
+
+    private double searchMin(IndexSearcher searcher, Query query, MappedFieldType fieldType) throws IOException {
+        MinAggregationBuilder aggregationBuilder = new MinAggregationBuilder("min").field(fieldType.name());
+        MinAggregator aggregator = createAggregator(query, aggregationBuilder, searcher, createIndexSettings(), fieldType);
+        aggregator.preCollection();
+        searcher.search(query, aggregator);
+        aggregator.postCollection();
+        return ((InternalMin) aggregator.buildAggregation(0L)).getValue();
+    }
+
     private void testMinCase(IndexSearcher searcher,
                                 AggregationBuilder aggregationBuilder,
                                 MappedFieldType ft,
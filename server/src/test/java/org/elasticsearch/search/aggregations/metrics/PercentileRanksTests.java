@@ -41,6 +41,12 @@ public class PercentileRanksTests extends BaseAggregationTestCase<PercentileRank
         if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
         }
+        if (randomBoolean()) {
+            factory.relativeAccuracy(randomDoubleBetween(0.001, 0.5, true));
+        }
+        if (randomBoolean()) {
+            factory.method(randomFrom(PercentilesMethod.values()));
+        }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
         if (randomBoolean()) {
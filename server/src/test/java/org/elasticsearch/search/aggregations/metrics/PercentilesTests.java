@@ -50,6 +50,12 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
         if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
         }
+        if (randomBoolean()) {
+            factory.relativeAccuracy(randomDoubleBetween(0.001, 0.5, true));
+        }
+        if (randomBoolean()) {
+            factory.method(randomFrom(PercentilesMethod.values()));
+        }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
         if (randomBoolean()) {
@@ -20,12 +20,18 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
@@ -185,6 +191,40 @@ public class ValueCountAggregatorTests extends AggregatorTestCase {
         }, fieldType);
     }
 
+    public void testCountFromPointsOnQueryCoveringSegment() throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName(FIELD_NAME);
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                for (long value = 0; value < 100; value++) {
+                    Document document = new Document();
+                    document.add(new LongPoint(FIELD_NAME, value));
+                    document.add(new SortedNumericDocValuesField(FIELD_NAME, value));
+                    if (value % 2 == 0) {
+                        document.add(new LongPoint(FIELD_NAME, value + 1));
+                        document.add(new SortedNumericDocValuesField(FIELD_NAME, value + 1));
+                    }
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, true);
+                ValueCountAggregationBuilder aggregationBuilder = new ValueCountAggregationBuilder("_name", ValueType.LONG)
+                    .field(FIELD_NAME);
+                for (Query query : Arrays.asList(new MatchAllDocsQuery(), LongPoint.newRangeQuery(FIELD_NAME, 0, 1000))) {
+                    ValueCountAggregator aggregator = createAggregator(query, aggregationBuilder, indexSearcher,
+                        createIndexSettings(), fieldType);
+                    aggregator.preCollection();
+                    indexSearcher.search(query, aggregator);
+                    aggregator.postCollection();
+                    assertEquals(150L, ((InternalValueCount) aggregator.buildAggregation(0L)).getValue());
+                }
+            }
+        }
+    }
+
     private void testCase(Query query,
                           ValueType valueType,
                           CheckedConsumer<RandomIndexWriter, IOException> indexer,
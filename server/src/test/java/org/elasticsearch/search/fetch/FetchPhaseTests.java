@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class FetchPhaseTests extends ESTestCase {
+
+    public void testHasDenseDocs() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                writer.addDocument(new Document());
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                LeafReaderContext leaf = reader.leaves().get(0);
+
+                // too few hits
+                assertFalse(FetchPhase.hasDenseDocs(docs(0, 1, 2, 3), 0, leaf));
+                // every document of a range
+                assertTrue(FetchPhase.hasDenseDocs(docs(10, 11, 12, 13, 14, 15, 16, 17, 18, 19), 0, leaf));
+                // every other document of a range
+                assertTrue(FetchPhase.hasDenseDocs(docs(0, 2, 4, 6, 8, 10, 12, 14, 16, 18), 0, leaf));
+                // hits spread over the whole segment
+                assertFalse(FetchPhase.hasDenseDocs(docs(0, 10, 20, 30, 40, 50, 60, 70, 80, 90), 0, leaf));
+                // only the hits from the given offset count
+                assertFalse(FetchPhase.hasDenseDocs(docs(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10), 2, leaf));
+            }
+        }
+    }
+
+    private static FetchPhase.DocIdToIndex[] docs(int... docIds) {
+        FetchPhase.DocIdToIndex[] docs = new FetchPhase.DocIdToIndex[docIds.length];
+        for (int i = 0; i < docIds.length; i++) {
+            docs[i] = new FetchPhase.DocIdToIndex(docIds[i], i);
+        }
+        Arrays.sort(docs);
+        return docs;
+    }
+}
@@ -53,6 +53,7 @@ import org.elasticsearch.plugins.AnalysisPlugin;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder.BoundaryScannerType;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder.Field;
@@ -1104,6 +1105,40 @@ public class HighlighterSearchIT extends ESIntegTestCase {
                 .endObject().endObject();
     }
 
+    public void testConcurrentHighlighting() throws Exception {
+        assertAcked(prepareCreate("test")
+            .setSettings(Settings.builder().put("index.number_of_shards", 1))
+            .setMapping(type1TermVectorMapping()));
+        ensureGreen();
+
+        IndexRequestBuilder[] indexRequestBuilders = new IndexRequestBuilder[200];
+        for (int i = 0; i < indexRequestBuilders.length; i++) {
+            indexRequestBuilders[i] = client().prepareIndex("test").setId(Integer.toString(i))
+                .setSource("field1", "this is test number " + i);
+        }
+        indexRandom(true, indexRequestBuilders);
+
+        assertAcked(client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.MAX_FETCH_CONCURRENCY.getKey(), 4)));
+        try {
+            for (String type : ALL_TYPES) {
+                SearchResponse searchResponse = client().prepareSearch("test")
+                    .setQuery(termQuery("field1", "test"))
+                    .setSize(indexRequestBuilders.length)
+                    .highlighter(new HighlightBuilder().field(new Field("field1").highlighterType(type)))
+                    .get();
+                assertHitCount(searchResponse, indexRequestBuilders.length);
+                for (int i = 0; i < indexRequestBuilders.length; i++) {
+                    SearchHit hit = searchResponse.getHits().getAt(i);
+                    assertHighlight(hit, "field1", 0, 1, equalTo("this is <em>test</em> number " + hit.getId()));
+                }
+            }
+        } finally {
+            assertAcked(client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.MAX_FETCH_CONCURRENCY.getKey())));
+        }
+    }
+
     public void testSameContent() throws Exception {
         assertAcked(prepareCreate("test")
                 .setMapping("title", "type=text,store=true,term_vector=with_positions_offsets"));
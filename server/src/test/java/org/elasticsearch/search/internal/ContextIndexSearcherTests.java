@@ -22,6 +22,7 @@ package org.elasticsearch.search.internal;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
@@ -40,6 +41,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -47,8 +49,12 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -61,23 +67,32 @@ import org.apache.lucene.util.SparseFixedBitSet;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -253,6 +268,136 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testSearchConcurrently() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(6, 20);
+        int rank = 0;
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = 0; j < 10; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomFrom("bar", "baz"), Field.Store.NO));
+                doc.add(new NumericDocValuesField("rank", rank++));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        ContextIndexSearcher sequential = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        Sort sort = new Sort(new SortField("rank", SortField.Type.LONG, true));
+        Query query = new TermQuery(new Term("foo", "bar"));
+        TopFieldDocs expected = sequential.search(query, 15, sort);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Executor rejecting = command -> {
+            throw new EsRejectedExecutionException("rejected");
+        };
+        try {
+            for (Executor concurrentSearchExecutor : new Executor[] { executor, rejecting }) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), concurrentSearchExecutor);
+                assertTrue(searcher.hasConcurrentSearchExecutor());
+                TopFieldDocs topDocs = searcher.searchConcurrently(query,
+                    TopFieldCollector.createSharedManager(sort, 15, null, Integer.MAX_VALUE));
+                assertEquals(expected.totalHits, topDocs.totalHits);
+                assertEquals(expected.scoreDocs.length, topDocs.scoreDocs.length);
+                for (int i = 0; i < expected.scoreDocs.length; i++) {
+                    assertEquals(expected.scoreDocs[i].doc, topDocs.scoreDocs[i].doc);
+                }
+
+                searcher.setCheckCancelled(() -> {
+                    throw new TaskCancelledException("cancelled");
+                });
+                expectThrows(TaskCancelledException.class, () -> searcher.searchConcurrently(query,
+                    TopFieldCollector.createSharedManager(sort, 15, null, Integer.MAX_VALUE)));
+            }
+        } finally {
+            terminate(executor);
+        }
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testSearchConcurrentlyDoesNotWaitForQueuedSlices() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(6, 20);
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = 0; j < 10; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", "bar", Field.Store.NO));
+                doc.add(new NumericDocValuesField("rank", i * 10 + j));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        // an executor whose threads are all busy, the tasks stay in its queue until the search is done
+        List<Runnable> queued = new ArrayList<>();
+        ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), queued::add);
+        Sort sort = new Sort(new SortField("rank", SortField.Type.LONG, true));
+        TopFieldDocs topDocs = searcher.searchConcurrently(new MatchAllDocsQuery(),
+            TopFieldCollector.createSharedManager(sort, 15, null, Integer.MAX_VALUE));
+        assertThat(queued.size(), greaterThan(0));
+        assertEquals(numSegments * 10, topDocs.totalHits.value);
+        assertEquals(15, topDocs.scoreDocs.length);
+        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+            assertEquals(numSegments * 10 - 1 - i, ((Long) ((FieldDoc) topDocs.scoreDocs[i]).fields[0]).longValue());
+        }
+        // the tasks find no slice left to search once they eventually run
+        queued.forEach(Runnable::run);
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testSearchConcurrentlySplitsLargeSegments() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null));
+        int numDocs = randomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("foo", randomFrom("bar", "baz"), Field.Store.NO));
+            doc.add(new NumericDocValuesField("rank", i));
+            w.addDocument(doc);
+        }
+        w.forceMerge(1);
+        DirectoryReader reader = DirectoryReader.open(w);
+        assertEquals(1, reader.leaves().size());
+        ContextIndexSearcher sequential = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+        Sort sort = new Sort(new SortField("rank", SortField.Type.LONG, true));
+        Query query = new TermQuery(new Term("foo", "bar"));
+        TopFieldDocs expected = sequential.search(query, 15, sort);
+
+        int maxDocsPerPartition = randomIntBetween(10, 50);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), executor, maxDocsPerPartition);
+            ContextIndexSearcher.LeafPartition[][] slices = searcher.slices(reader.leaves(), maxDocsPerPartition);
+            assertThat(slices.length, greaterThan(1));
+            int nextDocId = 0;
+            for (ContextIndexSearcher.LeafPartition[] slice : slices) {
+                assertEquals(1, slice.length);
+                assertEquals(nextDocId, slice[0].minDocId);
+                assertThat(slice[0].maxDocId - slice[0].minDocId, lessThanOrEqualTo(maxDocsPerPartition));
+                nextDocId = slice[0].maxDocId;
+            }
+            assertEquals(reader.maxDoc(), nextDocId);
+
+            TopFieldDocs topDocs = searcher.searchConcurrently(query,
+                TopFieldCollector.createSharedManager(sort, 15, null, Integer.MAX_VALUE));
+            assertEquals(expected.totalHits, topDocs.totalHits);
+            assertEquals(expected.scoreDocs.length, topDocs.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, topDocs.scoreDocs[i].doc);
+            }
+        } finally {
+            terminate(executor);
+        }
+        IOUtils.close(reader, w, dir);
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -25,6 +25,8 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.search.profile.aggregation.AggregationProfileShardResult;
 import org.elasticsearch.search.profile.aggregation.AggregationProfileShardResultTests;
+import org.elasticsearch.search.profile.fetch.FetchProfileShardResult;
+import org.elasticsearch.search.profile.fetch.FetchProfileShardResultTests;
 import org.elasticsearch.search.profile.query.QueryProfileShardResult;
 import org.elasticsearch.search.profile.query.QueryProfileShardResultTests;
 import org.elasticsearch.test.ESTestCase;
@@ -54,7 +56,9 @@ public class SearchProfileShardResultsTests  extends ESTestCase {
                 queryProfileResults.add(QueryProfileShardResultTests.createTestItem());
             }
             AggregationProfileShardResult aggProfileShardResult = AggregationProfileShardResultTests.createTestItem(1);
-            searchProfileResults.put(randomAlphaOfLengthBetween(5, 10), new ProfileShardResult(queryProfileResults, aggProfileShardResult));
+            FetchProfileShardResult fetchProfileShardResult = randomBoolean() ? FetchProfileShardResultTests.createTestItem() : null;
+            searchProfileResults.put(randomAlphaOfLengthBetween(5, 10),
+                new ProfileShardResult(queryProfileResults, aggProfileShardResult, fetchProfileShardResult));
         }
         return new SearchProfileShardResults(searchProfileResults);
     }
@@ -71,6 +71,8 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
@@ -83,6 +85,7 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.test.TestSearchContext;
 
@@ -90,13 +93,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.search.query.QueryPhase.indexFieldHasDuplicateData;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.spy;
@@ -834,6 +840,66 @@ public class QueryPhaseTests extends IndexShardTestCase {
 
     }
 
+    public void testConcurrentSearchKeepsPartialResultsOnTimeout() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(20, 30);
+        for (int i = 0; i < numSegments; i++) {
+            for (int j = 0; j < 10; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomFrom("bar", "baz"), Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+
+        IndexReader reader = DirectoryReader.open(dir);
+        // slices that the executor rejects are searched by the calling thread, so that the slices time out in a predictable order
+        ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), command -> {
+                throw new EsRejectedExecutionException("rejected");
+            });
+        final ShardSearchRequest request = mock(ShardSearchRequest.class);
+        when(request.allowPartialSearchResults()).thenReturn(true);
+        final AtomicInteger clockReads = new AtomicInteger();
+        TestSearchContext context = new TestSearchContext(null, indexShard, searcher) {
+            @Override
+            public ShardSearchRequest request() {
+                return request;
+            }
+
+            @Override
+            public TimeValue timeout() {
+                return TimeValue.timeValueMillis(1);
+            }
+
+            @Override
+            public long getRelativeTimeInMillis() {
+                // the timeout expires once the first few segments were searched
+                return clockReads.incrementAndGet() > 8 ? 10L : 0L;
+            }
+        };
+        context.parsedQuery(new ParsedQuery(new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+            .build()));
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        context.setSize(10);
+        context.trackTotalHitsUpTo(Integer.MAX_VALUE);
+
+        QueryPhase.executeInternal(context);
+        assertTrue(context.queryResult().searchTimedOut());
+        // the hits that were collected before the timeout are returned, as with a sequential search
+        TopDocs topDocs = context.queryResult().topDocs().topDocs;
+        assertThat(topDocs.scoreDocs.length, greaterThan(0));
+        assertThat(topDocs.totalHits.value, greaterThanOrEqualTo((long) topDocs.scoreDocs.length));
+        assertThat(topDocs.totalHits.value, lessThan(numSegments * 10L));
+
+        reader.close();
+        dir.close();
+    }
+
     private static ContextIndexSearcher newContextSearcher(IndexReader reader) {
         return new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
             IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
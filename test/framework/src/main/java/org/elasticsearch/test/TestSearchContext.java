@@ -63,6 +63,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class TestSearchContext extends SearchContext {
     public static final SearchShardTarget SHARD_TARGET =
@@ -332,6 +333,16 @@ public class TestSearchContext extends SearchContext {
         return false;
     }
 
+    @Override
+    public Executor fetchExecutor() {
+        return null;
+    }
+
+    @Override
+    public int fetchMaxConcurrency() {
+        return 1;
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         this.minScore = minimumScore;
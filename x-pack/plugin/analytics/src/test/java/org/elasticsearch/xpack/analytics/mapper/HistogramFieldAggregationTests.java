@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.analytics.mapper;
+
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.metrics.Avg;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.Min;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.xpack.analytics.AnalyticsPlugin;
+import org.elasticsearch.xpack.core.LocalStateCompositeXPackPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+
+public class HistogramFieldAggregationTests extends ESSingleNodeTestCase {
+
+    public void testMetricsAndHistogram() throws Exception {
+        createIndex("raw");
+        client().admin().indices().putMapping(new PutMappingRequest("raw").source(mapping("long"))).actionGet();
+        createIndex("pre_agg");
+        client().admin().indices().putMapping(new PutMappingRequest("pre_agg").source(mapping("histogram"))).actionGet();
+
+        // integer values are summarized without loss, so both indices must give the same results
+        Map<Double, Integer> histogram = new TreeMap<>();
+        BulkRequest bulkRequest = new BulkRequest();
+        int numDocs = 2000;
+        int frq = 200;
+        for (int i = 0; i < numDocs; i++) {
+            long value = randomIntBetween(-50, 1000);
+            bulkRequest.add(new IndexRequest("raw").source(XContentFactory.jsonBuilder()
+                .startObject()
+                  .field("data", value)
+                .endObject()));
+            histogram.merge((double) value, 1, Integer::sum);
+            if ((i + 1) % frq == 0) {
+                client().bulk(bulkRequest).get();
+                bulkRequest = new BulkRequest();
+                XContentBuilder preAggDoc = XContentFactory.jsonBuilder()
+                    .startObject()
+                      .startObject("data")
+                        .field("values", histogram.keySet().toArray(new Double[0]))
+                        .field("counts", histogram.values().toArray(new Integer[0]))
+                      .endObject()
+                    .endObject();
+                client().prepareIndex("pre_agg").setSource(preAggDoc).get();
+                histogram.clear();
+            }
+        }
+        client().admin().indices().refresh(new RefreshRequest("raw", "pre_agg")).get();
+
+        SearchResponse responseRaw = client().prepareSearch("raw").setSize(0)
+            .addAggregation(AggregationBuilders.sum("sum").field("data"))
+            .addAggregation(AggregationBuilders.count("count").field("data"))
+            .addAggregation(AggregationBuilders.avg("avg").field("data"))
+            .addAggregation(AggregationBuilders.min("min").field("data"))
+            .addAggregation(AggregationBuilders.max("max").field("data"))
+            .addAggregation(AggregationBuilders.histogram("histo").field("data").interval(100))
+            .get();
+        SearchResponse responsePreAgg = client().prepareSearch("pre_agg").setSize(0)
+            .addAggregation(AggregationBuilders.sum("sum").field("data"))
+            .addAggregation(AggregationBuilders.count("count").field("data"))
+            .addAggregation(AggregationBuilders.avg("avg").field("data"))
+            .addAggregation(AggregationBuilders.min("min").field("data"))
+            .addAggregation(AggregationBuilders.max("max").field("data"))
+            .addAggregation(AggregationBuilders.histogram("histo").field("data").interval(100))
+            .get();
+        assertSearchResponse(responseRaw);
+        assertSearchResponse(responsePreAgg);
+
+        assertEquals(numDocs, ((ValueCount) responseRaw.getAggregations().get("count")).getValue());
+        assertEquals(numDocs, ((ValueCount) responsePreAgg.getAggregations().get("count")).getValue());
+        assertEquals(((Sum) responseRaw.getAggregations().get("sum")).getValue(),
+            ((Sum) responsePreAgg.getAggregations().get("sum")).getValue(), 0d);
+        assertEquals(((Avg) responseRaw.getAggregations().get("avg")).getValue(),
+            ((Avg) responsePreAgg.getAggregations().get("avg")).getValue(), 1e-10);
+        assertEquals(((Min) responseRaw.getAggregations().get("min")).getValue(),
+            ((Min) responsePreAgg.getAggregations().get("min")).getValue(), 0d);
+        assertEquals(((Max) responseRaw.getAggregations().get("max")).getValue(),
+            ((Max) responsePreAgg.getAggregations().get("max")).getValue(), 0d);
+
+        List<? extends Histogram.Bucket> rawBuckets = ((Histogram) responseRaw.getAggregations().get("histo")).getBuckets();
+        List<? extends Histogram.Bucket> preAggBuckets = ((Histogram) responsePreAgg.getAggregations().get("histo")).getBuckets();
+        assertEquals(rawBuckets.size(), preAggBuckets.size());
+        for (int i = 0; i < rawBuckets.size(); i++) {
+            assertEquals(rawBuckets.get(i).getKey(), preAggBuckets.get(i).getKey());
+            assertEquals(rawBuckets.get(i).getDocCount(), preAggBuckets.get(i).getDocCount());
+        }
+    }
+
+    private static XContentBuilder mapping(String type) throws Exception {
+        return XContentFactory.jsonBuilder()
+            .startObject()
+              .startObject("_doc")
+                .startObject("properties")
+                  .startObject("data")
+                    .field("type", type)
+                  .endObject()
+                .endObject()
+              .endObject()
+            .endObject();
+    }
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        List<Class<? extends Plugin>> plugins = new ArrayList<>(super.getPlugins());
+        plugins.add(AnalyticsPlugin.class);
+        plugins.add(LocalStateCompositeXPackPlugin.class);
+        return plugins;
+    }
+}
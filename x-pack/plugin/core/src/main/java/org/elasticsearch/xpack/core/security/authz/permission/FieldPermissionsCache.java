@@ -39,6 +39,8 @@ public final class FieldPermissionsCache {
         this.cache = CacheBuilder.<FieldPermissionsDefinition, FieldPermissions>builder()
                 .setMaximumWeight(CACHE_SIZE_SETTING.get(settings))
                 .weigher((key, fieldPermissions) -> fieldPermissions.ramBytesUsed())
+                // the definitions of the roles in use are looked up over and over, don't let one-off definitions flush them out
+                .setFrequencyBasedAdmission(true)
                 .build();
     }
 
@@ -5,13 +5,23 @@
  */
 package org.elasticsearch.xpack.security.authz;
 
+import org.elasticsearch.ElasticsearchSecurityException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchContextMissingException;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.test.SecurityIntegTestCase;
 import org.elasticsearch.test.SecuritySettingsSourceField;
 import org.elasticsearch.xpack.core.security.action.role.PutRoleRequestBuilder;
@@ -24,6 +34,7 @@ import java.util.Collections;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class SecurityScrollTests extends SecurityIntegTestCase {
@@ -71,6 +82,80 @@ public class SecurityScrollTests extends SecurityIntegTestCase {
         }
     }
 
+    public void testPointInTimeIsPerUser() throws Exception {
+        assertSecurityIndexActive();
+        new PutRoleRequestBuilder(client()).name("pit_reader")
+                .addIndices(new String[] { "foo" }, new String[] { "read" }, null, null, null, randomBoolean())
+                .get();
+        new PutUserRequestBuilder(client()).username("other")
+            .password(SecuritySettingsSourceField.TEST_PASSWORD_SECURE_STRING, getFastStoredHashAlgoForTests())
+            .roles("pit_reader")
+            .get();
+
+        final int numDocs = randomIntBetween(4, 16);
+        IndexRequestBuilder[] docs = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = client().prepareIndex("foo").setSource("doc", i);
+        }
+        indexRandom(true, docs);
+
+        final String pitId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("foo").keepAlive(TimeValue.timeValueMinutes(1))).get().getId();
+        try {
+            final SearchRequest searchRequest = new SearchRequest("foo")
+                .source(new SearchSourceBuilder().query(matchAllQuery()).pointInTimeBuilder(new PointInTimeBuilder(pitId, null)));
+            final Client other = client().filterWithHeader(Collections.singletonMap("Authorization",
+                UsernamePasswordToken.basicAuthHeaderValue("other", SecuritySettingsSourceField.TEST_PASSWORD_SECURE_STRING)));
+
+            // the other user can read the index, but not through a point in time that it did not open
+            SearchPhaseExecutionException e = expectThrows(SearchPhaseExecutionException.class,
+                () -> other.search(searchRequest).actionGet());
+            for (ShardSearchFailure failure : e.shardFailures()) {
+                assertThat(ExceptionsHelper.unwrapCause(failure.getCause()), instanceOf(SearchContextMissingException.class));
+            }
+            ClearScrollResponse closeResponse = other.execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId)).get();
+            assertEquals(0, closeResponse.getNumFreed());
+
+            // the point in time is still usable by the user that opened it
+            SearchResponse response = client().search(searchRequest).actionGet();
+            assertHitCount(response, numDocs);
+        } finally {
+            ClearScrollResponse closeResponse = client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId)).get();
+            assertTrue(closeResponse.isSucceeded());
+            assertThat(closeResponse.getNumFreed(), greaterThan(0));
+        }
+    }
+
+    public void testPointInTimeRequiresPrivilegesOnItsIndices() throws Exception {
+        assertSecurityIndexActive();
+        new PutRoleRequestBuilder(client()).name("pit_reader")
+                .addIndices(new String[] { "foo" }, new String[] { "read" }, null, null, null, randomBoolean())
+                .get();
+        new PutUserRequestBuilder(client()).username("other")
+            .password(SecuritySettingsSourceField.TEST_PASSWORD_SECURE_STRING, getFastStoredHashAlgoForTests())
+            .roles("pit_reader")
+            .get();
+        indexRandom(true, client().prepareIndex("foo").setSource("doc", 0), client().prepareIndex("bar").setSource("doc", 0));
+
+        final String pitId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("bar").keepAlive(TimeValue.timeValueMinutes(1))).get().getId();
+        try {
+            final Client other = client().filterWithHeader(Collections.singletonMap("Authorization",
+                UsernamePasswordToken.basicAuthHeaderValue("other", SecuritySettingsSourceField.TEST_PASSWORD_SECURE_STRING)));
+            final SearchSourceBuilder source = new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(pitId, null));
+
+            // the indices of the point in time are authorized, naming an index that the user can read does not help
+            expectThrows(ElasticsearchSecurityException.class, () -> other.search(new SearchRequest("bar").source(source)).actionGet());
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> other.search(new SearchRequest("foo").source(source)).actionGet());
+            assertThat(e.getMessage(), equalTo("point in time index [bar] is not part of the requested indices"));
+            expectThrows(ElasticsearchSecurityException.class,
+                () -> other.execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId)).actionGet());
+        } finally {
+            assertTrue(client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId)).get().isSucceeded());
+        }
+    }
+
     public void testSearchAndClearScroll() throws Exception {
         IndexRequestBuilder[] docs = new IndexRequestBuilder[randomIntBetween(20, 100)];
         for (int i = 0; i < docs.length; i++) {
@@ -13,6 +13,7 @@ import org.elasticsearch.license.XPackLicenseState;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.test.ESTestCase;
@@ -166,6 +167,60 @@ public class SecuritySearchOperationListenerTests extends ESTestCase {
         }
     }
 
+    public void testOnNewReaderContextSetsAuthentication() {
+        final ReaderContext readerContext = new ReaderContext(randomNonNegativeLong(), null, null, null, 60000L, () -> 0L);
+        XPackLicenseState licenseState = mock(XPackLicenseState.class);
+        when(licenseState.isAuthAllowed()).thenReturn(true);
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        AuditTrailService auditTrailService = mock(AuditTrailService.class);
+        Authentication authentication = new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null);
+        authentication.writeToContext(threadContext);
+
+        SecuritySearchOperationListener listener = new SecuritySearchOperationListener(threadContext, licenseState, auditTrailService);
+        listener.onNewReaderContext(readerContext);
+
+        Authentication contextAuth = readerContext.getFromContext(AuthenticationField.AUTHENTICATION_KEY);
+        assertEquals(authentication, contextAuth);
+        verify(licenseState).isAuthAllowed();
+        verifyZeroInteractions(auditTrailService);
+    }
+
+    public void testValidateReaderContext() {
+        final ReaderContext readerContext = new ReaderContext(randomNonNegativeLong(), null, null, null, 60000L, () -> 0L);
+        readerContext.putInContext(AuthenticationField.AUTHENTICATION_KEY,
+            new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null));
+        XPackLicenseState licenseState = mock(XPackLicenseState.class);
+        when(licenseState.isAuthAllowed()).thenReturn(true);
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        AuditTrailService auditTrailService = mock(AuditTrailService.class);
+
+        SecuritySearchOperationListener listener = new SecuritySearchOperationListener(threadContext, licenseState, auditTrailService);
+        // the user that opened the point in time can search and close it
+        try (StoredContext ignore = threadContext.newStoredContext(false)) {
+            Authentication authentication = new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null);
+            authentication.writeToContext(threadContext);
+            listener.validateReaderContext(readerContext, Empty.INSTANCE);
+            verify(licenseState).isAuthAllowed();
+            verifyZeroInteractions(auditTrailService);
+        }
+
+        // any other user cannot, regardless of the privileges it has on the indices of the point in time
+        try (StoredContext ignore = threadContext.newStoredContext(false)) {
+            Authentication authentication = new Authentication(new User("other", "role"), new RealmRef("realm", "file", "node"), null);
+            authentication.writeToContext(threadContext);
+            threadContext.putTransient(ORIGINATING_ACTION_KEY, "action");
+            threadContext.putTransient(AUTHORIZATION_INFO_KEY,
+                (AuthorizationInfo) () -> Collections.singletonMap(PRINCIPAL_ROLES_FIELD_NAME, authentication.getUser().roles()));
+            final TransportRequest request = Empty.INSTANCE;
+            SearchContextMissingException expected =
+                expectThrows(SearchContextMissingException.class, () -> listener.validateReaderContext(readerContext, request));
+            assertEquals(readerContext.id(), expected.id());
+            verify(licenseState, times(2)).isAuthAllowed();
+            verify(auditTrailService).accessDenied(eq(null), eq(authentication), eq("action"), eq(request),
+                authzInfoRoles(authentication.getUser().roles()));
+        }
+    }
+
     public void testEnsuredAuthenticatedUserIsSame() {
         Authentication original = new Authentication(new User("test", "role"), new RealmRef("realm", "file", "node"), null);
         Authentication current =